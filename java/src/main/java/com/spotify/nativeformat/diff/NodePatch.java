@@ -0,0 +1,62 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.diff;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.spotify.nativeformat.score.LoadingPolicy;
+import io.norberg.automatter.AutoMatter;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * The changes to a single node whose id and kind are unchanged.
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@AutoMatter
+public interface NodePatch {
+
+  @JsonProperty
+  String id();
+
+  @Nullable
+  @JsonProperty
+  LoadingPolicy loadingPolicy();
+
+  @JsonProperty
+  List<String> removedParams();
+
+  @JsonProperty
+  List<ParamEdit> paramEdits();
+
+  @JsonProperty
+  List<String> removedConfig();
+
+  @JsonProperty
+  Map<String, Object> setConfig();
+
+  static NodePatchBuilder builder() {
+    return new NodePatchBuilder();
+  }
+}
@@ -0,0 +1,61 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.diff;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.spotify.nativeformat.score.Command;
+import io.norberg.automatter.AutoMatter;
+import java.util.List;
+
+/**
+ * Replaces <code>deleteCount</code> commands of a param, starting at <code>index</code>, with the
+ * <code>insert</code> commands. A param that does not exist yet is treated as empty.
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@AutoMatter
+public interface ParamEdit {
+
+  @JsonProperty
+  String param();
+
+  @JsonProperty
+  int index();
+
+  @JsonProperty
+  int deleteCount();
+
+  @JsonProperty
+  List<Command> insert();
+
+  static ParamEdit create(final String param,
+                          final int index,
+                          final int deleteCount,
+                          final List<Command> insert) {
+    return builder().param(param).index(index).deleteCount(deleteCount).insert(insert).build();
+  }
+
+  static ParamEditBuilder builder() {
+    return new ParamEditBuilder();
+  }
+}
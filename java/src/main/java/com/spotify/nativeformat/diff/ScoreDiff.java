@@ -0,0 +1,502 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.diff;
+
+import com.spotify.nativeformat.graph.PersistentGraph;
+import com.spotify.nativeformat.score.Command;
+import com.spotify.nativeformat.score.Edge;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.Score;
+import com.spotify.nativeformat.score.Script;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Computes and applies structural patches between Scores.
+ *
+ * <p>A patch only carries the nodes, edges and scripts that differ. For a node whose kind is
+ * unchanged it only carries the config entries that differ and, per param, a single splice of the
+ * command list. Nudging one ramp therefore produces a patch with one command in it.
+ *
+ * <p>Applying a patch returns a Score whose graph is a {@link PersistentGraph}. Each added,
+ * removed or changed node or edge is one O(log n) edit of the base graph, and everything else is
+ * shared with it. Applying a patch with k changes to a Score returned by {@link #apply(Score,
+ * ScorePatch)}, or to any Score whose graph is a PersistentGraph, therefore takes O(k log n) time.
+ * Any other base graph is first copied into a PersistentGraph in O(n log n) time.
+ *
+ * <p>A patch that reorders nodes or edges, or whose result has duplicate ids or edges to missing
+ * nodes, is applied by rebuilding the node and edge lists. Such a patch already lists every element
+ * it moves or replaces, so the rebuild costs no more than the patch itself.
+ */
+public final class ScoreDiff {
+
+  private ScoreDiff() {}
+
+  /**
+   * Computes the patch that turns <code>from</code> into <code>to</code>.
+   *
+   * @param from the base Score
+   * @param to the target Score
+   * @return a patch such that <code>apply(from, patch)</code> equals <code>to</code>
+   */
+  public static ScorePatch diff(final Score from, final Score to) {
+    final Graph before = from.graph();
+    final Graph after = to.graph();
+    final ScorePatchBuilder patch = ScorePatch.builder()
+        .version(to.version())
+        .graphId(after.id())
+        .loadingPolicy(after.loadingPolicy());
+
+    if (hasUniqueIds(before.nodes(), after.nodes(), Node::id)) {
+      final Map<String, Node> fromNodes = index(before.nodes(), Node::id);
+      final List<Node> addedNodes = new ArrayList<>();
+      final List<NodePatch> changedNodes = new ArrayList<>();
+      for (final Node node : after.nodes()) {
+        final Node old = fromNodes.get(node.id());
+        if (old == node) {
+          continue;
+        }
+        if (old == null || !old.kind().equals(node.kind())) {
+          addedNodes.add(node);
+          continue;
+        }
+        final NodePatch nodePatch = diffNode(old, node);
+        if (nodePatch != null) {
+          changedNodes.add(nodePatch);
+        }
+      }
+      patch
+          .removedNodes(removed(before.nodes(), after.nodes(), Node::id))
+          .addedNodes(addedNodes)
+          .changedNodes(changedNodes)
+          .nodeOrder(order(before.nodes(), after.nodes(), Node::id));
+    } else if (!before.nodes().equals(after.nodes())) {
+      patch.removedNodes(distinctIds(before.nodes(), Node::id)).addedNodes(after.nodes());
+    }
+
+    if (hasUniqueIds(before.edges(), after.edges(), Edge::id)) {
+      patch
+          .removedEdges(removed(before.edges(), after.edges(), Edge::id))
+          .addedEdges(added(before.edges(), after.edges(), Edge::id))
+          .edgeOrder(order(before.edges(), after.edges(), Edge::id));
+    } else if (!before.edges().equals(after.edges())) {
+      patch.removedEdges(distinctIds(before.edges(), Edge::id)).addedEdges(after.edges());
+    }
+
+    if (hasUniqueIds(before.scripts(), after.scripts(), Script::name)) {
+      patch
+          .removedScripts(removed(before.scripts(), after.scripts(), Script::name))
+          .addedScripts(added(before.scripts(), after.scripts(), Script::name))
+          .scriptOrder(order(before.scripts(), after.scripts(), Script::name));
+    } else if (!before.scripts().equals(after.scripts())) {
+      patch
+          .removedScripts(distinctIds(before.scripts(), Script::name))
+          .addedScripts(after.scripts());
+    }
+
+    return patch.build();
+  }
+
+  /**
+   * Applies the given patch to a Score.
+   *
+   * @param base the Score the patch was computed from
+   * @param patch the patch to apply
+   * @return the patched Score, whose graph is a {@link PersistentGraph}
+   * @throws IllegalArgumentException if the patch refers to elements the base does not contain
+   */
+  public static Score apply(final Score base, final ScorePatch patch) {
+    final PersistentGraph graph = PersistentGraph.of(base.graph());
+    PersistentGraph patched = edit(graph, patch);
+    if (patched == null) {
+      patched = rebuild(graph, patch);
+    }
+    final List<Script> scripts = patchList(graph.scripts(), Script::name,
+        patch.removedScripts(), patch.addedScripts(), null, patch.scriptOrder());
+    if (scripts != graph.scripts()) {
+      patched = patched.withScripts(scripts);
+    }
+    return Score.create(
+        patched.withId(patch.graphId()).withLoadingPolicy(patch.loadingPolicy()),
+        patch.version());
+  }
+
+  /**
+   * Applies the node and edge changes of a patch as edits of the graph, or returns null if the
+   * patch reorders nodes or edges, or its result has duplicate ids or edges to missing nodes.
+   */
+  private static PersistentGraph edit(final PersistentGraph base, final ScorePatch patch) {
+    if (!patch.nodeOrder().isEmpty() || !patch.edgeOrder().isEmpty()) {
+      return null;
+    }
+    final Set<String> removedNodes = known(patch.removedNodes(), base::node);
+    final Set<String> removedEdges = known(patch.removedEdges(), base::edge);
+
+    PersistentGraph graph = base;
+    final List<String> unknown = new ArrayList<>();
+    for (final NodePatch nodePatch : patch.changedNodes()) {
+      final Node node = graph.node(nodePatch.id());
+      if (node == null || removedNodes.contains(nodePatch.id())) {
+        unknown.add(nodePatch.id());
+      } else {
+        graph = graph.replaceNode(applyNode(node, nodePatch));
+      }
+    }
+    if (!unknown.isEmpty()) {
+      throw new IllegalArgumentException("patch changes unknown nodes=" + unknown);
+    }
+
+    final Set<String> added = new HashSet<>();
+    for (final Node node : patch.addedNodes()) {
+      if (!added.add(node.id()) || removedNodes.contains(node.id())) {
+        return null;
+      }
+      graph = graph.node(node.id()) == null ? graph.withNode(node) : graph.replaceNode(node);
+    }
+
+    for (final String id : removedEdges) {
+      graph = graph.withoutEdge(id);
+    }
+    added.clear();
+    for (final Edge edge : patch.addedEdges()) {
+      if (!added.add(edge.id()) || removedEdges.contains(edge.id())
+          || !hasNode(graph, removedNodes, edge.source())
+          || !hasNode(graph, removedNodes, edge.target())) {
+        return null;
+      }
+      graph = graph.edge(edge.id()) == null ? graph.withEdge(edge) : graph.replaceEdge(edge);
+    }
+
+    for (final String id : removedNodes) {
+      if (!graph.incidentEdges(id).isEmpty()) {
+        return null;
+      }
+      graph = graph.withoutNode(id);
+    }
+    return graph;
+  }
+
+  /**
+   * Applies the node and edge changes of a patch by rebuilding the node and edge lists.
+   */
+  private static PersistentGraph rebuild(final PersistentGraph graph, final ScorePatch patch) {
+    final Map<String, NodePatch> changed = new HashMap<>();
+    for (final NodePatch nodePatch : patch.changedNodes()) {
+      changed.put(nodePatch.id(), nodePatch);
+    }
+    final UnaryOperator<Node> update;
+    if (changed.isEmpty()) {
+      update = null;
+    } else {
+      update = node -> {
+        final NodePatch nodePatch = changed.remove(node.id());
+        return nodePatch == null ? node : applyNode(node, nodePatch);
+      };
+    }
+
+    final List<Node> nodes = patchList(graph.nodes(), Node::id,
+        patch.removedNodes(), patch.addedNodes(), update, patch.nodeOrder());
+    if (!changed.isEmpty()) {
+      throw new IllegalArgumentException("patch changes unknown nodes=" + changed.keySet());
+    }
+    final List<Edge> edges = patchList(graph.edges(), Edge::id,
+        patch.removedEdges(), patch.addedEdges(), null, patch.edgeOrder());
+
+    return PersistentGraph.of(
+        Graph.create(graph.id(), graph.loadingPolicy(), nodes, edges, graph.scripts()));
+  }
+
+  /**
+   * Returns the given ids as a set, checking that the graph has an element with each of them.
+   */
+  private static Set<String> known(final List<String> ids, final Function<String, ?> lookup) {
+    final Set<String> known = new LinkedHashSet<>(ids);
+    final List<String> unknown = new ArrayList<>();
+    for (final String id : known) {
+      if (lookup.apply(id) == null) {
+        unknown.add(id);
+      }
+    }
+    if (!unknown.isEmpty()) {
+      throw new IllegalArgumentException("patch removes unknown ids=" + unknown);
+    }
+    return known;
+  }
+
+  private static boolean hasNode(final PersistentGraph graph,
+                                 final Set<String> removed,
+                                 final String id) {
+    return id != null && graph.node(id) != null && !removed.contains(id);
+  }
+
+  private static NodePatch diffNode(final Node from, final Node to) {
+    final NodePatchBuilder builder = NodePatch.builder()
+        .id(to.id())
+        .loadingPolicy(to.loadingPolicy());
+    boolean changed = !Objects.equals(from.loadingPolicy(), to.loadingPolicy());
+
+    final Map<String, List<Command>> fromParams = from.params();
+    final Map<String, List<Command>> toParams = to.params();
+    for (final Map.Entry<String, List<Command>> param : toParams.entrySet()) {
+      final List<Command> old = fromParams.get(param.getKey());
+      if (old == null) {
+        builder.addParamEdit(ParamEdit.create(param.getKey(), 0, 0, param.getValue()));
+        changed = true;
+      } else if (!old.equals(param.getValue())) {
+        builder.addParamEdit(splice(param.getKey(), old, param.getValue()));
+        changed = true;
+      }
+    }
+    for (final String name : fromParams.keySet()) {
+      if (!toParams.containsKey(name)) {
+        builder.addRemovedParam(name);
+        changed = true;
+      }
+    }
+
+    final Map<String, Object> fromConfig = from.config();
+    final Map<String, Object> toConfig = to.config();
+    final Map<String, Object> setConfig = new HashMap<>();
+    for (final Map.Entry<String, Object> entry : toConfig.entrySet()) {
+      if (!Objects.equals(fromConfig.get(entry.getKey()), entry.getValue())) {
+        setConfig.put(entry.getKey(), entry.getValue());
+      }
+    }
+    final List<String> removedConfig = new ArrayList<>();
+    for (final String key : fromConfig.keySet()) {
+      if (!toConfig.containsKey(key)) {
+        removedConfig.add(key);
+      }
+    }
+    changed |= !setConfig.isEmpty() || !removedConfig.isEmpty();
+
+    return changed ? builder.setConfig(setConfig).removedConfig(removedConfig).build() : null;
+  }
+
+  /**
+   * Trims the common prefix and suffix of the two command lists and returns the edit that replaces
+   * what remains.
+   */
+  private static ParamEdit splice(final String name,
+                                  final List<Command> from,
+                                  final List<Command> to) {
+    final int max = Math.min(from.size(), to.size());
+    int prefix = 0;
+    while (prefix < max && from.get(prefix).equals(to.get(prefix))) {
+      prefix++;
+    }
+    int suffix = 0;
+    while (suffix < max - prefix
+           && from.get(from.size() - 1 - suffix).equals(to.get(to.size() - 1 - suffix))) {
+      suffix++;
+    }
+    return ParamEdit.create(name, prefix, from.size() - prefix - suffix,
+        new ArrayList<>(to.subList(prefix, to.size() - suffix)));
+  }
+
+  private static Node applyNode(final Node node, final NodePatch patch) {
+    final Map<String, List<Command>> params = new LinkedHashMap<>(node.params());
+    for (final String name : patch.removedParams()) {
+      params.remove(name);
+    }
+    for (final ParamEdit edit : patch.paramEdits()) {
+      final List<Command> commands =
+          new ArrayList<>(params.getOrDefault(edit.param(), Collections.emptyList()));
+      if (edit.index() < 0 || edit.deleteCount() < 0
+          || edit.index() + edit.deleteCount() > commands.size()) {
+        throw new IllegalArgumentException(
+            "patch does not apply to node=" + node.id() + " param=" + edit.param());
+      }
+      final List<Command> range = commands.subList(edit.index(), edit.index() + edit.deleteCount());
+      range.clear();
+      range.addAll(edit.insert());
+      params.put(edit.param(), commands);
+    }
+
+    final Map<String, Object> config = new LinkedHashMap<>(node.config());
+    for (final String key : patch.removedConfig()) {
+      config.remove(key);
+    }
+    config.putAll(patch.setConfig());
+
+    return Node.create(node.id(), node.kind(), patch.loadingPolicy(), params, config);
+  }
+
+  /**
+   * Rebuilds a list: removed elements are dropped, added elements replace the element with the
+   * same id in place or are appended, and everything else is passed through <code>update</code>,
+   * if there is one. A list the patch does not touch is returned as is.
+   */
+  private static <T> List<T> patchList(final List<T> base,
+                                       final Function<T, String> idOf,
+                                       final List<String> removed,
+                                       final List<T> added,
+                                       final UnaryOperator<T> update,
+                                       final List<String> order) {
+    if (removed.isEmpty() && added.isEmpty() && update == null && order.isEmpty()) {
+      return base;
+    }
+    final Set<String> baseIds = new HashSet<>();
+    for (final T element : base) {
+      baseIds.add(idOf.apply(element));
+    }
+    final Set<String> removedIds = new HashSet<>(removed);
+    if (!baseIds.containsAll(removedIds)) {
+      removedIds.removeAll(baseIds);
+      throw new IllegalArgumentException("patch removes unknown ids=" + removedIds);
+    }
+
+    final Map<String, T> replacements = new HashMap<>();
+    final List<T> appended = new ArrayList<>();
+    for (final T element : added) {
+      final String id = idOf.apply(element);
+      if (baseIds.contains(id) && !removedIds.contains(id)) {
+        replacements.put(id, element);
+      } else {
+        appended.add(element);
+      }
+    }
+
+    final List<T> result = new ArrayList<>(base.size() + appended.size());
+    for (final T element : base) {
+      final String id = idOf.apply(element);
+      if (removedIds.contains(id)) {
+        continue;
+      }
+      final T replacement = replacements.get(id);
+      if (replacement != null) {
+        result.add(replacement);
+      } else {
+        result.add(update == null ? element : update.apply(element));
+      }
+    }
+    result.addAll(appended);
+
+    if (order.isEmpty()) {
+      return result;
+    }
+    final Map<String, T> byId = index(result, idOf);
+    final List<T> ordered = new ArrayList<>(order.size());
+    for (final String id : order) {
+      final T element = byId.get(id);
+      if (element == null) {
+        throw new IllegalArgumentException("patch orders unknown id=" + id);
+      }
+      ordered.add(element);
+    }
+    return ordered;
+  }
+
+  private static <T> List<String> removed(final List<T> from,
+                                          final List<T> to,
+                                          final Function<T, String> idOf) {
+    final Set<String> ids = new HashSet<>();
+    for (final T element : to) {
+      ids.add(idOf.apply(element));
+    }
+    final List<String> removed = new ArrayList<>();
+    for (final T element : from) {
+      if (!ids.contains(idOf.apply(element))) {
+        removed.add(idOf.apply(element));
+      }
+    }
+    return removed;
+  }
+
+  private static <T> List<T> added(final List<T> from,
+                                   final List<T> to,
+                                   final Function<T, String> idOf) {
+    final Map<String, T> fromById = index(from, idOf);
+    final List<T> added = new ArrayList<>();
+    for (final T element : to) {
+      final T old = fromById.get(idOf.apply(element));
+      if (old != element && !element.equals(old)) {
+        added.add(element);
+      }
+    }
+    return added;
+  }
+
+  /**
+   * Returns the ids of <code>to</code> in order if applying removals, in-place replacements and
+   * appends to <code>from</code> would not already produce that order, or an empty list if it
+   * would.
+   */
+  private static <T> List<String> order(final List<T> from,
+                                        final List<T> to,
+                                        final Function<T, String> idOf) {
+    final Map<String, T> toById = index(to, idOf);
+    final Set<String> fromIds = new HashSet<>();
+    final List<String> expected = new ArrayList<>(to.size());
+    for (final T element : from) {
+      final String id = idOf.apply(element);
+      fromIds.add(id);
+      if (toById.containsKey(id)) {
+        expected.add(id);
+      }
+    }
+    for (final T element : to) {
+      if (!fromIds.contains(idOf.apply(element))) {
+        expected.add(idOf.apply(element));
+      }
+    }
+
+    final List<String> actual = new ArrayList<>(to.size());
+    for (final T element : to) {
+      actual.add(idOf.apply(element));
+    }
+    return actual.equals(expected) ? Collections.emptyList() : actual;
+  }
+
+  private static <T> boolean hasUniqueIds(final List<T> from,
+                                          final List<T> to,
+                                          final Function<T, String> idOf) {
+    return index(from, idOf).size() == from.size() && index(to, idOf).size() == to.size();
+  }
+
+  private static <T> List<String> distinctIds(final List<T> elements,
+                                              final Function<T, String> idOf) {
+    final Set<String> ids = new LinkedHashSet<>();
+    for (final T element : elements) {
+      ids.add(idOf.apply(element));
+    }
+    return new ArrayList<>(ids);
+  }
+
+  private static <T> Map<String, T> index(final List<T> elements, final Function<T, String> idOf) {
+    final Map<String, T> index = new HashMap<>(elements.size() * 2);
+    for (final T element : elements) {
+      index.put(idOf.apply(element), element);
+    }
+    return index;
+  }
+}
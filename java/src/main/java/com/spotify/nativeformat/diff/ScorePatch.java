@@ -0,0 +1,113 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.diff;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.spotify.nativeformat.score.Edge;
+import com.spotify.nativeformat.score.LoadingPolicy;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.Script;
+import io.norberg.automatter.AutoMatter;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * The changes needed to turn one Score into another.
+ *
+ * <p>Nodes, edges and scripts are matched by id (scripts by name). Removing an id removes every
+ * element with that id. An added element whose id exists and is not removed replaces the existing
+ * element in place; any other added element is appended. The order lists are only set when the
+ * surviving elements were reordered.
+ *
+ * @see ScoreDiff
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@AutoMatter
+public interface ScorePatch {
+
+  @JsonProperty
+  String version();
+
+  @JsonProperty
+  String graphId();
+
+  @Nullable
+  @JsonProperty
+  LoadingPolicy loadingPolicy();
+
+  @JsonProperty
+  List<String> removedNodes();
+
+  @JsonProperty
+  List<Node> addedNodes();
+
+  @JsonProperty
+  List<NodePatch> changedNodes();
+
+  @JsonProperty
+  List<String> nodeOrder();
+
+  @JsonProperty
+  List<String> removedEdges();
+
+  @JsonProperty
+  List<Edge> addedEdges();
+
+  @JsonProperty
+  List<String> edgeOrder();
+
+  @JsonProperty
+  List<String> removedScripts();
+
+  @JsonProperty
+  List<Script> addedScripts();
+
+  @JsonProperty
+  List<String> scriptOrder();
+
+  /**
+   * Whether applying this patch changes anything besides the version, graph id and loading
+   * policy.
+   *
+   * @return true if no nodes, edges or scripts change
+   */
+  @JsonIgnore
+  default boolean isEmpty() {
+    return removedNodes().isEmpty()
+           && addedNodes().isEmpty()
+           && changedNodes().isEmpty()
+           && nodeOrder().isEmpty()
+           && removedEdges().isEmpty()
+           && addedEdges().isEmpty()
+           && edgeOrder().isEmpty()
+           && removedScripts().isEmpty()
+           && addedScripts().isEmpty()
+           && scriptOrder().isEmpty();
+  }
+
+  static ScorePatchBuilder builder() {
+    return new ScorePatchBuilder();
+  }
+}
@@ -0,0 +1,389 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.graph;
+
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.Node;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Structural analysis of a Graph: topological order, cycles, node depths and the nodes that feed
+ * the graph's sinks.
+ *
+ * <p>Sinks are the nodes whose output is played. Unless given explicitly, they are the nodes that
+ * have no outgoing edges. Every analysis runs in time linear in the number of nodes and edges.
+ */
+public final class GraphAnalysis {
+
+  /**
+   * The depth of a node that is on, or downstream of, a cycle.
+   */
+  public static final int UNDEFINED = -1;
+
+  private final GraphIndex index;
+
+  private final int[] order;
+
+  private final int[] depths;
+
+  private final boolean[] feedsSink;
+
+  private final List<List<String>> cycles;
+
+  private GraphAnalysis(final GraphIndex index, final boolean[] sinks) {
+    this.index = index;
+    final int nodeCount = index.nodeCount();
+    depths = new int[nodeCount];
+    order = sort(index, depths);
+    cycles = order.length == nodeCount
+        ? Collections.emptyList() : Collections.unmodifiableList(findCycles(index, depths));
+    feedsSink = reverseReachable(index, sinks);
+  }
+
+  /**
+   * Analyzes a Graph whose sinks are the nodes without outgoing edges.
+   *
+   * @param graph the graph
+   * @return the analysis
+   */
+  public static GraphAnalysis of(final Graph graph) {
+    return of(GraphIndex.of(graph));
+  }
+
+  /**
+   * Analyzes an indexed Graph whose sinks are the nodes without outgoing edges.
+   *
+   * @param index the graph's index
+   * @return the analysis
+   */
+  public static GraphAnalysis of(final GraphIndex index) {
+    final boolean[] sinks = new boolean[index.nodeCount()];
+    for (int node = 0; node < sinks.length; node++) {
+      sinks[node] = index.outDegree(node) == 0;
+    }
+    return new GraphAnalysis(index, sinks);
+  }
+
+  /**
+   * Analyzes an indexed Graph with the given sinks.
+   *
+   * @param index the graph's index
+   * @param sinkIds the ids of the sink nodes
+   * @return the analysis
+   * @throws IllegalArgumentException if a sink id is not a node of the graph
+   */
+  public static GraphAnalysis of(final GraphIndex index, final Collection<String> sinkIds) {
+    final boolean[] sinks = new boolean[index.nodeCount()];
+    for (final String id : sinkIds) {
+      final int node = index.indexOf(id);
+      if (node == GraphIndex.NONE) {
+        throw new IllegalArgumentException("unknown sink node " + id);
+      }
+      sinks[node] = true;
+    }
+    return new GraphAnalysis(index, sinks);
+  }
+
+  /**
+   * Returns the index of the analyzed graph.
+   */
+  public GraphIndex index() {
+    return index;
+  }
+
+  /**
+   * Returns true if the graph has no cycles.
+   */
+  public boolean isAcyclic() {
+    return cycles.isEmpty();
+  }
+
+  /**
+   * Returns the nodes in an order where every node comes after all the nodes that feed it. If the
+   * graph has cycles, the nodes on or downstream of a cycle are left out.
+   *
+   * @return the nodes in topological order
+   */
+  public List<Node> topologicalOrder() {
+    final List<Node> nodes = new ArrayList<>(order.length);
+    for (final int node : order) {
+      nodes.add(index.node(node));
+    }
+    return Collections.unmodifiableList(nodes);
+  }
+
+  /**
+   * Returns the node indices in topological order, as described by {@link #topologicalOrder()}.
+   */
+  public int[] topologicalIndices() {
+    return order.clone();
+  }
+
+  /**
+   * Returns a cycle through each strongly connected component of the graph, as the ids of the
+   * edges that form it in the direction of flow. A component may contain more cycles than the one
+   * reported; breaking every reported cycle does not necessarily make the graph acyclic.
+   *
+   * @return the cycles, empty if the graph is acyclic
+   */
+  public List<List<String>> cycles() {
+    return cycles;
+  }
+
+  /**
+   * Returns the length of the longest path to the node from a node without inputs, or
+   * {@link #UNDEFINED} if the node is on or downstream of a cycle.
+   *
+   * @param node a node index
+   * @return the length of the longest path to the node from a node without inputs, or
+   *     {@link #UNDEFINED} if the node is on or downstream of a cycle
+   */
+  public int depth(final int node) {
+    return depths[node];
+  }
+
+  /**
+   * Returns the depth of the node, as described by {@link #depth(int)}.
+   *
+   * @param id a node id
+   * @return the depth of the node, as described by {@link #depth(int)}
+   * @throws IllegalArgumentException if there is no node with the id
+   */
+  public int depth(final String id) {
+    return depths[require(id)];
+  }
+
+  /**
+   * Returns true if the node is a sink or has a path to one.
+   *
+   * @param node a node index
+   * @return true if the node is a sink or has a path to one
+   */
+  public boolean feedsSink(final int node) {
+    return feedsSink[node];
+  }
+
+  /**
+   * Returns true if the node is a sink or has a path to one.
+   *
+   * @param id a node id
+   * @return true if the node is a sink or has a path to one
+   * @throws IllegalArgumentException if there is no node with the id
+   */
+  public boolean feedsSink(final String id) {
+    return feedsSink[require(id)];
+  }
+
+  /**
+   * Returns the nodes that are not sinks and have no path to one, in graph order.
+   */
+  public List<Node> unreachableFromSinks() {
+    final List<Node> nodes = new ArrayList<>();
+    for (int node = 0; node < feedsSink.length; node++) {
+      if (!feedsSink[node]) {
+        nodes.add(index.node(node));
+      }
+    }
+    return Collections.unmodifiableList(nodes);
+  }
+
+  private int require(final String id) {
+    final int node = index.indexOf(id);
+    if (node == GraphIndex.NONE) {
+      throw new IllegalArgumentException("unknown node " + id);
+    }
+    return node;
+  }
+
+  /**
+   * Kahn's algorithm. Fills in the depth of every sorted node, and marks the nodes that could not
+   * be sorted with {@link #UNDEFINED}.
+   */
+  private static int[] sort(final GraphIndex index, final int[] depths) {
+    final int nodeCount = index.nodeCount();
+    final int[] remaining = new int[nodeCount];
+    final int[] order = new int[nodeCount];
+    int tail = 0;
+    for (int node = 0; node < nodeCount; node++) {
+      remaining[node] = index.inDegree(node);
+      if (remaining[node] == 0) {
+        order[tail++] = node;
+      }
+    }
+    for (int head = 0; head < tail; head++) {
+      final int node = order[head];
+      for (int i = index.outStart(node); i < index.outEnd(node); i++) {
+        final int target = index.target(index.outEdge(i));
+        depths[target] = Math.max(depths[target], depths[node] + 1);
+        if (--remaining[target] == 0) {
+          order[tail++] = target;
+        }
+      }
+    }
+    for (int node = 0; node < nodeCount; node++) {
+      if (remaining[node] > 0) {
+        depths[node] = UNDEFINED;
+      }
+    }
+    return tail == nodeCount ? order : Arrays.copyOf(order, tail);
+  }
+
+  /**
+   * Finds one cycle per strongly connected component among the unsorted nodes, using an iterative
+   * Tarjan's algorithm followed by a breadth first search inside each component.
+   */
+  private static List<List<String>> findCycles(final GraphIndex index, final int[] depths) {
+    final int nodeCount = index.nodeCount();
+    final int[] discovered = new int[nodeCount];
+    final int[] lowLink = new int[nodeCount];
+    final int[] component = new int[nodeCount];
+    final int[] stack = new int[nodeCount];
+    final int[] callStack = new int[nodeCount];
+    final int[] cursor = new int[nodeCount];
+    Arrays.fill(component, -1);
+    int counter = 0;
+    int stackSize = 0;
+    int components = 0;
+    final List<Integer> roots = new ArrayList<>();
+
+    for (int start = 0; start < nodeCount; start++) {
+      if (depths[start] != UNDEFINED || discovered[start] != 0) {
+        continue;
+      }
+      int depth = 0;
+      callStack[depth++] = start;
+      discovered[start] = lowLink[start] = ++counter;
+      cursor[start] = index.outStart(start);
+      stack[stackSize++] = start;
+      while (depth > 0) {
+        final int node = callStack[depth - 1];
+        if (cursor[node] < index.outEnd(node)) {
+          final int target = index.target(index.outEdge(cursor[node]++));
+          if (depths[target] != UNDEFINED) {
+            continue;
+          }
+          if (discovered[target] == 0) {
+            discovered[target] = lowLink[target] = ++counter;
+            cursor[target] = index.outStart(target);
+            stack[stackSize++] = target;
+            callStack[depth++] = target;
+          } else if (component[target] < 0) {
+            lowLink[node] = Math.min(lowLink[node], discovered[target]);
+          }
+          continue;
+        }
+        depth--;
+        if (depth > 0) {
+          final int parent = callStack[depth - 1];
+          lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+        }
+        if (lowLink[node] == discovered[node]) {
+          int member;
+          do {
+            member = stack[--stackSize];
+            component[member] = components;
+          } while (member != node);
+          components++;
+          roots.add(node);
+        }
+      }
+    }
+
+    final List<List<String>> cycles = new ArrayList<>();
+    final int[] parentEdge = new int[nodeCount];
+    final int[] queue = new int[nodeCount];
+    Arrays.fill(parentEdge, GraphIndex.NONE);
+    for (final int root : roots) {
+      final List<String> cycle = findCycle(index, root, component, parentEdge, queue);
+      if (cycle != null) {
+        cycles.add(Collections.unmodifiableList(cycle));
+      }
+    }
+    return cycles;
+  }
+
+  /**
+   * Searches the component of the root breadth first for an edge back to the root, and returns
+   * the shortest such cycle, or null if the component is a single node without a self loop.
+   */
+  private static List<String> findCycle(final GraphIndex index,
+                                        final int root,
+                                        final int[] component,
+                                        final int[] parentEdge,
+                                        final int[] queue) {
+    int tail = 0;
+    queue[tail++] = root;
+    for (int head = 0; head < tail; head++) {
+      final int node = queue[head];
+      for (int i = index.outStart(node); i < index.outEnd(node); i++) {
+        final int edge = index.outEdge(i);
+        final int target = index.target(edge);
+        if (component[target] != component[root]) {
+          continue;
+        }
+        if (target == root) {
+          final List<String> cycle = new ArrayList<>();
+          cycle.add(index.edge(edge).id());
+          for (int at = node; at != root; at = index.source(parentEdge[at])) {
+            cycle.add(index.edge(parentEdge[at]).id());
+          }
+          Collections.reverse(cycle);
+          return cycle;
+        }
+        if (parentEdge[target] == GraphIndex.NONE) {
+          parentEdge[target] = edge;
+          queue[tail++] = target;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Marks the sinks and every node with a path to one, by a breadth first search along incoming
+   * edges.
+   */
+  private static boolean[] reverseReachable(final GraphIndex index, final boolean[] sinks) {
+    final boolean[] reached = sinks.clone();
+    final int[] queue = new int[sinks.length];
+    int tail = 0;
+    for (int node = 0; node < sinks.length; node++) {
+      if (sinks[node]) {
+        queue[tail++] = node;
+      }
+    }
+    for (int head = 0; head < tail; head++) {
+      final int node = queue[head];
+      for (int i = index.inStart(node); i < index.inEnd(node); i++) {
+        final int source = index.source(index.inEdge(i));
+        if (!reached[source]) {
+          reached[source] = true;
+          queue[tail++] = source;
+        }
+      }
+    }
+    return reached;
+  }
+}
@@ -0,0 +1,359 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.graph;
+
+import com.spotify.nativeformat.score.Edge;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.Node;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable index over a Graph's nodes and edges.
+ *
+ * <p>Nodes and edges are numbered densely from zero in the order they appear in the Graph, and
+ * ports are numbered in order of first appearance. The fan-out and fan-in of each node are stored
+ * as compressed sparse rows, so neighbour queries are constant time and do not allocate:
+ *
+ * <pre>{@code
+ * for (int i = index.outStart(node); i < index.outEnd(node); i++) {
+ *   int edge = index.outEdge(i);
+ *   int target = index.target(edge);
+ * }
+ * }</pre>
+ *
+ * <p>The edges of a node are listed in the order they appear in the Graph. When several nodes
+ * share an id, the id and any edges referring to it resolve to the first of them.
+ */
+public final class GraphIndex {
+
+  /**
+   * Returned for an unknown node id, and for the port of an edge that has none.
+   */
+  public static final int NONE = -1;
+
+  private final Graph graph;
+
+  private final String[] nodeIds;
+
+  /**
+   * The index of the first node with each id.
+   */
+  private final Map<String, Integer> nodeIndices;
+
+  private final int[] sources;
+
+  private final int[] targets;
+
+  private final int[] sourcePorts;
+
+  private final int[] targetPorts;
+
+  private final String[] portNames;
+
+  private final int[] outOffsets;
+
+  private final int[] outEdges;
+
+  private final int[] inOffsets;
+
+  private final int[] inEdges;
+
+  private GraphIndex(final Graph graph) {
+    this.graph = graph;
+    final List<Node> nodes = graph.nodes();
+    final int nodeCount = nodes.size();
+    nodeIds = new String[nodeCount];
+    nodeIndices = new HashMap<>(nodeCount * 4 / 3 + 1);
+    for (int i = 0; i < nodeCount; i++) {
+      nodeIds[i] = nodes.get(i).id();
+      nodeIndices.putIfAbsent(nodeIds[i], i);
+    }
+
+    final List<Edge> edges = graph.edges();
+    final int edgeCount = edges.size();
+    sources = new int[edgeCount];
+    targets = new int[edgeCount];
+    sourcePorts = new int[edgeCount];
+    targetPorts = new int[edgeCount];
+    outOffsets = new int[nodeCount + 1];
+    inOffsets = new int[nodeCount + 1];
+    final Map<String, Integer> ports = new HashMap<>();
+    for (int e = 0; e < edgeCount; e++) {
+      final Edge edge = edges.get(e);
+      sources[e] = endpoint(edge, edge.source());
+      targets[e] = endpoint(edge, edge.target());
+      sourcePorts[e] = port(ports, edge.sourcePort());
+      targetPorts[e] = port(ports, edge.targetPort());
+      outOffsets[sources[e] + 1]++;
+      inOffsets[targets[e] + 1]++;
+    }
+    portNames = new String[ports.size()];
+    for (final Map.Entry<String, Integer> port : ports.entrySet()) {
+      portNames[port.getValue()] = port.getKey();
+    }
+
+    for (int i = 0; i < nodeCount; i++) {
+      outOffsets[i + 1] += outOffsets[i];
+      inOffsets[i + 1] += inOffsets[i];
+    }
+    outEdges = new int[edgeCount];
+    inEdges = new int[edgeCount];
+    final int[] outFill = new int[nodeCount];
+    final int[] inFill = new int[nodeCount];
+    for (int e = 0; e < edgeCount; e++) {
+      outEdges[outOffsets[sources[e]] + outFill[sources[e]]++] = e;
+      inEdges[inOffsets[targets[e]] + inFill[targets[e]]++] = e;
+    }
+  }
+
+  /**
+   * Indexes a Graph.
+   *
+   * @param graph the graph to index
+   * @return the index
+   * @throws IllegalArgumentException if an edge refers to a node that is not part of the graph
+   */
+  public static GraphIndex of(final Graph graph) {
+    return new GraphIndex(graph);
+  }
+
+  /**
+   * Returns the indexed graph.
+   */
+  public Graph graph() {
+    return graph;
+  }
+
+  /**
+   * Returns the number of nodes.
+   */
+  public int nodeCount() {
+    return nodeIds.length;
+  }
+
+  /**
+   * Returns the number of edges.
+   */
+  public int edgeCount() {
+    return sources.length;
+  }
+
+  /**
+   * Returns the number of distinct port names.
+   */
+  public int portCount() {
+    return portNames.length;
+  }
+
+  /**
+   * Returns the index of the node, or {@link #NONE} if there is no such node.
+   *
+   * @param id a node id
+   * @return the index of the node, or {@link #NONE} if there is no such node
+   */
+  public int indexOf(final String id) {
+    final Integer node = nodeIndices.get(id);
+    return node == null ? NONE : node;
+  }
+
+  /**
+   * Returns the node.
+   *
+   * @param node a node index
+   * @return the node
+   */
+  public Node node(final int node) {
+    return graph.nodes().get(node);
+  }
+
+  /**
+   * Returns the node's id.
+   *
+   * @param node a node index
+   * @return the node's id
+   */
+  public String nodeId(final int node) {
+    return nodeIds[node];
+  }
+
+  /**
+   * Returns the edge.
+   *
+   * @param edge an edge index
+   * @return the edge
+   */
+  public Edge edge(final int edge) {
+    return graph.edges().get(edge);
+  }
+
+  /**
+   * Returns the index of the edge's source node.
+   *
+   * @param edge an edge index
+   * @return the index of the edge's source node
+   */
+  public int source(final int edge) {
+    return sources[edge];
+  }
+
+  /**
+   * Returns the index of the edge's target node.
+   *
+   * @param edge an edge index
+   * @return the index of the edge's target node
+   */
+  public int target(final int edge) {
+    return targets[edge];
+  }
+
+  /**
+   * Returns the index of the edge's source port, or {@link #NONE} if it has none.
+   *
+   * @param edge an edge index
+   * @return the index of the edge's source port, or {@link #NONE} if it has none
+   */
+  public int sourcePort(final int edge) {
+    return sourcePorts[edge];
+  }
+
+  /**
+   * Returns the index of the edge's target port, or {@link #NONE} if it has none.
+   *
+   * @param edge an edge index
+   * @return the index of the edge's target port, or {@link #NONE} if it has none
+   */
+  public int targetPort(final int edge) {
+    return targetPorts[edge];
+  }
+
+  /**
+   * Returns the port's name.
+   *
+   * @param port a port index
+   * @return the port's name
+   */
+  public String portName(final int port) {
+    return portNames[port];
+  }
+
+  /**
+   * Returns the number of edges leaving the node.
+   *
+   * @param node a node index
+   * @return the number of edges leaving the node
+   */
+  public int outDegree(final int node) {
+    return outOffsets[node + 1] - outOffsets[node];
+  }
+
+  /**
+   * Returns the number of edges entering the node.
+   *
+   * @param node a node index
+   * @return the number of edges entering the node
+   */
+  public int inDegree(final int node) {
+    return inOffsets[node + 1] - inOffsets[node];
+  }
+
+  /**
+   * Returns the first position of the node's outgoing edges, for use with {@link #outEdge(int)}.
+   *
+   * @param node a node index
+   * @return the first position of the node's outgoing edges, for use with {@link #outEdge(int)}
+   */
+  public int outStart(final int node) {
+    return outOffsets[node];
+  }
+
+  /**
+   * Returns the position after the node's last outgoing edge.
+   *
+   * @param node a node index
+   * @return the position after the node's last outgoing edge
+   */
+  public int outEnd(final int node) {
+    return outOffsets[node + 1];
+  }
+
+  /**
+   * Returns the index of the edge at that position.
+   *
+   * @param position a position between {@link #outStart(int)} and {@link #outEnd(int)}
+   * @return the index of the edge at that position
+   */
+  public int outEdge(final int position) {
+    return outEdges[position];
+  }
+
+  /**
+   * Returns the first position of the node's incoming edges, for use with {@link #inEdge(int)}.
+   *
+   * @param node a node index
+   * @return the first position of the node's incoming edges, for use with {@link #inEdge(int)}
+   */
+  public int inStart(final int node) {
+    return inOffsets[node];
+  }
+
+  /**
+   * Returns the position after the node's last incoming edge.
+   *
+   * @param node a node index
+   * @return the position after the node's last incoming edge
+   */
+  public int inEnd(final int node) {
+    return inOffsets[node + 1];
+  }
+
+  /**
+   * Returns the index of the edge at that position.
+   *
+   * @param position a position between {@link #inStart(int)} and {@link #inEnd(int)}
+   * @return the index of the edge at that position
+   */
+  public int inEdge(final int position) {
+    return inEdges[position];
+  }
+
+  private int endpoint(final Edge edge, final String id) {
+    final int node = id == null ? NONE : indexOf(id);
+    if (node == NONE) {
+      throw new IllegalArgumentException(
+          "edge " + edge.id() + " refers to unknown node " + id);
+    }
+    return node;
+  }
+
+  private static int port(final Map<String, Integer> ports, final String port) {
+    if (port == null) {
+      return NONE;
+    }
+    final Integer index = ports.get(port);
+    if (index != null) {
+      return index;
+    }
+    ports.put(port, ports.size());
+    return ports.size() - 1;
+  }
+}
@@ -0,0 +1,437 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.graph;
+
+import com.spotify.nativeformat.score.Edge;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.LoadingPolicy;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.Script;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An immutable Graph that can be edited in O(log n) time.
+ *
+ * <p>Each edit returns a new PersistentGraph that shares all but O(log n) of its structure with the
+ * original, instead of copying the node and edge lists as {@code GraphBuilder} does. Nodes and
+ * edges keep the order they were added in, so a PersistentGraph serializes, compares and hashes
+ * exactly like a Graph built from the same lists.
+ *
+ * <p>Nodes and edges are addressed by id. When a Graph passed to {@link #of(Graph)} has several
+ * nodes or edges with the same id, lookups and replacements refer to the first of them, and
+ * removals remove all of them.
+ */
+public final class PersistentGraph implements Graph {
+
+  private final String id;
+
+  private final LoadingPolicy loadingPolicy;
+
+  private final List<Script> scripts;
+
+  /**
+   * Nodes and edges keyed by the sequence number they were added with.
+   */
+  private final PersistentMap<Long, Node> nodes;
+
+  private final PersistentMap<Long, Edge> edges;
+
+  /**
+   * Every node and edge with each id, keyed by sequence number.
+   */
+  private final PersistentMap<String, PersistentMap<Long, Node>> nodesById;
+
+  private final PersistentMap<String, PersistentMap<Long, Edge>> edgesById;
+
+  /**
+   * The edges into and out of each node id, keyed by edge sequence number.
+   */
+  private final PersistentMap<String, PersistentMap<Long, Edge>> incidentEdges;
+
+  private final long nextSequence;
+
+  private PersistentGraph(final String id,
+                          final LoadingPolicy loadingPolicy,
+                          final List<Script> scripts,
+                          final PersistentMap<Long, Node> nodes,
+                          final PersistentMap<Long, Edge> edges,
+                          final PersistentMap<String, PersistentMap<Long, Node>> nodesById,
+                          final PersistentMap<String, PersistentMap<Long, Edge>> edgesById,
+                          final PersistentMap<String, PersistentMap<Long, Edge>> incidentEdges,
+                          final long nextSequence) {
+    this.id = id;
+    this.loadingPolicy = loadingPolicy;
+    this.scripts = scripts;
+    this.nodes = nodes;
+    this.edges = edges;
+    this.nodesById = nodesById;
+    this.edgesById = edgesById;
+    this.incidentEdges = incidentEdges;
+    this.nextSequence = nextSequence;
+  }
+
+  /**
+   * Returns an empty graph.
+   *
+   * @param id the graph id
+   * @return an empty graph
+   */
+  public static PersistentGraph empty(final String id) {
+    return new PersistentGraph(Objects.requireNonNull(id, "id"), null, Collections.emptyList(),
+        PersistentMap.empty(), PersistentMap.empty(), PersistentMap.empty(), PersistentMap.empty(),
+        PersistentMap.empty(), 0);
+  }
+
+  /**
+   * Copies a Graph into a PersistentGraph. Returns the graph itself if it already is one.
+   *
+   * @param graph the graph
+   * @return a persistent graph equal to the given one
+   */
+  public static PersistentGraph of(final Graph graph) {
+    if (graph instanceof PersistentGraph) {
+      return (PersistentGraph) graph;
+    }
+    PersistentGraph result = empty(graph.id())
+        .withLoadingPolicy(graph.loadingPolicy())
+        .withScripts(graph.scripts());
+    for (final Node node : graph.nodes()) {
+      result = result.add(node);
+    }
+    for (final Edge edge : graph.edges()) {
+      result = result.add(result.nextSequence, edge);
+    }
+    return result;
+  }
+
+  @Override
+  public String id() {
+    return id;
+  }
+
+  @Override
+  public LoadingPolicy loadingPolicy() {
+    return loadingPolicy;
+  }
+
+  @Override
+  public List<Node> nodes() {
+    return nodes.values();
+  }
+
+  @Override
+  public List<Edge> edges() {
+    return edges.values();
+  }
+
+  @Override
+  public List<Script> scripts() {
+    return scripts;
+  }
+
+  /**
+   * Returns the node with the id, or null if there is none.
+   *
+   * @param id a node id
+   * @return the node with the id, or null if there is none
+   */
+  public Node node(final String id) {
+    final PersistentMap<Long, Node> copies = nodesById.get(id);
+    return copies == null ? null : copies.valueAt(0);
+  }
+
+  /**
+   * Returns the edge with the id, or null if there is none.
+   *
+   * @param id an edge id
+   * @return the edge with the id, or null if there is none
+   */
+  public Edge edge(final String id) {
+    final PersistentMap<Long, Edge> copies = edgesById.get(id);
+    return copies == null ? null : copies.valueAt(0);
+  }
+
+  /**
+   * Returns the edges into and out of the node, in the order they were added.
+   *
+   * @param id a node id
+   * @return the edges into and out of the node, in the order they were added
+   */
+  public List<Edge> incidentEdges(final String id) {
+    final PersistentMap<Long, Edge> incident = incidentEdges.get(id);
+    return incident == null ? Collections.emptyList() : incident.values();
+  }
+
+  /**
+   * Adds a node after the existing ones.
+   *
+   * @param node the node to add
+   * @return the edited graph
+   * @throws IllegalArgumentException if the graph already has a node with the same id
+   */
+  public PersistentGraph withNode(final Node node) {
+    if (nodesById.get(node.id()) != null) {
+      throw new IllegalArgumentException("node " + node.id() + " already exists");
+    }
+    return add(node);
+  }
+
+  /**
+   * Replaces the node with the same id as the given node, keeping its position and edges.
+   *
+   * @param node the replacement node
+   * @return the edited graph
+   * @throws IllegalArgumentException if the graph has no node with the same id
+   */
+  public PersistentGraph replaceNode(final Node node) {
+    final PersistentMap<Long, Node> copies = nodesById.get(node.id());
+    if (copies == null) {
+      throw new IllegalArgumentException("unknown node " + node.id());
+    }
+    final long sequence = copies.keyAt(0);
+    return new PersistentGraph(id, loadingPolicy, scripts, nodes.put(sequence, node), edges,
+        nodesById.put(node.id(), copies.put(sequence, node)), edgesById, incidentEdges,
+        nextSequence);
+  }
+
+  /**
+   * Removes a node and the edges into and out of it. Takes O((1 + d) log n) time for a node with d
+   * edges.
+   *
+   * @param id the id of the node to remove
+   * @return the edited graph, or this graph if it has no node with the id
+   */
+  public PersistentGraph withoutNode(final String id) {
+    final PersistentMap<Long, Node> copies = nodesById.get(id);
+    if (copies == null) {
+      return this;
+    }
+    PersistentMap<Long, Node> remaining = nodes;
+    for (int i = 0; i < copies.size(); i++) {
+      remaining = remaining.remove(copies.keyAt(i));
+    }
+    PersistentGraph result = new PersistentGraph(this.id, loadingPolicy, scripts, remaining,
+        edges, nodesById.remove(id), edgesById, incidentEdges, nextSequence);
+    final PersistentMap<Long, Edge> incident = incidentEdges.get(id);
+    for (int i = 0; incident != null && i < incident.size(); i++) {
+      result = result.remove(incident.keyAt(i), incident.valueAt(i));
+    }
+    return result;
+  }
+
+  /**
+   * Adds an edge after the existing ones.
+   *
+   * @param edge the edge to add
+   * @return the edited graph
+   * @throws IllegalArgumentException if the graph already has an edge with the same id, or does not
+   *     have the edge's source or target node
+   */
+  public PersistentGraph withEdge(final Edge edge) {
+    if (edgesById.get(edge.id()) != null) {
+      throw new IllegalArgumentException("edge " + edge.id() + " already exists");
+    }
+    requireNodes(edge);
+    return add(nextSequence, edge);
+  }
+
+  /**
+   * Replaces the edge with the same id as the given edge, keeping its position.
+   *
+   * @param edge the replacement edge
+   * @return the edited graph
+   * @throws IllegalArgumentException if the graph has no edge with the same id, or does not have
+   *     the edge's source or target node
+   */
+  public PersistentGraph replaceEdge(final Edge edge) {
+    final PersistentMap<Long, Edge> copies = edgesById.get(edge.id());
+    if (copies == null) {
+      throw new IllegalArgumentException("unknown edge " + edge.id());
+    }
+    requireNodes(edge);
+    final long sequence = copies.keyAt(0);
+    return remove(sequence, copies.valueAt(0)).add(sequence, edge);
+  }
+
+  /**
+   * Returns a graph without the edge with the id.
+   *
+   * @param id the id of the edge to remove
+   * @return the edited graph, or this graph if it has no edge with the id
+   */
+  public PersistentGraph withoutEdge(final String id) {
+    final PersistentMap<Long, Edge> copies = edgesById.get(id);
+    PersistentGraph result = this;
+    for (int i = 0; copies != null && i < copies.size(); i++) {
+      result = result.remove(copies.keyAt(i), copies.valueAt(i));
+    }
+    return result;
+  }
+
+  /**
+   * Returns a graph with the given id.
+   *
+   * @param id the graph id
+   * @return the edited graph
+   */
+  public PersistentGraph withId(final String id) {
+    return new PersistentGraph(Objects.requireNonNull(id, "id"), loadingPolicy, scripts, nodes,
+        edges, nodesById, edgesById, incidentEdges, nextSequence);
+  }
+
+  /**
+   * Returns a graph with the given loading policy.
+   *
+   * @param loadingPolicy the loading policy, or null
+   * @return the edited graph
+   */
+  public PersistentGraph withLoadingPolicy(final LoadingPolicy loadingPolicy) {
+    return new PersistentGraph(id, loadingPolicy, scripts, nodes, edges, nodesById,
+        edgesById, incidentEdges, nextSequence);
+  }
+
+  /**
+   * Returns a graph with the given scripts.
+   *
+   * @param scripts the scripts, replacing the existing ones
+   * @return the edited graph
+   */
+  public PersistentGraph withScripts(final List<Script> scripts) {
+    return new PersistentGraph(id, loadingPolicy,
+        Collections.unmodifiableList(new ArrayList<>(scripts)), nodes, edges, nodesById,
+        edgesById, incidentEdges, nextSequence);
+  }
+
+  /**
+   * Returns a plain Graph with the same content.
+   */
+  public Graph toGraph() {
+    return Graph.builder()
+        .id(id)
+        .loadingPolicy(loadingPolicy)
+        .nodes(nodes())
+        .edges(edges())
+        .scripts(scripts)
+        .build();
+  }
+
+  private PersistentGraph add(final Node node) {
+    final long sequence = nextSequence;
+    return new PersistentGraph(id, loadingPolicy, scripts, nodes.put(sequence, node), edges,
+        attach(nodesById, node.id(), sequence, node), edgesById, incidentEdges, sequence + 1);
+  }
+
+  /**
+   * Adds an edge with the given sequence number, which is either new or was just removed.
+   */
+  private PersistentGraph add(final long sequence, final Edge edge) {
+    PersistentMap<String, PersistentMap<Long, Edge>> incident = incidentEdges;
+    incident = attach(incident, edge.source(), sequence, edge);
+    if (!edge.target().equals(edge.source())) {
+      incident = attach(incident, edge.target(), sequence, edge);
+    }
+    return new PersistentGraph(id, loadingPolicy, scripts, nodes, edges.put(sequence, edge),
+        nodesById, attach(edgesById, edge.id(), sequence, edge), incident,
+        Math.max(nextSequence, sequence + 1));
+  }
+
+  private PersistentGraph remove(final long sequence, final Edge edge) {
+    PersistentMap<String, PersistentMap<Long, Edge>> incident = incidentEdges;
+    incident = detach(incident, edge.source(), sequence);
+    incident = detach(incident, edge.target(), sequence);
+    return new PersistentGraph(id, loadingPolicy, scripts, nodes, edges.remove(sequence),
+        nodesById, detach(edgesById, edge.id(), sequence), incident, nextSequence);
+  }
+
+  private void requireNodes(final Edge edge) {
+    if (nodesById.get(edge.source()) == null) {
+      throw new IllegalArgumentException(
+          "edge " + edge.id() + " refers to unknown node " + edge.source());
+    }
+    if (nodesById.get(edge.target()) == null) {
+      throw new IllegalArgumentException(
+          "edge " + edge.id() + " refers to unknown node " + edge.target());
+    }
+  }
+
+  private static <V> PersistentMap<String, PersistentMap<Long, V>> attach(
+      final PersistentMap<String, PersistentMap<Long, V>> index,
+      final String key,
+      final long sequence,
+      final V value) {
+    final PersistentMap<Long, V> existing = index.get(key);
+    return index.put(key,
+        (existing == null ? PersistentMap.<Long, V>empty() : existing).put(sequence, value));
+  }
+
+  private static <V> PersistentMap<String, PersistentMap<Long, V>> detach(
+      final PersistentMap<String, PersistentMap<Long, V>> index,
+      final String key,
+      final long sequence) {
+    final PersistentMap<Long, V> existing = index.get(key);
+    if (existing == null) {
+      return index;
+    }
+    final PersistentMap<Long, V> remaining = existing.remove(sequence);
+    return remaining.isEmpty() ? index.remove(key) : index.put(key, remaining);
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Graph)) {
+      return false;
+    }
+    final Graph that = (Graph) o;
+    return Objects.equals(id, that.id())
+           && Objects.equals(loadingPolicy, that.loadingPolicy())
+           && nodes().equals(that.nodes())
+           && edges().equals(that.edges())
+           && scripts.equals(that.scripts());
+  }
+
+  @Override
+  public int hashCode() {
+    int result = 1;
+    result = 31 * result + (id != null ? id.hashCode() : 0);
+    result = 31 * result + (loadingPolicy != null ? loadingPolicy.hashCode() : 0);
+    result = 31 * result + nodes().hashCode();
+    result = 31 * result + edges().hashCode();
+    result = 31 * result + scripts.hashCode();
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "Graph{"
+           + "id=" + id
+           + ", loadingPolicy=" + loadingPolicy
+           + ", nodes=" + nodes()
+           + ", edges=" + edges()
+           + ", scripts=" + scripts
+           + '}';
+  }
+}
@@ -0,0 +1,279 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.graph;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable sorted map backed by a persistent AVL tree. Updates return a new map that shares
+ * all but O(log n) of its tree with the original.
+ */
+final class PersistentMap<K extends Comparable<? super K>, V> {
+
+  private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null);
+
+  private final Entry<K, V> root;
+
+  private PersistentMap(final Entry<K, V> root) {
+    this.root = root;
+  }
+
+  @SuppressWarnings("unchecked")
+  static <K extends Comparable<? super K>, V> PersistentMap<K, V> empty() {
+    return (PersistentMap<K, V>) EMPTY;
+  }
+
+  int size() {
+    return size(root);
+  }
+
+  private static int size(final Entry<?, ?> entry) {
+    return entry == null ? 0 : entry.size;
+  }
+
+  boolean isEmpty() {
+    return root == null;
+  }
+
+  V get(final K key) {
+    Entry<K, V> entry = root;
+    while (entry != null) {
+      final int cmp = key.compareTo(entry.key);
+      if (cmp == 0) {
+        return entry.value;
+      }
+      entry = cmp < 0 ? entry.left : entry.right;
+    }
+    return null;
+  }
+
+  /**
+   * Returns the key with the given rank in key order.
+   */
+  K keyAt(final int index) {
+    return entryAt(index).key;
+  }
+
+  /**
+   * Returns the value with the given rank in key order.
+   */
+  V valueAt(final int index) {
+    return entryAt(index).value;
+  }
+
+  private Entry<K, V> entryAt(final int index) {
+    if (index < 0 || index >= size()) {
+      throw new IndexOutOfBoundsException("index " + index + ", size " + size());
+    }
+    Entry<K, V> entry = root;
+    int i = index;
+    while (true) {
+      final int leftSize = size(entry.left);
+      if (i == leftSize) {
+        return entry;
+      }
+      if (i < leftSize) {
+        entry = entry.left;
+      } else {
+        i -= leftSize + 1;
+        entry = entry.right;
+      }
+    }
+  }
+
+  /**
+   * Returns an unmodifiable view of the values in key order.
+   */
+  List<V> values() {
+    return new Values<>(this);
+  }
+
+  PersistentMap<K, V> put(final K key, final V value) {
+    final Entry<K, V> updated = put(root, key, value);
+    return updated == root ? this : new PersistentMap<>(updated);
+  }
+
+  private static <K extends Comparable<? super K>, V> Entry<K, V> put(final Entry<K, V> entry,
+                                                                        final K key,
+                                                                        final V value) {
+    if (entry == null) {
+      return new Entry<>(key, value, null, null);
+    }
+    final int cmp = key.compareTo(entry.key);
+    if (cmp == 0) {
+      return entry.value == value ? entry : new Entry<>(key, value, entry.left, entry.right);
+    }
+    if (cmp < 0) {
+      final Entry<K, V> left = put(entry.left, key, value);
+      return left == entry.left ? entry : balance(entry.key, entry.value, left, entry.right);
+    }
+    final Entry<K, V> right = put(entry.right, key, value);
+    return right == entry.right ? entry : balance(entry.key, entry.value, entry.left, right);
+  }
+
+  PersistentMap<K, V> remove(final K key) {
+    final Entry<K, V> updated = remove(root, key);
+    return updated == root ? this : new PersistentMap<>(updated);
+  }
+
+  private static <K extends Comparable<? super K>, V> Entry<K, V> remove(final Entry<K, V> entry,
+                                                                           final K key) {
+    if (entry == null) {
+      return null;
+    }
+    final int cmp = key.compareTo(entry.key);
+    if (cmp < 0) {
+      final Entry<K, V> left = remove(entry.left, key);
+      return left == entry.left ? entry : balance(entry.key, entry.value, left, entry.right);
+    }
+    if (cmp > 0) {
+      final Entry<K, V> right = remove(entry.right, key);
+      return right == entry.right ? entry : balance(entry.key, entry.value, entry.left, right);
+    }
+    if (entry.left == null) {
+      return entry.right;
+    }
+    if (entry.right == null) {
+      return entry.left;
+    }
+    Entry<K, V> min = entry.right;
+    while (min.left != null) {
+      min = min.left;
+    }
+    return balance(min.key, min.value, entry.left, removeMin(entry.right));
+  }
+
+  private static <K, V> Entry<K, V> removeMin(final Entry<K, V> entry) {
+    if (entry.left == null) {
+      return entry.right;
+    }
+    return balance(entry.key, entry.value, removeMin(entry.left), entry.right);
+  }
+
+  private static <K, V> Entry<K, V> balance(final K key,
+                                            final V value,
+                                            final Entry<K, V> left,
+                                            final Entry<K, V> right) {
+    final int skew = height(left) - height(right);
+    if (skew > 1) {
+      if (height(left.left) >= height(left.right)) {
+        return new Entry<>(left.key, left.value, left.left,
+            new Entry<>(key, value, left.right, right));
+      }
+      return new Entry<>(left.right.key, left.right.value,
+          new Entry<>(left.key, left.value, left.left, left.right.left),
+          new Entry<>(key, value, left.right.right, right));
+    }
+    if (skew < -1) {
+      if (height(right.right) >= height(right.left)) {
+        return new Entry<>(right.key, right.value,
+            new Entry<>(key, value, left, right.left), right.right);
+      }
+      return new Entry<>(right.left.key, right.left.value,
+          new Entry<>(key, value, left, right.left.left),
+          new Entry<>(right.key, right.value, right.left.right, right.right));
+    }
+    return new Entry<>(key, value, left, right);
+  }
+
+  private static int height(final Entry<?, ?> entry) {
+    return entry == null ? 0 : entry.height;
+  }
+
+  private static final class Entry<K, V> {
+
+    final K key;
+    final V value;
+    final Entry<K, V> left;
+    final Entry<K, V> right;
+    final int height;
+    final int size;
+
+    Entry(final K key, final V value, final Entry<K, V> left, final Entry<K, V> right) {
+      this.key = key;
+      this.value = value;
+      this.left = left;
+      this.right = right;
+      this.height = Math.max(height(left), height(right)) + 1;
+      this.size = size(left) + size(right) + 1;
+    }
+  }
+
+  private static final class Values<V> extends AbstractList<V> {
+
+    private final PersistentMap<?, V> map;
+
+    Values(final PersistentMap<?, V> map) {
+      this.map = map;
+    }
+
+    @Override
+    public V get(final int index) {
+      return map.valueAt(index);
+    }
+
+    @Override
+    public int size() {
+      return map.size();
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+      return new InOrder<>(map.root);
+    }
+  }
+
+  private static final class InOrder<V> implements Iterator<V> {
+
+    private final Deque<Entry<?, V>> stack = new ArrayDeque<>();
+
+    InOrder(final Entry<?, V> root) {
+      descend(root);
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !stack.isEmpty();
+    }
+
+    @Override
+    public V next() {
+      if (stack.isEmpty()) {
+        throw new NoSuchElementException();
+      }
+      final Entry<?, V> entry = stack.pop();
+      descend(entry.right);
+      return entry.value;
+    }
+
+    private void descend(Entry<?, V> entry) {
+      while (entry != null) {
+        stack.push(entry);
+        entry = entry.left;
+      }
+    }
+  }
+}
@@ -0,0 +1,272 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.graph;
+
+import com.spotify.nativeformat.score.Edge;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.LoadingPolicy;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.NodeBuilder;
+import com.spotify.nativeformat.score.Score;
+import com.spotify.nativeformat.score.Script;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Merges independently built Scores into a single Graph.
+ *
+ * <p>Each Score is added under a namespace. Node and edge ids are either always prefixed with the
+ * namespace and {@link #SEPARATOR}, or only when they collide with an id that is already taken,
+ * and edges are rewritten to follow their nodes. Should a namespaced id still collide, a counter is
+ * appended to it.
+ *
+ * <p>When a mix node is given, every output of every added Score, that is every node without
+ * outgoing edges, is connected to it.
+ *
+ * <p>Scripts are merged by name. Scripts that are equal are kept once, and different scripts with
+ * the same name are rejected. When the added graphs disagree on their loading policy, the merged
+ * graph has none, and each node inherits the policy of the graph it came from unless it has its
+ * own.
+ *
+ * <p>Merging takes time linear in the total size of the added Scores. Nodes and edges whose id does
+ * not change are reused rather than copied.
+ */
+public final class ScoreMerger {
+
+  /**
+   * Separates a namespace from the id it qualifies.
+   */
+  public static final String SEPARATOR = "/";
+
+  /**
+   * When to prefix ids with their Score's namespace.
+   */
+  public enum Namespacing {
+    /** Prefix every node and edge id. */
+    ALWAYS,
+    /** Prefix only the ids that are already taken. */
+    ON_CONFLICT,
+  }
+
+  private final String id;
+
+  private final Namespacing namespacing;
+
+  private final Node mix;
+
+  private final Set<String> nodeIds = new HashSet<>();
+
+  private final Set<String> edgeIds = new HashSet<>();
+
+  private final List<Node> nodes = new ArrayList<>();
+
+  private final List<Edge> edges = new ArrayList<>();
+
+  private final Map<String, Script> scripts = new LinkedHashMap<>();
+
+  /**
+   * The loading policy of each added graph, and the index of its first node.
+   */
+  private final List<LoadingPolicy> policies = new ArrayList<>();
+
+  private final List<Integer> offsets = new ArrayList<>();
+
+  /**
+   * Creates a merger that collects Scores into a graph with the given id.
+   *
+   * @param id the id of the merged graph
+   * @param namespacing when to prefix ids with their namespace
+   * @param mix the node to connect the outputs of every Score to, or null
+   */
+  public ScoreMerger(final String id, final Namespacing namespacing, final Node mix) {
+    this.id = Objects.requireNonNull(id, "id");
+    this.namespacing = Objects.requireNonNull(namespacing, "namespacing");
+    this.mix = mix;
+    if (mix != null) {
+      nodeIds.add(mix.id());
+    }
+  }
+
+  /**
+   * Merges Scores, using their position in the list as their namespace.
+   *
+   * @param id the id of the merged graph
+   * @param scores the scores to merge
+   * @param mix the node to connect the outputs of every Score to, or null
+   * @return the merged score
+   */
+  public static Score merge(final String id, final List<Score> scores, final Node mix) {
+    final ScoreMerger merger = new ScoreMerger(id, Namespacing.ON_CONFLICT, mix);
+    for (int i = 0; i < scores.size(); i++) {
+      merger.add(Integer.toString(i), scores.get(i));
+    }
+    return merger.build();
+  }
+
+  /**
+   * Adds the graph of a Score under the namespace.
+   *
+   * @param namespace the namespace of the score's ids
+   * @param score the score to add
+   * @return this merger
+   * @throws IllegalArgumentException if the score has a script with the same name as, but different
+   *     code than, an already added script
+   */
+  public ScoreMerger add(final String namespace, final Score score) {
+    return add(namespace, score.graph());
+  }
+
+  /**
+   * Adds a graph under the namespace.
+   *
+   * @param namespace the namespace of the graph's ids
+   * @param graph the graph to add
+   * @return this merger
+   * @throws IllegalArgumentException if the graph has a script with the same name as, but different
+   *     code than, an already added script
+   */
+  public ScoreMerger add(final String namespace, final Graph graph) {
+    for (final Script script : graph.scripts()) {
+      final Script existing = scripts.putIfAbsent(script.name(), script);
+      if (existing != null && !existing.equals(script)) {
+        throw new IllegalArgumentException("conflicting scripts named " + script.name());
+      }
+    }
+
+    policies.add(graph.loadingPolicy());
+    offsets.add(nodes.size());
+    final String prefix = namespace + SEPARATOR;
+    final Map<String, String> assigned = new HashMap<>(graph.nodes().size() * 4 / 3 + 1);
+    for (final Node node : graph.nodes()) {
+      final String id = assign(node.id(), prefix, nodeIds);
+      assigned.putIfAbsent(node.id(), id);
+      nodes.add(id.equals(node.id()) ? node : NodeBuilder.from(node).id(id).build());
+    }
+
+    final Set<String> sources = mix == null ? null : new HashSet<>();
+    for (final Edge edge : graph.edges()) {
+      final String id = assign(edge.id(), prefix, edgeIds);
+      final String source = resolve(assigned, edge.source(), prefix);
+      final String target = resolve(assigned, edge.target(), prefix);
+      if (sources != null) {
+        sources.add(edge.source());
+      }
+      if (id.equals(edge.id()) && source.equals(edge.source()) && target.equals(edge.target())) {
+        edges.add(edge);
+      } else {
+        edges.add(Edge.create(id, source, target, edge.sourcePort(), edge.targetPort()));
+      }
+    }
+
+    if (sources != null) {
+      for (final Node node : graph.nodes()) {
+        if (sources.add(node.id())) {
+          final String output = assigned.get(node.id());
+          final String id = assign(mix.id() + SEPARATOR + output, "", edgeIds);
+          edges.add(Edge.create(id, output, mix.id()));
+        }
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Returns a score of the merged graph.
+   */
+  public Score build() {
+    final LoadingPolicy policy = policies.isEmpty() ? null : policies.get(0);
+    boolean uniform = true;
+    for (final LoadingPolicy other : policies) {
+      uniform &= other == policy;
+    }
+
+    final List<Node> merged;
+    if (uniform) {
+      merged = nodes;
+    } else {
+      merged = new ArrayList<>(nodes);
+      for (int i = 0; i < policies.size(); i++) {
+        final LoadingPolicy inherited = policies.get(i);
+        final int end = i + 1 < offsets.size() ? offsets.get(i + 1) : nodes.size();
+        for (int n = offsets.get(i); inherited != null && n < end; n++) {
+          final Node node = merged.get(n);
+          if (node.loadingPolicy() == null) {
+            merged.set(n, NodeBuilder.from(node).loadingPolicy(inherited).build());
+          }
+        }
+      }
+    }
+
+    return Score.create(Graph.builder()
+        .id(id)
+        .loadingPolicy(uniform ? policy : null)
+        .nodes(mix == null ? merged : append(merged, mix))
+        .edges(edges)
+        .scripts(new ArrayList<>(scripts.values()))
+        .build());
+  }
+
+  /**
+   * Takes the expected id for a node or edge, or a namespaced one if that is taken.
+   */
+  private String assign(final String id, final String prefix, final Set<String> taken) {
+    final String expected = expected(id, prefix);
+    if (taken.add(expected)) {
+      return expected;
+    }
+    final String namespaced = prefix + id;
+    if (taken.add(namespaced)) {
+      return namespaced;
+    }
+    for (int n = 2; ; n++) {
+      final String numbered = namespaced + SEPARATOR + n;
+      if (taken.add(numbered)) {
+        return numbered;
+      }
+    }
+  }
+
+  /**
+   * Resolves an edge endpoint to the id its node was given, or the expected id for an edge that
+   * refers to a node outside the graph.
+   */
+  private String resolve(final Map<String, String> assigned, final String id, final String prefix) {
+    final String resolved = assigned.get(id);
+    return resolved != null ? resolved : expected(id, prefix);
+  }
+
+  private String expected(final String id, final String prefix) {
+    return namespacing == Namespacing.ALWAYS ? prefix + id : id;
+  }
+
+  private static List<Node> append(final List<Node> nodes, final Node node) {
+    final List<Node> result = new ArrayList<>(nodes.size() + 1);
+    result.addAll(nodes);
+    result.add(node);
+    return result;
+  }
+}
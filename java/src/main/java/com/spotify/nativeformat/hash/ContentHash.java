@@ -0,0 +1,121 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.hash;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A 256-bit content hash.
+ *
+ * @see ContentHasher
+ */
+public final class ContentHash implements Comparable<ContentHash> {
+
+  /**
+   * The number of bytes in a hash.
+   */
+  public static final int BYTES = 32;
+
+  private final long word0;
+  private final long word1;
+  private final long word2;
+  private final long word3;
+
+  private ContentHash(final long word0, final long word1, final long word2, final long word3) {
+    this.word0 = word0;
+    this.word1 = word1;
+    this.word2 = word2;
+    this.word3 = word3;
+  }
+
+  /**
+   * Creates a hash from its byte form.
+   *
+   * @param bytes exactly {@link #BYTES} bytes
+   * @return the hash
+   */
+  public static ContentHash fromBytes(final byte[] bytes) {
+    if (bytes.length != BYTES) {
+      throw new IllegalArgumentException("expected " + BYTES + " bytes but got " + bytes.length);
+    }
+    final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    return new ContentHash(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+  }
+
+  /**
+   * Returns the {@link #BYTES} bytes of this hash.
+   */
+  public byte[] toBytes() {
+    return ByteBuffer.allocate(BYTES)
+        .putLong(word0)
+        .putLong(word1)
+        .putLong(word2)
+        .putLong(word3)
+        .array();
+  }
+
+  /**
+   * Returns the first 128 bits of this hash, for use where a shorter key is enough.
+   */
+  public byte[] toBytes128() {
+    return ByteBuffer.allocate(BYTES / 2).putLong(word0).putLong(word1).array();
+  }
+
+  @Override
+  public int compareTo(final ContentHash other) {
+    int result = Long.compareUnsigned(word0, other.word0);
+    if (result == 0) {
+      result = Long.compareUnsigned(word1, other.word1);
+    }
+    if (result == 0) {
+      result = Long.compareUnsigned(word2, other.word2);
+    }
+    if (result == 0) {
+      result = Long.compareUnsigned(word3, other.word3);
+    }
+    return result;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ContentHash)) {
+      return false;
+    }
+    final ContentHash that = (ContentHash) o;
+    return word0 == that.word0 && word1 == that.word1 && word2 == that.word2 && word3 == that.word3;
+  }
+
+  @Override
+  public int hashCode() {
+    return (int) (word0 ^ (word0 >>> 32));
+  }
+
+  /**
+   * Returns the hash as 64 lowercase hex digits.
+   */
+  @Override
+  public String toString() {
+    return String.format("%016x%016x%016x%016x", word0, word1, word2, word3);
+  }
+}
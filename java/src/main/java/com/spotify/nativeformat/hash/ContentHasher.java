@@ -0,0 +1,512 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.hash;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+import com.spotify.nativeformat.score.Command;
+import com.spotify.nativeformat.score.DoubleList;
+import com.spotify.nativeformat.score.Edge;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.LoadingPolicy;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.Score;
+import com.spotify.nativeformat.score.Script;
+import com.spotify.nativeformat.score.Time;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Computes canonical SHA-256 content hashes of Scores, Graphs and Nodes.
+ *
+ * <p>Hashes do not depend on the order of nodes, edges and scripts, on map ordering, or on how a
+ * value is represented in memory: <code>1</code> hashes the same as an Integer, a Long, a
+ * {@link Time} of one nanosecond or an integral {@link JsonNode}. An absent loading policy hashes
+ * as {@link LoadingPolicy#ALL_CONTENT_PLAYTHROUGH}, and a param with no commands as an absent
+ * param.
+ *
+ * <p>An {@link #anonymous()} hasher also ignores graph, node and edge ids. Nodes are identified by
+ * their content and that of their neighbours, so Scores that differ only in id naming hash the
+ * same. Graphs made of identical nodes that differ in ways this one level of neighbourhood cannot
+ * distinguish also hash the same.
+ *
+ * <p>Nodes, edges and scripts are assumed to be immutable. A typed node that has been changed since
+ * it was digested must not be passed with a previous {@link ScoreDigest}.
+ *
+ * <p>Instances are safe for use by multiple threads.
+ */
+public final class ContentHasher {
+
+  private static final ContentHasher NAMED = new ContentHasher(false);
+
+  private static final ContentHasher ANONYMOUS = new ContentHasher(true);
+
+  private static final byte NULL = 0;
+  private static final byte STRING = 1;
+  private static final byte BOOLEAN = 2;
+  private static final byte INTEGER = 3;
+  private static final byte BIG_INTEGER = 4;
+  private static final byte FLOAT = 5;
+  private static final byte LIST = 6;
+  private static final byte MAP = 7;
+  private static final byte NODE = 8;
+  private static final byte EDGE = 9;
+  private static final byte SCRIPT = 10;
+  private static final byte GRAPH = 11;
+  private static final byte SCORE = 12;
+  private static final byte NEIGHBOURHOOD = 13;
+
+  private static final String UNKNOWN_NODE = "";
+
+  private final boolean anonymous;
+
+  private ContentHasher(final boolean anonymous) {
+    this.anonymous = anonymous;
+  }
+
+  /**
+   * Returns a hasher that includes graph, node and edge ids.
+   */
+  public static ContentHasher named() {
+    return NAMED;
+  }
+
+  /**
+   * Returns a hasher that ignores graph, node and edge ids.
+   */
+  public static ContentHasher anonymous() {
+    return ANONYMOUS;
+  }
+
+  /**
+   * Returns the node's hash.
+   *
+   * @param node the node to hash
+   * @return the node's hash
+   */
+  public ContentHash hash(final Node node) {
+    return hashNode(node, new Sink());
+  }
+
+  /**
+   * Returns the graph's hash.
+   *
+   * @param graph the graph to hash
+   * @return the graph's hash
+   */
+  public ContentHash hash(final Graph graph) {
+    return hashGraph(graph, null, new IdentityHashMap<>(), new Sink());
+  }
+
+  /**
+   * Returns the score's hash.
+   *
+   * @param score the score to hash
+   * @return the score's hash
+   */
+  public ContentHash hash(final Score score) {
+    return digest(score).hash();
+  }
+
+  /**
+   * Returns the hashes of the score and its parts.
+   *
+   * @param score the score to hash
+   * @return the hashes of the score and its parts
+   */
+  public ScoreDigest digest(final Score score) {
+    return digest(score, null);
+  }
+
+  /**
+   * Hashes a score, reusing the hashes of nodes, edges and scripts that are the same instances as
+   * in a previous digest. Changing one node of a large score only hashes that node again, and
+   * combines the existing part hashes into a new graph and score hash.
+   *
+   * @param score the score to hash
+   * @param previous a digest of an earlier version of the score from a hasher of the same kind, or
+   *     null
+   * @return the hashes of the score and its parts
+   */
+  public ScoreDigest digest(final Score score, final ScoreDigest previous) {
+    if (previous != null && previous.isAnonymous() != anonymous) {
+      throw new IllegalArgumentException("previous digest was made by a different hasher");
+    }
+    final Sink sink = new Sink();
+    final Map<Object, ContentHash> parts = new IdentityHashMap<>();
+    final ContentHash graph = score.graph() == null
+        ? null : hashGraph(score.graph(), previous, parts, sink);
+    sink.tag(SCORE);
+    sink.string(score.version());
+    sink.hash(graph);
+    return new ScoreDigest(anonymous, sink.finish(), graph, parts);
+  }
+
+  private ContentHash hashGraph(final Graph graph,
+                                final ScoreDigest previous,
+                                final Map<Object, ContentHash> parts,
+                                final Sink sink) {
+    final List<Node> nodes = graph.nodes();
+    final Map<String, ContentHash> byId = new HashMap<>();
+    for (final Node node : nodes) {
+      final ContentHash hash = part(node, previous, parts, sink);
+      byId.putIfAbsent(node.id(), hash);
+    }
+
+    final List<ContentHash> nodeHashes = new ArrayList<>(nodes.size());
+    final List<ContentHash> edgeHashes = new ArrayList<>(graph.edges().size());
+    if (anonymous) {
+      final Map<String, List<ContentHash>> neighbours = new HashMap<>();
+      for (final Edge edge : graph.edges()) {
+        final ContentHash source = byId.get(edge.source());
+        final ContentHash target = byId.get(edge.target());
+        edgeHashes.add(hashEdge(edge, source, target, sink));
+        neighbours.computeIfAbsent(edge.source(), id -> new ArrayList<>())
+            .add(hashNeighbour(true, edge, target, sink));
+        neighbours.computeIfAbsent(edge.target(), id -> new ArrayList<>())
+            .add(hashNeighbour(false, edge, source, sink));
+      }
+      for (final Node node : nodes) {
+        final List<ContentHash> adjacent = neighbours.get(node.id());
+        if (adjacent == null) {
+          nodeHashes.add(parts.get(node));
+          continue;
+        }
+        Collections.sort(adjacent);
+        sink.tag(NEIGHBOURHOOD);
+        sink.hash(parts.get(node));
+        sink.hashes(adjacent);
+        nodeHashes.add(sink.finish());
+      }
+    } else {
+      for (final Node node : nodes) {
+        nodeHashes.add(parts.get(node));
+      }
+      for (final Edge edge : graph.edges()) {
+        edgeHashes.add(part(edge, previous, parts, sink));
+      }
+    }
+    final List<ContentHash> scriptHashes = new ArrayList<>(graph.scripts().size());
+    for (final Script script : graph.scripts()) {
+      scriptHashes.add(part(script, previous, parts, sink));
+    }
+    Collections.sort(nodeHashes);
+    Collections.sort(edgeHashes);
+    Collections.sort(scriptHashes);
+
+    sink.tag(GRAPH);
+    sink.string(anonymous ? null : graph.id());
+    sink.string(loadingPolicy(graph.loadingPolicy()));
+    sink.hashes(nodeHashes);
+    sink.hashes(edgeHashes);
+    sink.hashes(scriptHashes);
+    return sink.finish();
+  }
+
+  private ContentHash part(final Object part,
+                           final ScoreDigest previous,
+                           final Map<Object, ContentHash> parts,
+                           final Sink sink) {
+    ContentHash hash = parts.get(part);
+    if (hash == null && previous != null) {
+      hash = previous.part(part);
+    }
+    if (hash == null) {
+      if (part instanceof Node) {
+        hash = hashNode((Node) part, sink);
+      } else if (part instanceof Edge) {
+        hash = hashEdge((Edge) part, null, null, sink);
+      } else {
+        hash = hashScript((Script) part, sink);
+      }
+    }
+    parts.put(part, hash);
+    return hash;
+  }
+
+  private ContentHash hashNode(final Node node, final Sink sink) {
+    sink.tag(NODE);
+    sink.string(anonymous ? null : node.id());
+    sink.string(node.kind());
+    sink.string(loadingPolicy(node.loadingPolicy()));
+    final Map<String, List<Command>> params = node.params();
+    final List<String> names = new ArrayList<>(params.size());
+    for (final Map.Entry<String, List<Command>> param : params.entrySet()) {
+      if (param.getValue() != null && !param.getValue().isEmpty()) {
+        names.add(param.getKey());
+      }
+    }
+    Collections.sort(names);
+    sink.length(names.size());
+    for (final String name : names) {
+      sink.string(name);
+      final List<Command> commands = params.get(name);
+      sink.length(commands.size());
+      for (final Command command : commands) {
+        sink.string(command.name());
+        sink.value(command.args());
+      }
+    }
+    sink.value(node.config());
+    return sink.finish();
+  }
+
+  /**
+   * Hashes an edge. Anonymous hashers identify the endpoints by their node hashes, or by a marker
+   * when the endpoint is not a node of the graph.
+   */
+  private ContentHash hashEdge(final Edge edge,
+                               final ContentHash source,
+                               final ContentHash target,
+                               final Sink sink) {
+    sink.tag(EDGE);
+    if (anonymous) {
+      endpoint(source, sink);
+      endpoint(target, sink);
+    } else {
+      sink.string(edge.id());
+      sink.string(edge.source());
+      sink.string(edge.target());
+    }
+    sink.string(edge.sourcePort());
+    sink.string(edge.targetPort());
+    return sink.finish();
+  }
+
+  private static ContentHash hashNeighbour(final boolean outgoing,
+                                           final Edge edge,
+                                           final ContentHash neighbour,
+                                           final Sink sink) {
+    sink.tag(EDGE);
+    sink.bool(outgoing);
+    endpoint(neighbour, sink);
+    sink.string(edge.sourcePort());
+    sink.string(edge.targetPort());
+    return sink.finish();
+  }
+
+  private static void endpoint(final ContentHash node, final Sink sink) {
+    if (node == null) {
+      sink.string(UNKNOWN_NODE);
+    } else {
+      sink.hash(node);
+    }
+  }
+
+  private static ContentHash hashScript(final Script script, final Sink sink) {
+    sink.tag(SCRIPT);
+    sink.string(script.name());
+    sink.string(script.code());
+    return sink.finish();
+  }
+
+  private static String loadingPolicy(final LoadingPolicy loadingPolicy) {
+    return (loadingPolicy == null ? LoadingPolicy.ALL_CONTENT_PLAYTHROUGH : loadingPolicy)
+        .getFieldName();
+  }
+
+  /**
+   * Feeds a canonical, unambiguous encoding of values to a SHA-256 digest.
+   */
+  private static class Sink {
+
+    private final MessageDigest digest;
+
+    private final byte[] buffer = new byte[Long.BYTES];
+
+    Sink() {
+      try {
+        this.digest = MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    ContentHash finish() {
+      return ContentHash.fromBytes(digest.digest());
+    }
+
+    void tag(final byte tag) {
+      digest.update(tag);
+    }
+
+    void length(final int length) {
+      for (int i = 0; i < Integer.BYTES; i++) {
+        buffer[i] = (byte) (length >>> (24 - 8 * i));
+      }
+      digest.update(buffer, 0, Integer.BYTES);
+    }
+
+    void number(final long value) {
+      for (int i = 0; i < Long.BYTES; i++) {
+        buffer[i] = (byte) (value >>> (56 - 8 * i));
+      }
+      digest.update(buffer, 0, Long.BYTES);
+    }
+
+    void bool(final boolean value) {
+      tag(BOOLEAN);
+      digest.update((byte) (value ? 1 : 0));
+    }
+
+    void string(final String value) {
+      if (value == null) {
+        tag(NULL);
+        return;
+      }
+      tag(STRING);
+      final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      length(bytes.length);
+      digest.update(bytes);
+    }
+
+    void hash(final ContentHash hash) {
+      if (hash == null) {
+        tag(NULL);
+        return;
+      }
+      digest.update(hash.toBytes());
+    }
+
+    void hashes(final List<ContentHash> hashes) {
+      length(hashes.size());
+      for (final ContentHash hash : hashes) {
+        hash(hash);
+      }
+    }
+
+    void integer(final long value) {
+      tag(INTEGER);
+      number(value);
+    }
+
+    void bigInteger(final BigInteger value) {
+      if (value.bitLength() < Long.SIZE) {
+        integer(value.longValue());
+        return;
+      }
+      tag(BIG_INTEGER);
+      final byte[] bytes = value.toByteArray();
+      length(bytes.length);
+      digest.update(bytes);
+    }
+
+    void floating(final double value) {
+      tag(FLOAT);
+      number(Double.doubleToLongBits(value == 0.0 ? 0.0 : value));
+    }
+
+    void value(final Object value) {
+      if (value == null) {
+        tag(NULL);
+      } else if (value instanceof String) {
+        string((String) value);
+      } else if (value instanceof Boolean) {
+        bool((Boolean) value);
+      } else if (value instanceof Integer || value instanceof Long
+                 || value instanceof Short || value instanceof Byte) {
+        integer(((Number) value).longValue());
+      } else if (value instanceof BigInteger) {
+        bigInteger((BigInteger) value);
+      } else if (value instanceof Double || value instanceof Float
+                 || value instanceof BigDecimal) {
+        floating(((Number) value).doubleValue());
+      } else if (value instanceof Time) {
+        integer(((Time) value).getNanos());
+      } else if (value instanceof JsonNode) {
+        json((JsonNode) value);
+      } else if (value instanceof DoubleList) {
+        final DoubleList list = (DoubleList) value;
+        tag(LIST);
+        length(list.size());
+        for (int i = 0; i < list.size(); i++) {
+          floating(list.getDouble(i));
+        }
+      } else if (value instanceof List) {
+        final List<?> list = (List<?>) value;
+        tag(LIST);
+        length(list.size());
+        for (final Object element : list) {
+          value(element);
+        }
+      } else if (value instanceof Map) {
+        final Map<String, Object> sorted = new TreeMap<>();
+        for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+          sorted.put(String.valueOf(entry.getKey()), entry.getValue());
+        }
+        tag(MAP);
+        length(sorted.size());
+        for (final Map.Entry<String, Object> entry : sorted.entrySet()) {
+          string(entry.getKey());
+          value(entry.getValue());
+        }
+      } else {
+        throw new IllegalArgumentException("cannot hash " + value.getClass().getName());
+      }
+    }
+
+    void json(final JsonNode node) {
+      if (node.isIntegralNumber()) {
+        bigInteger(node.bigIntegerValue());
+      } else if (node.isNumber()) {
+        floating(node.doubleValue());
+      } else if (node.isTextual()) {
+        string(node.textValue());
+      } else if (node.isBoolean()) {
+        bool(node.booleanValue());
+      } else if (node.isArray()) {
+        tag(LIST);
+        length(node.size());
+        for (final JsonNode element : node) {
+          json(element);
+        }
+      } else if (node.isObject()) {
+        final List<String> keys = new ArrayList<>(node.size());
+        final Iterator<String> names = node.fieldNames();
+        while (names.hasNext()) {
+          keys.add(names.next());
+        }
+        Collections.sort(keys);
+        tag(MAP);
+        length(keys.size());
+        for (final String key : keys) {
+          string(key);
+          json(node.get(key));
+        }
+      } else if (node instanceof POJONode) {
+        value(((POJONode) node).getPojo());
+      } else {
+        tag(NULL);
+      }
+    }
+  }
+}
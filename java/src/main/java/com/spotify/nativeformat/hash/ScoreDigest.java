@@ -0,0 +1,84 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.hash;
+
+import com.spotify.nativeformat.score.Node;
+import java.util.Map;
+
+/**
+ * The content hashes of a Score, its Graph and its parts.
+ *
+ * <p>Pass a digest back to {@link ContentHasher#digest(com.spotify.nativeformat.score.Score,
+ * ScoreDigest)} to hash a later version of the Score: nodes, edges and scripts that are the same
+ * instances as in this digest are not hashed again.
+ */
+public final class ScoreDigest {
+
+  private final boolean anonymous;
+
+  private final ContentHash score;
+
+  private final ContentHash graph;
+
+  private final Map<Object, ContentHash> parts;
+
+  ScoreDigest(final boolean anonymous,
+              final ContentHash score,
+              final ContentHash graph,
+              final Map<Object, ContentHash> parts) {
+    this.anonymous = anonymous;
+    this.score = score;
+    this.graph = graph;
+    this.parts = parts;
+  }
+
+  /**
+   * Returns the hash of the Score.
+   */
+  public ContentHash hash() {
+    return score;
+  }
+
+  /**
+   * Returns the hash of the Score's Graph.
+   */
+  public ContentHash graphHash() {
+    return graph;
+  }
+
+  /**
+   * Returns the hash of the given node, which must be one of the digested Score's node instances.
+   *
+   * @param node the node
+   * @return the node's hash, or null if the node is not part of the digested Score
+   */
+  public ContentHash nodeHash(final Node node) {
+    return parts.get(node);
+  }
+
+  boolean isAnonymous() {
+    return anonymous;
+  }
+
+  ContentHash part(final Object part) {
+    return parts.get(part);
+  }
+}
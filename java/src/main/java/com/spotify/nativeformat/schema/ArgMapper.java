@@ -23,13 +23,16 @@ package com.spotify.nativeformat.schema;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spotify.nativeformat.score.Command;
+import com.spotify.nativeformat.score.DoubleList;
 import com.spotify.nativeformat.score.Node;
 import com.spotify.nativeformat.score.Time;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -37,6 +40,10 @@ import java.util.stream.StreamSupport;
 /**
  * Describes an ArgDef and provides utility methods for reading from and writing to Score objects.
  *
+ * <p>Values that are already of a Java type matching the kind, such as the Numbers, Strings,
+ * Booleans and Lists of a parsed Score or the Times of a built one, are decoded directly. Other
+ * values are converted to a JsonNode first.
+ *
  * @param <T> the real Java type this describes. Should be a type found in Value.
  */
 public class ArgMapper<T> {
@@ -53,91 +60,259 @@ public class ArgMapper<T> {
 
   private final Function<JsonNode, T> valueGetter;
 
+  /**
+   * Decodes values of the Java types matching the kind, returning null for any other value.
+   */
+  private final Function<Object, T> directGetter;
+
+  /**
+   * Copies the default value before it is returned, so that callers cannot modify a mutable
+   * default such as an array.
+   */
+  private final UnaryOperator<T> defaultCopier;
+
   private ArgMapper(final String name,
                     final String kind,
                     final T defaultValue,
                     final Predicate<JsonNode> kindChecker,
-                    final Function<JsonNode, T> valueGetter) {
+                    final Function<JsonNode, T> valueGetter,
+                    final Function<Object, T> directGetter) {
+    this(name, kind, defaultValue, kindChecker, valueGetter, directGetter,
+        UnaryOperator.identity());
+  }
+
+  private ArgMapper(final String name,
+                    final String kind,
+                    final T defaultValue,
+                    final Predicate<JsonNode> kindChecker,
+                    final Function<JsonNode, T> valueGetter,
+                    final Function<Object, T> directGetter,
+                    final UnaryOperator<T> defaultCopier) {
     this.name = name;
     this.kind = kind;
-    this.defaultValue = defaultValue;
+    this.defaultValue = defaultValue == null ? null : defaultCopier.apply(defaultValue);
     this.kindChecker = kindChecker;
     this.valueGetter = valueGetter;
+    this.directGetter = directGetter;
+    this.defaultCopier = defaultCopier;
   }
 
   public static <T extends Enum> ArgMapper<T> newEnumArg(final String name,
                                                          final T defaultValue,
                                                          final Class<T> enumClass) {
+    final Map<String, T> constants = new HashMap<>();
+    for (final T constant : enumClass.getEnumConstants()) {
+      constants.put(OBJECT_MAPPER.valueToTree(constant).asText(), constant);
+    }
     return new ArgMapper<T>(name, "string", defaultValue, JsonNode::isTextual,
-        j -> OBJECT_MAPPER.convertValue(j, enumClass));
+        j -> OBJECT_MAPPER.convertValue(j, enumClass),
+        o -> enumClass.isInstance(o) ? enumClass.cast(o) : constants.get(o));
   }
 
   public static ArgMapper<String> newStringArg(final String name, final String defaultValue) {
-    return new ArgMapper<>(name, "string", defaultValue, JsonNode::isTextual, JsonNode::asText);
+    return new ArgMapper<>(name, "string", defaultValue, JsonNode::isTextual, JsonNode::asText,
+        ArgMapper::directString);
   }
 
   public static ArgMapper<Long> newIntArg(final String name, final Long defaultValue) {
-    return new ArgMapper<>(name, "int", defaultValue, JsonNode::isIntegralNumber, JsonNode::asLong);
+    return new ArgMapper<>(name, "int", defaultValue, JsonNode::isIntegralNumber, JsonNode::asLong,
+        ArgMapper::directInt);
   }
 
   public static ArgMapper<Double> newFloatArg(final String name, final Double defaultValue) {
     return new ArgMapper<>(name, "float", defaultValue, JsonNode::isFloatingPointNumber,
-        JsonNode::asDouble);
+        JsonNode::asDouble, ArgMapper::directFloat);
   }
 
   public static ArgMapper<Boolean> newBoolArg(final String name, final Boolean defaultValue) {
-    return new ArgMapper<>(name, "bool", defaultValue, JsonNode::isBoolean, JsonNode::asBoolean);
+    return new ArgMapper<>(name, "bool", defaultValue, JsonNode::isBoolean, JsonNode::asBoolean,
+        ArgMapper::directBool);
   }
 
   public static ArgMapper<Time> newTimeArg(final String name, final Time defaultValue) {
     return new ArgMapper<>(name, "time", defaultValue, JsonNode::isIntegralNumber,
-        (jsonNode) -> OBJECT_MAPPER.convertValue(jsonNode, Time.class));
+        (jsonNode) -> OBJECT_MAPPER.convertValue(jsonNode, Time.class), ArgMapper::directTime);
   }
 
   public static ArgMapper<List<String>> newStringListArg(final String name,
                                                          final List<String> defaultValue) {
     return newListArg(name, "list(string)", defaultValue,
-        JsonNode::isTextual, JsonNode::asText);
+        JsonNode::isTextual, JsonNode::asText, ArgMapper::directString);
   }
 
   public static ArgMapper<List<Long>> newIntListArg(final String name,
                                                     final List<Long> defaultValue) {
     return newListArg(name, "list(int)", defaultValue,
-        JsonNode::isIntegralNumber, JsonNode::asLong);
+        JsonNode::isIntegralNumber, JsonNode::asLong, ArgMapper::directInt);
   }
 
   public static ArgMapper<List<Double>> newFloatListArg(final String name,
                                                         final List<Double> defaultValue) {
     return newListArg(name, "list(float)", defaultValue,
-        JsonNode::isFloatingPointNumber, JsonNode::asDouble);
+        JsonNode::isFloatingPointNumber, JsonNode::asDouble, ArgMapper::directFloat);
   }
 
   public static ArgMapper<List<Boolean>> newBoolListArg(final String name,
                                                         final List<Boolean> defaultValue) {
-    return newListArg(name, "list(bool)", defaultValue, JsonNode::isBoolean, JsonNode::asBoolean);
+    return newListArg(name, "list(bool)", defaultValue, JsonNode::isBoolean, JsonNode::asBoolean,
+        ArgMapper::directBool);
   }
 
   public static ArgMapper<List<Time>> newTimeListArg(final String name,
                                                      final List<Time> defaultValue) {
     return newListArg(name, "list(time)", defaultValue,
         JsonNode::isIntegralNumber,
-        (jsonNode) -> OBJECT_MAPPER.convertValue(jsonNode, Time.class));
+        (jsonNode) -> OBJECT_MAPPER.convertValue(jsonNode, Time.class), ArgMapper::directTime);
+  }
+
+  /**
+   * Describes a <code>list(int)</code> read into a primitive array.
+   */
+  public static ArgMapper<long[]> newIntArrayArg(final String name, final long[] defaultValue) {
+    return new ArgMapper<>(name, "list(int)", defaultValue,
+        n -> n.isArray() && stream(n).allMatch(JsonNode::isIntegralNumber),
+        n -> stream(n).mapToLong(JsonNode::asLong).toArray(),
+        o -> directLongs(o, ArgMapper::directInt),
+        long[]::clone);
+  }
+
+  /**
+   * Describes a <code>list(float)</code> read into a primitive array.
+   */
+  public static ArgMapper<double[]> newFloatArrayArg(final String name,
+                                                     final double[] defaultValue) {
+    return new ArgMapper<>(name, "list(float)", defaultValue,
+        n -> n.isArray() && stream(n).allMatch(JsonNode::isFloatingPointNumber),
+        n -> stream(n).mapToDouble(JsonNode::asDouble).toArray(),
+        ArgMapper::directDoubles,
+        double[]::clone);
+  }
+
+  /**
+   * Describes a <code>list(time)</code> read into a primitive array of nanoseconds.
+   */
+  public static ArgMapper<long[]> newTimeArrayArg(final String name, final long[] defaultValue) {
+    return new ArgMapper<>(name, "list(time)", defaultValue,
+        n -> n.isArray() && stream(n).allMatch(JsonNode::isIntegralNumber),
+        n -> stream(n).mapToLong(JsonNode::asLong).toArray(),
+        o -> directLongs(o, e -> {
+          final Time time = directTime(e);
+          return time == null ? null : time.getNanos();
+        }),
+        long[]::clone);
   }
 
   private static <T> ArgMapper<List<T>> newListArg(final String name,
                                                    final String expectedType,
                                                    final List<T> defaultValue,
                                                    final Predicate<JsonNode> typeChecker,
-                                                   final Function<JsonNode, T> valueGetter) {
+                                                   final Function<JsonNode, T> valueGetter,
+                                                   final Function<Object, T> directGetter) {
     return new ArgMapper<>(
         name,
         expectedType,
         defaultValue,
         n -> n.isArray() && stream(n).allMatch(typeChecker),
-        n -> stream(n).map(valueGetter).collect(Collectors.toList())
+        n -> stream(n).map(valueGetter).collect(Collectors.toList()),
+        o -> directList(o, directGetter)
     );
   }
 
+  private static String directString(final Object value) {
+    return value instanceof String ? (String) value : null;
+  }
+
+  private static Long directInt(final Object value) {
+    if (value instanceof Long) {
+      return (Long) value;
+    }
+    return value instanceof Integer || value instanceof Short || value instanceof Byte
+        ? ((Number) value).longValue() : null;
+  }
+
+  private static Double directFloat(final Object value) {
+    if (value instanceof Double) {
+      return (Double) value;
+    }
+    return value instanceof Float ? ((Float) value).doubleValue() : null;
+  }
+
+  private static Boolean directBool(final Object value) {
+    return value instanceof Boolean ? (Boolean) value : null;
+  }
+
+  private static Time directTime(final Object value) {
+    if (value instanceof Time) {
+      return (Time) value;
+    }
+    final Long nanos = directInt(value);
+    return nanos == null ? null : Time.fromNanos(nanos);
+  }
+
+  private static <T> List<T> directList(final Object value, final Function<Object, T> getter) {
+    if (!(value instanceof List)) {
+      return null;
+    }
+    final List<?> list = (List<?>) value;
+    final List<T> result = new ArrayList<>(list.size());
+    for (final Object element : list) {
+      final T decoded = getter.apply(element);
+      if (decoded == null) {
+        return null;
+      }
+      result.add(decoded);
+    }
+    return result;
+  }
+
+  private static long[] directLongs(final Object value, final Function<Object, Long> getter) {
+    if (value instanceof long[]) {
+      return ((long[]) value).clone();
+    }
+    if (!(value instanceof List)) {
+      return null;
+    }
+    final List<?> list = (List<?>) value;
+    final long[] result = new long[list.size()];
+    for (int i = 0; i < result.length; i++) {
+      final Long decoded = getter.apply(list.get(i));
+      if (decoded == null) {
+        return null;
+      }
+      result[i] = decoded;
+    }
+    return result;
+  }
+
+  private static double[] directDoubles(final Object value) {
+    if (value instanceof double[]) {
+      return ((double[]) value).clone();
+    }
+    if (value instanceof DoubleList) {
+      return ((DoubleList) value).toDoubleArray();
+    }
+    if (!(value instanceof List)) {
+      return null;
+    }
+    final List<?> list = (List<?>) value;
+    final double[] result = new double[list.size()];
+    for (int i = 0; i < result.length; i++) {
+      final Double decoded = directFloat(list.get(i));
+      if (decoded == null) {
+        return null;
+      }
+      result[i] = decoded;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the config or argument name this describes.
+   */
+  public String getName() {
+    return this.name;
+  }
+
   /**
    * Returns the given value if it is non-null or the default value if it exists.
    * Throws an exception if there is no non-null value available.
@@ -157,7 +332,7 @@ public class ArgMapper<T> {
    */
   public T getValueOrThrow(final T val, final String message) {
     if (val == null && this.defaultValue != null) {
-      return this.defaultValue;
+      return defaultCopier.apply(this.defaultValue);
     } else if (val != null) {
       return val;
     } else {
@@ -176,7 +351,7 @@ public class ArgMapper<T> {
    * @return a value
    */
   public T readConfig(final Node node) {
-    return readValue(Optional.ofNullable(node.config().get(this.name)));
+    return readValue(node.config().get(this.name));
   }
 
   /**
@@ -186,18 +361,23 @@ public class ArgMapper<T> {
    * @return a value
    */
   public T readArg(final Command command) {
-    return readValue(Optional.ofNullable(command.args().get(this.name)));
+    return readValue(command.args().get(this.name));
   }
 
-  @SuppressWarnings("unchecked")
-  private T readValue(final Optional<Object> maybeValue) {
-    if (!maybeValue.isPresent() && defaultValue == null) {
+  private T readValue(final Object maybeValue) {
+    if (maybeValue == null && defaultValue == null) {
       throw new RuntimeException("arg=" + name + " is not set and has no default value");
-    } else if (!maybeValue.isPresent()) {
-      return defaultValue;
+    } else if (maybeValue == null) {
+      return defaultCopier.apply(defaultValue);
+    }
+
+    final T direct = directGetter.apply(maybeValue);
+    if (direct != null) {
+      return direct;
     }
 
-    final JsonNode value = OBJECT_MAPPER.valueToTree(maybeValue.get());
+    final JsonNode value = maybeValue instanceof JsonNode
+        ? (JsonNode) maybeValue : OBJECT_MAPPER.valueToTree(maybeValue);
     if (!kindChecker.test(value)) {
       throw new RuntimeException(String.format(
           "arg=%s expects kind=%s but value is kind=%s", name, kind, value.getNodeType()
@@ -0,0 +1,558 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spotify.nativeformat.score.Command;
+import com.spotify.nativeformat.score.Edge;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.Score;
+import com.spotify.nativeformat.score.Time;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Validates Scores against the smart player contract.
+ *
+ * <p>The contract is compiled once into lookup tables keyed by plugin kind. Validating a Score
+ * visits each node, param, command and edge once, checking plugin kinds, param and command names,
+ * argument and config kinds, allowed and required values, and that edges connect ports of matching
+ * content types. Paths are only built for violations.
+ *
+ * <p>Float values accept integral numbers, since JSON does not distinguish <code>1</code> from
+ * <code>1.0</code>. Time values accept integral nanoseconds or {@link Time} instances.
+ *
+ * <p>Instances are immutable and safe for use by multiple threads.
+ */
+public final class ContractValidator {
+
+  private static final String CONTRACT_RESOURCE = "/smart-player-contract.json";
+
+  private final String version;
+
+  private final Map<String, Plugin> plugins;
+
+  private ContractValidator(final String version, final Map<String, Plugin> plugins) {
+    this.version = version;
+    this.plugins = plugins;
+  }
+
+  /**
+   * Returns a validator for the bundled <code>smart-player-contract.json</code>.
+   *
+   * @return the shared validator
+   */
+  public static ContractValidator getInstance() {
+    return Holder.INSTANCE;
+  }
+
+  /**
+   * Returns the bundled <code>smart-player-contract.json</code>, which is read once and shared with
+   * other components that compile it, such as the timeline's param defaults.
+   *
+   * @return a copy of the bundled contract document
+   */
+  public static JsonNode bundledContract() {
+    return ContractHolder.CONTRACT.deepCopy();
+  }
+
+  /**
+   * Compiles the given contract.
+   *
+   * @param contract a contract document, matching the ContractDef schema
+   * @return a new validator
+   * @throws IllegalArgumentException if the contract refers to unknown value or param kinds
+   */
+  public static ContractValidator compile(final JsonNode contract) {
+    final Map<String, Map<String, Map<String, Arg>>> paramKinds = new HashMap<>();
+    for (final JsonNode paramKindDef : contract.path("paramKindDefs")) {
+      final Map<String, Map<String, Arg>> commands = new HashMap<>();
+      for (final JsonNode commandDef : paramKindDef.path("commandDefs")) {
+        commands.put(commandDef.path("name").asText(), args(commandDef.path("argDefs")));
+      }
+      paramKinds.put(paramKindDef.path("kind").asText(), commands);
+    }
+
+    final Map<String, Plugin> plugins = new HashMap<>();
+    for (final JsonNode pluginDef : contract.path("pluginDefs")) {
+      final String kind = pluginDef.path("kind").asText();
+      final Map<String, Map<String, Map<String, Arg>>> params = new HashMap<>();
+      for (final JsonNode paramDef : pluginDef.path("paramDefs")) {
+        final Map<String, Map<String, Arg>> commands =
+            paramKinds.get(paramDef.path("kind").asText());
+        if (commands == null) {
+          throw new IllegalArgumentException("unknown param kind " + paramDef.path("kind")
+              + " for " + kind);
+        }
+        params.put(paramDef.path("name").asText(), commands);
+      }
+      plugins.put(kind, new Plugin(
+          params,
+          args(pluginDef.path("configDefs")),
+          ports(pluginDef.path("portDefs").path("input")),
+          ports(pluginDef.path("portDefs").path("output"))));
+    }
+    return new ContractValidator(contract.path("version").asText(), plugins);
+  }
+
+  /**
+   * Returns the version of the compiled contract.
+   */
+  public String version() {
+    return version;
+  }
+
+  /**
+   * Returns true if the Score satisfies the contract.
+   *
+   * @param score the Score to validate
+   * @return true if the Score satisfies the contract
+   */
+  public boolean isValid(final Score score) {
+    return validate(score).isEmpty();
+  }
+
+  /**
+   * Returns the violations found, with JSONPaths into the Score's JSON form.
+   *
+   * @param score the Score to validate
+   * @return the violations found, with JSONPaths into the Score's JSON form
+   */
+  public List<ValidationError> validate(final Score score) {
+    final List<ValidationError> errors = new ArrayList<>();
+    final Graph graph = score.graph();
+    if (graph == null) {
+      return errors;
+    }
+    final List<Node> nodes = graph.nodes();
+    final Set<String> nodeIds = new HashSet<>();
+    final Map<String, Plugin> nodePlugins = new HashMap<>();
+    for (int i = 0; i < nodes.size(); i++) {
+      final Node node = nodes.get(i);
+      nodeIds.add(node.id());
+      final Plugin plugin = plugins.get(node.kind());
+      if (plugin == null) {
+        errors.add(error(node(i).append(".kind"), "unknown plugin kind '" + node.kind() + "'"));
+        continue;
+      }
+      nodePlugins.putIfAbsent(node.id(), plugin);
+      validateParams(plugin, node, i, errors);
+      validateArgs(plugin.configs, node.config(), i, -1, null, errors);
+    }
+    final List<Edge> edges = graph.edges();
+    for (int i = 0; i < edges.size(); i++) {
+      validateEdge(edges.get(i), i, nodeIds, nodePlugins, errors);
+    }
+    return errors;
+  }
+
+  private static void validateParams(final Plugin plugin,
+                                     final Node node,
+                                     final int nodeIndex,
+                                     final List<ValidationError> errors) {
+    for (final Map.Entry<String, List<Command>> param : node.params().entrySet()) {
+      final Map<String, Map<String, Arg>> commands = plugin.params.get(param.getKey());
+      if (commands == null) {
+        errors.add(error(param(nodeIndex, param.getKey()),
+            "unknown param '" + param.getKey() + "' for kind '" + node.kind() + "'"));
+        continue;
+      }
+      final List<Command> list = param.getValue();
+      for (int i = 0; i < list.size(); i++) {
+        final Command command = list.get(i);
+        final Map<String, Arg> args = commands.get(command.name());
+        if (args == null) {
+          errors.add(error(JsonPaths.appendIndex(param(nodeIndex, param.getKey()), i)
+              .append(".name"), "unknown command '" + command.name() + "'"));
+          continue;
+        }
+        validateArgs(args, command.args(), nodeIndex, i, param.getKey(), errors);
+      }
+    }
+  }
+
+  /**
+   * Validates a node's config when <code>param</code> is null, or a command's args otherwise.
+   */
+  private static void validateArgs(final Map<String, Arg> defs,
+                                   final Map<String, Object> values,
+                                   final int nodeIndex,
+                                   final int commandIndex,
+                                   final String param,
+                                   final List<ValidationError> errors) {
+    final String noun = param == null ? "config" : "argument";
+    int found = 0;
+    for (final Map.Entry<String, Object> entry : values.entrySet()) {
+      final Arg arg = defs.get(entry.getKey());
+      if (arg == null) {
+        errors.add(error(args(nodeIndex, commandIndex, param, entry.getKey()),
+            "unknown " + noun + " '" + entry.getKey() + "'"));
+        continue;
+      }
+      if (arg.required) {
+        found++;
+      }
+      final Object value = entry.getValue();
+      if (!arg.kind.accepts(value)) {
+        errors.add(error(args(nodeIndex, commandIndex, param, entry.getKey()),
+            "expected " + arg.kind.label + " but found " + describe(value)));
+      } else if (arg.possibleValues != null && !arg.possibleValues.contains(text(value))) {
+        errors.add(error(args(nodeIndex, commandIndex, param, entry.getKey()),
+            "expected one of " + arg.possibleValues));
+      }
+    }
+    if (found == requiredCount(defs)) {
+      return;
+    }
+    for (final Arg arg : defs.values()) {
+      if (arg.required && !values.containsKey(arg.name)) {
+        final StringBuilder path = param == null
+            ? node(nodeIndex).append(".config")
+            : JsonPaths.appendIndex(param(nodeIndex, param), commandIndex).append(".args");
+        errors.add(error(path, "missing " + noun + " '" + arg.name + "'"));
+      }
+    }
+  }
+
+  private static void validateEdge(final Edge edge,
+                                   final int edgeIndex,
+                                   final Set<String> nodeIds,
+                                   final Map<String, Plugin> nodePlugins,
+                                   final List<ValidationError> errors) {
+    final Plugin source = nodePlugins.get(edge.source());
+    final Plugin target = nodePlugins.get(edge.target());
+    if (source == null && !nodeIds.contains(edge.source())) {
+      errors.add(error(edge(edgeIndex).append(".source"),
+          "unknown node '" + edge.source() + "'"));
+    }
+    if (target == null && !nodeIds.contains(edge.target())) {
+      errors.add(error(edge(edgeIndex).append(".target"),
+          "unknown node '" + edge.target() + "'"));
+    }
+    final String sourceType = source == null
+        ? null : port(source.outputs, edge.sourcePort(), "output", edge.source(), edgeIndex,
+                      ".sourcePort", errors);
+    final String targetType = target == null
+        ? null : port(target.inputs, edge.targetPort(), "input", edge.target(), edgeIndex,
+                      ".targetPort", errors);
+    if (sourceType != null && targetType != null && !sourceType.equals(targetType)) {
+      errors.add(error(edge(edgeIndex), "incompatible content types " + sourceType + " and "
+          + targetType));
+    }
+  }
+
+  /**
+   * Returns the content type of the named or default port, or null after reporting an error.
+   */
+  private static String port(final Ports ports,
+                             final String name,
+                             final String direction,
+                             final String node,
+                             final int edgeIndex,
+                             final String field,
+                             final List<ValidationError> errors) {
+    if (name == null || name.isEmpty()) {
+      if (ports.defaultType == null) {
+        errors.add(error(edge(edgeIndex),
+            "node '" + node + "' has no default " + direction));
+      }
+      return ports.defaultType;
+    }
+    final String type = ports.types.get(name);
+    if (type == null) {
+      errors.add(error(edge(edgeIndex).append(field),
+          "node '" + node + "' has no " + direction + " '" + name + "'"));
+    }
+    return type;
+  }
+
+  private static int requiredCount(final Map<String, Arg> defs) {
+    int count = 0;
+    for (final Arg arg : defs.values()) {
+      if (arg.required) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static Ports ports(final JsonNode contentDefs) {
+    final Map<String, String> types = new HashMap<>();
+    String defaultType = null;
+    for (final JsonNode contentDef : contentDefs) {
+      final String type = contentDef.path("kind").asText();
+      types.put(contentDef.path("name").asText(), type);
+      if (contentDef.path("isDefault").asBoolean()) {
+        defaultType = type;
+      }
+    }
+    if (defaultType == null && types.size() == 1) {
+      defaultType = types.values().iterator().next();
+    }
+    return new Ports(types, defaultType);
+  }
+
+  private static StringBuilder node(final int index) {
+    return JsonPaths.appendIndex(new StringBuilder("$.graph.nodes"), index);
+  }
+
+  private static StringBuilder edge(final int index) {
+    return JsonPaths.appendIndex(new StringBuilder("$.graph.edges"), index);
+  }
+
+  private static StringBuilder param(final int nodeIndex, final String param) {
+    return JsonPaths.appendName(node(nodeIndex).append(".params"), param);
+  }
+
+  private static Map<String, Arg> args(final JsonNode argDefs) {
+    final Map<String, Arg> args = new LinkedHashMap<>();
+    for (final JsonNode argDef : argDefs) {
+      final String name = argDef.path("name").asText();
+      Set<String> possibleValues = null;
+      if (argDef.has("possibleValues")) {
+        possibleValues = new LinkedHashSet<>();
+        for (final JsonNode value : argDef.get("possibleValues")) {
+          possibleValues.add(value.asText());
+        }
+      }
+      args.put(name, new Arg(name, ValueKind.fromLabel(argDef.path("kind").asText()),
+          possibleValues, !argDef.has("defaultValue")));
+    }
+    return args;
+  }
+
+  private static StringBuilder args(final int nodeIndex,
+                                    final int commandIndex,
+                                    final String param,
+                                    final String name) {
+    if (param == null) {
+      return JsonPaths.appendName(node(nodeIndex).append(".config"), name);
+    }
+    return JsonPaths.appendName(
+        JsonPaths.appendIndex(param(nodeIndex, param), commandIndex).append(".args"), name);
+  }
+
+  private static ValidationError error(final StringBuilder path, final String message) {
+    return ValidationError.create(path.toString(), message);
+  }
+
+  private static String text(final Object value) {
+    return value instanceof JsonNode ? ((JsonNode) value).asText() : String.valueOf(value);
+  }
+
+  private static String describe(final Object value) {
+    if (value instanceof JsonNode) {
+      final JsonNode node = (JsonNode) value;
+      if (node.isIntegralNumber()) {
+        return "int";
+      } else if (node.isNumber()) {
+        return "float";
+      } else if (node.isTextual()) {
+        return "string";
+      } else if (node.isBoolean()) {
+        return "bool";
+      } else if (node.isArray()) {
+        return "list";
+      }
+      return node.getNodeType().name().toLowerCase();
+    } else if (value instanceof String) {
+      return "string";
+    } else if (isIntegral(value)) {
+      return "int";
+    } else if (value instanceof Number) {
+      return "float";
+    } else if (value instanceof Boolean) {
+      return "bool";
+    } else if (value instanceof Time) {
+      return "time";
+    } else if (value instanceof List) {
+      return "list";
+    } else if (value instanceof Map) {
+      return "object";
+    }
+    return value == null ? "null" : value.getClass().getSimpleName();
+  }
+
+  private static boolean isIntegral(final Object value) {
+    return value instanceof Integer || value instanceof Long || value instanceof Short
+        || value instanceof Byte || value instanceof BigInteger;
+  }
+
+  private enum ValueKind {
+    STRING("string", null),
+    INT("int", null),
+    FLOAT("float", null),
+    BOOL("bool", null),
+    TIME("time", null),
+    LIST_STRING("list(string)", STRING),
+    LIST_INT("list(int)", INT),
+    LIST_FLOAT("list(float)", FLOAT),
+    LIST_BOOL("list(bool)", BOOL),
+    LIST_TIME("list(time)", TIME);
+
+    private final String label;
+
+    private final ValueKind element;
+
+    ValueKind(final String label, final ValueKind element) {
+      this.label = label;
+      this.element = element;
+    }
+
+    static ValueKind fromLabel(final String label) {
+      for (final ValueKind kind : values()) {
+        if (kind.label.equals(label)) {
+          return kind;
+        }
+      }
+      throw new IllegalArgumentException("unknown value kind " + label);
+    }
+
+    boolean accepts(final Object value) {
+      if (element != null) {
+        if (value instanceof List) {
+          for (final Object item : (List<?>) value) {
+            if (!element.accepts(item)) {
+              return false;
+            }
+          }
+          return true;
+        } else if (value instanceof JsonNode && ((JsonNode) value).isArray()) {
+          for (final JsonNode item : (JsonNode) value) {
+            if (!element.accepts(item)) {
+              return false;
+            }
+          }
+          return true;
+        }
+        return false;
+      }
+      if (value instanceof JsonNode) {
+        final JsonNode node = (JsonNode) value;
+        switch (this) {
+          case STRING:
+            return node.isTextual();
+          case BOOL:
+            return node.isBoolean();
+          case FLOAT:
+            return node.isNumber();
+          default:
+            return node.isIntegralNumber();
+        }
+      }
+      switch (this) {
+        case STRING:
+          return value instanceof String;
+        case BOOL:
+          return value instanceof Boolean;
+        case FLOAT:
+          return value instanceof Number;
+        case TIME:
+          return value instanceof Time || isIntegral(value);
+        default:
+          return isIntegral(value);
+      }
+    }
+  }
+
+  private static class Plugin {
+
+    /**
+     * Param name to command name to argument name to argument definition.
+     */
+    private final Map<String, Map<String, Map<String, Arg>>> params;
+    private final Map<String, Arg> configs;
+    private final Ports inputs;
+    private final Ports outputs;
+
+    Plugin(final Map<String, Map<String, Map<String, Arg>>> params,
+           final Map<String, Arg> configs,
+           final Ports inputs,
+           final Ports outputs) {
+      this.params = params;
+      this.configs = configs;
+      this.inputs = inputs;
+      this.outputs = outputs;
+    }
+  }
+
+  private static class Arg {
+
+    private final String name;
+    private final ValueKind kind;
+    private final Set<String> possibleValues;
+    private final boolean required;
+
+    Arg(final String name,
+        final ValueKind kind,
+        final Set<String> possibleValues,
+        final boolean required) {
+      this.name = name;
+      this.kind = kind;
+      this.possibleValues = possibleValues;
+      this.required = required;
+    }
+  }
+
+  private static class Ports {
+
+    private final Map<String, String> types;
+    private final String defaultType;
+
+    Ports(final Map<String, String> types, final String defaultType) {
+      this.types = types;
+      this.defaultType = defaultType;
+    }
+  }
+
+  private static class ContractHolder {
+
+    private static final JsonNode CONTRACT = load();
+
+    private static JsonNode load() {
+      try (InputStream in = ContractValidator.class.getResourceAsStream(CONTRACT_RESOURCE)) {
+        if (in == null) {
+          throw new IllegalStateException(CONTRACT_RESOURCE + " not found");
+        }
+        return new ObjectMapper().readTree(in);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  private static class Holder {
+
+    private static final ContractValidator INSTANCE = compile(ContractHolder.CONTRACT);
+  }
+}
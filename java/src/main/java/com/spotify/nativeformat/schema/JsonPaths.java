@@ -0,0 +1,58 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.schema;
+
+/**
+ * Builds the JSONPath expressions reported in {@link ValidationError}s.
+ */
+public final class JsonPaths {
+
+  private JsonPaths() {}
+
+  /**
+   * Appends a member access for the given name, using dot notation when the name is an
+   * identifier and bracket notation otherwise.
+   */
+  public static StringBuilder appendName(final StringBuilder path, final String name) {
+    if (isIdentifier(name)) {
+      return path.append('.').append(name);
+    }
+    return path.append("['")
+        .append(name.replace("\\", "\\\\").replace("'", "\\'"))
+        .append("']");
+  }
+
+  public static StringBuilder appendIndex(final StringBuilder path, final int index) {
+    return path.append('[').append(index).append(']');
+  }
+
+  private static boolean isIdentifier(final String name) {
+    if (name == null || name.isEmpty() || !Character.isJavaIdentifierStart(name.charAt(0))) {
+      return false;
+    }
+    for (int i = 1; i < name.length(); i++) {
+      if (!Character.isJavaIdentifierPart(name.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -44,6 +44,13 @@ public class ParamMapper<T extends TypedParam<?>> {
     this.factory = factory;
   }
 
+  /**
+   * Returns the param name this describes.
+   */
+  public String getName() {
+    return this.name;
+  }
+
   /**
    * Factory method to create a new instance of the typed param T.
    *
@@ -0,0 +1,543 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.schema;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TreeTraversingParser;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Validates Score JSON against a JSON Schema compiled once into a tree of checks.
+ *
+ * <p>Documents are validated as they are parsed, without building a {@link JsonNode} tree, and
+ * every violation is reported with the JSONPath of the offending value. The compiler supports the
+ * keywords used by <code>score-schema.json</code>: <code>$ref</code>, <code>type</code>,
+ * <code>enum</code> (of strings), <code>properties</code>, <code>additionalProperties</code>,
+ * <code>required</code>, <code>dependencies</code> (property form) and <code>items</code> (single
+ * schema). Any other validation keyword is rejected when compiling.
+ *
+ * <p>Instances are immutable and safe for use by multiple threads.
+ */
+public final class ScoreValidator {
+
+  private static final String SCHEMA_RESOURCE = "/score-schema.json";
+
+  private static final String SCORE_POINTER = "/definitions/score/definitions/Score";
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private static final Set<String> ANNOTATIONS = new HashSet<>(Arrays.asList(
+      "$schema", "id", "title", "description", "default", "definitions"));
+
+  private static final int OBJECT = 1;
+  private static final int ARRAY = 1 << 1;
+  private static final int STRING = 1 << 2;
+  private static final int INTEGER = 1 << 3;
+  private static final int NUMBER = 1 << 4;
+  private static final int BOOLEAN = 1 << 5;
+  private static final int NULL = 1 << 6;
+  private static final int ANY = (1 << 7) - 1;
+
+  private static final Map<String, Integer> TYPES = new LinkedHashMap<>();
+
+  static {
+    TYPES.put("object", OBJECT);
+    TYPES.put("array", ARRAY);
+    TYPES.put("string", STRING);
+    TYPES.put("integer", INTEGER);
+    TYPES.put("number", INTEGER | NUMBER);
+    TYPES.put("boolean", BOOLEAN);
+    TYPES.put("null", NULL);
+  }
+
+  private final Rule root;
+
+  private ScoreValidator(final Rule root) {
+    this.root = root;
+  }
+
+  /**
+   * Returns a validator for the Score definition in the bundled <code>score-schema.json</code>.
+   *
+   * @return the shared validator
+   */
+  public static ScoreValidator getInstance() {
+    return Holder.INSTANCE;
+  }
+
+  /**
+   * Compiles the schema found at the given JSON Pointer within a schema document. References are
+   * resolved within the same document.
+   *
+   * @param document the schema document
+   * @param pointer the JSON Pointer of the schema to compile, such as <code>/definitions/a</code>
+   * @return a new validator
+   * @throws IllegalArgumentException if the schema is missing or uses unsupported keywords
+   */
+  public static ScoreValidator compile(final JsonNode document, final String pointer) {
+    return new ScoreValidator(new Compiler(document).compile(pointer));
+  }
+
+  /**
+   * Returns true if the document satisfies the schema.
+   *
+   * @param json the JSON document to validate
+   * @return true if the document satisfies the schema
+   * @throws IOException if the document is not well-formed JSON
+   */
+  public boolean isValid(final String json) throws IOException {
+    return validate(json).isEmpty();
+  }
+
+  /**
+   * Returns the violations found, in document order.
+   *
+   * @param json the JSON document to validate
+   * @return the violations found, in document order
+   * @throws IOException if the document is not well-formed JSON
+   */
+  public List<ValidationError> validate(final String json) throws IOException {
+    try (JsonParser p = JSON_FACTORY.createParser(json)) {
+      return validate(p);
+    }
+  }
+
+  /**
+   * Returns the violations found, in document order.
+   *
+   * @param json the UTF-8 encoded JSON document to validate
+   * @return the violations found, in document order
+   * @throws IOException if the document is not well-formed JSON
+   */
+  public List<ValidationError> validate(final byte[] json) throws IOException {
+    try (JsonParser p = JSON_FACTORY.createParser(json)) {
+      return validate(p);
+    }
+  }
+
+  /**
+   * Validates the JSON document read from the stream. The stream is left open.
+   *
+   * @param in the stream to read from
+   * @return the violations found, in document order
+   * @throws IOException if the document is not well-formed JSON
+   */
+  public List<ValidationError> validate(final InputStream in) throws IOException {
+    try (JsonParser p = JSON_FACTORY.createParser(in)
+        .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE)) {
+      return validate(p);
+    }
+  }
+
+  /**
+   * Returns the violations found, in document order.
+   *
+   * @param tree the JSON tree to validate
+   * @return the violations found, in document order
+   */
+  public List<ValidationError> validate(final JsonNode tree) {
+    try (JsonParser p = new TreeTraversingParser(tree)) {
+      return validate(p);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Validates the next value read from the parser. The parser is left on the last token of the
+   * value.
+   *
+   * @param p the parser to read from, positioned at or before the value
+   * @return the violations found, in document order
+   * @throws IOException if the document is not well-formed JSON
+   */
+  public List<ValidationError> validate(final JsonParser p) throws IOException {
+    if (p.currentToken() == null && p.nextToken() == null) {
+      return Collections.singletonList(ValidationError.create("$", "no content"));
+    }
+    final List<ValidationError> errors = new ArrayList<>();
+    validate(root, p, errors);
+    return errors;
+  }
+
+  private static void validate(final Rule rule,
+                               final JsonParser p,
+                               final List<ValidationError> errors) throws IOException {
+    if (rule == null) {
+      p.skipChildren();
+      return;
+    }
+    final JsonToken token = p.currentToken();
+    final int type = typeOf(token);
+    if ((rule.types & type) == 0) {
+      errors.add(error(p, "expected " + rule.typeNames + " but found " + typeName(type)));
+      p.skipChildren();
+      return;
+    }
+    if (rule.enumValues != null
+        && (token != JsonToken.VALUE_STRING || !rule.enumValues.contains(p.getText()))) {
+      errors.add(error(p, "expected one of " + rule.enumValues));
+      p.skipChildren();
+      return;
+    }
+    if (token == JsonToken.START_OBJECT) {
+      validateObject(rule, p, errors);
+    } else if (token == JsonToken.START_ARRAY) {
+      while (p.nextToken() != JsonToken.END_ARRAY) {
+        validate(rule.items, p, errors);
+      }
+    }
+  }
+
+  private static void validateObject(final Rule rule,
+                                     final JsonParser p,
+                                     final List<ValidationError> errors) throws IOException {
+    long seen = 0;
+    for (String name = p.nextFieldName(); name != null; name = p.nextFieldName()) {
+      p.nextToken();
+      final Property property = rule.properties.get(name);
+      if (property != null) {
+        seen |= property.mask;
+      }
+      if (property != null && property.declared) {
+        validate(property.rule, p, errors);
+      } else if (!rule.additionalAllowed) {
+        errors.add(error(p, "unexpected property '" + name + "'"));
+        p.skipChildren();
+      } else {
+        validate(rule.additional, p, errors);
+      }
+    }
+    if ((seen & rule.requiredMask) != rule.requiredMask) {
+      for (final String name : rule.required) {
+        if ((seen & rule.properties.get(name).mask) == 0) {
+          errors.add(error(p, "missing required property '" + name + "'"));
+        }
+      }
+    }
+    for (final Dependency dependency : rule.dependencies) {
+      if ((seen & dependency.mask) != 0
+          && (seen & dependency.requiredMask) != dependency.requiredMask) {
+        for (final String name : dependency.required) {
+          if ((seen & rule.properties.get(name).mask) == 0) {
+            errors.add(error(p, "property '" + dependency.name + "' requires property '"
+                + name + "'"));
+          }
+        }
+      }
+    }
+  }
+
+  private static int typeOf(final JsonToken token) {
+    switch (token) {
+      case START_OBJECT:
+        return OBJECT;
+      case START_ARRAY:
+        return ARRAY;
+      case VALUE_STRING:
+        return STRING;
+      case VALUE_NUMBER_INT:
+        return INTEGER;
+      case VALUE_NUMBER_FLOAT:
+        return NUMBER;
+      case VALUE_TRUE:
+      case VALUE_FALSE:
+        return BOOLEAN;
+      case VALUE_NULL:
+        return NULL;
+      default:
+        return ANY;
+    }
+  }
+
+  private static String typeName(final int type) {
+    if (type == INTEGER) {
+      return "integer";
+    }
+    for (final Map.Entry<String, Integer> entry : TYPES.entrySet()) {
+      if (entry.getValue() == type) {
+        return entry.getKey();
+      }
+    }
+    return "number";
+  }
+
+  private static ValidationError error(final JsonParser p, final String message) {
+    JsonStreamContext context = p.getParsingContext();
+    if (p.currentToken() == JsonToken.START_OBJECT || p.currentToken() == JsonToken.START_ARRAY) {
+      context = context.getParent();
+    }
+    final StringBuilder path = new StringBuilder("$");
+    appendPath(path, context);
+    return ValidationError.create(path.toString(), message);
+  }
+
+  private static void appendPath(final StringBuilder path, final JsonStreamContext context) {
+    if (context == null || context.inRoot()) {
+      return;
+    }
+    appendPath(path, context.getParent());
+    if (context.inArray()) {
+      JsonPaths.appendIndex(path, context.getCurrentIndex());
+    } else {
+      JsonPaths.appendName(path, context.getCurrentName());
+    }
+  }
+
+  private static class Holder {
+
+    private static final ScoreValidator INSTANCE = load();
+
+    private static ScoreValidator load() {
+      try (InputStream in = ScoreValidator.class.getResourceAsStream(SCHEMA_RESOURCE)) {
+        if (in == null) {
+          throw new IllegalStateException(SCHEMA_RESOURCE + " not found");
+        }
+        return compile(new ObjectMapper().readTree(in), SCORE_POINTER);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * The compiled checks for one schema.
+   */
+  private static class Rule {
+
+    private int types = ANY;
+    private String typeNames;
+    private Set<String> enumValues;
+    private Map<String, Property> properties = Collections.emptyMap();
+    private boolean additionalAllowed = true;
+    private Rule additional;
+    private List<String> required = Collections.emptyList();
+    private long requiredMask;
+    private List<Dependency> dependencies = Collections.emptyList();
+    private Rule items;
+  }
+
+  /**
+   * A property name tracked while validating an object. Undeclared properties are tracked when
+   * they are required or take part in a dependency, and are validated as additional properties.
+   */
+  private static class Property {
+
+    private final long mask;
+    private boolean declared;
+    private Rule rule;
+
+    Property(final long mask) {
+      this.mask = mask;
+    }
+  }
+
+  private static class Dependency {
+
+    private final String name;
+    private final long mask;
+    private final List<String> required;
+    private final long requiredMask;
+
+    Dependency(final String name,
+               final long mask,
+               final List<String> required,
+               final long requiredMask) {
+      this.name = name;
+      this.mask = mask;
+      this.required = required;
+      this.requiredMask = requiredMask;
+    }
+  }
+
+  private static class Compiler {
+
+    private final JsonNode document;
+
+    private final Map<String, Rule> references = new HashMap<>();
+
+    Compiler(final JsonNode document) {
+      this.document = document;
+    }
+
+    Rule compile(final String pointer) {
+      final Rule existing = references.get(pointer);
+      if (existing != null) {
+        return existing;
+      }
+      final JsonNode schema = document.at(JsonPointer.compile(pointer));
+      if (schema.isMissingNode()) {
+        throw new IllegalArgumentException("no schema at " + pointer);
+      }
+      if (schema.has("$ref")) {
+        final Rule target = compile(schema, pointer);
+        references.put(pointer, target);
+        return target;
+      }
+      final Rule rule = new Rule();
+      references.put(pointer, rule);
+      fill(rule, schema, pointer);
+      return rule;
+    }
+
+    private Rule compile(final JsonNode schema, final String pointer) {
+      if (!schema.isObject()) {
+        throw new IllegalArgumentException("expected a schema at " + pointer);
+      }
+      if (schema.has("$ref")) {
+        final String ref = schema.get("$ref").asText();
+        if (!ref.startsWith("#")) {
+          throw new IllegalArgumentException("unsupported $ref " + ref + " at " + pointer);
+        }
+        return compile(ref.substring(1));
+      }
+      if (schema.size() == 0) {
+        return null;
+      }
+      final Rule rule = new Rule();
+      fill(rule, schema, pointer);
+      return rule;
+    }
+
+    private void fill(final Rule rule, final JsonNode schema, final String pointer) {
+      final Iterator<Map.Entry<String, JsonNode>> fields = schema.fields();
+      while (fields.hasNext()) {
+        final Map.Entry<String, JsonNode> field = fields.next();
+        final String keyword = field.getKey();
+        final JsonNode value = field.getValue();
+        final String at = pointer + "/" + keyword;
+        switch (keyword) {
+          case "type":
+            rule.types = 0;
+            final List<String> names = new ArrayList<>();
+            for (final JsonNode type : value.isArray() ? value : Collections.singleton(value)) {
+              final Integer mask = TYPES.get(type.asText());
+              if (mask == null) {
+                throw new IllegalArgumentException("unknown type " + type + " at " + at);
+              }
+              rule.types |= mask;
+              names.add(type.asText());
+            }
+            rule.typeNames = String.join(" or ", names);
+            break;
+          case "enum":
+            rule.enumValues = new LinkedHashSet<>();
+            for (final JsonNode option : value) {
+              if (!option.isTextual()) {
+                throw new IllegalArgumentException(
+                    "unsupported enum value " + option + " at " + at);
+              }
+              rule.enumValues.add(option.asText());
+            }
+            break;
+          case "properties":
+            final Iterator<Map.Entry<String, JsonNode>> properties = value.fields();
+            while (properties.hasNext()) {
+              final Map.Entry<String, JsonNode> property = properties.next();
+              final Property tracked = track(rule, property.getKey(), at);
+              tracked.declared = true;
+              tracked.rule = compile(property.getValue(), at + "/" + property.getKey());
+            }
+            break;
+          case "additionalProperties":
+            if (value.isBoolean()) {
+              rule.additionalAllowed = value.asBoolean();
+            } else {
+              rule.additional = compile(value, at);
+            }
+            break;
+          case "required":
+            rule.required = new ArrayList<>();
+            for (final JsonNode name : value) {
+              rule.required.add(name.asText());
+              rule.requiredMask |= track(rule, name.asText(), at).mask;
+            }
+            break;
+          case "dependencies":
+            rule.dependencies = new ArrayList<>();
+            final Iterator<Map.Entry<String, JsonNode>> dependencies = value.fields();
+            while (dependencies.hasNext()) {
+              final Map.Entry<String, JsonNode> dependency = dependencies.next();
+              if (!dependency.getValue().isArray()) {
+                throw new IllegalArgumentException("unsupported schema dependency at " + at);
+              }
+              final List<String> required = new ArrayList<>();
+              long requiredMask = 0;
+              for (final JsonNode name : dependency.getValue()) {
+                required.add(name.asText());
+                requiredMask |= track(rule, name.asText(), at).mask;
+              }
+              rule.dependencies.add(new Dependency(dependency.getKey(),
+                  track(rule, dependency.getKey(), at).mask, required, requiredMask));
+            }
+            break;
+          case "items":
+            if (value.isArray()) {
+              throw new IllegalArgumentException("unsupported tuple items at " + at);
+            }
+            rule.items = compile(value, at);
+            break;
+          default:
+            if (!ANNOTATIONS.contains(keyword)) {
+              throw new IllegalArgumentException("unsupported keyword " + keyword + " at " + at);
+            }
+        }
+      }
+      if (rule.typeNames == null) {
+        rule.typeNames = "any";
+      }
+    }
+
+    private static Property track(final Rule rule, final String name, final String at) {
+      if (rule.properties.isEmpty()) {
+        rule.properties = new HashMap<>();
+      }
+      Property property = rule.properties.get(name);
+      if (property == null) {
+        if (rule.properties.size() == Long.SIZE) {
+          throw new IllegalArgumentException("too many properties at " + at);
+        }
+        property = new Property(1L << rule.properties.size());
+        rule.properties.put(name, property);
+      }
+      return property;
+    }
+  }
+}
@@ -0,0 +1,44 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.schema;
+
+import io.norberg.automatter.AutoMatter;
+
+/**
+ * A schema violation found by a {@link ScoreValidator}.
+ */
+@AutoMatter
+public interface ValidationError {
+
+  /**
+   * Returns the JSONPath of the offending value, such as <code>$.graph.nodes[0].kind</code>.
+   */
+  String path();
+
+  /**
+   * Returns a description of the violation.
+   */
+  String message();
+
+  static ValidationError create(final String path, final String message) {
+    return new ValidationErrorBuilder().path(path).message(message).build();
+  }
+}
@@ -0,0 +1,428 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.score;
+
+import static java.util.Objects.requireNonNull;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * Converts newline-delimited Score JSON in parallel.
+ *
+ * <p>Lines are read in chunks by the calling thread, parsed, transformed and serialized on the
+ * executor, and written back by the calling thread in input order. At most {@code maxInFlight}
+ * chunks are held in memory at once. Blank lines are skipped.
+ *
+ * <p>A transform may validate a Score by throwing, or drop it by returning null. Lines that cannot
+ * be read, transformed or written are passed to the {@link ErrorHandler} in input order.
+ *
+ * <p>Instances are safe for use by multiple threads.
+ */
+public class BatchConverter {
+
+  /**
+   * Receives lines that could not be converted.
+   */
+  @FunctionalInterface
+  public interface ErrorHandler {
+
+    /**
+     * Fails the batch on the first line that could not be converted.
+     */
+    ErrorHandler FAIL = (line, e) -> {
+      throw new IOException("line " + line + ": " + e.getMessage(), e);
+    };
+
+    /**
+     * Skips lines that could not be converted. They are still counted as failed.
+     */
+    ErrorHandler SKIP = (line, e) -> {
+    };
+
+    /**
+     * Called for each line that could not be converted.
+     *
+     * @param line the 1-based line number
+     * @param e the exception thrown while converting the line
+     * @throws IOException to stop the batch
+     */
+    void onError(long line, Exception e) throws IOException;
+  }
+
+  private static final int DEFAULT_CHUNK_SIZE = 256;
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final ObjectReader reader;
+
+  private final ObjectWriter writer;
+
+  private final Executor executor;
+
+  private final int maxInFlight;
+
+  private final int chunkSize;
+
+  private final ErrorHandler errorHandler;
+
+  private final Counters totals = new Counters();
+
+  private final long created = System.nanoTime();
+
+  /**
+   * Creates a BatchConverter that runs on the common fork-join pool and fails on the first bad
+   * line.
+   *
+   * @param converter the Converter whose ObjectMapper reads and writes each line
+   */
+  public BatchConverter(final Converter converter) {
+    this(converter, ForkJoinPool.commonPool(),
+        4 * Math.max(1, ForkJoinPool.getCommonPoolParallelism()), DEFAULT_CHUNK_SIZE,
+        ErrorHandler.FAIL);
+  }
+
+  /**
+   * Creates a BatchConverter.
+   *
+   * @param converter the Converter whose ObjectMapper reads and writes each line
+   * @param executor the executor to convert chunks on
+   * @param maxInFlight the maximum number of chunks read but not yet written
+   * @param chunkSize the number of lines converted by each task
+   * @param errorHandler the handler for lines that could not be converted
+   * @throws UnsupportedOperationException if the Converter does not read JSON
+   */
+  public BatchConverter(final Converter converter,
+                        final Executor executor,
+                        final int maxInFlight,
+                        final int chunkSize,
+                        final ErrorHandler errorHandler) {
+    final ObjectMapper mapper = converter.getObjectMapper();
+    final JsonFactory factory = mapper.getFactory();
+    if (!JsonFactory.FORMAT_NAME_JSON.equals(factory.getFormatName())) {
+      throw new UnsupportedOperationException(
+          "batch conversion requires JSON but format is " + factory.getFormatName());
+    }
+    if (maxInFlight < 1) {
+      throw new IllegalArgumentException("maxInFlight must be positive");
+    }
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("chunkSize must be positive");
+    }
+    this.reader = mapper.readerFor(Score.class)
+        .with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+    this.writer = mapper.writerFor(Score.class);
+    this.executor = requireNonNull(executor, "executor");
+    this.maxInFlight = maxInFlight;
+    this.chunkSize = chunkSize;
+    this.errorHandler = requireNonNull(errorHandler, "errorHandler");
+  }
+
+  /**
+   * Returns the counters for every batch converted so far, including batches still in progress.
+   * The elapsed time is measured from when this BatchConverter was created.
+   *
+   * @return the counters
+   */
+  public BatchStats stats() {
+    return totals.toStats(System.nanoTime() - created);
+  }
+
+  /**
+   * Converts the Scores in the input file and writes them to the output file, replacing it.
+   *
+   * @param input the file to read from
+   * @param output the file to write to
+   * @param transform applied to each Score; may return null to drop it
+   * @return the counters for this batch
+   */
+  public BatchStats convert(final Path input,
+                            final Path output,
+                            final UnaryOperator<Score> transform) throws IOException {
+    try (InputStream in = Files.newInputStream(input);
+         OutputStream out = Files.newOutputStream(output)) {
+      return convert(in, out, transform);
+    }
+  }
+
+  /**
+   * Converts the Scores read from the channel and writes them to the output channel. Both channels
+   * are left open.
+   *
+   * @param input the channel to read from
+   * @param output the channel to write to
+   * @param transform applied to each Score; may return null to drop it
+   * @return the counters for this batch
+   */
+  public BatchStats convert(final ReadableByteChannel input,
+                            final WritableByteChannel output,
+                            final UnaryOperator<Score> transform) throws IOException {
+    return convert(Channels.newInputStream(input), Channels.newOutputStream(output), transform);
+  }
+
+  /**
+   * Converts the Scores read from the stream and writes them to the output stream. The output is
+   * flushed; both streams are left open.
+   *
+   * @param input the stream to read from
+   * @param output the stream to write to
+   * @param transform applied to each Score; may return null to drop it
+   * @return the counters for this batch
+   */
+  public BatchStats convert(final InputStream input,
+                            final OutputStream output,
+                            final UnaryOperator<Score> transform) throws IOException {
+    requireNonNull(input, "input");
+    requireNonNull(output, "output");
+    requireNonNull(transform, "transform");
+    final long start = System.nanoTime();
+    final Counters counters = new Counters();
+    final LineReader lines = new LineReader(input);
+    final OutputStream out = new BufferedOutputStream(output, BUFFER_SIZE);
+    final Deque<CompletableFuture<Chunk>> pending = new ArrayDeque<>();
+    for (Chunk chunk = lines.next(chunkSize); chunk != null; chunk = lines.next(chunkSize)) {
+      if (pending.size() >= maxInFlight) {
+        write(await(pending.poll()), out, counters);
+      }
+      final Chunk next = chunk;
+      pending.add(CompletableFuture.supplyAsync(() -> convert(next, transform), executor));
+    }
+    while (!pending.isEmpty()) {
+      write(await(pending.poll()), out, counters);
+    }
+    out.flush();
+    return counters.toStats(System.nanoTime() - start);
+  }
+
+  private Chunk convert(final Chunk chunk, final UnaryOperator<Score> transform) {
+    int start = 0;
+    for (int i = 0; i < chunk.count; i++) {
+      final int end = chunk.ends[i];
+      try {
+        final Score score = transform.apply(reader.readValue(chunk.data, start, end - start));
+        chunk.output[i] = score == null ? null : writer.writeValueAsBytes(score);
+      } catch (Exception e) {
+        chunk.errors[i] = e;
+      }
+      start = end;
+    }
+    chunk.data = null;
+    return chunk;
+  }
+
+  private void write(final Chunk chunk,
+                     final OutputStream out,
+                     final Counters counters) throws IOException {
+    for (int i = 0; i < chunk.count; i++) {
+      if (chunk.errors[i] != null) {
+        counters.failed.incrementAndGet();
+        totals.failed.incrementAndGet();
+        errorHandler.onError(chunk.lines[i], chunk.errors[i]);
+      } else if (chunk.output[i] == null) {
+        counters.dropped.incrementAndGet();
+        totals.dropped.incrementAndGet();
+      } else {
+        out.write(chunk.output[i]);
+        out.write('\n');
+        counters.written.incrementAndGet();
+        totals.written.incrementAndGet();
+        counters.bytesWritten.addAndGet(chunk.output[i].length + 1);
+        totals.bytesWritten.addAndGet(chunk.output[i].length + 1);
+      }
+    }
+    counters.read.addAndGet(chunk.count);
+    totals.read.addAndGet(chunk.count);
+    counters.bytesRead.addAndGet(chunk.bytesRead);
+    totals.bytesRead.addAndGet(chunk.bytesRead);
+  }
+
+  private static Chunk await(final CompletableFuture<Chunk> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while converting");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private static class Counters {
+
+    private final AtomicLong read = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    BatchStats toStats(final long elapsedNanos) {
+      return BatchStats.builder()
+          .read(read.get())
+          .written(written.get())
+          .dropped(dropped.get())
+          .failed(failed.get())
+          .bytesRead(bytesRead.get())
+          .bytesWritten(bytesWritten.get())
+          .elapsedNanos(elapsedNanos)
+          .build();
+    }
+  }
+
+  /**
+   * A run of non-blank lines stored back to back, and the results of converting them.
+   */
+  private static class Chunk {
+
+    private byte[] data = new byte[BUFFER_SIZE];
+    private int length;
+    private final int[] ends;
+    private final long[] lines;
+    private final byte[][] output;
+    private final Exception[] errors;
+    private int count;
+    private long bytesRead;
+
+    Chunk(final int capacity) {
+      this.ends = new int[capacity];
+      this.lines = new long[capacity];
+      this.output = new byte[capacity][];
+      this.errors = new Exception[capacity];
+    }
+
+    void append(final byte[] bytes, final int offset, final int len) {
+      if (length + len > data.length) {
+        data = Arrays.copyOf(data, Math.max(length + len, data.length * 2));
+      }
+      System.arraycopy(bytes, offset, data, length, len);
+      length += len;
+    }
+
+    void endLine(final long line) {
+      ends[count] = length;
+      lines[count] = line;
+      count++;
+    }
+  }
+
+  private static class LineReader {
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long line;
+
+    LineReader(final InputStream in) {
+      this.in = in;
+    }
+
+    /**
+     * Returns a chunk of up to the given number of non-blank lines, or null at the end of input.
+     */
+    Chunk next(final int maxLines) throws IOException {
+      final Chunk chunk = new Chunk(maxLines);
+      while (chunk.count < maxLines && readLine(chunk)) {
+        // keep reading
+      }
+      return chunk.count == 0 ? null : chunk;
+    }
+
+    private boolean readLine(final Chunk chunk) throws IOException {
+      while (true) {
+        final int start = chunk.length;
+        boolean terminated = false;
+        boolean empty = true;
+        while (!terminated && (position < limit || fill())) {
+          int end = position;
+          while (end < limit && buffer[end] != '\n') {
+            end++;
+          }
+          chunk.append(buffer, position, end - position);
+          terminated = end < limit;
+          chunk.bytesRead += end - position + (terminated ? 1 : 0);
+          position = terminated ? end + 1 : end;
+          empty = false;
+        }
+        if (empty) {
+          return false;
+        }
+        line++;
+        if (!isBlank(chunk.data, start, chunk.length)) {
+          chunk.endLine(line);
+          return true;
+        }
+        chunk.length = start;
+        if (!terminated) {
+          return false;
+        }
+      }
+    }
+
+    private boolean fill() throws IOException {
+      int n;
+      do {
+        n = in.read(buffer, 0, buffer.length);
+      } while (n == 0);
+      if (n < 0) {
+        return false;
+      }
+      position = 0;
+      limit = n;
+      return true;
+    }
+
+    private static boolean isBlank(final byte[] bytes, final int start, final int end) {
+      for (int i = start; i < end; i++) {
+        final byte b = bytes[i];
+        if (b != ' ' && b != '\t' && b != '\r') {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.score;
+
+import io.norberg.automatter.AutoMatter;
+
+/**
+ * Counters for a batch conversion.
+ *
+ * @see BatchConverter
+ */
+@AutoMatter
+public interface BatchStats {
+
+  /**
+   * Returns the number of non-blank lines read.
+   */
+  long read();
+
+  /**
+   * Returns the number of Scores written.
+   */
+  long written();
+
+  /**
+   * Returns the number of Scores the transform dropped by returning null.
+   */
+  long dropped();
+
+  /**
+   * Returns the number of lines that could not be read, transformed or written.
+   */
+  long failed();
+
+  /**
+   * Returns the number of bytes read, including line separators.
+   */
+  long bytesRead();
+
+  /**
+   * Returns the number of bytes written, including line separators.
+   */
+  long bytesWritten();
+
+  /**
+   * Returns the time spent converting, in nanoseconds.
+   */
+  long elapsedNanos();
+
+  /**
+   * Returns the number of lines read per second.
+   */
+  default double linesPerSecond() {
+    return elapsedNanos() == 0 ? 0 : read() * 1e9 / elapsedNanos();
+  }
+
+  /**
+   * Returns the number of bytes read per second.
+   */
+  default double bytesPerSecond() {
+    return elapsedNanos() == 0 ? 0 : bytesRead() * 1e9 / elapsedNanos();
+  }
+
+  static BatchStatsBuilder builder() {
+    return new BatchStatsBuilder();
+  }
+}
@@ -0,0 +1,125 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.score;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shares identical strings and Commands between decoded Scores.
+ *
+ * <p>Strings found in the vocabulary, such as plugin kinds, param, command and argument names, are
+ * replaced with a single canonical instance. Equal Commands are replaced with the first instance
+ * seen, up to a fixed number of distinct Commands. Shared Commands must be treated as immutable,
+ * including any list values in their arguments.
+ *
+ * <p>Instances are safe for use by multiple threads.
+ */
+public final class Canonicalizer {
+
+  /**
+   * A Canonicalizer that returns every value unchanged.
+   */
+  public static final Canonicalizer NONE = new Canonicalizer(new HashMap<>(), 0);
+
+  private static final int DEFAULT_MAX_COMMANDS = 1 << 16;
+
+  private final Map<String, String> vocabulary;
+
+  private final Map<Command, Command> commands;
+
+  private final int maxCommands;
+
+  private Canonicalizer(final Map<String, String> vocabulary, final int maxCommands) {
+    this.vocabulary = vocabulary;
+    this.commands = new ConcurrentHashMap<>();
+    this.maxCommands = maxCommands;
+  }
+
+  /**
+   * Creates a Canonicalizer for the given vocabulary that shares up to 65536 distinct Commands.
+   *
+   * @param vocabulary the strings to canonicalize
+   * @return a new Canonicalizer
+   */
+  public static Canonicalizer of(final Collection<String> vocabulary) {
+    return of(vocabulary, DEFAULT_MAX_COMMANDS);
+  }
+
+  /**
+   * Creates a Canonicalizer for the given vocabulary.
+   *
+   * @param vocabulary the strings to canonicalize
+   * @param maxCommands the maximum number of distinct Commands to retain for sharing
+   * @return a new Canonicalizer
+   */
+  public static Canonicalizer of(final Collection<String> vocabulary, final int maxCommands) {
+    requireNonNull(vocabulary, "vocabulary");
+    if (maxCommands < 0) {
+      throw new IllegalArgumentException("maxCommands must not be negative");
+    }
+    final Map<String, String> canonical = new HashMap<>();
+    for (final String word : vocabulary) {
+      canonical.putIfAbsent(word, word);
+    }
+    return new Canonicalizer(canonical, maxCommands);
+  }
+
+  /**
+   * Returns the canonical instance of the given string if it is in the vocabulary, or the string
+   * itself otherwise.
+   *
+   * @param value the string to canonicalize, may be null
+   * @return the canonical string
+   */
+  public String canonicalize(final String value) {
+    if (value == null) {
+      return null;
+    }
+    final String canonical = vocabulary.get(value);
+    return canonical == null ? value : canonical;
+  }
+
+  /**
+   * Returns a previously seen Command equal to the given one, or the Command itself otherwise.
+   *
+   * @param command the Command to canonicalize
+   * @return the canonical Command
+   */
+  public Command canonicalize(final Command command) {
+    if (maxCommands == 0) {
+      return command;
+    }
+    final Command canonical = commands.get(command);
+    if (canonical != null) {
+      return canonical;
+    }
+    if (commands.size() >= maxCommands) {
+      return command;
+    }
+    final Command previous = commands.putIfAbsent(command, command);
+    return previous == null ? command : previous;
+  }
+}
@@ -20,15 +20,27 @@
 
 package com.spotify.nativeformat.score;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
 import io.norberg.automatter.jackson.AutoMatterModule;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 
 public class Converter {
 
   private static Converter DEFAULT;
 
+  private static Converter BINARY;
+
   private ObjectMapper objectMapper;
 
   public Converter(ObjectMapper objectMapper) {
@@ -37,11 +49,47 @@ public class Converter {
 
   public static Converter getInstance() {
     if (DEFAULT == null) {
-      DEFAULT = new Converter(new ObjectMapper().registerModule(new AutoMatterModule()));
+      DEFAULT = new Converter(new ObjectMapper()
+          .registerModule(new AutoMatterModule())
+          .registerModule(new ScoreModule()));
     }
     return DEFAULT;
   }
 
+  /**
+   * Returns a Converter that reads and writes the binary Smile encoding of a Score.
+   *
+   * <p>Repeated strings such as ids, plugin kinds, param and command names are written once and
+   * back-referenced, and integral values such as Time nanos are written as zigzag varints. The
+   * encoding is lossless: decoding it yields the same Score as decoding the JSON form.
+   *
+   * @return the binary Converter
+   */
+  public static Converter getBinaryInstance() {
+    if (BINARY == null) {
+      final SmileFactory factory = new SmileFactory()
+          .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+          .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+      BINARY = new Converter(new ObjectMapper(factory)
+          .registerModule(new AutoMatterModule())
+          .registerModule(new ScoreModule()));
+    }
+    return BINARY;
+  }
+
+  /**
+   * Returns a new Converter whose decoded Scores share strings and Commands through the given
+   * Canonicalizer. Useful when many Scores are retained in memory at once.
+   *
+   * @param canonicalizer the Canonicalizer to apply to decoded Scores
+   * @return a new Converter
+   */
+  public static Converter newCanonicalizingInstance(final Canonicalizer canonicalizer) {
+    return new Converter(new ObjectMapper()
+        .registerModule(new AutoMatterModule())
+        .registerModule(new ScoreModule(canonicalizer)));
+  }
+
   public ObjectMapper getObjectMapper() {
     return objectMapper;
   }
@@ -58,4 +106,114 @@ public class Converter {
     return objectMapper.writeValueAsString(obj);
   }
 
+  public Score fromBytes(byte[] bytes) throws IOException {
+    return objectMapper.readValue(bytes, Score.class);
+  }
+
+  public byte[] toBytes(Score obj) throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(obj);
+  }
+
+  /**
+   * Reads a Score from the given stream without buffering the document as a String. The stream is
+   * left open.
+   *
+   * @param in the stream to read from
+   * @return the Score
+   */
+  public Score readScore(InputStream in) throws IOException {
+    return objectMapper.readerFor(Score.class)
+        .without(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+        .readValue(in);
+  }
+
+  /**
+   * Reads a Score from the remaining bytes of the given buffer. Heap buffers are parsed in place;
+   * direct buffers are streamed. The buffer's position is advanced past the end of the Score, so
+   * any bytes after it, such as a following document, are left in the buffer.
+   *
+   * @param buffer the buffer to read from
+   * @return the Score
+   */
+  public Score readScore(ByteBuffer buffer) throws IOException {
+    final JsonFactory factory = objectMapper.getFactory();
+    final JsonParser parser;
+    if (buffer.hasArray()) {
+      parser = factory.createParser(
+          buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+    } else {
+      parser = factory.createParser(new ByteBufferInputStream(buffer.duplicate()));
+    }
+    try (JsonParser p = parser) {
+      final Score score = objectMapper.readValue(p, Score.class);
+      buffer.position(buffer.position() + (int) p.getCurrentLocation().getByteOffset());
+      return score;
+    }
+  }
+
+  /**
+   * Reads a Score from a JSON document, binding each node's params and config only when they are
+   * first accessed. The document is retained by the returned Score and must not be modified.
+   *
+   * @param json the UTF-8 encoded JSON document
+   * @return the Score
+   * @throws UnsupportedOperationException if this Converter does not read JSON
+   */
+  public Score readLazyScore(byte[] json) throws IOException {
+    return LazyScore.read(objectMapper, json);
+  }
+
+  /**
+   * Writes the given Score to the stream without building an intermediate String. The stream is
+   * flushed but left open.
+   *
+   * @param obj the Score to write
+   * @param out the stream to write to
+   */
+  public void writeScore(Score obj, OutputStream out) throws IOException {
+    objectMapper.writer()
+        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+        .writeValue(out, obj);
+  }
+
+  /**
+   * Writes the given Score to the channel without building an intermediate String. The channel is
+   * left open.
+   *
+   * @param obj the Score to write
+   * @param channel the channel to write to
+   */
+  public void writeScore(Score obj, WritableByteChannel channel) throws IOException {
+    writeScore(obj, Channels.newOutputStream(channel));
+  }
+
+  private static class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(final ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) {
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      final int n = Math.min(len, buffer.remaining());
+      buffer.get(b, off, n);
+      return n;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+
 }
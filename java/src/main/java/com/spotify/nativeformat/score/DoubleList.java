@@ -0,0 +1,135 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.score;
+
+import java.nio.DoubleBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list of doubles stored in a primitive array, for long numeric arguments such as
+ * the values of a curve.
+ *
+ * <p>It equals, and hashes like, any other list of the same Doubles, so Commands holding one
+ * behave like Commands holding a boxed list. {@link ScoreModule} writes it as a JSON array without
+ * boxing, and reads arrays of floating point numbers back into one.
+ */
+public final class DoubleList extends AbstractList<Double> implements RandomAccess {
+
+  private static final DoubleList EMPTY = new DoubleList(new double[0]);
+
+  final double[] values;
+
+  private DoubleList(final double[] values) {
+    this.values = values;
+  }
+
+  /**
+   * Returns a list of the values.
+   *
+   * @param values the values, which are copied
+   * @return a list of the values
+   */
+  public static DoubleList of(final double... values) {
+    return values.length == 0 ? EMPTY : new DoubleList(values.clone());
+  }
+
+  /**
+   * Returns a list of the values.
+   *
+   * @param values the values, which are copied
+   * @return a list of the values
+   */
+  public static DoubleList of(final float[] values) {
+    if (values.length == 0) {
+      return EMPTY;
+    }
+    final double[] copy = new double[values.length];
+    for (int i = 0; i < copy.length; i++) {
+      copy[i] = values[i];
+    }
+    return new DoubleList(copy);
+  }
+
+  /**
+   * Returns a list of the remaining values of a buffer.
+   *
+   * @param values a buffer whose remaining values are copied, without changing its position
+   * @return a list of the values
+   */
+  public static DoubleList of(final DoubleBuffer values) {
+    if (!values.hasRemaining()) {
+      return EMPTY;
+    }
+    final double[] copy = new double[values.remaining()];
+    values.duplicate().get(copy);
+    return new DoubleList(copy);
+  }
+
+  /**
+   * Wraps an array the caller no longer modifies.
+   */
+  static DoubleList wrap(final double[] values) {
+    return values.length == 0 ? EMPTY : new DoubleList(values);
+  }
+
+  @Override
+  public Double get(final int index) {
+    return values[index];
+  }
+
+  /**
+   * Returns the value, without boxing it.
+   *
+   * @param index the index of a value
+   * @return the value, without boxing it
+   */
+  public double getDouble(final int index) {
+    return values[index];
+  }
+
+  @Override
+  public int size() {
+    return values.length;
+  }
+
+  /**
+   * Returns a copy of the values.
+   */
+  public double[] toDoubleArray() {
+    return values.clone();
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (o instanceof DoubleList) {
+      return Arrays.equals(values, ((DoubleList) o).values);
+    }
+    return super.equals(o);
+  }
+
+  @Override
+  public int hashCode() {
+    // The same as List.hashCode of the boxed values.
+    return Arrays.hashCode(values);
+  }
+}
@@ -63,6 +63,22 @@ public interface Edge {
         .build();
   }
 
+  /**
+   * Creates an Edge with an id from {@link IdGenerators#current()}.
+   */
+  static Edge connect(final String source, final String target) {
+    return connect(source, target, null, null);
+  }
+
+  /**
+   * Creates an Edge with an id from {@link IdGenerators#current()}.
+   */
+  static Edge connect(final String source, final String target,
+                      final String sourcePort, final String targetPort) {
+    return create(IdGenerators.current().newEdgeId(source, target, sourcePort, targetPort),
+        source, target, sourcePort, targetPort);
+  }
+
   static EdgeBuilder builder() {
     return new EdgeBuilder();
   }
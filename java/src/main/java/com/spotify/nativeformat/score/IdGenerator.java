@@ -0,0 +1,52 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.score;
+
+/**
+ * Generates the ids of nodes and edges that are created without one.
+ *
+ * <p>Implementations must be safe for use by multiple threads. A default implementation can be
+ * provided through {@link java.util.ServiceLoader}, see {@link IdGenerators#getDefault()}.
+ */
+@FunctionalInterface
+public interface IdGenerator {
+
+  /**
+   * Returns a new id.
+   */
+  String newId();
+
+  /**
+   * Returns a new id for an edge. Implementations may derive it from the edge's endpoints.
+   *
+   * @param source the id of the source node
+   * @param target the id of the target node
+   * @param sourcePort the source port, or null
+   * @param targetPort the target port, or null
+   * @return a new id
+   */
+  default String newEdgeId(final String source,
+                           final String target,
+                           final String sourcePort,
+                           final String targetPort) {
+    return newId();
+  }
+}
@@ -0,0 +1,236 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.score;
+
+import static java.util.Objects.requireNonNull;
+
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Built-in {@link IdGenerator}s, and the generator used for nodes and edges created without an id.
+ *
+ * <p>The generator in use is the one set for the current thread by {@link #using(IdGenerator)},
+ * or the default generator otherwise.
+ */
+public final class IdGenerators {
+
+  private static final ThreadLocal<IdGenerator> CURRENT = new ThreadLocal<>();
+
+  private static final SecureRandom SEEDS = new SecureRandom();
+
+  private static final ThreadLocal<SplittableRandom> LOW_BITS =
+      ThreadLocal.withInitial(() -> new SplittableRandom(SEEDS.nextLong()));
+
+  private static volatile IdGenerator defaultGenerator = loadDefault();
+
+  private IdGenerators() {
+  }
+
+  /**
+   * Returns the generator used when no generator is set for the current thread. This is the first
+   * IdGenerator provided through {@link ServiceLoader}, or {@link #threadLocalRandom()} if there
+   * is none.
+   *
+   * @return the default generator
+   */
+  public static IdGenerator getDefault() {
+    return defaultGenerator;
+  }
+
+  /**
+   * Sets the generator to use on threads that have none of their own.
+   *
+   * @param generator the generator to use when no generator is set for the current thread
+   */
+  public static void setDefault(final IdGenerator generator) {
+    defaultGenerator = requireNonNull(generator, "generator");
+  }
+
+  /**
+   * Returns the generator set for the current thread, or the default generator.
+   */
+  public static IdGenerator current() {
+    final IdGenerator generator = CURRENT.get();
+    return generator == null ? defaultGenerator : generator;
+  }
+
+  /**
+   * Sets the generator for the current thread until the returned scope is closed. For example, to
+   * number the nodes of one graph:
+   *
+   * <pre>
+   * try (IdGenerators.Scope scope = IdGenerators.using(IdGenerators.sequence("drums-"))) {
+   *   ...
+   * }
+   * </pre>
+   *
+   * @param generator the generator to use
+   * @return a scope that restores the previous generator when closed
+   */
+  public static Scope using(final IdGenerator generator) {
+    requireNonNull(generator, "generator");
+    final IdGenerator previous = CURRENT.get();
+    CURRENT.set(generator);
+    return new Scope(previous);
+  }
+
+  /**
+   * Returns a generator of random version 4 UUIDs drawn from {@link UUID#randomUUID()}. This
+   * uses a shared {@link java.security.SecureRandom}, which contends when many threads generate
+   * ids.
+   *
+   * @return a generator of random UUIDs
+   */
+  public static IdGenerator secureRandom() {
+    return () -> UUID.randomUUID().toString();
+  }
+
+  /**
+   * Returns a generator of random version 4 UUIDs drawn from per-thread generators. The ids look
+   * like those of {@link #secureRandom()} but are not suitable for security purposes.
+   *
+   * <p>A {@link ThreadLocalRandom} has only 64 bits of state, seeded from the clock, so on its own
+   * it could produce at most 2^64 distinct ids and two JVMs started at the same time could produce
+   * the same ones. The high half of each id is therefore drawn from {@link ThreadLocalRandom} and
+   * the low half from a second, independent {@link SplittableRandom} per thread that is seeded from
+   * {@link SecureRandom}, giving 128 bits of state per thread.
+   *
+   * @return a generator of random UUIDs
+   */
+  public static IdGenerator threadLocalRandom() {
+    return () -> uuid(ThreadLocalRandom.current().nextLong(), LOW_BITS.get().nextLong());
+  }
+
+  /**
+   * Returns a generator of the ids <code>prefix + 0</code>, <code>prefix + 1</code> and so on.
+   *
+   * @param prefix the prefix of every id
+   * @return a new generator
+   */
+  public static IdGenerator sequence(final String prefix) {
+    requireNonNull(prefix, "prefix");
+    final AtomicLong next = new AtomicLong();
+    return () -> prefix + next.getAndIncrement();
+  }
+
+  /**
+   * Returns a generator of UUIDs derived from a seed. Two generators with the same seed return the
+   * same node ids in the same order. Edge ids are derived from the seed, the edge's endpoints and
+   * the number of edges between the same ports the generator has already returned. They therefore
+   * do not depend on the order in which edges between different ports are created, and parallel
+   * edges get distinct ids.
+   *
+   * @param seed the seed
+   * @return a new generator
+   */
+  public static IdGenerator hashed(final String seed) {
+    requireNonNull(seed, "seed");
+    final long seedHash = hash(seed, 0xcbf29ce484222325L);
+    final AtomicLong next = new AtomicLong();
+    final Map<Long, AtomicLong> edgeCounts = new ConcurrentHashMap<>();
+    return new IdGenerator() {
+      @Override
+      public String newId() {
+        return hashedUuid(seedHash, next.getAndIncrement());
+      }
+
+      @Override
+      public String newEdgeId(final String source,
+                              final String target,
+                              final String sourcePort,
+                              final String targetPort) {
+        long h = hash(source, seedHash ^ 0x9e3779b97f4a7c15L);
+        h = hash(target, h);
+        h = hash(sourcePort, h);
+        h = hash(targetPort, h);
+        final long count = edgeCounts.computeIfAbsent(h, key -> new AtomicLong()).getAndIncrement();
+        return hashedUuid(seedHash, (h ^ count) * 0x100000001b3L);
+      }
+    };
+  }
+
+  /**
+   * FNV-1a over the characters of a string and a terminator, so that adjacent strings do not run
+   * together.
+   */
+  private static long hash(final String value, long h) {
+    if (value != null) {
+      for (int i = 0; i < value.length(); i++) {
+        h = (h ^ value.charAt(i)) * 0x100000001b3L;
+      }
+    }
+    return (h ^ (value == null ? 0x10000 : 0x10001)) * 0x100000001b3L;
+  }
+
+  private static String hashedUuid(final long seed, final long value) {
+    return uuid(mix(seed + value * 0x9e3779b97f4a7c15L),
+        mix(seed ^ mix(value + 0x632be59bd9b4e019L)));
+  }
+
+  /**
+   * The SplitMix64 finalizer.
+   */
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  private static String uuid(final long mostSigBits, final long leastSigBits) {
+    return new UUID(
+        (mostSigBits & ~0xf000L) | 0x4000L,
+        (leastSigBits & 0x3fffffffffffffffL) | 0x8000000000000000L).toString();
+  }
+
+  private static IdGenerator loadDefault() {
+    final Iterator<IdGenerator> providers = ServiceLoader.load(IdGenerator.class).iterator();
+    return providers.hasNext() ? providers.next() : threadLocalRandom();
+  }
+
+  /**
+   * Restores the previously used generator when closed.
+   */
+  public static final class Scope implements AutoCloseable {
+
+    private final IdGenerator previous;
+
+    private Scope(final IdGenerator previous) {
+      this.previous = previous;
+    }
+
+    @Override
+    public void close() {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    }
+  }
+}
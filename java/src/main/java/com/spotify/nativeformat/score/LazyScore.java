@@ -0,0 +1,365 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.score;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Reads a Score in a single indexing pass over a JSON document, deferring the binding of each
+ * node's params and config until they are first accessed.
+ *
+ * <p>Graph ids, loading policies, node ids and kinds, edges and scripts are bound eagerly. For
+ * params and config only the byte range of the JSON object is recorded; the document is retained
+ * and the range is bound on first access, so errors inside it surface from {@link Node#params()}
+ * or {@link Node#config()} as an {@link UncheckedIOException}. As with eager reading, null values
+ * are dropped from params and config.
+ */
+final class LazyScore {
+
+  private static final TypeReference<Map<String, List<Command>>> PARAMS_TYPE =
+      new TypeReference<Map<String, List<Command>>>() {};
+
+  private static final TypeReference<List<Edge>> EDGES_TYPE = new TypeReference<List<Edge>>() {};
+
+  private static final TypeReference<List<Script>> SCRIPTS_TYPE =
+      new TypeReference<List<Script>>() {};
+
+  private LazyScore() {}
+
+  static Score read(final ObjectMapper mapper, final byte[] json) throws IOException {
+    final JsonFactory factory = mapper.getFactory();
+    if (!JsonFactory.FORMAT_NAME_JSON.equals(factory.getFormatName())) {
+      throw new UnsupportedOperationException(
+          "lazy reading requires JSON but format is " + factory.getFormatName());
+    }
+    final Source source = new Source(mapper, json);
+    try (JsonParser p = factory.createParser(json)) {
+      expectToken(p.nextToken(), JsonToken.START_OBJECT, Score.class, p);
+      Graph graph = null;
+      String version = null;
+      for (String field = p.nextFieldName(); field != null; field = p.nextFieldName()) {
+        final JsonToken token = p.nextToken();
+        switch (field) {
+          case "graph":
+            graph = token == JsonToken.VALUE_NULL ? null : readGraph(p, source);
+            break;
+          case "version":
+            version = p.getValueAsString();
+            break;
+          default:
+            p.skipChildren();
+        }
+      }
+      requireField(graph, "graph", Score.class, p);
+      requireField(version, "version", Score.class, p);
+      return Score.builder().graph(graph).version(version).build();
+    }
+  }
+
+  private static Graph readGraph(final JsonParser p, final Source source) throws IOException {
+    expectToken(p.currentToken(), JsonToken.START_OBJECT, Graph.class, p);
+    final GraphBuilder builder = Graph.builder();
+    String id = null;
+    for (String field = p.nextFieldName(); field != null; field = p.nextFieldName()) {
+      final JsonToken token = p.nextToken();
+      if (token == JsonToken.VALUE_NULL) {
+        continue;
+      }
+      switch (field) {
+        case "id":
+          id = p.getValueAsString();
+          break;
+        case "loadingPolicy":
+          builder.loadingPolicy(readLoadingPolicy(p));
+          break;
+        case "nodes":
+          expectToken(token, JsonToken.START_ARRAY, Graph.class, p);
+          final List<Node> nodes = new ArrayList<>();
+          while (p.nextToken() != JsonToken.END_ARRAY) {
+            nodes.add(readNode(p, source));
+          }
+          builder.nodes(nodes);
+          break;
+        case "edges":
+          builder.edges(source.edgesReader.<List<Edge>>readValue(p));
+          break;
+        case "scripts":
+          builder.scripts(source.scriptsReader.<List<Script>>readValue(p));
+          break;
+        default:
+          p.skipChildren();
+      }
+    }
+    requireField(id, "id", Graph.class, p);
+    return builder.id(id).build();
+  }
+
+  private static Node readNode(final JsonParser p, final Source source) throws IOException {
+    expectToken(p.currentToken(), JsonToken.START_OBJECT, Node.class, p);
+    String id = null;
+    String kind = null;
+    LoadingPolicy loadingPolicy = null;
+    int paramsStart = -1;
+    int paramsEnd = -1;
+    int configStart = -1;
+    int configEnd = -1;
+    for (String field = p.nextFieldName(); field != null; field = p.nextFieldName()) {
+      final JsonToken token = p.nextToken();
+      if (token == JsonToken.VALUE_NULL) {
+        continue;
+      }
+      switch (field) {
+        case "id":
+          id = p.getValueAsString();
+          break;
+        case "kind":
+          kind = p.getValueAsString();
+          break;
+        case "loadingPolicy":
+          loadingPolicy = readLoadingPolicy(p);
+          break;
+        case "params":
+          expectToken(token, JsonToken.START_OBJECT, Node.class, p);
+          paramsStart = (int) p.getTokenLocation().getByteOffset();
+          p.skipChildren();
+          paramsEnd = (int) p.getCurrentLocation().getByteOffset();
+          break;
+        case "config":
+          expectToken(token, JsonToken.START_OBJECT, Node.class, p);
+          configStart = (int) p.getTokenLocation().getByteOffset();
+          p.skipChildren();
+          configEnd = (int) p.getCurrentLocation().getByteOffset();
+          break;
+        default:
+          p.skipChildren();
+      }
+    }
+    requireField(id, "id", Node.class, p);
+    requireField(kind, "kind", Node.class, p);
+    return new LazyNode(source, id, kind, loadingPolicy,
+        paramsStart, paramsEnd, configStart, configEnd);
+  }
+
+  private static LoadingPolicy readLoadingPolicy(final JsonParser p) throws IOException {
+    final String value = p.getValueAsString();
+    try {
+      return LoadingPolicy.fromString(value);
+    } catch (IllegalArgumentException e) {
+      throw InvalidFormatException.from(p, String.format(
+          "Cannot deserialize value of type `%s` from String \"%s\": %s",
+          LoadingPolicy.class.getName(), value, e.getMessage()), value, LoadingPolicy.class);
+    }
+  }
+
+  private static void expectToken(final JsonToken actual,
+                                  final JsonToken expected,
+                                  final Class<?> type,
+                                  final JsonParser p) throws IOException {
+    if (actual != expected) {
+      throw MismatchedInputException.from(p, type, String.format(
+          "Unexpected token (%s), expected %s for %s", actual, expected, type.getSimpleName()));
+    }
+  }
+
+  private static void requireField(final Object value,
+                                   final String name,
+                                   final Class<?> type,
+                                   final JsonParser p) throws IOException {
+    if (value == null) {
+      throw MismatchedInputException.from(p, type, String.format(
+          "Missing required property '%s' for %s", name, type.getSimpleName()));
+    }
+  }
+
+  /**
+   * The retained document and the readers used to bind ranges of it, shared by all nodes of one
+   * Score.
+   */
+  private static class Source {
+
+    private final byte[] json;
+    private final ObjectReader paramsReader;
+    private final ObjectReader configReader;
+    private final ObjectReader edgesReader;
+    private final ObjectReader scriptsReader;
+
+    Source(final ObjectMapper mapper, final byte[] json) {
+      this.json = json;
+      this.paramsReader = mapper.readerFor(PARAMS_TYPE);
+      this.configReader = mapper.readerFor(ScoreModule.Fields.class);
+      this.edgesReader = mapper.readerFor(EDGES_TYPE);
+      this.scriptsReader = mapper.readerFor(SCRIPTS_TYPE);
+    }
+
+    Map<String, List<Command>> bindParams(final int start, final int end) {
+      if (start < 0) {
+        return Collections.emptyMap();
+      }
+      try {
+        return unmodifiable(paramsReader.readValue(json, start, end - start));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    Map<String, Object> bindConfig(final int start, final int end) {
+      if (start < 0) {
+        return Collections.emptyMap();
+      }
+      try {
+        final ScoreModule.Fields fields = configReader.readValue(json, start, end - start);
+        return unmodifiable(fields.map);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private static <T> Map<String, T> unmodifiable(final Map<String, T> map) {
+      map.values().removeIf(Objects::isNull);
+      return Collections.unmodifiableMap(map);
+    }
+  }
+
+  /**
+   * A Node whose params and config are bound from the retained document on first access. Binding
+   * is idempotent, so concurrent first accesses may bind twice but always observe equal values.
+   */
+  private static class LazyNode implements Node {
+
+    private final Source source;
+    private final String id;
+    private final String kind;
+    private final LoadingPolicy loadingPolicy;
+    private final int paramsStart;
+    private final int paramsEnd;
+    private final int configStart;
+    private final int configEnd;
+
+    private volatile Map<String, List<Command>> params;
+    private volatile Map<String, Object> config;
+
+    LazyNode(final Source source,
+             final String id,
+             final String kind,
+             final LoadingPolicy loadingPolicy,
+             final int paramsStart,
+             final int paramsEnd,
+             final int configStart,
+             final int configEnd) {
+      this.source = source;
+      this.id = id;
+      this.kind = kind;
+      this.loadingPolicy = loadingPolicy;
+      this.paramsStart = paramsStart;
+      this.paramsEnd = paramsEnd;
+      this.configStart = configStart;
+      this.configEnd = configEnd;
+    }
+
+    @Override
+    public String id() {
+      return id;
+    }
+
+    @Override
+    public String kind() {
+      return kind;
+    }
+
+    @Override
+    public LoadingPolicy loadingPolicy() {
+      return loadingPolicy;
+    }
+
+    @Override
+    public Map<String, List<Command>> params() {
+      Map<String, List<Command>> result = params;
+      if (result == null) {
+        result = source.bindParams(paramsStart, paramsEnd);
+        params = result;
+      }
+      return result;
+    }
+
+    @Override
+    public Map<String, Object> config() {
+      Map<String, Object> result = config;
+      if (result == null) {
+        result = source.bindConfig(configStart, configEnd);
+        config = result;
+      }
+      return result;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Node)) {
+        return false;
+      }
+      final Node that = (Node) o;
+      return id.equals(that.id())
+             && kind.equals(that.kind())
+             && (loadingPolicy == null
+                 ? that.loadingPolicy() == null : loadingPolicy.equals(that.loadingPolicy()))
+             && params().equals(that.params())
+             && config().equals(that.config());
+    }
+
+    @Override
+    public int hashCode() {
+      int result = 1;
+      result = 31 * result + id.hashCode();
+      result = 31 * result + kind.hashCode();
+      result = 31 * result + (loadingPolicy != null ? loadingPolicy.hashCode() : 0);
+      result = 31 * result + params().hashCode();
+      result = 31 * result + config().hashCode();
+      return result;
+    }
+
+    @Override
+    public String toString() {
+      return "Node{"
+             + "id=" + id
+             + ", kind=" + kind
+             + ", loadingPolicy=" + loadingPolicy
+             + ", params=" + params()
+             + ", config=" + config()
+             + '}';
+    }
+  }
+}
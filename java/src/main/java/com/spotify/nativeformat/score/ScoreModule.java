@@ -0,0 +1,790 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.score;
+
+import static java.util.Objects.requireNonNull;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.Deserializers;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.module.SimpleSerializers;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Jackson module with hand-written serializers and deserializers for the Score model.
+ *
+ * <p>These read from {@link JsonParser} and write to {@link JsonGenerator} directly, so Jackson
+ * never introspects the Score interfaces or their AutoMatter value classes. The output is the same
+ * as the annotation-driven binding: fields in declaration order, null and empty fields omitted.
+ */
+public class ScoreModule extends SimpleModule {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Not serialized; a deserialized module decodes without canonicalizing.
+   */
+  private final transient Canonicalizer canonicalizer;
+
+  public ScoreModule() {
+    this(Canonicalizer.NONE);
+  }
+
+  /**
+   * Creates a module whose deserializers share strings and Commands through the given
+   * Canonicalizer.
+   *
+   * @param canonicalizer the Canonicalizer to apply to decoded values
+   */
+  public ScoreModule(final Canonicalizer canonicalizer) {
+    super("ScoreModule");
+    this.canonicalizer = requireNonNull(canonicalizer, "canonicalizer");
+  }
+
+  @Override
+  public void setupModule(final SetupContext context) {
+    final SimpleSerializers serializers = new SimpleSerializers();
+    serializers.addSerializer(Score.class, new ScoreSerializer());
+    serializers.addSerializer(Graph.class, new GraphSerializer());
+    serializers.addSerializer(Node.class, new NodeSerializer());
+    serializers.addSerializer(Edge.class, new EdgeSerializer());
+    serializers.addSerializer(Script.class, new ScriptSerializer());
+    serializers.addSerializer(Command.class, new CommandSerializer());
+    context.addSerializers(serializers);
+    context.addDeserializers(new ScoreDeserializers(
+        canonicalizer == null ? Canonicalizer.NONE : canonicalizer));
+  }
+
+  /**
+   * Writes the given Score to the generator.
+   *
+   * @param score the Score to write
+   * @param gen the generator to write to
+   */
+  static void writeScore(final Score score, final JsonGenerator gen) throws IOException {
+    gen.writeStartObject();
+    if (score.graph() != null) {
+      gen.writeFieldName("graph");
+      writeGraph(score.graph(), gen);
+    }
+    writeStringField("version", score.version(), gen);
+    gen.writeEndObject();
+  }
+
+  /**
+   * Reads a Score from the parser, which must be positioned at or before its START_OBJECT.
+   *
+   * @param p the parser to read from
+   * @param ctxt the context used to report errors
+   * @param canonicalizer the Canonicalizer applied to decoded strings and Commands
+   * @return the Score
+   */
+  static Score readScore(final JsonParser p,
+                         final DeserializationContext ctxt,
+                         final Canonicalizer canonicalizer) throws IOException {
+    expectStartObject(p, ctxt, Score.class);
+    Graph graph = null;
+    String version = null;
+    for (String field = p.nextFieldName(); field != null; field = p.nextFieldName()) {
+      final JsonToken token = p.nextToken();
+      switch (field) {
+        case "graph":
+          graph = token == JsonToken.VALUE_NULL ? null : readGraph(p, ctxt, canonicalizer);
+          break;
+        case "version":
+          version = readString(p, ctxt);
+          break;
+        default:
+          p.skipChildren();
+      }
+    }
+    requireField(graph, "graph", Score.class, ctxt);
+    requireField(version, "version", Score.class, ctxt);
+    return Score.builder().graph(graph).version(version).build();
+  }
+
+  static void writeGraph(final Graph graph, final JsonGenerator gen) throws IOException {
+    gen.writeStartObject();
+    writeStringField("id", graph.id(), gen);
+    if (graph.loadingPolicy() != null) {
+      gen.writeStringField("loadingPolicy", graph.loadingPolicy().getFieldName());
+    }
+    if (!isEmpty(graph.nodes())) {
+      gen.writeArrayFieldStart("nodes");
+      for (final Node node : graph.nodes()) {
+        writeNode(node, gen);
+      }
+      gen.writeEndArray();
+    }
+    if (!isEmpty(graph.edges())) {
+      gen.writeArrayFieldStart("edges");
+      for (final Edge edge : graph.edges()) {
+        writeEdge(edge, gen);
+      }
+      gen.writeEndArray();
+    }
+    if (!isEmpty(graph.scripts())) {
+      gen.writeArrayFieldStart("scripts");
+      for (final Script script : graph.scripts()) {
+        writeScript(script, gen);
+      }
+      gen.writeEndArray();
+    }
+    gen.writeEndObject();
+  }
+
+  static Graph readGraph(final JsonParser p,
+                         final DeserializationContext ctxt,
+                         final Canonicalizer canonicalizer) throws IOException {
+    expectStartObject(p, ctxt, Graph.class);
+    final GraphBuilder builder = Graph.builder();
+    String id = null;
+    for (String field = p.nextFieldName(); field != null; field = p.nextFieldName()) {
+      final JsonToken token = p.nextToken();
+      switch (field) {
+        case "id":
+          id = readString(p, ctxt);
+          break;
+        case "loadingPolicy":
+          builder.loadingPolicy(readLoadingPolicy(p, ctxt));
+          break;
+        case "nodes":
+          if (token != JsonToken.VALUE_NULL) {
+            expectStartArray(p, ctxt, Graph.class);
+            final List<Node> nodes = new ArrayList<>();
+            while (p.nextToken() != JsonToken.END_ARRAY) {
+              nodes.add(readNode(p, ctxt, canonicalizer));
+            }
+            builder.nodes(nodes);
+          }
+          break;
+        case "edges":
+          if (token != JsonToken.VALUE_NULL) {
+            expectStartArray(p, ctxt, Graph.class);
+            final List<Edge> edges = new ArrayList<>();
+            while (p.nextToken() != JsonToken.END_ARRAY) {
+              edges.add(readEdge(p, ctxt, canonicalizer));
+            }
+            builder.edges(edges);
+          }
+          break;
+        case "scripts":
+          if (token != JsonToken.VALUE_NULL) {
+            expectStartArray(p, ctxt, Graph.class);
+            final List<Script> scripts = new ArrayList<>();
+            while (p.nextToken() != JsonToken.END_ARRAY) {
+              scripts.add(readScript(p, ctxt));
+            }
+            builder.scripts(scripts);
+          }
+          break;
+        default:
+          p.skipChildren();
+      }
+    }
+    requireField(id, "id", Graph.class, ctxt);
+    return builder.id(id).build();
+  }
+
+  static void writeNode(final Node node, final JsonGenerator gen) throws IOException {
+    gen.writeStartObject();
+    writeStringField("id", node.id(), gen);
+    writeStringField("kind", node.kind(), gen);
+    if (node.loadingPolicy() != null) {
+      gen.writeStringField("loadingPolicy", node.loadingPolicy().getFieldName());
+    }
+    final Map<String, List<Command>> params = node.params();
+    if (!isEmpty(params)) {
+      gen.writeObjectFieldStart("params");
+      for (final Map.Entry<String, List<Command>> param : params.entrySet()) {
+        gen.writeFieldName(param.getKey());
+        if (param.getValue() == null) {
+          gen.writeNull();
+          continue;
+        }
+        gen.writeStartArray();
+        for (final Command command : param.getValue()) {
+          writeCommand(command, gen);
+        }
+        gen.writeEndArray();
+      }
+      gen.writeEndObject();
+    }
+    final Map<String, Object> config = node.config();
+    if (!isEmpty(config)) {
+      gen.writeFieldName("config");
+      writeValue(config, gen);
+    }
+    gen.writeEndObject();
+  }
+
+  static Node readNode(final JsonParser p,
+                       final DeserializationContext ctxt,
+                       final Canonicalizer canonicalizer) throws IOException {
+    expectStartObject(p, ctxt, Node.class);
+    final NodeBuilder builder = Node.builder();
+    String id = null;
+    String kind = null;
+    for (String field = p.nextFieldName(); field != null; field = p.nextFieldName()) {
+      final JsonToken token = p.nextToken();
+      switch (field) {
+        case "id":
+          id = readString(p, ctxt);
+          break;
+        case "kind":
+          kind = canonicalizer.canonicalize(readString(p, ctxt));
+          break;
+        case "loadingPolicy":
+          builder.loadingPolicy(readLoadingPolicy(p, ctxt));
+          break;
+        case "params":
+          if (token != JsonToken.VALUE_NULL) {
+            builder.params(readParams(p, ctxt, canonicalizer));
+          }
+          break;
+        case "config":
+          if (token != JsonToken.VALUE_NULL) {
+            expectStartObject(p, ctxt, Node.class);
+            builder.config(readFields(p, ctxt, canonicalizer));
+          }
+          break;
+        default:
+          p.skipChildren();
+      }
+    }
+    requireField(id, "id", Node.class, ctxt);
+    requireField(kind, "kind", Node.class, ctxt);
+    return builder.id(id).kind(kind).build();
+  }
+
+  static Map<String, List<Command>> readParams(final JsonParser p,
+                                               final DeserializationContext ctxt,
+                                               final Canonicalizer canonicalizer)
+      throws IOException {
+    expectStartObject(p, ctxt, Node.class);
+    final Map<String, List<Command>> params = new LinkedHashMap<>();
+    for (String name = p.nextFieldName(); name != null; name = p.nextFieldName()) {
+      if (p.nextToken() == JsonToken.VALUE_NULL) {
+        continue;
+      }
+      expectStartArray(p, ctxt, Command.class);
+      final List<Command> commands = new ArrayList<>();
+      while (p.nextToken() != JsonToken.END_ARRAY) {
+        commands.add(readCommand(p, ctxt, canonicalizer));
+      }
+      params.put(canonicalizer.canonicalize(name), commands);
+    }
+    return params;
+  }
+
+  static void writeEdge(final Edge edge, final JsonGenerator gen) throws IOException {
+    gen.writeStartObject();
+    writeStringField("id", edge.id(), gen);
+    writeStringField("source", edge.source(), gen);
+    writeStringField("target", edge.target(), gen);
+    writeStringField("sourcePort", edge.sourcePort(), gen);
+    writeStringField("targetPort", edge.targetPort(), gen);
+    gen.writeEndObject();
+  }
+
+  static Edge readEdge(final JsonParser p,
+                       final DeserializationContext ctxt,
+                       final Canonicalizer canonicalizer) throws IOException {
+    expectStartObject(p, ctxt, Edge.class);
+    String id = null;
+    String source = null;
+    String target = null;
+    String sourcePort = null;
+    String targetPort = null;
+    for (String field = p.nextFieldName(); field != null; field = p.nextFieldName()) {
+      p.nextToken();
+      switch (field) {
+        case "id":
+          id = readString(p, ctxt);
+          break;
+        case "source":
+          source = readString(p, ctxt);
+          break;
+        case "target":
+          target = readString(p, ctxt);
+          break;
+        case "sourcePort":
+          sourcePort = canonicalizer.canonicalize(readString(p, ctxt));
+          break;
+        case "targetPort":
+          targetPort = canonicalizer.canonicalize(readString(p, ctxt));
+          break;
+        default:
+          p.skipChildren();
+      }
+    }
+    requireField(id, "id", Edge.class, ctxt);
+    requireField(source, "source", Edge.class, ctxt);
+    requireField(target, "target", Edge.class, ctxt);
+    return Edge.create(id, source, target, sourcePort, targetPort);
+  }
+
+  static void writeScript(final Script script, final JsonGenerator gen) throws IOException {
+    gen.writeStartObject();
+    writeStringField("name", script.name(), gen);
+    writeStringField("code", script.code(), gen);
+    gen.writeEndObject();
+  }
+
+  static Script readScript(final JsonParser p, final DeserializationContext ctxt)
+      throws IOException {
+    expectStartObject(p, ctxt, Script.class);
+    String name = null;
+    String code = null;
+    for (String field = p.nextFieldName(); field != null; field = p.nextFieldName()) {
+      p.nextToken();
+      switch (field) {
+        case "name":
+          name = readString(p, ctxt);
+          break;
+        case "code":
+          code = readString(p, ctxt);
+          break;
+        default:
+          p.skipChildren();
+      }
+    }
+    requireField(name, "name", Script.class, ctxt);
+    requireField(code, "code", Script.class, ctxt);
+    return Script.create(name, code);
+  }
+
+  static void writeCommand(final Command command, final JsonGenerator gen) throws IOException {
+    gen.writeStartObject();
+    writeStringField("name", command.name(), gen);
+    if (!isEmpty(command.args())) {
+      gen.writeFieldName("args");
+      writeValue(command.args(), gen);
+    }
+    gen.writeEndObject();
+  }
+
+  static Command readCommand(final JsonParser p,
+                             final DeserializationContext ctxt,
+                             final Canonicalizer canonicalizer) throws IOException {
+    expectStartObject(p, ctxt, Command.class);
+    String name = null;
+    Map<String, Object> args = Collections.emptyMap();
+    for (String field = p.nextFieldName(); field != null; field = p.nextFieldName()) {
+      final JsonToken token = p.nextToken();
+      switch (field) {
+        case "name":
+          name = canonicalizer.canonicalize(readString(p, ctxt));
+          break;
+        case "args":
+          if (token != JsonToken.VALUE_NULL) {
+            expectStartObject(p, ctxt, Command.class);
+            args = readFields(p, ctxt, canonicalizer);
+          }
+          break;
+        default:
+          p.skipChildren();
+      }
+    }
+    requireField(name, "name", Command.class, ctxt);
+    return canonicalizer.canonicalize(Command.create(name, args));
+  }
+
+  /**
+   * Writes an untyped config or argument value. Common value types are written directly; anything
+   * else is handed to the generator's codec.
+   */
+  static void writeValue(final Object value, final JsonGenerator gen) throws IOException {
+    if (value == null) {
+      gen.writeNull();
+    } else if (value instanceof String) {
+      gen.writeString((String) value);
+    } else if (value instanceof Double) {
+      gen.writeNumber((Double) value);
+    } else if (value instanceof Long) {
+      gen.writeNumber((Long) value);
+    } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      gen.writeNumber(((Number) value).intValue());
+    } else if (value instanceof Float) {
+      gen.writeNumber((Float) value);
+    } else if (value instanceof BigInteger) {
+      gen.writeNumber((BigInteger) value);
+    } else if (value instanceof BigDecimal) {
+      gen.writeNumber((BigDecimal) value);
+    } else if (value instanceof Boolean) {
+      gen.writeBoolean((Boolean) value);
+    } else if (value instanceof Time) {
+      gen.writeNumber(((Time) value).getNanos());
+    } else if (value instanceof JsonNode) {
+      gen.writeTree((JsonNode) value);
+    } else if (value instanceof DoubleList) {
+      final double[] values = ((DoubleList) value).values;
+      gen.writeArray(values, 0, values.length);
+    } else if (value instanceof List) {
+      gen.writeStartArray();
+      for (final Object element : (List<?>) value) {
+        writeValue(element, gen);
+      }
+      gen.writeEndArray();
+    } else if (value instanceof Map) {
+      gen.writeStartObject();
+      for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        gen.writeFieldName(String.valueOf(entry.getKey()));
+        writeValue(entry.getValue(), gen);
+      }
+      gen.writeEndObject();
+    } else {
+      gen.writeObject(value);
+    }
+  }
+
+  /**
+   * Reads an untyped value starting at the current token, using the same Java types as Jackson's
+   * default untyped binding, except for arrays of floating point numbers.
+   */
+  static Object readValue(final JsonParser p,
+                          final DeserializationContext ctxt,
+                          final Canonicalizer canonicalizer) throws IOException {
+    switch (p.currentToken()) {
+      case START_OBJECT:
+        return readObject(p, ctxt, canonicalizer);
+      case START_ARRAY:
+        return readArray(p, ctxt, canonicalizer);
+      case VALUE_STRING:
+        return canonicalizer.canonicalize(p.getText());
+      case VALUE_NUMBER_INT:
+      case VALUE_NUMBER_FLOAT:
+        return p.getNumberValue();
+      case VALUE_TRUE:
+        return Boolean.TRUE;
+      case VALUE_FALSE:
+        return Boolean.FALSE;
+      case VALUE_NULL:
+        return null;
+      case VALUE_EMBEDDED_OBJECT:
+        return p.getEmbeddedObject();
+      default:
+        return ctxt.handleUnexpectedToken(Object.class, p);
+    }
+  }
+
+  /**
+   * Reads an array starting at the current token. Arrays of doubles are read into a {@link
+   * DoubleList}, unless floats are to be read as BigDecimals.
+   */
+  private static List<?> readArray(final JsonParser p,
+                                   final DeserializationContext ctxt,
+                                   final Canonicalizer canonicalizer) throws IOException {
+    JsonToken token = p.nextToken();
+    final List<Object> list = new ArrayList<>();
+    if (isDouble(p, token) && !ctxt.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)) {
+      double[] values = new double[16];
+      int size = 0;
+      do {
+        if (size == values.length) {
+          values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = p.getDoubleValue();
+        token = p.nextToken();
+      } while (isDouble(p, token));
+      if (token == JsonToken.END_ARRAY) {
+        return DoubleList.wrap(Arrays.copyOf(values, size));
+      }
+      for (int i = 0; i < size; i++) {
+        list.add(values[i]);
+      }
+    }
+    for (; token != JsonToken.END_ARRAY; token = p.nextToken()) {
+      list.add(readValue(p, ctxt, canonicalizer));
+    }
+    return list;
+  }
+
+  private static boolean isDouble(final JsonParser p, final JsonToken token) throws IOException {
+    return token == JsonToken.VALUE_NUMBER_FLOAT
+           && p.getNumberType() == JsonParser.NumberType.DOUBLE;
+  }
+
+  private static Map<String, Object> readObject(final JsonParser p,
+                                                final DeserializationContext ctxt,
+                                                final Canonicalizer canonicalizer)
+      throws IOException {
+    final Map<String, Object> map = new LinkedHashMap<>();
+    for (String field = p.nextFieldName(); field != null; field = p.nextFieldName()) {
+      p.nextToken();
+      map.put(canonicalizer.canonicalize(field), readValue(p, ctxt, canonicalizer));
+    }
+    return map;
+  }
+
+  /**
+   * Reads the fields of a config or args object. Null values are dropped, since the AutoMatter
+   * builders do not accept them and an absent value already means the default.
+   */
+  static Map<String, Object> readFields(final JsonParser p,
+                                        final DeserializationContext ctxt,
+                                        final Canonicalizer canonicalizer) throws IOException {
+    final Map<String, Object> map = new LinkedHashMap<>();
+    for (String field = p.nextFieldName(); field != null; field = p.nextFieldName()) {
+      p.nextToken();
+      final Object value = readValue(p, ctxt, canonicalizer);
+      if (value != null) {
+        map.put(canonicalizer.canonicalize(field), value);
+      }
+    }
+    return map;
+  }
+
+  private static String readString(final JsonParser p, final DeserializationContext ctxt)
+      throws IOException {
+    switch (p.currentToken()) {
+      case VALUE_STRING:
+        return p.getText();
+      case VALUE_NULL:
+        return null;
+      default:
+        if (p.currentToken().isScalarValue()) {
+          return p.getValueAsString();
+        }
+        return (String) ctxt.handleUnexpectedToken(String.class, p);
+    }
+  }
+
+  private static LoadingPolicy readLoadingPolicy(final JsonParser p,
+                                                 final DeserializationContext ctxt)
+      throws IOException {
+    final String value = readString(p, ctxt);
+    if (value == null) {
+      return null;
+    }
+    try {
+      return LoadingPolicy.fromString(value);
+    } catch (IllegalArgumentException e) {
+      throw ctxt.weirdStringException(value, LoadingPolicy.class, e.getMessage());
+    }
+  }
+
+  private static void writeStringField(final String name,
+                                       final String value,
+                                       final JsonGenerator gen) throws IOException {
+    if (value != null && !value.isEmpty()) {
+      gen.writeStringField(name, value);
+    }
+  }
+
+  private static void expectStartObject(final JsonParser p,
+                                        final DeserializationContext ctxt,
+                                        final Class<?> type) throws IOException {
+    if (p.currentToken() == null) {
+      p.nextToken();
+    }
+    if (p.currentToken() != JsonToken.START_OBJECT) {
+      throw ctxt.wrongTokenException(p, type, JsonToken.START_OBJECT, null);
+    }
+  }
+
+  private static void expectStartArray(final JsonParser p,
+                                       final DeserializationContext ctxt,
+                                       final Class<?> type) throws IOException {
+    if (p.currentToken() != JsonToken.START_ARRAY) {
+      throw ctxt.wrongTokenException(p, type, JsonToken.START_ARRAY, null);
+    }
+  }
+
+  private static void requireField(final Object value,
+                                   final String name,
+                                   final Class<?> type,
+                                   final DeserializationContext ctxt) throws IOException {
+    if (value == null) {
+      ctxt.reportInputMismatch(type, "Missing required property '%s' for %s",
+          name, type.getSimpleName());
+    }
+  }
+
+  private static boolean isEmpty(final List<?> list) {
+    return list == null || list.isEmpty();
+  }
+
+  private static boolean isEmpty(final Map<?, ?> map) {
+    return map == null || map.isEmpty();
+  }
+
+  private static class ScoreSerializer extends JsonSerializer<Score> {
+
+    @Override
+    public void serialize(final Score value,
+                          final JsonGenerator gen,
+                          final SerializerProvider serializers) throws IOException {
+      writeScore(value, gen);
+    }
+  }
+
+  private static class GraphSerializer extends JsonSerializer<Graph> {
+
+    @Override
+    public void serialize(final Graph value,
+                          final JsonGenerator gen,
+                          final SerializerProvider serializers) throws IOException {
+      writeGraph(value, gen);
+    }
+  }
+
+  private static class NodeSerializer extends JsonSerializer<Node> {
+
+    @Override
+    public void serialize(final Node value,
+                          final JsonGenerator gen,
+                          final SerializerProvider serializers) throws IOException {
+      writeNode(value, gen);
+    }
+  }
+
+  private static class EdgeSerializer extends JsonSerializer<Edge> {
+
+    @Override
+    public void serialize(final Edge value,
+                          final JsonGenerator gen,
+                          final SerializerProvider serializers) throws IOException {
+      writeEdge(value, gen);
+    }
+  }
+
+  private static class ScriptSerializer extends JsonSerializer<Script> {
+
+    @Override
+    public void serialize(final Script value,
+                          final JsonGenerator gen,
+                          final SerializerProvider serializers) throws IOException {
+      writeScript(value, gen);
+    }
+  }
+
+  private static class CommandSerializer extends JsonSerializer<Command> {
+
+    @Override
+    public void serialize(final Command value,
+                          final JsonGenerator gen,
+                          final SerializerProvider serializers) throws IOException {
+      writeCommand(value, gen);
+    }
+  }
+
+  /**
+   * Matches both the Score interfaces and their AutoMatter value classes, since Jackson maps
+   * abstract types to their implementation before it looks up custom deserializers.
+   */
+  private static class ScoreDeserializers extends Deserializers.Base {
+
+    private final Canonicalizer canonicalizer;
+
+    ScoreDeserializers(final Canonicalizer canonicalizer) {
+      this.canonicalizer = canonicalizer;
+    }
+
+    @Override
+    public JsonDeserializer<?> findBeanDeserializer(final JavaType type,
+                                                    final DeserializationConfig config,
+                                                    final BeanDescription beanDesc) {
+      final Class<?> raw = type.getRawClass();
+      if (matches(raw, Score.class, ScoreBuilder.class)) {
+        return new Reader<>((p, ctxt) -> readScore(p, ctxt, canonicalizer));
+      } else if (matches(raw, Graph.class, GraphBuilder.class)) {
+        return new Reader<>((p, ctxt) -> readGraph(p, ctxt, canonicalizer));
+      } else if (matches(raw, Node.class, NodeBuilder.class)) {
+        return new Reader<>((p, ctxt) -> readNode(p, ctxt, canonicalizer));
+      } else if (matches(raw, Edge.class, EdgeBuilder.class)) {
+        return new Reader<>((p, ctxt) -> readEdge(p, ctxt, canonicalizer));
+      } else if (matches(raw, Script.class, ScriptBuilder.class)) {
+        return new Reader<>(ScoreModule::readScript);
+      } else if (matches(raw, Command.class, CommandBuilder.class)) {
+        return new Reader<>((p, ctxt) -> readCommand(p, ctxt, canonicalizer));
+      } else if (raw == Fields.class) {
+        return new Reader<>((p, ctxt) -> {
+          expectStartObject(p, ctxt, Fields.class);
+          return new Fields(readFields(p, ctxt, canonicalizer));
+        });
+      }
+      return null;
+    }
+
+    private static boolean matches(final Class<?> raw,
+                                   final Class<?> type,
+                                   final Class<?> builder) {
+      return raw == type || raw.getEnclosingClass() == builder;
+    }
+  }
+
+  /**
+   * The fields of a config or args object, decoded like the config of an eagerly read Node. Lets
+   * code holding only an ObjectMapper, such as the lazy reader, bind a config object with this
+   * module's Canonicalizer. Without this module the fields bind as a plain untyped map.
+   */
+  static final class Fields {
+
+    final Map<String, Object> map;
+
+    @JsonCreator
+    Fields(final Map<String, Object> map) {
+      this.map = map;
+    }
+  }
+
+  @FunctionalInterface
+  private interface ReadFunction<T> {
+
+    T read(JsonParser p, DeserializationContext ctxt) throws IOException;
+  }
+
+  private static class Reader<T> extends JsonDeserializer<T> {
+
+    private final ReadFunction<T> function;
+
+    Reader(final ReadFunction<T> function) {
+      this.function = function;
+    }
+
+    @Override
+    public T deserialize(final JsonParser p, final DeserializationContext ctxt)
+        throws IOException {
+      return function.read(p, ctxt);
+    }
+  }
+}
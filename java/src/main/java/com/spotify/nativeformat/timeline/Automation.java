@@ -0,0 +1,318 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.timeline;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.spotify.nativeformat.score.Command;
+import com.spotify.nativeformat.score.CommandBuilder;
+import com.spotify.nativeformat.score.DoubleList;
+import com.spotify.nativeformat.score.Time;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Evaluates and rebases the commands of an audio param, following the Web Audio automation
+ * semantics the smart player implements.
+ *
+ * <p>Times are in nanoseconds. The time constant of setTargetAtTime is in seconds.
+ */
+final class Automation {
+
+  static final String SET_VALUE = "setValueAtTime";
+  static final String LINEAR_RAMP = "linearRampToValueAtTime";
+  static final String EXPONENTIAL_RAMP = "exponentialRampToValueAtTime";
+  static final String SET_TARGET = "setTargetAtTime";
+  static final String SET_VALUE_CURVE = "setValueCurveAtTime";
+
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  private Automation() {
+  }
+
+  /**
+   * Parses commands into events, sorted by the time they take effect: their end time for ramps and
+   * their start time for everything else.
+   */
+  static List<Event> events(final List<Command> commands) {
+    final List<Event> events = new ArrayList<>(commands.size());
+    for (final Command command : commands) {
+      events.add(new Event(command));
+    }
+    events.sort(Comparator.comparingLong(event -> event.time));
+    return events;
+  }
+
+  /**
+   * Returns the value of the param, or NaN if it depends on an unknown initial value.
+   *
+   * @param events the events of a param
+   * @param initialValue the value of the param before its first event, or NaN if unknown
+   * @param time the time to evaluate the param at
+   * @return the value of the param, or NaN if it depends on an unknown initial value
+   */
+  static double valueAt(final List<Event> events, final double initialValue, final long time) {
+    return ParamEvaluator.ofEvents(events, initialValue).valueAt(time);
+  }
+
+  /**
+   * Cuts the commands of a param down to a window and rebases them so the window starts at zero.
+   * The value of the param at every time in the window is preserved.
+   *
+   * @param commands the commands of the param
+   * @param initialValue the value of the param before its first event, or NaN if unknown
+   * @param from the start of the window
+   * @param to the end of the window, exclusive
+   * @return the rebased commands
+   * @throws IllegalArgumentException if the value at the start of the window depends on an unknown
+   *     initial value
+   */
+  static List<Command> slice(final List<Command> commands,
+                             final double initialValue,
+                             final long from,
+                             final long to) {
+    if (commands.isEmpty()) {
+      return commands;
+    }
+    final List<Event> events = events(commands);
+    final Event first = events.get(0);
+    final boolean anchored = first.time < from || (first.isRamp() && from > 0);
+    final List<Command> sliced = new ArrayList<>();
+    if (anchored) {
+      final double value = valueAt(events, initialValue, from);
+      if (Double.isNaN(value)) {
+        throw new IllegalArgumentException("initial value unknown");
+      }
+      sliced.add(Command.builder()
+          .name(SET_VALUE)
+          .putArg("value", value)
+          .putArg("startTime", 0L)
+          .build());
+      Event governing = null;
+      for (final Event event : events) {
+        if (event.time >= from) {
+          break;
+        }
+        governing = event;
+      }
+      if (governing != null && governing.name.equals(SET_TARGET)) {
+        sliced.add(rebase(governing, 0));
+      } else if (governing != null && governing.name.equals(SET_VALUE_CURVE)
+                 && from < governing.end) {
+        // Curves interpolate linearly between their values, so the rest of a curve is a sequence
+        // of linear ramps.
+        final int last = governing.curve.length - 1;
+        for (int i = 1; i <= last; i++) {
+          final long pointTime = governing.time
+                                 + Math.round((double) (governing.end - governing.time) * i / last);
+          if (pointTime > from) {
+            sliced.add(Command.builder()
+                .name(LINEAR_RAMP)
+                .putArg("value", governing.curve[i])
+                .putArg("endTime", pointTime - from)
+                .build());
+          }
+        }
+      }
+    }
+    for (final Event event : events) {
+      if (event.time < from || (anchored && event.isRamp() && event.time == from)) {
+        continue;
+      }
+      if (event.time >= to) {
+        // The first ramp to end after the window still shapes the values inside it.
+        if (event.isRamp()) {
+          sliced.add(rebase(event, event.time - from));
+        }
+        break;
+      }
+      sliced.add(rebase(event, event.time - from));
+    }
+    return sliced;
+  }
+
+  private static Command rebase(final Event event, final long time) {
+    return CommandBuilder.from(event.command)
+        .putArg(event.timeArg(), time)
+        .build();
+  }
+
+  static double linearRamp(final long startTime,
+                            final double startValue,
+                            final long endTime,
+                            final double endValue,
+                            final long time) {
+    final double progress = (double) (time - startTime) / (endTime - startTime);
+    return startValue + (endValue - startValue) * progress;
+  }
+
+  static double exponentialRamp(final long startTime,
+                                final double startValue,
+                                final long endTime,
+                                final double endValue,
+                                final long time) {
+    if (startValue == 0 || endValue == 0 || (startValue < 0) != (endValue < 0)) {
+      return startValue;
+    }
+    final double progress = (double) (time - startTime) / (endTime - startTime);
+    return startValue * Math.pow(endValue / startValue, progress);
+  }
+
+  static double approach(final Event target, final double from, final long time) {
+    return approach(target.time, from, target.value, target.timeConstant, time);
+  }
+
+  static double approach(final long startTime,
+                         final double from,
+                         final double target,
+                         final double timeConstant,
+                         final long time) {
+    if (timeConstant <= 0) {
+      return target;
+    }
+    final double elapsed = (time - startTime) / NANOS_PER_SECOND;
+    return target + (from - target) * Math.exp(-elapsed / timeConstant);
+  }
+
+  static double curve(final long startTime,
+                      final long endTime,
+                      final double[] values,
+                      final long time) {
+    if (values.length == 1) {
+      return values[0];
+    }
+    final double position =
+        (double) (time - startTime) * (values.length - 1) / (endTime - startTime);
+    final int index = Math.min((int) position, values.length - 2);
+    return values[index] + (values[index + 1] - values[index]) * (position - index);
+  }
+
+  /**
+   * Reads a time in nanoseconds from a config value or command argument.
+   */
+  static long nanos(final Object value, final long defaultValue) {
+    if (value == null) {
+      return defaultValue;
+    }
+    if (value instanceof Time) {
+      return ((Time) value).getNanos();
+    }
+    if (value instanceof Number) {
+      return ((Number) value).longValue();
+    }
+    if (value instanceof JsonNode && ((JsonNode) value).isNumber()) {
+      return ((JsonNode) value).asLong();
+    }
+    throw new IllegalArgumentException("expected a time, got " + value);
+  }
+
+  private static double number(final Object value) {
+    if (value instanceof Number) {
+      return ((Number) value).doubleValue();
+    }
+    if (value instanceof JsonNode && ((JsonNode) value).isNumber()) {
+      return ((JsonNode) value).asDouble();
+    }
+    throw new IllegalArgumentException("expected a number, got " + value);
+  }
+
+  /**
+   * A parsed command.
+   */
+  static final class Event {
+
+    final Command command;
+    final String name;
+    final long time;
+    final long end;
+    final double value;
+    final double timeConstant;
+    final double[] curve;
+
+    Event(final Command command) {
+      this.command = command;
+      this.name = command.name();
+      switch (name) {
+        case SET_VALUE:
+          time = nanos(command.args().get("startTime"), 0);
+          value = number(command.args().get("value"));
+          end = time;
+          timeConstant = 0;
+          curve = null;
+          break;
+        case LINEAR_RAMP:
+        case EXPONENTIAL_RAMP:
+          time = nanos(command.args().get("endTime"), 0);
+          value = number(command.args().get("value"));
+          end = time;
+          timeConstant = 0;
+          curve = null;
+          break;
+        case SET_TARGET:
+          time = nanos(command.args().get("startTime"), 0);
+          value = number(command.args().get("target"));
+          end = time;
+          timeConstant = number(command.args().get("timeConstant"));
+          curve = null;
+          break;
+        case SET_VALUE_CURVE:
+          time = nanos(command.args().get("startTime"), 0);
+          end = time + nanos(command.args().get("duration"), 0);
+          value = 0;
+          timeConstant = 0;
+          curve = numbers(command.args().get("values"));
+          break;
+        default:
+          throw new IllegalArgumentException("unknown command " + name);
+      }
+    }
+
+    boolean isRamp() {
+      return name.equals(LINEAR_RAMP) || name.equals(EXPONENTIAL_RAMP);
+    }
+
+    String timeArg() {
+      return isRamp() ? "endTime" : "startTime";
+    }
+
+    private static double[] numbers(final Object value) {
+      if (value instanceof DoubleList) {
+        return ((DoubleList) value).toDoubleArray();
+      }
+      final List<?> list;
+      if (value instanceof List) {
+        list = (List<?>) value;
+      } else if (value instanceof JsonNode && ((JsonNode) value).isArray()) {
+        final List<Object> elements = new ArrayList<>();
+        ((JsonNode) value).forEach(elements::add);
+        list = elements;
+      } else {
+        list = Collections.emptyList();
+      }
+      final double[] numbers = new double[list.size()];
+      for (int i = 0; i < numbers.length; i++) {
+        numbers[i] = number(list.get(i));
+      }
+      return numbers;
+    }
+  }
+}
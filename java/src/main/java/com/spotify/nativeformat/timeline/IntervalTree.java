@@ -0,0 +1,209 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.timeline;
+
+import java.util.function.Consumer;
+
+/**
+ * A mutable set of half-open intervals, each labelled with a node id, stored in an AVL tree that is
+ * ordered by start time and augmented with the maximum end time of every subtree.
+ */
+final class IntervalTree {
+
+  private Entry root;
+
+  private int size;
+
+  int size() {
+    return size;
+  }
+
+  void add(final long start, final long end, final String id) {
+    root = add(root, start, end, id);
+  }
+
+  private Entry add(final Entry entry, final long start, final long end, final String id) {
+    if (entry == null) {
+      size++;
+      return new Entry(start, end, id);
+    }
+    final int cmp = compare(start, end, id, entry);
+    if (cmp == 0) {
+      return entry;
+    }
+    if (cmp < 0) {
+      entry.left = add(entry.left, start, end, id);
+    } else {
+      entry.right = add(entry.right, start, end, id);
+    }
+    return balance(entry);
+  }
+
+  void remove(final long start, final long end, final String id) {
+    root = remove(root, start, end, id);
+  }
+
+  private Entry remove(final Entry entry, final long start, final long end, final String id) {
+    if (entry == null) {
+      return null;
+    }
+    final int cmp = compare(start, end, id, entry);
+    if (cmp < 0) {
+      entry.left = remove(entry.left, start, end, id);
+    } else if (cmp > 0) {
+      entry.right = remove(entry.right, start, end, id);
+    } else {
+      size--;
+      if (entry.left == null) {
+        return entry.right;
+      }
+      if (entry.right == null) {
+        return entry.left;
+      }
+      Entry min = entry.right;
+      while (min.left != null) {
+        min = min.left;
+      }
+      min.right = removeMin(entry.right);
+      min.left = entry.left;
+      return balance(min);
+    }
+    return balance(entry);
+  }
+
+  private static Entry removeMin(final Entry entry) {
+    if (entry.left == null) {
+      return entry.right;
+    }
+    entry.left = removeMin(entry.left);
+    return balance(entry);
+  }
+
+  /**
+   * Calls the consumer with the id of every interval that contains the time.
+   */
+  void stab(final long time, final Consumer<String> consumer) {
+    overlap(root, time, time == Long.MAX_VALUE ? time : time + 1, consumer);
+  }
+
+  /**
+   * Calls the consumer with the id of every interval that overlaps <code>[from, to)</code>.
+   */
+  void overlap(final long from, final long to, final Consumer<String> consumer) {
+    overlap(root, from, to, consumer);
+  }
+
+  private static void overlap(final Entry entry,
+                              final long from,
+                              final long to,
+                              final Consumer<String> consumer) {
+    if (entry == null || entry.maxEnd <= from) {
+      return;
+    }
+    overlap(entry.left, from, to, consumer);
+    if (entry.start < to) {
+      if (entry.end > from) {
+        consumer.accept(entry.id);
+      }
+      overlap(entry.right, from, to, consumer);
+    }
+  }
+
+  private static int compare(final long start, final long end, final String id, final Entry entry) {
+    if (start != entry.start) {
+      return Long.compare(start, entry.start);
+    }
+    if (end != entry.end) {
+      return Long.compare(end, entry.end);
+    }
+    return id.compareTo(entry.id);
+  }
+
+  private static Entry balance(final Entry entry) {
+    update(entry);
+    final int skew = height(entry.left) - height(entry.right);
+    if (skew > 1) {
+      if (height(entry.left.left) < height(entry.left.right)) {
+        entry.left = rotateLeft(entry.left);
+      }
+      return rotateRight(entry);
+    }
+    if (skew < -1) {
+      if (height(entry.right.right) < height(entry.right.left)) {
+        entry.right = rotateRight(entry.right);
+      }
+      return rotateLeft(entry);
+    }
+    return entry;
+  }
+
+  private static Entry rotateRight(final Entry entry) {
+    final Entry left = entry.left;
+    entry.left = left.right;
+    left.right = entry;
+    update(entry);
+    update(left);
+    return left;
+  }
+
+  private static Entry rotateLeft(final Entry entry) {
+    final Entry right = entry.right;
+    entry.right = right.left;
+    right.left = entry;
+    update(entry);
+    update(right);
+    return right;
+  }
+
+  private static void update(final Entry entry) {
+    entry.height = Math.max(height(entry.left), height(entry.right)) + 1;
+    long maxEnd = entry.end;
+    if (entry.left != null) {
+      maxEnd = Math.max(maxEnd, entry.left.maxEnd);
+    }
+    if (entry.right != null) {
+      maxEnd = Math.max(maxEnd, entry.right.maxEnd);
+    }
+    entry.maxEnd = maxEnd;
+  }
+
+  private static int height(final Entry entry) {
+    return entry == null ? 0 : entry.height;
+  }
+
+  private static final class Entry {
+
+    final long start;
+    final long end;
+    final String id;
+    Entry left;
+    Entry right;
+    int height = 1;
+    long maxEnd;
+
+    Entry(final long start, final long end, final String id) {
+      this.start = start;
+      this.end = end;
+      this.id = id;
+      this.maxEnd = end;
+    }
+  }
+}
@@ -0,0 +1,56 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.timeline;
+
+import com.spotify.nativeformat.schema.ValidationError;
+import com.spotify.nativeformat.score.Score;
+import io.norberg.automatter.AutoMatter;
+import java.util.List;
+
+/**
+ * The result of normalizing the automation of a Score.
+ *
+ * @see ParamNormalizer
+ */
+@AutoMatter
+public interface Normalization {
+
+  /**
+   * Returns the Score with normalized commands and without rejected ones.
+   */
+  Score score();
+
+  /**
+   * Returns the commands that were moved or dropped, with JSONPaths into the original Score.
+   */
+  List<ValidationError> changes();
+
+  /**
+   * Returns the commands that were rejected, with JSONPaths into the original Score.
+   */
+  List<ValidationError> errors();
+
+  static Normalization create(final Score score,
+                              final List<ValidationError> changes,
+                              final List<ValidationError> errors) {
+    return new NormalizationBuilder().score(score).changes(changes).errors(errors).build();
+  }
+}
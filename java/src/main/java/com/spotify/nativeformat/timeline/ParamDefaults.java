@@ -0,0 +1,82 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.timeline;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.spotify.nativeformat.schema.ContractValidator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The initial values of the params of every plugin kind, as described by a smart player contract.
+ */
+public final class ParamDefaults {
+
+  private final Map<String, Map<String, Double>> initialValues;
+
+  private ParamDefaults(final Map<String, Map<String, Double>> initialValues) {
+    this.initialValues = initialValues;
+  }
+
+  /**
+   * Returns the defaults of the contract bundled with this library.
+   */
+  public static ParamDefaults getInstance() {
+    return Holder.INSTANCE;
+  }
+
+  /**
+   * Reads the defaults from a contract.
+   *
+   * @param contract a smart player contract
+   * @return the contract's defaults
+   */
+  public static ParamDefaults compile(final JsonNode contract) {
+    final Map<String, Map<String, Double>> initialValues = new HashMap<>();
+    for (final JsonNode plugin : contract.path("pluginDefs")) {
+      final Map<String, Double> params = new HashMap<>();
+      for (final JsonNode param : plugin.path("paramDefs")) {
+        if (param.path("initialValue").isNumber()) {
+          params.put(param.path("name").asText(), param.path("initialValue").asDouble());
+        }
+      }
+      initialValues.put(plugin.path("kind").asText(), params);
+    }
+    return new ParamDefaults(initialValues);
+  }
+
+  /**
+   * Returns the initial value of the param, or null if it is unknown.
+   *
+   * @param kind a plugin kind
+   * @param param a param name
+   * @return the initial value of the param, or null if it is unknown
+   */
+  public Double initialValue(final String kind, final String param) {
+    final Map<String, Double> params = initialValues.get(kind);
+    return params == null ? null : params.get(param);
+  }
+
+  private static class Holder {
+
+    private static final ParamDefaults INSTANCE = compile(ContractValidator.bundledContract());
+  }
+}
@@ -0,0 +1,334 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.timeline;
+
+import com.spotify.nativeformat.score.Command;
+import com.spotify.nativeformat.score.Time;
+import com.spotify.nativeformat.typed.params.AudioParam;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Computes the value of an audio param at any time, following the Web Audio automation semantics
+ * the smart player implements.
+ *
+ * <p>The commands are parsed once into a sorted sequence of segments, each of which is a constant,
+ * a linear or exponential ramp, an approach to a target or a value curve. {@link #valueAt(long)}
+ * finds the segment containing a time by binary search, so it takes O(log n) time for n commands.
+ * Instances are immutable and safe for use by multiple threads.
+ */
+public final class ParamEvaluator {
+
+  static final byte CONSTANT = 0;
+  static final byte LINEAR = 1;
+  static final byte EXPONENTIAL = 2;
+  static final byte TARGET = 3;
+  static final byte CURVE = 4;
+
+  /**
+   * The time each segment starts at. The first segment starts at {@link Long#MIN_VALUE} and each
+   * one ends where the next starts.
+   */
+  final long[] starts;
+
+  final byte[] kinds;
+
+  /**
+   * The start and end times of ramps and curves, and the start time of targets.
+   */
+  final long[] fromTimes;
+  final long[] toTimes;
+
+  /**
+   * The value of constants, the start and end values of ramps, and the start and target values of
+   * targets.
+   */
+  final double[] fromValues;
+  final double[] toValues;
+
+  /**
+   * The time constants of targets, in seconds.
+   */
+  final double[] timeConstants;
+
+  final double[][] curves;
+
+  private final int size;
+
+  private ParamEvaluator(final Builder builder) {
+    this.size = builder.size;
+    this.starts = Arrays.copyOf(builder.starts, size);
+    this.kinds = Arrays.copyOf(builder.kinds, size);
+    this.fromTimes = Arrays.copyOf(builder.fromTimes, size);
+    this.toTimes = Arrays.copyOf(builder.toTimes, size);
+    this.fromValues = Arrays.copyOf(builder.fromValues, size);
+    this.toValues = Arrays.copyOf(builder.toValues, size);
+    this.timeConstants = Arrays.copyOf(builder.timeConstants, size);
+    this.curves = Arrays.copyOf(builder.curves, size);
+  }
+
+  /**
+   * Returns an evaluator of the param's current commands.
+   *
+   * @param param an audio param
+   * @return an evaluator of the param's current commands
+   */
+  public static ParamEvaluator of(final AudioParam param) {
+    final Double initialValue = param.getInitialValue();
+    return of(param.getCommands(), initialValue == null ? Double.NaN : initialValue);
+  }
+
+  /**
+   * Returns an evaluator of the commands.
+   *
+   * @param commands the commands of a param
+   * @param initialValue the value of the param before its first command, or NaN if unknown
+   * @return an evaluator of the commands
+   * @throws IllegalArgumentException if a command is unknown or its arguments are invalid
+   */
+  public static ParamEvaluator of(final List<Command> commands, final double initialValue) {
+    return ofEvents(Automation.events(commands), initialValue);
+  }
+
+  static ParamEvaluator ofEvents(final List<Automation.Event> events,
+                                 final double initialValue) {
+    final Builder builder = new Builder(events.size() * 2 + 1);
+    // The first time from which a query gets past every event seen so far.
+    long floor = Long.MIN_VALUE;
+    long previousTime = 0;
+    double previousValue = initialValue;
+    Automation.Event target = null;
+    double targetFrom = 0;
+    double beforeTarget = 0;
+    for (final Automation.Event event : events) {
+      if (event.isRamp()) {
+        final long startTime;
+        final double startValue;
+        if (target != null) {
+          // A ramp replaces a setTarget that precedes it.
+          startTime = target.time;
+          startValue = beforeTarget;
+          target = null;
+        } else {
+          startTime = previousTime;
+          startValue = previousValue;
+        }
+        if (event.time > floor) {
+          builder.add(floor, event.name.equals(Automation.LINEAR_RAMP) ? LINEAR : EXPONENTIAL,
+              startTime, event.time, startValue, event.value, 0, null);
+          floor = event.time;
+        }
+        previousTime = event.time;
+        previousValue = event.value;
+        continue;
+      }
+      if (event.time > floor) {
+        builder.addHeld(floor, target, targetFrom, previousValue);
+        floor = event.time;
+      }
+      final double held = target != null
+          ? Automation.approach(target, targetFrom, event.time) : previousValue;
+      switch (event.name) {
+        case Automation.SET_TARGET:
+          beforeTarget = held;
+          targetFrom = held;
+          target = event;
+          break;
+        case Automation.SET_VALUE_CURVE:
+          target = null;
+          if (event.end > floor && event.curve.length > 0) {
+            builder.add(floor, CURVE, event.time, event.end, 0, 0, 0, event.curve);
+            floor = event.end;
+          }
+          previousTime = event.end;
+          previousValue = event.curve.length == 0 ? held : event.curve[event.curve.length - 1];
+          break;
+        default:
+          target = null;
+          previousTime = event.time;
+          previousValue = event.value;
+          break;
+      }
+    }
+    builder.addHeld(floor, target, targetFrom, previousValue);
+    return new ParamEvaluator(builder);
+  }
+
+  /**
+   * Returns the value of the param at the time, or NaN if it depends on an unknown initial value.
+   *
+   * @param time a time
+   * @return the value of the param at the time, or NaN if it depends on an unknown initial value
+   */
+  public double valueAt(final Time time) {
+    return valueAt(time.getNanos());
+  }
+
+  /**
+   * Returns the value of the param at the time, or NaN if it depends on an unknown initial value.
+   *
+   * @param nanos a time in nanoseconds
+   * @return the value of the param at the time, or NaN if it depends on an unknown initial value
+   */
+  public double valueAt(final long nanos) {
+    return valueAt(segmentAt(nanos), nanos);
+  }
+
+  /**
+   * Returns the value of the param at the time.
+   *
+   * @param segment the index of the segment containing the time
+   * @param nanos a time in nanoseconds
+   * @return the value of the param at the time
+   */
+  double valueAt(final int segment, final long nanos) {
+    switch (kinds[segment]) {
+      case CONSTANT:
+        return fromValues[segment];
+      case LINEAR:
+        return Automation.linearRamp(fromTimes[segment], fromValues[segment],
+            toTimes[segment], toValues[segment], nanos);
+      case EXPONENTIAL:
+        return Automation.exponentialRamp(fromTimes[segment], fromValues[segment],
+            toTimes[segment], toValues[segment], nanos);
+      case TARGET:
+        return Automation.approach(fromTimes[segment], fromValues[segment], toValues[segment],
+            timeConstants[segment], nanos);
+      default:
+        return Automation.curve(fromTimes[segment], toTimes[segment], curves[segment], nanos);
+    }
+  }
+
+  /**
+   * Returns the number of segments.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns the index of the segment containing the time.
+   *
+   * @param nanos a time in nanoseconds
+   * @return the index of the segment containing the time
+   */
+  int segmentAt(final long nanos) {
+    int low = 0;
+    int high = size - 1;
+    while (low < high) {
+      final int middle = (low + high + 1) >>> 1;
+      if (starts[middle] <= nanos) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the time the segment ends at, exclusive.
+   *
+   * @param segment the index of a segment
+   * @return the time the segment ends at, exclusive
+   */
+  long segmentEnd(final int segment) {
+    return segment + 1 < size ? starts[segment + 1] : Long.MAX_VALUE;
+  }
+
+  /**
+   * Returns true if the value of the param does not change during the segment.
+   *
+   * @param segment the index of a segment
+   * @return true if the value of the param does not change during the segment
+   */
+  boolean isConstant(final int segment) {
+    switch (kinds[segment]) {
+      case CONSTANT:
+        return true;
+      case LINEAR:
+        return fromValues[segment] == toValues[segment];
+      case EXPONENTIAL:
+        // Exponential ramps to or from zero, or across it, hold their start value.
+        return fromValues[segment] == toValues[segment] || fromValues[segment] == 0
+               || toValues[segment] == 0 || (fromValues[segment] < 0) != (toValues[segment] < 0);
+      case TARGET:
+        return timeConstants[segment] <= 0 || fromValues[segment] == toValues[segment];
+      default:
+        return curves[segment].length == 1;
+    }
+  }
+
+  private static final class Builder {
+
+    private long[] starts;
+    private byte[] kinds;
+    private long[] fromTimes;
+    private long[] toTimes;
+    private double[] fromValues;
+    private double[] toValues;
+    private double[] timeConstants;
+    private double[][] curves;
+    private int size;
+
+    Builder(final int capacity) {
+      starts = new long[capacity];
+      kinds = new byte[capacity];
+      fromTimes = new long[capacity];
+      toTimes = new long[capacity];
+      fromValues = new double[capacity];
+      toValues = new double[capacity];
+      timeConstants = new double[capacity];
+      curves = new double[capacity][];
+    }
+
+    void addHeld(final long start,
+                 final Automation.Event target,
+                 final double targetFrom,
+                 final double value) {
+      if (target != null) {
+        add(start, TARGET, target.time, target.time, targetFrom, target.value, target.timeConstant,
+            null);
+      } else {
+        add(start, CONSTANT, 0, 0, value, value, 0, null);
+      }
+    }
+
+    void add(final long start,
+             final byte kind,
+             final long fromTime,
+             final long toTime,
+             final double fromValue,
+             final double toValue,
+             final double timeConstant,
+             final double[] curve) {
+      starts[size] = start;
+      kinds[size] = kind;
+      fromTimes[size] = fromTime;
+      toTimes[size] = toTime;
+      fromValues[size] = fromValue;
+      toValues[size] = toValue;
+      timeConstants[size] = timeConstant;
+      curves[size] = curve;
+      size++;
+    }
+  }
+}
@@ -0,0 +1,393 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.timeline;
+
+import com.spotify.nativeformat.schema.JsonPaths;
+import com.spotify.nativeformat.schema.ValidationError;
+import com.spotify.nativeformat.score.Command;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.GraphBuilder;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.NodeBuilder;
+import com.spotify.nativeformat.score.Score;
+import com.spotify.nativeformat.score.ScoreBuilder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Normalizes the automation of audio params, so that the player gets commands it can play as they
+ * are.
+ *
+ * <p>The commands of each param are sorted by the time they take effect, keeping the order of
+ * commands at the same time. Then they are checked in a single pass, so a param of n commands
+ * takes O(n log n) time. These are dropped and reported as changes:
+ *
+ * <ul>
+ *   <li>commands equal to the command before them,
+ *   <li>a setValueAtTime followed by another at the same time, which overrides it,
+ *   <li>a setValueAtTime of the value the param already holds, unless a ramp starts from it.
+ * </ul>
+ *
+ * <p>These are dropped and reported as errors:
+ *
+ * <ul>
+ *   <li>commands with unknown names, missing or non-numeric arguments, negative times, values
+ *       that are not finite, negative time constants, or curves with fewer than two values or
+ *       without a positive duration,
+ *   <li>commands taking effect during a setValueCurveAtTime,
+ *   <li>exponential ramps to or from zero, or between values of different signs.
+ * </ul>
+ *
+ * <p>Instances are immutable and safe for use by multiple threads.
+ */
+public final class ParamNormalizer {
+
+  private static final ParamNormalizer INSTANCE =
+      new ParamNormalizer(ParamDefaults.getInstance());
+
+  private final ParamDefaults defaults;
+
+  /**
+   * Creates a normalizer that uses the given param defaults.
+   *
+   * @param defaults the initial values of params, used to check exponential ramps that start from
+   *     them
+   */
+  public ParamNormalizer(final ParamDefaults defaults) {
+    this.defaults = Objects.requireNonNull(defaults, "defaults");
+  }
+
+  /**
+   * Returns a normalizer using the defaults of the bundled contract.
+   */
+  public static ParamNormalizer getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns the normalized score, with the changes made and the errors found.
+   *
+   * @param score the score to normalize
+   * @return the normalized score, with the changes made and the errors found
+   */
+  public Normalization normalize(final Score score) {
+    final List<ValidationError> changes = new ArrayList<>();
+    final List<ValidationError> errors = new ArrayList<>();
+    final Graph graph = score.graph();
+    final List<Node> nodes = new ArrayList<>(graph.nodes().size());
+    boolean changed = false;
+    for (int i = 0; i < graph.nodes().size(); i++) {
+      final Node node = graph.nodes().get(i);
+      final Node normalized = normalize(node, i, changes, errors);
+      changed |= normalized != node;
+      nodes.add(normalized);
+    }
+    final Score normalized = changed
+        ? ScoreBuilder.from(score).graph(GraphBuilder.from(graph).nodes(nodes).build()).build()
+        : score;
+    return Normalization.create(normalized, changes, errors);
+  }
+
+  private Node normalize(final Node node,
+                         final int nodeIndex,
+                         final List<ValidationError> changes,
+                         final List<ValidationError> errors) {
+    Map<String, List<Command>> params = node.params();
+    for (final Map.Entry<String, List<Command>> param : node.params().entrySet()) {
+      final Double initialValue = defaults.initialValue(node.kind(), param.getKey());
+      final String path = JsonPaths.appendName(
+          JsonPaths.appendIndex(new StringBuilder("$.graph.nodes"), nodeIndex).append(".params"),
+          param.getKey()).toString();
+      final List<Command> normalized = new Pass(path, changes, errors).run(
+          param.getValue(), initialValue == null ? Double.NaN : initialValue);
+      if (normalized != param.getValue()) {
+        if (params == node.params()) {
+          params = new HashMap<>(params);
+        }
+        params.put(param.getKey(), normalized);
+      }
+    }
+    return params == node.params() ? node : NodeBuilder.from(node).params(params).build();
+  }
+
+  /**
+   * Normalizes the commands of one param.
+   */
+  private static final class Pass {
+
+    private final String path;
+    private final List<ValidationError> changes;
+    private final List<ValidationError> errors;
+
+    /**
+     * The events kept so far, in order, and their indices in the original commands.
+     */
+    private final List<Automation.Event> kept = new ArrayList<>();
+    private final List<Integer> keptIndices = new ArrayList<>();
+
+    /**
+     * The index in kept of a setValueAtTime that is dropped unless a ramp follows it, or -1.
+     */
+    private int redundant = -1;
+
+    private long curveEnd = Long.MIN_VALUE;
+    private int curveIndex = -1;
+
+    /**
+     * The value after the last kept event, unless a target is being approached, and the value the
+     * target was approached from.
+     */
+    private double value;
+    private Automation.Event target;
+    private double beforeTarget;
+
+    /**
+     * The state before the last kept event, restored when it is removed.
+     */
+    private double lastValue;
+    private Automation.Event lastTarget;
+    private double lastBeforeTarget;
+
+    Pass(final String path,
+         final List<ValidationError> changes,
+         final List<ValidationError> errors) {
+      this.path = path;
+      this.changes = changes;
+      this.errors = errors;
+    }
+
+    List<Command> run(final List<Command> commands, final double initialValue) {
+      value = initialValue;
+      final List<Automation.Event> events = new ArrayList<>(commands.size());
+      final List<Integer> indices = new ArrayList<>(commands.size());
+      long latest = Long.MIN_VALUE;
+      int latestIndex = -1;
+      for (int i = 0; i < commands.size(); i++) {
+        final Automation.Event event = parse(commands.get(i), i);
+        if (event == null) {
+          continue;
+        }
+        if (event.time < latest) {
+          changes.add(error(i, "moved before command " + latestIndex + ", which takes effect at "
+              + latest + " after this command at " + event.time));
+        } else {
+          latest = event.time;
+          latestIndex = i;
+        }
+        events.add(event);
+        indices.add(i);
+      }
+
+      final Integer[] order = new Integer[events.size()];
+      for (int i = 0; i < order.length; i++) {
+        order[i] = i;
+      }
+      // Arrays.sort is stable for objects, so commands at the same time keep their order.
+      Arrays.sort(order, Comparator.comparingLong(i -> events.get(i).time));
+      for (final int i : order) {
+        add(events.get(i), indices.get(i));
+      }
+      if (redundant >= 0) {
+        dropRedundant();
+      }
+
+      if (kept.size() == commands.size()) {
+        boolean same = true;
+        for (int i = 0; i < kept.size() && same; i++) {
+          same = keptIndices.get(i) == i;
+        }
+        if (same) {
+          return commands;
+        }
+      }
+      final List<Command> normalized = new ArrayList<>(kept.size());
+      for (final Automation.Event event : kept) {
+        normalized.add(event.command);
+      }
+      return normalized;
+    }
+
+    /**
+     * Returns the parsed command, or null after reporting why it is rejected.
+     */
+    private Automation.Event parse(final Command command, final int index) {
+      final Automation.Event event;
+      try {
+        event = new Automation.Event(command);
+      } catch (IllegalArgumentException e) {
+        errors.add(error(index, e.getMessage()));
+        return null;
+      }
+      final String problem;
+      if (event.time < 0) {
+        problem = "negative time " + event.time;
+      } else if (!Double.isFinite(event.value)) {
+        problem = "value " + event.value + " is not finite";
+      } else if (!(event.timeConstant >= 0) || Double.isInfinite(event.timeConstant)) {
+        problem = "time constant " + event.timeConstant + " is negative or not finite";
+      } else if (event.curve != null && event.curve.length < 2) {
+        problem = "curve has " + event.curve.length + " values, expected at least 2";
+      } else if (event.curve != null && event.end <= event.time) {
+        problem = "curve duration " + (event.end - event.time) + " is not positive";
+      } else if (event.curve != null && !allFinite(event.curve)) {
+        problem = "curve values are not all finite";
+      } else {
+        return event;
+      }
+      errors.add(error(index, problem));
+      return null;
+    }
+
+    private void add(final Automation.Event event, final int index) {
+      final Automation.Event last = kept.isEmpty() ? null : kept.get(kept.size() - 1);
+      if (last != null && same(last, event)) {
+        changes.add(error(index, "dropped duplicate of command "
+            + keptIndices.get(kept.size() - 1)));
+        return;
+      }
+      if (event.time < curveEnd) {
+        errors.add(error(index, "takes effect during setValueCurveAtTime command " + curveIndex));
+        return;
+      }
+      if (event.name.equals(Automation.EXPONENTIAL_RAMP)) {
+        final double from = target != null ? beforeTarget : value;
+        final String problem = exponentialProblem(from, event.value);
+        if (problem != null) {
+          errors.add(error(index, problem));
+          return;
+        }
+      }
+      if (event.name.equals(Automation.SET_VALUE) && last != null
+          && last.name.equals(Automation.SET_VALUE) && last.time == event.time) {
+        changes.add(error(keptIndices.get(kept.size() - 1),
+            "dropped setValueAtTime overridden by command " + index));
+        removeLast();
+      } else if (redundant >= 0) {
+        if (event.isRamp()) {
+          redundant = -1;
+        } else {
+          dropRedundant();
+        }
+      }
+
+      if (event.name.equals(Automation.SET_VALUE) && target == null
+          && event.value == value && !kept.isEmpty()) {
+        redundant = kept.size();
+      }
+      kept.add(event);
+      keptIndices.add(index);
+      lastValue = value;
+      lastTarget = target;
+      lastBeforeTarget = beforeTarget;
+      apply(event);
+    }
+
+    /**
+     * Updates the value of the param the way {@link ParamEvaluator} does.
+     */
+    private void apply(final Automation.Event event) {
+      switch (event.name) {
+        case Automation.SET_TARGET:
+          beforeTarget = target != null ? Automation.approach(target, beforeTarget, event.time)
+              : value;
+          target = event;
+          break;
+        case Automation.SET_VALUE_CURVE:
+          target = null;
+          value = event.curve[event.curve.length - 1];
+          curveEnd = event.end;
+          curveIndex = keptIndices.get(keptIndices.size() - 1);
+          break;
+        default:
+          target = null;
+          value = event.value;
+          break;
+      }
+    }
+
+    private void dropRedundant() {
+      changes.add(error(keptIndices.get(redundant),
+          "dropped setValueAtTime of the value " + kept.get(redundant).value
+          + " the param already has"));
+      kept.remove(redundant);
+      keptIndices.remove(redundant);
+      redundant = -1;
+    }
+
+    private void removeLast() {
+      final int last = kept.size() - 1;
+      kept.remove(last);
+      keptIndices.remove(last);
+      if (redundant == last) {
+        redundant = -1;
+      }
+      value = lastValue;
+      target = lastTarget;
+      beforeTarget = lastBeforeTarget;
+    }
+
+    private ValidationError error(final int index, final String message) {
+      return ValidationError.create(
+          JsonPaths.appendIndex(new StringBuilder(path), index).toString(), message);
+    }
+  }
+
+  /**
+   * Compares events by what they do, since the arguments of equivalent commands may be of
+   * different types.
+   */
+  private static boolean same(final Automation.Event a, final Automation.Event b) {
+    return a.name.equals(b.name)
+           && a.time == b.time
+           && a.end == b.end
+           && Double.compare(a.value, b.value) == 0
+           && Double.compare(a.timeConstant, b.timeConstant) == 0
+           && Arrays.equals(a.curve, b.curve);
+  }
+
+  /**
+   * Returns why an exponential ramp between the values cannot be played, or null if it can.
+   */
+  private static String exponentialProblem(final double from, final double to) {
+    if (to == 0) {
+      return "exponentialRampToValueAtTime to zero";
+    } else if (from == 0) {
+      return "exponentialRampToValueAtTime from zero";
+    } else if ((from < 0) != (to < 0) && !Double.isNaN(from)) {
+      return "exponentialRampToValueAtTime from " + from + " to " + to + " crosses zero";
+    }
+    return null;
+  }
+
+  private static boolean allFinite(final double[] values) {
+    for (final double value : values) {
+      if (!Double.isFinite(value)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
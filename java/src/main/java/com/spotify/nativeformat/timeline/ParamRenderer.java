@@ -0,0 +1,308 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.timeline;
+
+import java.nio.BufferOverflowException;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Renders the values of an audio param into buffers of samples.
+ *
+ * <p>Frame <code>n</code> is at <code>n / sampleRate</code> seconds, rounded to the nearest
+ * nanosecond. The render methods compute one value per frame (a-rate) and {@link
+ * #blockValue(long)} one value per block (k-rate). They walk the evaluator's segments instead of
+ * searching for every frame, and do not allocate. {@link #constantFrames(long)} and the results of
+ * the render methods report where the value does not change, so that callers can process those
+ * frames with a single value.
+ *
+ * <p>Instances are immutable and safe for use by multiple threads.
+ */
+public final class ParamRenderer {
+
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  private final ParamEvaluator evaluator;
+
+  private final double nanosPerFrame;
+
+  /**
+   * Creates a renderer of the evaluated param at the given sample rate.
+   *
+   * @param evaluator the evaluator of the param to render
+   * @param sampleRate the sample rate in frames per second
+   */
+  public ParamRenderer(final ParamEvaluator evaluator, final double sampleRate) {
+    if (!(sampleRate > 0)) {
+      throw new IllegalArgumentException("sampleRate must be positive, got " + sampleRate);
+    }
+    this.evaluator = evaluator;
+    this.nanosPerFrame = NANOS_PER_SECOND / sampleRate;
+  }
+
+  /**
+   * Computes the value of every frame in a range.
+   *
+   * @param startFrame the first frame to render
+   * @param buffer the buffer to write to
+   * @param offset the index to write the first frame's value at
+   * @param frames the number of frames to render
+   * @return true if every frame has the same value
+   */
+  public boolean render(final long startFrame,
+                        final double[] buffer,
+                        final int offset,
+                        final int frames) {
+    checkRange(buffer.length, offset, frames);
+    return render(startFrame, frames, buffer, null, null, offset);
+  }
+
+  /**
+   * Computes the value of every frame in a range.
+   *
+   * @param startFrame the first frame to render
+   * @param buffer the buffer to write to
+   * @param offset the index to write the first frame's value at
+   * @param frames the number of frames to render
+   * @return true if every frame has the same value
+   */
+  public boolean render(final long startFrame,
+                        final float[] buffer,
+                        final int offset,
+                        final int frames) {
+    checkRange(buffer.length, offset, frames);
+    return render(startFrame, frames, null, buffer, null, offset);
+  }
+
+  /**
+   * Computes the value of every frame in a range, writing them at the buffer's position and
+   * advancing it.
+   *
+   * @param startFrame the first frame to render
+   * @param buffer the buffer to write to
+   * @param frames the number of frames to render
+   * @return true if every frame has the same value
+   * @throws BufferOverflowException if the buffer has less than <code>frames</code>
+   *     remaining
+   */
+  public boolean render(final long startFrame, final FloatBuffer buffer, final int frames) {
+    if (frames < 0) {
+      throw new IllegalArgumentException("frames must not be negative, got " + frames);
+    }
+    if (buffer.remaining() < frames) {
+      throw new BufferOverflowException();
+    }
+    final int position = buffer.position();
+    final boolean constant = render(startFrame, frames, null, null, buffer, position);
+    buffer.position(position + frames);
+    return constant;
+  }
+
+  private boolean render(final long startFrame,
+                         final int frames,
+                         final double[] doubles,
+                         final float[] floats,
+                         final FloatBuffer buffer,
+                         final int offset) {
+    if (frames == 0) {
+      return true;
+    }
+    int segment = evaluator.segmentAt(nanos(startFrame));
+    final double first = evaluator.valueAt(segment, nanos(startFrame));
+    boolean constant = true;
+    int i = 0;
+    while (i < frames) {
+      final long end = evaluator.segmentEnd(segment);
+      // The frames of this segment in the range are [i, runEnd).
+      final int runEnd = end == Long.MAX_VALUE
+          ? frames : (int) Math.min(frames, Math.max(i + 1, firstFrameAtOrAfter(end) - startFrame));
+      if (evaluator.isConstant(segment)) {
+        final double value = evaluator.valueAt(segment, nanos(startFrame + i));
+        constant &= same(value, first);
+        fill(doubles, floats, buffer, offset + i, offset + runEnd, value);
+      } else {
+        constant &= renderRun(segment, startFrame + i, runEnd - i, doubles, floats, buffer,
+            offset + i, first);
+      }
+      i = runEnd;
+      if (i < frames) {
+        segment = evaluator.segmentAt(nanos(startFrame + i));
+      }
+    }
+    return constant;
+  }
+
+  /**
+   * Returns the value of the param for the whole block, which is its value at the first frame.
+   *
+   * @param startFrame the first frame of a block
+   * @return the value of the param for the whole block, which is its value at the first frame
+   */
+  public double blockValue(final long startFrame) {
+    return evaluator.valueAt(nanos(startFrame));
+  }
+
+  /**
+   * Returns the number of frames, starting at the given one, that have the same value. The value
+   * may change at the frame after them.
+   *
+   * @param frame a frame
+   * @return the number of frames, at least one, or {@link Long#MAX_VALUE} if the value never
+   *     changes
+   */
+  public long constantFrames(final long frame) {
+    int segment = evaluator.segmentAt(nanos(frame));
+    if (!evaluator.isConstant(segment)) {
+      return 1;
+    }
+    final double value = evaluator.valueAt(segment, nanos(frame));
+    while (segment + 1 < evaluator.size()
+           && evaluator.isConstant(segment + 1)
+           && same(evaluator.valueAt(segment + 1, evaluator.starts[segment + 1]), value)) {
+      segment++;
+    }
+    final long end = evaluator.segmentEnd(segment);
+    if (end == Long.MAX_VALUE) {
+      return Long.MAX_VALUE;
+    }
+    return Math.max(1, firstFrameAtOrAfter(end) - frame);
+  }
+
+  /**
+   * Renders frames within a segment whose value changes. Ramps and target approaches are stepped
+   * from frame to frame rather than evaluated with {@link Math#pow(double, double)} or {@link
+   * Math#exp(double)} for every frame.
+   *
+   * @return true if every frame has the given value
+   */
+  private boolean renderRun(final int segment,
+                            final long startFrame,
+                            final int frames,
+                            final double[] doubles,
+                            final float[] floats,
+                            final FloatBuffer buffer,
+                            final int offset,
+                            final double first) {
+    boolean constant = true;
+    final long fromTime = evaluator.fromTimes[segment];
+    final double fromValue = evaluator.fromValues[segment];
+    final double toValue = evaluator.toValues[segment];
+    switch (evaluator.kinds[segment]) {
+      case ParamEvaluator.LINEAR: {
+        final double slope = (toValue - fromValue) / (evaluator.toTimes[segment] - fromTime);
+        for (int i = 0; i < frames; i++) {
+          final double value = fromValue + slope * (nanos(startFrame + i) - fromTime);
+          constant &= same(value, first);
+          put(doubles, floats, buffer, offset + i, value);
+        }
+        return constant;
+      }
+      case ParamEvaluator.EXPONENTIAL: {
+        final double ratio = Math.pow(toValue / fromValue,
+            nanosPerFrame / (evaluator.toTimes[segment] - fromTime));
+        double value = evaluator.valueAt(segment, nanos(startFrame));
+        for (int i = 0; i < frames; i++, value *= ratio) {
+          constant &= same(value, first);
+          put(doubles, floats, buffer, offset + i, value);
+        }
+        return constant;
+      }
+      case ParamEvaluator.TARGET: {
+        final double decay =
+            Math.exp(-nanosPerFrame / NANOS_PER_SECOND / evaluator.timeConstants[segment]);
+        double distance = evaluator.valueAt(segment, nanos(startFrame)) - toValue;
+        for (int i = 0; i < frames; i++, distance *= decay) {
+          final double value = toValue + distance;
+          constant &= same(value, first);
+          put(doubles, floats, buffer, offset + i, value);
+        }
+        return constant;
+      }
+      default:
+        for (int i = 0; i < frames; i++) {
+          final double value = evaluator.valueAt(segment, nanos(startFrame + i));
+          constant &= same(value, first);
+          put(doubles, floats, buffer, offset + i, value);
+        }
+        return constant;
+    }
+  }
+
+  private static void fill(final double[] doubles,
+                           final float[] floats,
+                           final FloatBuffer buffer,
+                           final int from,
+                           final int to,
+                           final double value) {
+    if (doubles != null) {
+      Arrays.fill(doubles, from, to, value);
+    } else if (floats != null) {
+      Arrays.fill(floats, from, to, (float) value);
+    } else {
+      for (int index = from; index < to; index++) {
+        buffer.put(index, (float) value);
+      }
+    }
+  }
+
+  private static void put(final double[] doubles,
+                          final float[] floats,
+                          final FloatBuffer buffer,
+                          final int index,
+                          final double value) {
+    if (doubles != null) {
+      doubles[index] = value;
+    } else if (floats != null) {
+      floats[index] = (float) value;
+    } else {
+      buffer.put(index, (float) value);
+    }
+  }
+
+  private static boolean same(final double a, final double b) {
+    return Double.doubleToLongBits(a) == Double.doubleToLongBits(b);
+  }
+
+  private static void checkRange(final int length, final int offset, final int frames) {
+    if (offset < 0 || frames < 0 || offset > length - frames) {
+      throw new IndexOutOfBoundsException(
+          "offset=" + offset + " frames=" + frames + " length=" + length);
+    }
+  }
+
+  long nanos(final long frame) {
+    return Math.round(frame * nanosPerFrame);
+  }
+
+  /**
+   * Returns the first frame whose time is at or after the given time.
+   */
+  long firstFrameAtOrAfter(final long nanos) {
+    long frame = (long) Math.ceil(nanos / nanosPerFrame);
+    while (nanos(frame) < nanos) {
+      frame++;
+    }
+    while (nanos(frame - 1) >= nanos) {
+      frame--;
+    }
+    return frame;
+  }
+}
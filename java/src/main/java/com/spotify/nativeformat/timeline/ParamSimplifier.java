@@ -0,0 +1,358 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.timeline;
+
+import com.spotify.nativeformat.score.Command;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.GraphBuilder;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.NodeBuilder;
+import com.spotify.nativeformat.score.Score;
+import com.spotify.nativeformat.score.ScoreBuilder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shrinks the commands of audio params by re-fitting dense automation with fewer linear ramps,
+ * within a maximum error.
+ *
+ * <p>Runs of linear ramps, and value curves, are polylines through their points. Each is
+ * simplified with the Ramer-Douglas-Peucker algorithm, measuring the error of a point as the
+ * difference between its value and the value of the simplified polyline at its time. Both that
+ * difference and its ratio, in decibels, are largest at the points of the original polyline, so
+ * the values of the param at every time stay within the error. A value curve is replaced with
+ * ramps only if that takes fewer commands than a quarter of its values, since a command is about
+ * four times the size of a curve value. Other commands are kept as they are.
+ *
+ * <p>Instances are immutable and safe for use by multiple threads.
+ */
+public final class ParamSimplifier {
+
+  /**
+   * How many curve values a command costs.
+   */
+  private static final int VALUES_PER_COMMAND = 4;
+
+  private final double maxError;
+
+  private final boolean decibels;
+
+  private ParamSimplifier(final double maxError, final boolean decibels) {
+    if (!(maxError >= 0)) {
+      throw new IllegalArgumentException("maxError must not be negative, got " + maxError);
+    }
+    this.maxError = maxError;
+    this.decibels = decibels;
+  }
+
+  /**
+   * Returns a simplifier keeping values within an absolute error.
+   *
+   * @param maxError the largest difference allowed between a value and its simplification
+   * @return a simplifier keeping values within an absolute error
+   */
+  public static ParamSimplifier absolute(final double maxError) {
+    return new ParamSimplifier(maxError, false);
+  }
+
+  /**
+   * Values are only simplified where they have the same sign as their simplification and neither
+   * is zero.
+   *
+   * @param maxError the largest ratio allowed between a value and its simplification, in decibels
+   * @return a simplifier keeping values within a relative error
+   */
+  public static ParamSimplifier decibels(final double maxError) {
+    return new ParamSimplifier(maxError, true);
+  }
+
+  /**
+   * Returns the score with the commands of every param simplified.
+   *
+   * @param score the score to simplify
+   * @return the score with the commands of every param simplified
+   */
+  public Score simplify(final Score score) {
+    final Graph graph = simplify(score.graph());
+    return graph == score.graph() ? score : ScoreBuilder.from(score).graph(graph).build();
+  }
+
+  /**
+   * Returns the graph with the commands of every param simplified.
+   *
+   * @param graph the graph to simplify
+   * @return the graph with the commands of every param simplified
+   */
+  public Graph simplify(final Graph graph) {
+    final List<Node> nodes = new ArrayList<>(graph.nodes().size());
+    boolean changed = false;
+    for (final Node node : graph.nodes()) {
+      final Node simplified = simplify(node);
+      changed |= simplified != node;
+      nodes.add(simplified);
+    }
+    return changed ? GraphBuilder.from(graph).nodes(nodes).build() : graph;
+  }
+
+  private Node simplify(final Node node) {
+    Map<String, List<Command>> params = node.params();
+    for (final Map.Entry<String, List<Command>> param : node.params().entrySet()) {
+      final List<Command> simplified;
+      try {
+        simplified = simplify(param.getValue());
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException(
+            "cannot simplify param " + param.getKey() + " of node " + node.id() + ": "
+            + e.getMessage(), e);
+      }
+      if (simplified != param.getValue()) {
+        if (params == node.params()) {
+          params = new HashMap<>(params);
+        }
+        params.put(param.getKey(), simplified);
+      }
+    }
+    return params == node.params() ? node : NodeBuilder.from(node).params(params).build();
+  }
+
+  /**
+   * Returns equivalent commands within the error, in the order they take effect, or the given
+   * commands if they cannot be simplified.
+   *
+   * @param commands the commands of a param
+   * @return equivalent commands within the error, in the order they take effect, or the given
+   *     commands if they cannot be simplified
+   * @throws IllegalArgumentException if a command is unknown or its arguments are invalid
+   */
+  public List<Command> simplify(final List<Command> commands) {
+    final List<Automation.Event> events = Automation.events(commands);
+    long curveEnd = Long.MIN_VALUE;
+    for (final Automation.Event event : events) {
+      if (event.time < curveEnd) {
+        // Commands during a curve are not evaluated like the rest of a polyline.
+        return commands;
+      }
+      if (event.name.equals(Automation.SET_VALUE_CURVE)) {
+        curveEnd = event.end;
+      }
+    }
+
+    final List<Command> simplified = new ArrayList<>(commands.size());
+    final Polyline ramps = new Polyline(events.size() + 1);
+    for (final Automation.Event event : events) {
+      if (event.name.equals(Automation.LINEAR_RAMP) && ramps.size > 0
+          && event.time > ramps.times[ramps.size - 1]) {
+        ramps.add(event.time, event.value, event.command);
+        continue;
+      }
+      addRamps(ramps, simplified);
+      ramps.clear();
+      switch (event.name) {
+        case Automation.SET_TARGET:
+          simplified.add(event.command);
+          break;
+        case Automation.SET_VALUE_CURVE:
+          addCurve(event, simplified);
+          if (event.curve.length > 0) {
+            ramps.add(event.end, event.curve[event.curve.length - 1], null);
+          }
+          break;
+        default:
+          // The value at the time of a setValueAtTime or a ramp anchors the ramps after it.
+          simplified.add(event.command);
+          ramps.add(event.time, event.value, null);
+          break;
+      }
+    }
+    addRamps(ramps, simplified);
+    return cost(simplified) < cost(commands) ? simplified : commands;
+  }
+
+  /**
+   * Runs the Ramer-Douglas-Peucker algorithm, with an explicit stack so that long polylines do
+   * not overflow the call stack.
+   *
+   * @return which points of the polyline are kept
+   */
+  boolean[] simplify(final Polyline polyline) {
+    final int size = polyline.size;
+    final boolean[] kept = new boolean[size];
+    if (size == 0) {
+      return kept;
+    }
+    kept[0] = true;
+    kept[size - 1] = true;
+    final int[] stack = new int[2 * size];
+    int top = 0;
+    stack[top++] = 0;
+    stack[top++] = size - 1;
+    while (top > 0) {
+      final int last = stack[--top];
+      final int first = stack[--top];
+      int worst = -1;
+      double worstError = maxError;
+      for (int i = first + 1; i < last; i++) {
+        final double error = error(polyline, first, last, i);
+        // NaN errors are never within the limit.
+        if (!(error <= worstError)) {
+          worst = i;
+          worstError = error;
+          if (Double.isNaN(error)) {
+            break;
+          }
+        }
+      }
+      if (worst >= 0) {
+        kept[worst] = true;
+        stack[top++] = first;
+        stack[top++] = worst;
+        stack[top++] = worst;
+        stack[top++] = last;
+      }
+    }
+    return kept;
+  }
+
+  /**
+   * Returns the size of commands, in commands.
+   */
+  private static double cost(final List<Command> commands) {
+    double cost = 0;
+    for (final Command command : commands) {
+      cost += 1;
+      if (command.name().equals(Automation.SET_VALUE_CURVE)) {
+        cost += (double) new Automation.Event(command).curve.length / VALUES_PER_COMMAND;
+      }
+    }
+    return cost;
+  }
+
+  /**
+   * Adds the ramps kept from a polyline whose first point is set by an earlier command.
+   */
+  private void addRamps(final Polyline ramps, final List<Command> simplified) {
+    final boolean[] kept = simplify(ramps);
+    for (int i = 1; i < ramps.size; i++) {
+      if (kept[i]) {
+        simplified.add(ramps.commands[i]);
+      }
+    }
+  }
+
+  private void addCurve(final Automation.Event curve, final List<Command> simplified) {
+    final double[] values = curve.curve;
+    if (values.length <= VALUES_PER_COMMAND) {
+      simplified.add(curve.command);
+      return;
+    }
+    final Polyline points = new Polyline(values.length);
+    final int last = values.length - 1;
+    for (int i = 0; i <= last; i++) {
+      // The times Automation.slice gives the points of a curve.
+      final long time = curve.time + Math.round((double) (curve.end - curve.time) * i / last);
+      if (i > 0 && time <= points.times[i - 1]) {
+        simplified.add(curve.command);
+        return;
+      }
+      points.add(time, values[i], null);
+    }
+    final boolean[] kept = simplify(points);
+    int commands = 0;
+    for (final boolean point : kept) {
+      commands += point ? 1 : 0;
+    }
+    if (commands * VALUES_PER_COMMAND >= values.length) {
+      simplified.add(curve.command);
+      return;
+    }
+    simplified.add(Command.builder()
+        .name(Automation.SET_VALUE)
+        .putArg("value", values[0])
+        .putArg("startTime", curve.time)
+        .build());
+    for (int i = 1; i <= last; i++) {
+      if (kept[i]) {
+        simplified.add(Command.builder()
+            .name(Automation.LINEAR_RAMP)
+            .putArg("value", values[i])
+            .putArg("endTime", points.times[i])
+            .build());
+      }
+    }
+  }
+
+  /**
+   * Returns the error of a point of a polyline when the points between two others are dropped.
+   */
+  private double error(final Polyline polyline, final int first, final int last, final int point) {
+    final double approximation = Automation.linearRamp(
+        polyline.times[first], polyline.values[first],
+        polyline.times[last], polyline.values[last], polyline.times[point]);
+    final double value = polyline.values[point];
+    if (!decibels) {
+      return Math.abs(value - approximation);
+    }
+    if (value == approximation) {
+      return 0;
+    }
+    if (value == 0 || approximation == 0 || (value < 0) != (approximation < 0)) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return Math.abs(20 * Math.log10(approximation / value));
+  }
+
+  /**
+   * Points with increasing times, and the ramp commands that end at them.
+   */
+  static final class Polyline {
+
+    long[] times;
+    double[] values;
+    Command[] commands;
+    int size;
+
+    Polyline(final int capacity) {
+      times = new long[capacity];
+      values = new double[capacity];
+      commands = new Command[capacity];
+    }
+
+    void add(final long time, final double value, final Command command) {
+      if (size == times.length) {
+        times = Arrays.copyOf(times, size * 2 + 1);
+        values = Arrays.copyOf(values, size * 2 + 1);
+        commands = Arrays.copyOf(commands, size * 2 + 1);
+      }
+      times[size] = time;
+      values[size] = value;
+      commands[size] = command;
+      size++;
+    }
+
+    void clear() {
+      Arrays.fill(commands, 0, size, null);
+      size = 0;
+    }
+  }
+}
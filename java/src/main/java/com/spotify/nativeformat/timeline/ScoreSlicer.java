@@ -0,0 +1,219 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.timeline;
+
+import com.spotify.nativeformat.score.Command;
+import com.spotify.nativeformat.score.Edge;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.GraphBuilder;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.NodeBuilder;
+import com.spotify.nativeformat.score.Score;
+import com.spotify.nativeformat.score.ScoreBuilder;
+import com.spotify.nativeformat.score.Time;
+import com.spotify.nativeformat.typed.nodes.FileNode;
+import com.spotify.nativeformat.typed.nodes.LoopNode;
+import com.spotify.nativeformat.typed.nodes.NoiseNode;
+import com.spotify.nativeformat.typed.nodes.SilenceNode;
+import com.spotify.nativeformat.typed.nodes.SineNode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Cuts a Score down to the time window <code>[from, to)</code>, rebased so the window starts at
+ * zero.
+ *
+ * <p>File, sine, noise and silence nodes that do not play during the window are dropped along with
+ * their edges. The others are shifted and trimmed to the window, and file nodes that started before
+ * the window have their offset advanced to match. A source without a positive duration plays until
+ * the end of the window. Loop nodes that end before the window are dropped too. A loop that is
+ * still running at the start of the window is advanced by the iterations it has completed, so it
+ * starts a fresh iteration at zero with a lower loop count; if the window starts partway through an
+ * iteration the loop cannot be rebased and is rejected. Later loops are shifted.
+ *
+ * <p>Audio param commands before the window are replaced by the value the param has at its start,
+ * so every param keeps its values inside the window. Commands after the window are dropped.
+ */
+public final class ScoreSlicer {
+
+  private static final ScoreSlicer INSTANCE = new ScoreSlicer(ParamDefaults.getInstance());
+
+  private static final String WHEN = "when";
+  private static final String DURATION = "duration";
+  private static final String OFFSET = "offset";
+  private static final String LOOP_COUNT = "loopCount";
+
+  private final ParamDefaults defaults;
+
+  /**
+   * Creates a slicer that uses the given param defaults.
+   *
+   * @param defaults the initial values of params, used to evaluate params whose first command is a
+   *     ramp
+   */
+  public ScoreSlicer(final ParamDefaults defaults) {
+    this.defaults = Objects.requireNonNull(defaults, "defaults");
+  }
+
+  /**
+   * Returns a slicer using the defaults of the bundled contract.
+   */
+  public static ScoreSlicer getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns the sliced score.
+   *
+   * @param score the score to slice
+   * @param from the start of the window
+   * @param to the end of the window, exclusive
+   * @return the sliced score
+   * @throws IllegalArgumentException if the window is empty or negative, starts partway through an
+   *     iteration of a loop, or a param's value at the start of the window cannot be determined
+   */
+  public Score slice(final Score score, final Time from, final Time to) {
+    return ScoreBuilder.from(score).graph(slice(score.graph(), from, to)).build();
+  }
+
+  /**
+   * Returns the sliced graph.
+   *
+   * @param graph the graph to slice
+   * @param from the start of the window
+   * @param to the end of the window, exclusive
+   * @return the sliced graph
+   * @throws IllegalArgumentException if the window is empty or negative, starts partway through an
+   *     iteration of a loop, or a param's value at the start of the window cannot be determined
+   */
+  public Graph slice(final Graph graph, final Time from, final Time to) {
+    final long start = from.getNanos();
+    final long end = to.getNanos();
+    if (start < 0 || end <= start) {
+      throw new IllegalArgumentException("invalid window [" + start + ", " + end + ")");
+    }
+
+    final List<Node> nodes = new ArrayList<>(graph.nodes().size());
+    final Set<String> dropped = new HashSet<>();
+    for (final Node node : graph.nodes()) {
+      final Node sliced = slice(node, start, end);
+      if (sliced == null) {
+        dropped.add(node.id());
+      } else {
+        nodes.add(sliced);
+      }
+    }
+
+    final List<Edge> edges = new ArrayList<>(graph.edges().size());
+    for (final Edge edge : graph.edges()) {
+      if (!dropped.contains(edge.source()) && !dropped.contains(edge.target())) {
+        edges.add(edge);
+      }
+    }
+    return GraphBuilder.from(graph).nodes(nodes).edges(edges).build();
+  }
+
+  /**
+   * Returns the sliced node, or null if the node should be dropped.
+   */
+  private Node slice(final Node node, final long from, final long to) {
+    Map<String, Object> config = node.config();
+    switch (node.kind()) {
+      case FileNode.PLUGIN_KIND:
+      case SineNode.PLUGIN_KIND:
+      case NoiseNode.PLUGIN_KIND:
+      case SilenceNode.PLUGIN_KIND: {
+        final long when = Automation.nanos(config.get(WHEN), 0);
+        final long duration = Automation.nanos(config.get(DURATION), 0);
+        final long stop = duration > 0 ? when + duration : Long.MAX_VALUE;
+        if (stop <= from || when >= to) {
+          return null;
+        }
+        final long start = Math.max(when, from);
+        config = new HashMap<>(config);
+        config.put(WHEN, start - from);
+        config.put(DURATION, Math.min(stop, to) - start);
+        if (node.kind().equals(FileNode.PLUGIN_KIND) && when < from) {
+          config.put(OFFSET, Automation.nanos(config.get(OFFSET), 0) + from - when);
+        }
+        break;
+      }
+      case LoopNode.PLUGIN_KIND: {
+        final long when = Automation.nanos(config.get(WHEN), 0);
+        if (when >= from) {
+          if (from > 0) {
+            config = new HashMap<>(config);
+            config.put(WHEN, when - from);
+          }
+          break;
+        }
+        final long elapsed = from - when;
+        final long duration = Automation.nanos(config.get(DURATION), 0);
+        final long loopCount = Automation.nanos(config.get(LOOP_COUNT), -1);
+        if (loopCount >= 0 && (duration <= 0 || loopCount <= elapsed / duration)) {
+          return null;
+        }
+        if (duration <= 0 || elapsed % duration != 0) {
+          throw new IllegalArgumentException(
+              "loop node " + node.id() + " is partway through an iteration at " + from);
+        }
+        config = new HashMap<>(config);
+        config.put(WHEN, 0L);
+        if (loopCount >= 0) {
+          config.put(LOOP_COUNT, loopCount - elapsed / duration);
+        }
+        break;
+      }
+      default:
+        break;
+    }
+
+    Map<String, List<Command>> params = node.params();
+    for (final Map.Entry<String, List<Command>> param : node.params().entrySet()) {
+      final Double initialValue = defaults.initialValue(node.kind(), param.getKey());
+      final double initial = initialValue == null ? Double.NaN : initialValue;
+      final List<Command> sliced;
+      try {
+        sliced = Automation.slice(param.getValue(), initial, from, to);
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException(
+            "cannot slice param " + param.getKey() + " of node " + node.id() + ": "
+            + e.getMessage(), e);
+      }
+      if (!sliced.equals(param.getValue())) {
+        if (params == node.params()) {
+          params = new HashMap<>(params);
+        }
+        params.put(param.getKey(), sliced);
+      }
+    }
+
+    if (config == node.config() && params == node.params()) {
+      return node;
+    }
+    return NodeBuilder.from(node).config(config).params(params).build();
+  }
+}
@@ -0,0 +1,409 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.timeline;
+
+import com.spotify.nativeformat.score.Edge;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.Time;
+import com.spotify.nativeformat.typed.nodes.FileNode;
+import com.spotify.nativeformat.typed.nodes.LoopNode;
+import com.spotify.nativeformat.typed.nodes.NoiseNode;
+import com.spotify.nativeformat.typed.nodes.SilenceNode;
+import com.spotify.nativeformat.typed.nodes.SineNode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An index of when each node of a Graph is active.
+ *
+ * <p>File, sine, noise and silence nodes are active from their <code>when</code> for their
+ * <code>duration</code>, or indefinitely if it is not positive. A loop node is active from its
+ * <code>when</code> for <code>duration</code> times <code>loopCount</code>, or indefinitely if the
+ * loop count is negative. Every node is also active whenever one of the nodes feeding it is, so
+ * activity propagates downstream through edges. Effects that change timing, such as delays and
+ * stretches, are treated as passing their input through unchanged.
+ *
+ * <p>The active intervals of all nodes are stored in an interval tree, so point and range queries
+ * take O(log n + k) time for k results. Nodes and edges can be added, replaced and removed; only
+ * the nodes downstream of an edit are recomputed.
+ *
+ * <p>Instances are not safe for use by multiple threads. When several nodes share an id, only the
+ * first of them is indexed.
+ */
+public final class Timeline {
+
+  private static final long[] INACTIVE = new long[0];
+
+  private static final long FOREVER = Long.MAX_VALUE;
+
+  private final Map<String, Node> nodes = new LinkedHashMap<>();
+
+  private final Map<String, Edge> edges = new HashMap<>();
+
+  /**
+   * The ids of the edges into and out of each node.
+   */
+  private final Map<String, Set<String>> inputs = new HashMap<>();
+
+  private final Map<String, Set<String>> outputs = new HashMap<>();
+
+  /**
+   * The active intervals of each node, as sorted and disjoint start and end pairs.
+   */
+  private final Map<String, long[]> activity = new HashMap<>();
+
+  private final IntervalTree tree = new IntervalTree();
+
+  private Timeline() {
+  }
+
+  /**
+   * Returns a timeline of the graph.
+   *
+   * @param graph the graph to index
+   * @return a timeline of the graph
+   */
+  public static Timeline of(final Graph graph) {
+    final Timeline timeline = new Timeline();
+    for (final Node node : graph.nodes()) {
+      timeline.nodes.putIfAbsent(node.id(), node);
+    }
+    for (final Edge edge : graph.edges()) {
+      timeline.connect(edge);
+    }
+    timeline.recompute(timeline.nodes.keySet());
+    return timeline;
+  }
+
+  /**
+   * Returns the ids of the nodes that are active at the time.
+   *
+   * @param time a time
+   * @return the ids of the nodes that are active at the time
+   */
+  public Set<String> activeAt(final Time time) {
+    final Set<String> ids = new HashSet<>();
+    tree.stab(time.getNanos(), ids::add);
+    return ids;
+  }
+
+  /**
+   * Returns the ids of the nodes that are active at some time in the window.
+   *
+   * @param from the start of a window
+   * @param to the end of the window, exclusive
+   * @return the ids of the nodes that are active at some time in the window
+   */
+  public Set<String> activeDuring(final Time from, final Time to) {
+    final Set<String> ids = new HashSet<>();
+    tree.overlap(from.getNanos(), to.getNanos(), ids::add);
+    return ids;
+  }
+
+  /**
+   * Returns true if the node is active at the time.
+   *
+   * @param id a node id
+   * @param time a time
+   * @return true if the node is active at the time
+   */
+  public boolean isActive(final String id, final Time time) {
+    final long[] intervals = activity.getOrDefault(id, INACTIVE);
+    final long nanos = time.getNanos();
+    for (int i = 0; i < intervals.length && intervals[i] <= nanos; i += 2) {
+      if (nanos < intervals[i + 1]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the intervals during which a node is active, as sorted and disjoint pairs of start and
+   * end times. An end of {@link Long#MAX_VALUE} nanoseconds means the node never stops.
+   *
+   * @param id a node id
+   * @return the node's active intervals
+   */
+  public List<Time[]> intervals(final String id) {
+    final long[] intervals = activity.getOrDefault(id, INACTIVE);
+    final List<Time[]> result = new ArrayList<>(intervals.length / 2);
+    for (int i = 0; i < intervals.length; i += 2) {
+      result.add(new Time[] {Time.fromNanos(intervals[i]), Time.fromNanos(intervals[i + 1])});
+    }
+    return Collections.unmodifiableList(result);
+  }
+
+  /**
+   * Adds a node, or replaces the node with the same id.
+   *
+   * @param node the node
+   * @return this timeline
+   */
+  public Timeline putNode(final Node node) {
+    nodes.put(node.id(), node);
+    recompute(Collections.singleton(node.id()));
+    return this;
+  }
+
+  /**
+   * Removes a node and the edges into and out of it.
+   *
+   * @param id the id of the node
+   * @return this timeline
+   */
+  public Timeline removeNode(final String id) {
+    if (nodes.remove(id) == null) {
+      return this;
+    }
+    final Set<String> affected = new HashSet<>(targets(id));
+    final List<String> incident = new ArrayList<>();
+    incident.addAll(inputs.getOrDefault(id, Collections.emptySet()));
+    incident.addAll(outputs.getOrDefault(id, Collections.emptySet()));
+    for (final String edgeId : incident) {
+      final Edge edge = edges.get(edgeId);
+      if (edge != null) {
+        disconnect(edge);
+      }
+    }
+    affected.add(id);
+    recompute(affected);
+    return this;
+  }
+
+  /**
+   * Adds an edge, or replaces the edge with the same id.
+   *
+   * @param edge the edge
+   * @return this timeline
+   */
+  public Timeline putEdge(final Edge edge) {
+    final Edge previous = edges.get(edge.id());
+    final Set<String> affected = new HashSet<>();
+    if (previous != null) {
+      disconnect(previous);
+      affected.add(previous.target());
+    }
+    connect(edge);
+    affected.add(edge.target());
+    recompute(affected);
+    return this;
+  }
+
+  /**
+   * Removes the edge with the id, if there is one.
+   *
+   * @param id the id of the edge to remove
+   * @return this timeline
+   */
+  public Timeline removeEdge(final String id) {
+    final Edge edge = edges.get(id);
+    if (edge != null) {
+      disconnect(edge);
+      recompute(Collections.singleton(edge.target()));
+    }
+    return this;
+  }
+
+  private void connect(final Edge edge) {
+    if (edges.putIfAbsent(edge.id(), edge) != null) {
+      return;
+    }
+    outputs.computeIfAbsent(edge.source(), id -> new LinkedHashSet<>()).add(edge.id());
+    inputs.computeIfAbsent(edge.target(), id -> new LinkedHashSet<>()).add(edge.id());
+  }
+
+  private void disconnect(final Edge edge) {
+    edges.remove(edge.id());
+    remove(outputs, edge.source(), edge.id());
+    remove(inputs, edge.target(), edge.id());
+  }
+
+  private List<String> targets(final String id) {
+    final List<String> targets = new ArrayList<>();
+    for (final String edgeId : outputs.getOrDefault(id, Collections.emptySet())) {
+      targets.add(edges.get(edgeId).target());
+    }
+    return targets;
+  }
+
+  private static void remove(final Map<String, Set<String>> adjacency,
+                             final String from,
+                             final String to) {
+    final Set<String> ids = adjacency.get(from);
+    if (ids != null) {
+      ids.remove(to);
+      if (ids.isEmpty()) {
+        adjacency.remove(from);
+      }
+    }
+  }
+
+  /**
+   * Recomputes the activity of the given nodes and everything downstream of them. Their activity is
+   * reset and rebuilt as a least fixed point, so activity that only circulated through a cycle does
+   * not survive an edit.
+   */
+  private void recompute(final Set<String> changed) {
+    final Set<String> affected = new LinkedHashSet<>();
+    final Deque<String> queue = new ArrayDeque<>(changed);
+    while (!queue.isEmpty()) {
+      final String id = queue.poll();
+      if (affected.add(id)) {
+        queue.addAll(targets(id));
+      }
+    }
+    for (final String id : affected) {
+      setActivity(id, INACTIVE);
+    }
+    queue.addAll(affected);
+    final Set<String> queued = new HashSet<>(affected);
+    while (!queue.isEmpty()) {
+      final String id = queue.poll();
+      queued.remove(id);
+      final long[] updated = compute(id);
+      if (!Arrays.equals(updated, activity.getOrDefault(id, INACTIVE))) {
+        setActivity(id, updated);
+        for (final String target : targets(id)) {
+          if (queued.add(target)) {
+            queue.add(target);
+          }
+        }
+      }
+    }
+  }
+
+  private long[] compute(final String id) {
+    final Node node = nodes.get(id);
+    if (node == null) {
+      return INACTIVE;
+    }
+    final List<long[]> sources = new ArrayList<>();
+    final long[] own = own(node);
+    if (own.length > 0) {
+      sources.add(own);
+    }
+    for (final String edgeId : inputs.getOrDefault(id, Collections.emptySet())) {
+      final long[] intervals = activity.getOrDefault(edges.get(edgeId).source(), INACTIVE);
+      if (intervals.length > 0) {
+        sources.add(intervals);
+      }
+    }
+    return union(sources);
+  }
+
+  private static long[] own(final Node node) {
+    final Map<String, Object> config = node.config();
+    switch (node.kind()) {
+      case FileNode.PLUGIN_KIND:
+      case SineNode.PLUGIN_KIND:
+      case NoiseNode.PLUGIN_KIND:
+      case SilenceNode.PLUGIN_KIND: {
+        final long when = Automation.nanos(config.get("when"), 0);
+        final long duration = Automation.nanos(config.get("duration"), 0);
+        return interval(when, duration > 0 ? saturatedAdd(when, duration) : FOREVER);
+      }
+      case LoopNode.PLUGIN_KIND: {
+        final long when = Automation.nanos(config.get("when"), 0);
+        final long duration = Automation.nanos(config.get("duration"), 0);
+        final long loopCount = Automation.nanos(config.get("loopCount"), -1);
+        if (loopCount < 0) {
+          return interval(when, FOREVER);
+        }
+        final long length = duration > 0 && loopCount > Long.MAX_VALUE / duration
+            ? FOREVER : duration * loopCount;
+        return interval(when, saturatedAdd(when, length));
+      }
+      default:
+        return INACTIVE;
+    }
+  }
+
+  private static long[] interval(final long start, final long end) {
+    return end > start ? new long[] {start, end} : INACTIVE;
+  }
+
+  private static long saturatedAdd(final long a, final long b) {
+    final long sum = a + b;
+    return ((a ^ sum) & (b ^ sum)) < 0 ? FOREVER : sum;
+  }
+
+  /**
+   * Merges sorted, disjoint interval lists into one.
+   */
+  private static long[] union(final List<long[]> lists) {
+    if (lists.isEmpty()) {
+      return INACTIVE;
+    }
+    if (lists.size() == 1) {
+      return lists.get(0);
+    }
+    int count = 0;
+    for (final long[] list : lists) {
+      count += list.length / 2;
+    }
+    final long[][] intervals = new long[count][];
+    int i = 0;
+    for (final long[] list : lists) {
+      for (int j = 0; j < list.length; j += 2) {
+        intervals[i++] = new long[] {list[j], list[j + 1]};
+      }
+    }
+    Arrays.sort(intervals, (a, b) -> Long.compare(a[0], b[0]));
+    final long[] merged = new long[count * 2];
+    int size = 0;
+    for (final long[] interval : intervals) {
+      if (size > 0 && interval[0] <= merged[size - 1]) {
+        merged[size - 1] = Math.max(merged[size - 1], interval[1]);
+      } else {
+        merged[size++] = interval[0];
+        merged[size++] = interval[1];
+      }
+    }
+    return Arrays.copyOf(merged, size);
+  }
+
+  private void setActivity(final String id, final long[] intervals) {
+    final long[] previous = activity.getOrDefault(id, INACTIVE);
+    for (int i = 0; i < previous.length; i += 2) {
+      tree.remove(previous[i], previous[i + 1], id);
+    }
+    for (int i = 0; i < intervals.length; i += 2) {
+      tree.add(intervals[i], intervals[i + 1], id);
+    }
+    if (intervals.length == 0) {
+      activity.remove(id);
+    } else {
+      activity.put(id, intervals);
+    }
+  }
+}
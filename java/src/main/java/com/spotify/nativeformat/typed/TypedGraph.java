@@ -0,0 +1,167 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.typed;
+
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.LoadingPolicy;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.NodeBuilder;
+import com.spotify.nativeformat.typed.nodes.TypedNode;
+import com.spotify.nativeformat.typed.nodes.TypedNodes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * The nodes of a Graph converted to typed nodes.
+ *
+ * <p>Typed nodes require a loading policy, so nodes without one take the graph's, or
+ * {@link LoadingPolicy#ALL_CONTENT_PLAYTHROUGH} if the graph has none either. Nodes whose plugin
+ * kind has no typed node are kept as they are, see {@link #untypedNodes()}.
+ * When several nodes share an id, {@link #node(String)} returns the first of them.
+ */
+public final class TypedGraph {
+
+  /**
+   * The number of nodes from which {@link #from(Graph)} converts nodes in parallel.
+   */
+  static final int PARALLEL_THRESHOLD = 2048;
+
+  private final Graph graph;
+
+  private final List<TypedNode> nodes;
+
+  private final List<Node> untypedNodes;
+
+  private final Map<String, TypedNode> nodesById;
+
+  private TypedGraph(final Graph graph, final TypedNode[] typed) {
+    final List<TypedNode> nodes = new ArrayList<>(typed.length);
+    final List<Node> untypedNodes = new ArrayList<>();
+    final Map<String, TypedNode> nodesById = new HashMap<>(typed.length * 2);
+    for (int i = 0; i < typed.length; i++) {
+      if (typed[i] == null) {
+        untypedNodes.add(graph.nodes().get(i));
+      } else {
+        nodes.add(typed[i]);
+        nodesById.putIfAbsent(typed[i].id(), typed[i]);
+      }
+    }
+    this.graph = graph;
+    this.nodes = Collections.unmodifiableList(nodes);
+    this.untypedNodes = Collections.unmodifiableList(untypedNodes);
+    this.nodesById = nodesById;
+  }
+
+  /**
+   * Converts every node of the given graph, reading all of its values. Large graphs are converted
+   * in parallel.
+   *
+   * @param graph the graph to convert
+   * @return a new TypedGraph
+   */
+  public static TypedGraph from(final Graph graph) {
+    return new TypedGraph(graph, convert(graph, TypedNodes.getFactories(),
+        graph.nodes().size() >= PARALLEL_THRESHOLD));
+  }
+
+  /**
+   * Converts every node of the given graph to a view that reads its values from the original node
+   * when they are first accessed. Invalid values are reported by the typed nodes' accessors.
+   *
+   * @param graph the graph to convert
+   * @return a new TypedGraph
+   * @see TypedNodes#view(Node)
+   */
+  public static TypedGraph view(final Graph graph) {
+    return new TypedGraph(graph, convert(graph, TypedNodes.getViewFactories(), false));
+  }
+
+  private static TypedNode[] convert(final Graph graph,
+                                     final Map<String, Function<Node, TypedNode>> factories,
+                                     final boolean parallel) {
+    final List<Node> nodes = graph.nodes();
+    final LoadingPolicy policy = graph.loadingPolicy() == null
+        ? LoadingPolicy.ALL_CONTENT_PLAYTHROUGH : graph.loadingPolicy();
+    final TypedNode[] typed = new TypedNode[nodes.size()];
+    IntStream indices = IntStream.range(0, typed.length);
+    if (parallel) {
+      indices = indices.parallel();
+    }
+    indices.forEach(i -> {
+      final Node node = nodes.get(i);
+      final Function<Node, TypedNode> factory = factories.get(node.kind());
+      if (factory != null) {
+        typed[i] = factory.apply(node.loadingPolicy() == null
+            ? NodeBuilder.from(node).loadingPolicy(policy).build() : node);
+      }
+    });
+    return typed;
+  }
+
+  /**
+   * @return the graph the typed nodes were converted from
+   */
+  public Graph graph() {
+    return graph;
+  }
+
+  /**
+   * @return the typed nodes, in the order of the graph
+   */
+  public List<TypedNode> nodes() {
+    return nodes;
+  }
+
+  /**
+   * @return the nodes that have no typed node for their plugin kind, in the order of the graph
+   */
+  public List<Node> untypedNodes() {
+    return untypedNodes;
+  }
+
+  /**
+   * @param id a node id
+   * @return the typed node with the id, or null if there is none
+   */
+  public TypedNode node(final String id) {
+    return nodesById.get(id);
+  }
+
+  /**
+   * @param type a typed node class
+   * @param <T> the typed node class
+   * @return the typed nodes of the class, in the order of the graph
+   */
+  public <T extends TypedNode> List<T> nodes(final Class<T> type) {
+    final List<T> result = new ArrayList<>();
+    for (final TypedNode node : nodes) {
+      if (type.isInstance(node)) {
+        result.add(type.cast(node));
+      }
+    }
+    return result;
+  }
+}
@@ -32,6 +32,7 @@ import com.spotify.nativeformat.score.LoadingPolicy;
 import com.spotify.nativeformat.score.Node;
 import com.spotify.nativeformat.typed.params.AudioParam;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -75,6 +76,43 @@ public class CompanderNode extends TypedNode {
   private static final ArgMapper<List<Double>> CUTOFFS_CONFIG =
       ArgMapper.newFloatListArg("cutoffs", Arrays.asList());
 
+  /** Plugin kind, param, config, port and option names used by this node. */
+  static final List<String> VOCABULARY =
+      Arrays.asList(
+          PLUGIN_KIND,
+          COMPRESSOR_THRESHOLD_DB_PARAM.getName(),
+          COMPRESSOR_KNEE_DB_PARAM.getName(),
+          COMPRESSOR_RATIO_DB_PARAM.getName(),
+          EXPANDER_THRESHOLD_DB_PARAM.getName(),
+          EXPANDER_KNEE_DB_PARAM.getName(),
+          EXPANDER_RATIO_DB_PARAM.getName(),
+          ATTACK_PARAM.getName(),
+          RELEASE_PARAM.getName(),
+          DETECTION_MODE_CONFIG.getName(),
+          KNEE_MODE_CONFIG.getName(),
+          CUTOFFS_CONFIG.getName(),
+          "audio",
+          "sidechain",
+          "max",
+          "rms",
+          "hard",
+          "soft");
+
+  private static final Map<String, ContentType> INPUTS = newInputs();
+
+  private static final Map<String, ContentType> OUTPUTS = newOutputs();
+
+  /** The Score Node a view reads its values from, or null. */
+  private final Node node;
+
+  /** An immutable snapshot of params(), replaced when a param changes. */
+  private Map<String, List<Command>> paramsSnapshot;
+
+  private long paramsVersion;
+
+  /** An immutable snapshot of config(), created on first use. */
+  private Map<String, Object> configSnapshot;
+
   private AudioParam compressorThresholdDb;
 
   private AudioParam compressorKneeDb;
@@ -112,6 +150,7 @@ public class CompanderNode extends TypedNode {
       KneeMode kneeMode,
       List<Double> cutoffs) {
     super(id, PLUGIN_KIND, loadingPolicy);
+    this.node = null;
 
     this.compressorThresholdDb = compressorThresholdDb;
 
@@ -136,6 +175,11 @@ public class CompanderNode extends TypedNode {
     this.cutoffs = cutoffs;
   }
 
+  private CompanderNode(Node node) {
+    super(node.id(), PLUGIN_KIND, node.loadingPolicy());
+    this.node = node;
+  }
+
   /**
    * Factory method. Generates a random id for the created instance.
    *
@@ -209,12 +253,30 @@ public class CompanderNode extends TypedNode {
         CUTOFFS_CONFIG.readConfig(node));
   }
 
+  /**
+   * Creates a CompanderNode that reads its values from the given Score Node when they are first
+   * accessed. Invalid values are reported by the accessors instead of by this method.
+   *
+   * @param node the Score Node to read from
+   * @return a new CompanderNode
+   */
+  public static CompanderNode view(Node node) {
+    if (!PLUGIN_KIND.equals(node.kind())) {
+      throw new RuntimeException("expected plugin kind=" + PLUGIN_KIND);
+    }
+
+    return new CompanderNode(node);
+  }
+
   /**
    * An audio parameter specifying the threshold (in dB) at which compression will start.
    *
    * @return AudioParam
    */
   public AudioParam compressorThresholdDb() {
+    if (this.compressorThresholdDb == null) {
+      this.compressorThresholdDb = COMPRESSOR_THRESHOLD_DB_PARAM.readParam(this.node);
+    }
     return this.compressorThresholdDb;
   }
 
@@ -225,6 +287,9 @@ public class CompanderNode extends TypedNode {
    * @return AudioParam
    */
   public AudioParam compressorKneeDb() {
+    if (this.compressorKneeDb == null) {
+      this.compressorKneeDb = COMPRESSOR_KNEE_DB_PARAM.readParam(this.node);
+    }
     return this.compressorKneeDb;
   }
 
@@ -235,6 +300,9 @@ public class CompanderNode extends TypedNode {
    * @return AudioParam
    */
   public AudioParam compressorRatioDb() {
+    if (this.compressorRatioDb == null) {
+      this.compressorRatioDb = COMPRESSOR_RATIO_DB_PARAM.readParam(this.node);
+    }
     return this.compressorRatioDb;
   }
 
@@ -244,6 +312,9 @@ public class CompanderNode extends TypedNode {
    * @return AudioParam
    */
   public AudioParam expanderThresholdDb() {
+    if (this.expanderThresholdDb == null) {
+      this.expanderThresholdDb = EXPANDER_THRESHOLD_DB_PARAM.readParam(this.node);
+    }
     return this.expanderThresholdDb;
   }
 
@@ -254,6 +325,9 @@ public class CompanderNode extends TypedNode {
    * @return AudioParam
    */
   public AudioParam expanderKneeDb() {
+    if (this.expanderKneeDb == null) {
+      this.expanderKneeDb = EXPANDER_KNEE_DB_PARAM.readParam(this.node);
+    }
     return this.expanderKneeDb;
   }
 
@@ -264,6 +338,9 @@ public class CompanderNode extends TypedNode {
    * @return AudioParam
    */
   public AudioParam expanderRatioDb() {
+    if (this.expanderRatioDb == null) {
+      this.expanderRatioDb = EXPANDER_RATIO_DB_PARAM.readParam(this.node);
+    }
     return this.expanderRatioDb;
   }
 
@@ -273,6 +350,9 @@ public class CompanderNode extends TypedNode {
    * @return AudioParam
    */
   public AudioParam attack() {
+    if (this.attack == null) {
+      this.attack = ATTACK_PARAM.readParam(this.node);
+    }
     return this.attack;
   }
 
@@ -282,6 +362,9 @@ public class CompanderNode extends TypedNode {
    * @return AudioParam
    */
   public AudioParam release() {
+    if (this.release == null) {
+      this.release = RELEASE_PARAM.readParam(this.node);
+    }
     return this.release;
   }
 
@@ -293,6 +376,9 @@ public class CompanderNode extends TypedNode {
    * @return DetectionMode
    */
   public DetectionMode detectionMode() {
+    if (this.detectionMode == null) {
+      this.detectionMode = DETECTION_MODE_CONFIG.readConfig(this.node);
+    }
     return this.detectionMode;
   }
 
@@ -304,6 +390,9 @@ public class CompanderNode extends TypedNode {
    * @return KneeMode
    */
   public KneeMode kneeMode() {
+    if (this.kneeMode == null) {
+      this.kneeMode = KNEE_MODE_CONFIG.readConfig(this.node);
+    }
     return this.kneeMode;
   }
 
@@ -314,45 +403,64 @@ public class CompanderNode extends TypedNode {
    * @return List<Double>
    */
   public List<Double> cutoffs() {
+    if (this.cutoffs == null) {
+      this.cutoffs = CUTOFFS_CONFIG.readConfig(this.node);
+    }
     return this.cutoffs;
   }
 
+  private static Map<String, ContentType> newInputs() {
+    final Map<String, ContentType> inputsResult = new HashMap<>();
+    inputsResult.put("audio", ContentType.AUDIO);
+    inputsResult.put("sidechain", ContentType.AUDIO);
+    return Collections.unmodifiableMap(inputsResult);
+  }
+
+  private static Map<String, ContentType> newOutputs() {
+    final Map<String, ContentType> outputsResult = new HashMap<>();
+    outputsResult.put("audio", ContentType.AUDIO);
+    return Collections.unmodifiableMap(outputsResult);
+  }
+
   @Override
   public Map<String, List<Command>> params() {
-    final Map<String, List<Command>> paramsResult = new HashMap<>();
-    COMPRESSOR_THRESHOLD_DB_PARAM.addToMap(compressorThresholdDb, paramsResult);
-    COMPRESSOR_KNEE_DB_PARAM.addToMap(compressorKneeDb, paramsResult);
-    COMPRESSOR_RATIO_DB_PARAM.addToMap(compressorRatioDb, paramsResult);
-    EXPANDER_THRESHOLD_DB_PARAM.addToMap(expanderThresholdDb, paramsResult);
-    EXPANDER_KNEE_DB_PARAM.addToMap(expanderKneeDb, paramsResult);
-    EXPANDER_RATIO_DB_PARAM.addToMap(expanderRatioDb, paramsResult);
-    ATTACK_PARAM.addToMap(attack, paramsResult);
-    RELEASE_PARAM.addToMap(release, paramsResult);
-    return paramsResult;
+    final long version = compressorThresholdDb().getVersion() + compressorKneeDb().getVersion() + compressorRatioDb().getVersion() + expanderThresholdDb().getVersion() + expanderKneeDb().getVersion() + expanderRatioDb().getVersion() + attack().getVersion() + release().getVersion();
+    if (this.paramsSnapshot == null || this.paramsVersion != version) {
+      final Map<String, List<Command>> paramsResult = new HashMap<>();
+      COMPRESSOR_THRESHOLD_DB_PARAM.addToMap(compressorThresholdDb(), paramsResult);
+      COMPRESSOR_KNEE_DB_PARAM.addToMap(compressorKneeDb(), paramsResult);
+      COMPRESSOR_RATIO_DB_PARAM.addToMap(compressorRatioDb(), paramsResult);
+      EXPANDER_THRESHOLD_DB_PARAM.addToMap(expanderThresholdDb(), paramsResult);
+      EXPANDER_KNEE_DB_PARAM.addToMap(expanderKneeDb(), paramsResult);
+      EXPANDER_RATIO_DB_PARAM.addToMap(expanderRatioDb(), paramsResult);
+      ATTACK_PARAM.addToMap(attack(), paramsResult);
+      RELEASE_PARAM.addToMap(release(), paramsResult);
+      this.paramsSnapshot = snapshot(paramsResult);
+      this.paramsVersion = version;
+    }
+    return this.paramsSnapshot;
   }
 
   @Override
   public Map<String, Object> config() {
-    final Map<String, Object> configResult = new HashMap<>();
-    DETECTION_MODE_CONFIG.addToMap(detectionMode, configResult);
-    KNEE_MODE_CONFIG.addToMap(kneeMode, configResult);
-    CUTOFFS_CONFIG.addToMap(cutoffs, configResult);
-    return configResult;
+    if (this.configSnapshot == null) {
+      final Map<String, Object> configResult = new HashMap<>();
+      DETECTION_MODE_CONFIG.addToMap(detectionMode(), configResult);
+      KNEE_MODE_CONFIG.addToMap(kneeMode(), configResult);
+      CUTOFFS_CONFIG.addToMap(cutoffs(), configResult);
+      this.configSnapshot = Collections.unmodifiableMap(configResult);
+    }
+    return this.configSnapshot;
   }
 
   @Override
   public Map<String, ContentType> inputs() {
-    final Map<String, ContentType> inputsResult = new HashMap<>();
-    inputsResult.put("audio", ContentType.AUDIO);
-    inputsResult.put("sidechain", ContentType.AUDIO);
-    return inputsResult;
+    return INPUTS;
   }
 
   @Override
   public Map<String, ContentType> outputs() {
-    final Map<String, ContentType> outputsResult = new HashMap<>();
-    outputsResult.put("audio", ContentType.AUDIO);
-    return outputsResult;
+    return OUTPUTS;
   }
 
   public enum DetectionMode {
@@ -32,6 +32,7 @@ import com.spotify.nativeformat.score.LoadingPolicy;
 import com.spotify.nativeformat.score.Node;
 import com.spotify.nativeformat.typed.params.AudioParam;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -66,6 +67,40 @@ public class CompressorNode extends TypedNode {
   private static final ArgMapper<List<Double>> CUTOFFS_CONFIG =
       ArgMapper.newFloatListArg("cutoffs", Arrays.asList());
 
+  /** Plugin kind, param, config, port and option names used by this node. */
+  static final List<String> VOCABULARY =
+      Arrays.asList(
+          PLUGIN_KIND,
+          THRESHOLD_DB_PARAM.getName(),
+          KNEE_DB_PARAM.getName(),
+          RATIO_DB_PARAM.getName(),
+          ATTACK_PARAM.getName(),
+          RELEASE_PARAM.getName(),
+          DETECTION_MODE_CONFIG.getName(),
+          KNEE_MODE_CONFIG.getName(),
+          CUTOFFS_CONFIG.getName(),
+          "audio",
+          "sidechain",
+          "max",
+          "rms",
+          "hard",
+          "soft");
+
+  private static final Map<String, ContentType> INPUTS = newInputs();
+
+  private static final Map<String, ContentType> OUTPUTS = newOutputs();
+
+  /** The Score Node a view reads its values from, or null. */
+  private final Node node;
+
+  /** An immutable snapshot of params(), replaced when a param changes. */
+  private Map<String, List<Command>> paramsSnapshot;
+
+  private long paramsVersion;
+
+  /** An immutable snapshot of config(), created on first use. */
+  private Map<String, Object> configSnapshot;
+
   private AudioParam thresholdDb;
 
   private AudioParam kneeDb;
@@ -94,6 +129,7 @@ public class CompressorNode extends TypedNode {
       KneeMode kneeMode,
       List<Double> cutoffs) {
     super(id, PLUGIN_KIND, loadingPolicy);
+    this.node = null;
 
     this.thresholdDb = thresholdDb;
 
@@ -112,6 +148,11 @@ public class CompressorNode extends TypedNode {
     this.cutoffs = cutoffs;
   }
 
+  private CompressorNode(Node node) {
+    super(node.id(), PLUGIN_KIND, node.loadingPolicy());
+    this.node = node;
+  }
+
   /**
    * Factory method. Generates a random id for the created instance.
    *
@@ -179,12 +220,30 @@ public class CompressorNode extends TypedNode {
         CUTOFFS_CONFIG.readConfig(node));
   }
 
+  /**
+   * Creates a CompressorNode that reads its values from the given Score Node when they are first
+   * accessed. Invalid values are reported by the accessors instead of by this method.
+   *
+   * @param node the Score Node to read from
+   * @return a new CompressorNode
+   */
+  public static CompressorNode view(Node node) {
+    if (!PLUGIN_KIND.equals(node.kind())) {
+      throw new RuntimeException("expected plugin kind=" + PLUGIN_KIND);
+    }
+
+    return new CompressorNode(node);
+  }
+
   /**
    * An audio parameter specifying the threshold (in dB) at which compression will start.
    *
    * @return AudioParam
    */
   public AudioParam thresholdDb() {
+    if (this.thresholdDb == null) {
+      this.thresholdDb = THRESHOLD_DB_PARAM.readParam(this.node);
+    }
     return this.thresholdDb;
   }
 
@@ -195,6 +254,9 @@ public class CompressorNode extends TypedNode {
    * @return AudioParam
    */
   public AudioParam kneeDb() {
+    if (this.kneeDb == null) {
+      this.kneeDb = KNEE_DB_PARAM.readParam(this.node);
+    }
     return this.kneeDb;
   }
 
@@ -204,6 +266,9 @@ public class CompressorNode extends TypedNode {
    * @return AudioParam
    */
   public AudioParam ratioDb() {
+    if (this.ratioDb == null) {
+      this.ratioDb = RATIO_DB_PARAM.readParam(this.node);
+    }
     return this.ratioDb;
   }
 
@@ -213,6 +278,9 @@ public class CompressorNode extends TypedNode {
    * @return AudioParam
    */
   public AudioParam attack() {
+    if (this.attack == null) {
+      this.attack = ATTACK_PARAM.readParam(this.node);
+    }
     return this.attack;
   }
 
@@ -222,6 +290,9 @@ public class CompressorNode extends TypedNode {
    * @return AudioParam
    */
   public AudioParam release() {
+    if (this.release == null) {
+      this.release = RELEASE_PARAM.readParam(this.node);
+    }
     return this.release;
   }
 
@@ -233,6 +304,9 @@ public class CompressorNode extends TypedNode {
    * @return DetectionMode
    */
   public DetectionMode detectionMode() {
+    if (this.detectionMode == null) {
+      this.detectionMode = DETECTION_MODE_CONFIG.readConfig(this.node);
+    }
     return this.detectionMode;
   }
 
@@ -244,6 +318,9 @@ public class CompressorNode extends TypedNode {
    * @return KneeMode
    */
   public KneeMode kneeMode() {
+    if (this.kneeMode == null) {
+      this.kneeMode = KNEE_MODE_CONFIG.readConfig(this.node);
+    }
     return this.kneeMode;
   }
 
@@ -254,42 +331,61 @@ public class CompressorNode extends TypedNode {
    * @return List<Double>
    */
   public List<Double> cutoffs() {
+    if (this.cutoffs == null) {
+      this.cutoffs = CUTOFFS_CONFIG.readConfig(this.node);
+    }
     return this.cutoffs;
   }
 
+  private static Map<String, ContentType> newInputs() {
+    final Map<String, ContentType> inputsResult = new HashMap<>();
+    inputsResult.put("audio", ContentType.AUDIO);
+    inputsResult.put("sidechain", ContentType.AUDIO);
+    return Collections.unmodifiableMap(inputsResult);
+  }
+
+  private static Map<String, ContentType> newOutputs() {
+    final Map<String, ContentType> outputsResult = new HashMap<>();
+    outputsResult.put("audio", ContentType.AUDIO);
+    return Collections.unmodifiableMap(outputsResult);
+  }
+
   @Override
   public Map<String, List<Command>> params() {
-    final Map<String, List<Command>> paramsResult = new HashMap<>();
-    THRESHOLD_DB_PARAM.addToMap(thresholdDb, paramsResult);
-    KNEE_DB_PARAM.addToMap(kneeDb, paramsResult);
-    RATIO_DB_PARAM.addToMap(ratioDb, paramsResult);
-    ATTACK_PARAM.addToMap(attack, paramsResult);
-    RELEASE_PARAM.addToMap(release, paramsResult);
-    return paramsResult;
+    final long version = thresholdDb().getVersion() + kneeDb().getVersion() + ratioDb().getVersion() + attack().getVersion() + release().getVersion();
+    if (this.paramsSnapshot == null || this.paramsVersion != version) {
+      final Map<String, List<Command>> paramsResult = new HashMap<>();
+      THRESHOLD_DB_PARAM.addToMap(thresholdDb(), paramsResult);
+      KNEE_DB_PARAM.addToMap(kneeDb(), paramsResult);
+      RATIO_DB_PARAM.addToMap(ratioDb(), paramsResult);
+      ATTACK_PARAM.addToMap(attack(), paramsResult);
+      RELEASE_PARAM.addToMap(release(), paramsResult);
+      this.paramsSnapshot = snapshot(paramsResult);
+      this.paramsVersion = version;
+    }
+    return this.paramsSnapshot;
   }
 
   @Override
   public Map<String, Object> config() {
-    final Map<String, Object> configResult = new HashMap<>();
-    DETECTION_MODE_CONFIG.addToMap(detectionMode, configResult);
-    KNEE_MODE_CONFIG.addToMap(kneeMode, configResult);
-    CUTOFFS_CONFIG.addToMap(cutoffs, configResult);
-    return configResult;
+    if (this.configSnapshot == null) {
+      final Map<String, Object> configResult = new HashMap<>();
+      DETECTION_MODE_CONFIG.addToMap(detectionMode(), configResult);
+      KNEE_MODE_CONFIG.addToMap(kneeMode(), configResult);
+      CUTOFFS_CONFIG.addToMap(cutoffs(), configResult);
+      this.configSnapshot = Collections.unmodifiableMap(configResult);
+    }
+    return this.configSnapshot;
   }
 
   @Override
   public Map<String, ContentType> inputs() {
-    final Map<String, ContentType> inputsResult = new HashMap<>();
-    inputsResult.put("audio", ContentType.AUDIO);
-    inputsResult.put("sidechain", ContentType.AUDIO);
-    return inputsResult;
+    return INPUTS;
   }
 
   @Override
   public Map<String, ContentType> outputs() {
-    final Map<String, ContentType> outputsResult = new HashMap<>();
-    outputsResult.put("audio", ContentType.AUDIO);
-    return outputsResult;
+    return OUTPUTS;
   }
 
   public enum DetectionMode {
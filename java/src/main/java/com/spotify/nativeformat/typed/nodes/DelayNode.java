@@ -28,6 +28,8 @@ import com.spotify.nativeformat.score.ContentType;
 import com.spotify.nativeformat.score.LoadingPolicy;
 import com.spotify.nativeformat.score.Node;
 import com.spotify.nativeformat.typed.params.AudioParam;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -41,14 +43,39 @@ public class DelayNode extends TypedNode {
   private static final ParamMapper<AudioParam> DELAY_TIME_PARAM =
       AudioParam.newParamMapper("delayTime", 0D);
 
+  /** Plugin kind, param, config, port and option names used by this node. */
+  static final List<String> VOCABULARY =
+      Arrays.asList(
+          PLUGIN_KIND,
+          DELAY_TIME_PARAM.getName(),
+          "audio");
+
+  private static final Map<String, ContentType> INPUTS = newInputs();
+
+  private static final Map<String, ContentType> OUTPUTS = newOutputs();
+
+  /** The Score Node a view reads its values from, or null. */
+  private final Node node;
+
+  /** An immutable snapshot of params(), replaced when a param changes. */
+  private Map<String, List<Command>> paramsSnapshot;
+
+  private long paramsVersion;
+
   private AudioParam delayTime;
 
   private DelayNode(String id, LoadingPolicy loadingPolicy, AudioParam delayTime) {
     super(id, PLUGIN_KIND, loadingPolicy);
+    this.node = null;
 
     this.delayTime = delayTime;
   }
 
+  private DelayNode(Node node) {
+    super(node.id(), PLUGIN_KIND, node.loadingPolicy());
+    this.node = node;
+  }
+
   /**
    * Factory method. Generates a random id for the created instance.
    *
@@ -93,40 +120,69 @@ public class DelayNode extends TypedNode {
     return new DelayNode(node.id(), node.loadingPolicy(), DELAY_TIME_PARAM.readParam(node));
   }
 
+  /**
+   * Creates a DelayNode that reads its values from the given Score Node when they are first
+   * accessed. Invalid values are reported by the accessors instead of by this method.
+   *
+   * @param node the Score Node to read from
+   * @return a new DelayNode
+   */
+  public static DelayNode view(Node node) {
+    if (!PLUGIN_KIND.equals(node.kind())) {
+      throw new RuntimeException("expected plugin kind=" + PLUGIN_KIND);
+    }
+
+    return new DelayNode(node);
+  }
+
   /**
    * An audio parameter controlling the current delay time on the node.
    *
    * @return AudioParam
    */
   public AudioParam delayTime() {
+    if (this.delayTime == null) {
+      this.delayTime = DELAY_TIME_PARAM.readParam(this.node);
+    }
     return this.delayTime;
   }
 
+  private static Map<String, ContentType> newInputs() {
+    final Map<String, ContentType> inputsResult = new HashMap<>();
+    inputsResult.put("audio", ContentType.AUDIO);
+    return Collections.unmodifiableMap(inputsResult);
+  }
+
+  private static Map<String, ContentType> newOutputs() {
+    final Map<String, ContentType> outputsResult = new HashMap<>();
+    outputsResult.put("audio", ContentType.AUDIO);
+    return Collections.unmodifiableMap(outputsResult);
+  }
+
   @Override
   public Map<String, List<Command>> params() {
-    final Map<String, List<Command>> paramsResult = new HashMap<>();
-    DELAY_TIME_PARAM.addToMap(delayTime, paramsResult);
-    return paramsResult;
+    final long version = delayTime().getVersion();
+    if (this.paramsSnapshot == null || this.paramsVersion != version) {
+      final Map<String, List<Command>> paramsResult = new HashMap<>();
+      DELAY_TIME_PARAM.addToMap(delayTime(), paramsResult);
+      this.paramsSnapshot = snapshot(paramsResult);
+      this.paramsVersion = version;
+    }
+    return this.paramsSnapshot;
   }
 
   @Override
   public Map<String, Object> config() {
-    final Map<String, Object> configResult = new HashMap<>();
-
-    return configResult;
+    return Collections.emptyMap();
   }
 
   @Override
   public Map<String, ContentType> inputs() {
-    final Map<String, ContentType> inputsResult = new HashMap<>();
-    inputsResult.put("audio", ContentType.AUDIO);
-    return inputsResult;
+    return INPUTS;
   }
 
   @Override
   public Map<String, ContentType> outputs() {
-    final Map<String, ContentType> outputsResult = new HashMap<>();
-    outputsResult.put("audio", ContentType.AUDIO);
-    return outputsResult;
+    return OUTPUTS;
   }
 }
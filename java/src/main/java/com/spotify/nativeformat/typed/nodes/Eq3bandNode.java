@@ -28,6 +28,8 @@ import com.spotify.nativeformat.score.ContentType;
 import com.spotify.nativeformat.score.LoadingPolicy;
 import com.spotify.nativeformat.score.Node;
 import com.spotify.nativeformat.typed.params.AudioParam;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -59,6 +61,30 @@ public class Eq3bandNode extends TypedNode {
   private static final ParamMapper<AudioParam> HIGH_GAIN_PARAM =
       AudioParam.newParamMapper("highGain", 0D);
 
+  /** Plugin kind, param, config, port and option names used by this node. */
+  static final List<String> VOCABULARY =
+      Arrays.asList(
+          PLUGIN_KIND,
+          LOW_CUTOFF_PARAM.getName(),
+          MID_FREQUENCY_PARAM.getName(),
+          HIGH_CUTOFF_PARAM.getName(),
+          LOW_GAIN_PARAM.getName(),
+          MID_GAIN_PARAM.getName(),
+          HIGH_GAIN_PARAM.getName(),
+          "audio");
+
+  private static final Map<String, ContentType> INPUTS = newInputs();
+
+  private static final Map<String, ContentType> OUTPUTS = newOutputs();
+
+  /** The Score Node a view reads its values from, or null. */
+  private final Node node;
+
+  /** An immutable snapshot of params(), replaced when a param changes. */
+  private Map<String, List<Command>> paramsSnapshot;
+
+  private long paramsVersion;
+
   private AudioParam lowCutoff;
 
   private AudioParam midFrequency;
@@ -81,6 +107,7 @@ public class Eq3bandNode extends TypedNode {
       AudioParam midGain,
       AudioParam highGain) {
     super(id, PLUGIN_KIND, loadingPolicy);
+    this.node = null;
 
     this.lowCutoff = lowCutoff;
 
@@ -95,6 +122,11 @@ public class Eq3bandNode extends TypedNode {
     this.highGain = highGain;
   }
 
+  private Eq3bandNode(Node node) {
+    super(node.id(), PLUGIN_KIND, node.loadingPolicy());
+    this.node = node;
+  }
+
   /**
    * Factory method. Generates a random id for the created instance.
    *
@@ -155,6 +187,21 @@ public class Eq3bandNode extends TypedNode {
         HIGH_GAIN_PARAM.readParam(node));
   }
 
+  /**
+   * Creates a Eq3bandNode that reads its values from the given Score Node when they are first
+   * accessed. Invalid values are reported by the accessors instead of by this method.
+   *
+   * @param node the Score Node to read from
+   * @return a new Eq3bandNode
+   */
+  public static Eq3bandNode view(Node node) {
+    if (!PLUGIN_KIND.equals(node.kind())) {
+      throw new RuntimeException("expected plugin kind=" + PLUGIN_KIND);
+    }
+
+    return new Eq3bandNode(node);
+  }
+
   /**
    * An audio parameter specifying the cutoff frequency (Hz) for the low shelf filter, below which
    * the lowGain will be applied.
@@ -162,6 +209,9 @@ public class Eq3bandNode extends TypedNode {
    * @return AudioParam
    */
   public AudioParam lowCutoff() {
+    if (this.lowCutoff == null) {
+      this.lowCutoff = LOW_CUTOFF_PARAM.readParam(this.node);
+    }
     return this.lowCutoff;
   }
 
@@ -172,6 +222,9 @@ public class Eq3bandNode extends TypedNode {
    * @return AudioParam
    */
   public AudioParam midFrequency() {
+    if (this.midFrequency == null) {
+      this.midFrequency = MID_FREQUENCY_PARAM.readParam(this.node);
+    }
     return this.midFrequency;
   }
 
@@ -182,6 +235,9 @@ public class Eq3bandNode extends TypedNode {
    * @return AudioParam
    */
   public AudioParam highCutoff() {
+    if (this.highCutoff == null) {
+      this.highCutoff = HIGH_CUTOFF_PARAM.readParam(this.node);
+    }
     return this.highCutoff;
   }
 
@@ -191,6 +247,9 @@ public class Eq3bandNode extends TypedNode {
    * @return AudioParam
    */
   public AudioParam lowGain() {
+    if (this.lowGain == null) {
+      this.lowGain = LOW_GAIN_PARAM.readParam(this.node);
+    }
     return this.lowGain;
   }
 
@@ -200,6 +259,9 @@ public class Eq3bandNode extends TypedNode {
    * @return AudioParam
    */
   public AudioParam midGain() {
+    if (this.midGain == null) {
+      this.midGain = MID_GAIN_PARAM.readParam(this.node);
+    }
     return this.midGain;
   }
 
@@ -209,39 +271,53 @@ public class Eq3bandNode extends TypedNode {
    * @return AudioParam
    */
   public AudioParam highGain() {
+    if (this.highGain == null) {
+      this.highGain = HIGH_GAIN_PARAM.readParam(this.node);
+    }
     return this.highGain;
   }
 
+  private static Map<String, ContentType> newInputs() {
+    final Map<String, ContentType> inputsResult = new HashMap<>();
+    inputsResult.put("audio", ContentType.AUDIO);
+    return Collections.unmodifiableMap(inputsResult);
+  }
+
+  private static Map<String, ContentType> newOutputs() {
+    final Map<String, ContentType> outputsResult = new HashMap<>();
+    outputsResult.put("audio", ContentType.AUDIO);
+    return Collections.unmodifiableMap(outputsResult);
+  }
+
   @Override
   public Map<String, List<Command>> params() {
-    final Map<String, List<Command>> paramsResult = new HashMap<>();
-    LOW_CUTOFF_PARAM.addToMap(lowCutoff, paramsResult);
-    MID_FREQUENCY_PARAM.addToMap(midFrequency, paramsResult);
-    HIGH_CUTOFF_PARAM.addToMap(highCutoff, paramsResult);
-    LOW_GAIN_PARAM.addToMap(lowGain, paramsResult);
-    MID_GAIN_PARAM.addToMap(midGain, paramsResult);
-    HIGH_GAIN_PARAM.addToMap(highGain, paramsResult);
-    return paramsResult;
+    final long version = lowCutoff().getVersion() + midFrequency().getVersion() + highCutoff().getVersion() + lowGain().getVersion() + midGain().getVersion() + highGain().getVersion();
+    if (this.paramsSnapshot == null || this.paramsVersion != version) {
+      final Map<String, List<Command>> paramsResult = new HashMap<>();
+      LOW_CUTOFF_PARAM.addToMap(lowCutoff(), paramsResult);
+      MID_FREQUENCY_PARAM.addToMap(midFrequency(), paramsResult);
+      HIGH_CUTOFF_PARAM.addToMap(highCutoff(), paramsResult);
+      LOW_GAIN_PARAM.addToMap(lowGain(), paramsResult);
+      MID_GAIN_PARAM.addToMap(midGain(), paramsResult);
+      HIGH_GAIN_PARAM.addToMap(highGain(), paramsResult);
+      this.paramsSnapshot = snapshot(paramsResult);
+      this.paramsVersion = version;
+    }
+    return this.paramsSnapshot;
   }
 
   @Override
   public Map<String, Object> config() {
-    final Map<String, Object> configResult = new HashMap<>();
-
-    return configResult;
+    return Collections.emptyMap();
   }
 
   @Override
   public Map<String, ContentType> inputs() {
-    final Map<String, ContentType> inputsResult = new HashMap<>();
-    inputsResult.put("audio", ContentType.AUDIO);
-    return inputsResult;
+    return INPUTS;
   }
 
   @Override
   public Map<String, ContentType> outputs() {
-    final Map<String, ContentType> outputsResult = new HashMap<>();
-    outputsResult.put("audio", ContentType.AUDIO);
-    return outputsResult;
+    return OUTPUTS;
   }
 }
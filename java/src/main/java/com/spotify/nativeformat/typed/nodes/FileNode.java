@@ -28,6 +28,8 @@ import com.spotify.nativeformat.score.ContentType;
 import com.spotify.nativeformat.score.LoadingPolicy;
 import com.spotify.nativeformat.score.Node;
 import com.spotify.nativeformat.score.Time;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -50,6 +52,26 @@ public class FileNode extends TypedNode {
   private static final ArgMapper<Time> OFFSET_CONFIG =
       ArgMapper.newTimeArg("offset", Time.fromNanos(0));
 
+  /** Plugin kind, param, config, port and option names used by this node. */
+  static final List<String> VOCABULARY =
+      Arrays.asList(
+          PLUGIN_KIND,
+          FILE_CONFIG.getName(),
+          WHEN_CONFIG.getName(),
+          DURATION_CONFIG.getName(),
+          OFFSET_CONFIG.getName(),
+          "audio");
+
+  private static final Map<String, ContentType> INPUTS = Collections.emptyMap();
+
+  private static final Map<String, ContentType> OUTPUTS = newOutputs();
+
+  /** The Score Node a view reads its values from, or null. */
+  private final Node node;
+
+  /** An immutable snapshot of config(), created on first use. */
+  private Map<String, Object> configSnapshot;
+
   private String file;
 
   private Time when;
@@ -61,6 +83,7 @@ public class FileNode extends TypedNode {
   private FileNode(
       String id, LoadingPolicy loadingPolicy, String file, Time when, Time duration, Time offset) {
     super(id, PLUGIN_KIND, loadingPolicy);
+    this.node = null;
 
     this.file = file;
 
@@ -71,6 +94,11 @@ public class FileNode extends TypedNode {
     this.offset = offset;
   }
 
+  private FileNode(Node node) {
+    super(node.id(), PLUGIN_KIND, node.loadingPolicy());
+    this.node = node;
+  }
+
   /**
    * Factory method. Generates a random id for the created instance.
    *
@@ -130,6 +158,21 @@ public class FileNode extends TypedNode {
         OFFSET_CONFIG.readConfig(node));
   }
 
+  /**
+   * Creates a FileNode that reads its values from the given Score Node when they are first
+   * accessed. Invalid values are reported by the accessors instead of by this method.
+   *
+   * @param node the Score Node to read from
+   * @return a new FileNode
+   */
+  public static FileNode view(Node node) {
+    if (!PLUGIN_KIND.equals(node.kind())) {
+      throw new RuntimeException("expected plugin kind=" + PLUGIN_KIND);
+    }
+
+    return new FileNode(node);
+  }
+
   /**
    * Tells the plugin where to pull the file from, it supports both local files and HTTP based
    * files.<br>
@@ -142,6 +185,9 @@ public class FileNode extends TypedNode {
    * @return String
    */
   public String file() {
+    if (this.file == null) {
+      this.file = FILE_CONFIG.readConfig(this.node);
+    }
     return this.file;
   }
 
@@ -151,6 +197,9 @@ public class FileNode extends TypedNode {
    * @return Time
    */
   public Time when() {
+    if (this.when == null) {
+      this.when = WHEN_CONFIG.readConfig(this.node);
+    }
     return this.when;
   }
 
@@ -160,6 +209,9 @@ public class FileNode extends TypedNode {
    * @return Time
    */
   public Time duration() {
+    if (this.duration == null) {
+      this.duration = DURATION_CONFIG.readConfig(this.node);
+    }
     return this.duration;
   }
 
@@ -169,38 +221,44 @@ public class FileNode extends TypedNode {
    * @return Time
    */
   public Time offset() {
+    if (this.offset == null) {
+      this.offset = OFFSET_CONFIG.readConfig(this.node);
+    }
     return this.offset;
   }
 
+  private static Map<String, ContentType> newOutputs() {
+    final Map<String, ContentType> outputsResult = new HashMap<>();
+    outputsResult.put("audio", ContentType.AUDIO);
+    return Collections.unmodifiableMap(outputsResult);
+  }
+
   @Override
   public Map<String, List<Command>> params() {
-    final Map<String, List<Command>> paramsResult = new HashMap<>();
-
-    return paramsResult;
+    return Collections.emptyMap();
   }
 
   @Override
   public Map<String, Object> config() {
-    final Map<String, Object> configResult = new HashMap<>();
-    FILE_CONFIG.addToMap(file, configResult);
-    WHEN_CONFIG.addToMap(when, configResult);
-    DURATION_CONFIG.addToMap(duration, configResult);
-    OFFSET_CONFIG.addToMap(offset, configResult);
-    return configResult;
+    if (this.configSnapshot == null) {
+      final Map<String, Object> configResult = new HashMap<>();
+      FILE_CONFIG.addToMap(file(), configResult);
+      WHEN_CONFIG.addToMap(when(), configResult);
+      DURATION_CONFIG.addToMap(duration(), configResult);
+      OFFSET_CONFIG.addToMap(offset(), configResult);
+      this.configSnapshot = Collections.unmodifiableMap(configResult);
+    }
+    return this.configSnapshot;
   }
 
   @Override
   public Map<String, ContentType> inputs() {
-    final Map<String, ContentType> inputsResult = new HashMap<>();
-
-    return inputsResult;
+    return INPUTS;
   }
 
   @Override
   public Map<String, ContentType> outputs() {
-    final Map<String, ContentType> outputsResult = new HashMap<>();
-    outputsResult.put("audio", ContentType.AUDIO);
-    return outputsResult;
+    return OUTPUTS;
   }
 
   /**
@@ -31,6 +31,8 @@ import com.spotify.nativeformat.score.ContentType;
 import com.spotify.nativeformat.score.LoadingPolicy;
 import com.spotify.nativeformat.score.Node;
 import com.spotify.nativeformat.typed.params.AudioParam;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -50,6 +52,33 @@ public class FilterNode extends TypedNode {
   private static final ArgMapper<FilterType> FILTER_TYPE_CONFIG =
       ArgMapper.newEnumArg("filterType", FilterType.fromValue("bandPass"), FilterType.class);
 
+  /** Plugin kind, param, config, port and option names used by this node. */
+  static final List<String> VOCABULARY =
+      Arrays.asList(
+          PLUGIN_KIND,
+          LOW_CUTOFF_PARAM.getName(),
+          HIGH_CUTOFF_PARAM.getName(),
+          FILTER_TYPE_CONFIG.getName(),
+          "audio",
+          "lowPass",
+          "highPass",
+          "bandPass");
+
+  private static final Map<String, ContentType> INPUTS = newInputs();
+
+  private static final Map<String, ContentType> OUTPUTS = newOutputs();
+
+  /** The Score Node a view reads its values from, or null. */
+  private final Node node;
+
+  /** An immutable snapshot of params(), replaced when a param changes. */
+  private Map<String, List<Command>> paramsSnapshot;
+
+  private long paramsVersion;
+
+  /** An immutable snapshot of config(), created on first use. */
+  private Map<String, Object> configSnapshot;
+
   private AudioParam lowCutoff;
 
   private AudioParam highCutoff;
@@ -63,6 +92,7 @@ public class FilterNode extends TypedNode {
       AudioParam highCutoff,
       FilterType filterType) {
     super(id, PLUGIN_KIND, loadingPolicy);
+    this.node = null;
 
     this.lowCutoff = lowCutoff;
 
@@ -71,6 +101,11 @@ public class FilterNode extends TypedNode {
     this.filterType = filterType;
   }
 
+  private FilterNode(Node node) {
+    super(node.id(), PLUGIN_KIND, node.loadingPolicy());
+    this.node = node;
+  }
+
   /**
    * Factory method. Generates a random id for the created instance.
    *
@@ -128,6 +163,21 @@ public class FilterNode extends TypedNode {
         FILTER_TYPE_CONFIG.readConfig(node));
   }
 
+  /**
+   * Creates a FilterNode that reads its values from the given Score Node when they are first
+   * accessed. Invalid values are reported by the accessors instead of by this method.
+   *
+   * @param node the Score Node to read from
+   * @return a new FilterNode
+   */
+  public static FilterNode view(Node node) {
+    if (!PLUGIN_KIND.equals(node.kind())) {
+      throw new RuntimeException("expected plugin kind=" + PLUGIN_KIND);
+    }
+
+    return new FilterNode(node);
+  }
+
   /**
    * An audio parameter specifying the low cutoff frequency (Hz). Only used for high-pass and
    * band-pass filters.
@@ -135,6 +185,9 @@ public class FilterNode extends TypedNode {
    * @return AudioParam
    */
   public AudioParam lowCutoff() {
+    if (this.lowCutoff == null) {
+      this.lowCutoff = LOW_CUTOFF_PARAM.readParam(this.node);
+    }
     return this.lowCutoff;
   }
 
@@ -145,6 +198,9 @@ public class FilterNode extends TypedNode {
    * @return AudioParam
    */
   public AudioParam highCutoff() {
+    if (this.highCutoff == null) {
+      this.highCutoff = HIGH_CUTOFF_PARAM.readParam(this.node);
+    }
     return this.highCutoff;
   }
 
@@ -155,36 +211,55 @@ public class FilterNode extends TypedNode {
    * @return FilterType
    */
   public FilterType filterType() {
+    if (this.filterType == null) {
+      this.filterType = FILTER_TYPE_CONFIG.readConfig(this.node);
+    }
     return this.filterType;
   }
 
+  private static Map<String, ContentType> newInputs() {
+    final Map<String, ContentType> inputsResult = new HashMap<>();
+    inputsResult.put("audio", ContentType.AUDIO);
+    return Collections.unmodifiableMap(inputsResult);
+  }
+
+  private static Map<String, ContentType> newOutputs() {
+    final Map<String, ContentType> outputsResult = new HashMap<>();
+    outputsResult.put("audio", ContentType.AUDIO);
+    return Collections.unmodifiableMap(outputsResult);
+  }
+
   @Override
   public Map<String, List<Command>> params() {
-    final Map<String, List<Command>> paramsResult = new HashMap<>();
-    LOW_CUTOFF_PARAM.addToMap(lowCutoff, paramsResult);
-    HIGH_CUTOFF_PARAM.addToMap(highCutoff, paramsResult);
-    return paramsResult;
+    final long version = lowCutoff().getVersion() + highCutoff().getVersion();
+    if (this.paramsSnapshot == null || this.paramsVersion != version) {
+      final Map<String, List<Command>> paramsResult = new HashMap<>();
+      LOW_CUTOFF_PARAM.addToMap(lowCutoff(), paramsResult);
+      HIGH_CUTOFF_PARAM.addToMap(highCutoff(), paramsResult);
+      this.paramsSnapshot = snapshot(paramsResult);
+      this.paramsVersion = version;
+    }
+    return this.paramsSnapshot;
   }
 
   @Override
   public Map<String, Object> config() {
-    final Map<String, Object> configResult = new HashMap<>();
-    FILTER_TYPE_CONFIG.addToMap(filterType, configResult);
-    return configResult;
+    if (this.configSnapshot == null) {
+      final Map<String, Object> configResult = new HashMap<>();
+      FILTER_TYPE_CONFIG.addToMap(filterType(), configResult);
+      this.configSnapshot = Collections.unmodifiableMap(configResult);
+    }
+    return this.configSnapshot;
   }
 
   @Override
   public Map<String, ContentType> inputs() {
-    final Map<String, ContentType> inputsResult = new HashMap<>();
-    inputsResult.put("audio", ContentType.AUDIO);
-    return inputsResult;
+    return INPUTS;
   }
 
   @Override
   public Map<String, ContentType> outputs() {
-    final Map<String, ContentType> outputsResult = new HashMap<>();
-    outputsResult.put("audio", ContentType.AUDIO);
-    return outputsResult;
+    return OUTPUTS;
   }
 
   public enum FilterType {
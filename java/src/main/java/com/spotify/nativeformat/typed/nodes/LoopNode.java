@@ -28,6 +28,8 @@ import com.spotify.nativeformat.score.ContentType;
 import com.spotify.nativeformat.score.LoadingPolicy;
 import com.spotify.nativeformat.score.Node;
 import com.spotify.nativeformat.score.Time;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -45,6 +47,25 @@ public class LoopNode extends TypedNode {
 
   private static final ArgMapper<Long> LOOP_COUNT_CONFIG = ArgMapper.newIntArg("loopCount", -1L);
 
+  /** Plugin kind, param, config, port and option names used by this node. */
+  static final List<String> VOCABULARY =
+      Arrays.asList(
+          PLUGIN_KIND,
+          WHEN_CONFIG.getName(),
+          DURATION_CONFIG.getName(),
+          LOOP_COUNT_CONFIG.getName(),
+          "audio");
+
+  private static final Map<String, ContentType> INPUTS = newInputs();
+
+  private static final Map<String, ContentType> OUTPUTS = newOutputs();
+
+  /** The Score Node a view reads its values from, or null. */
+  private final Node node;
+
+  /** An immutable snapshot of config(), created on first use. */
+  private Map<String, Object> configSnapshot;
+
   private Time when;
 
   private Time duration;
@@ -54,6 +75,7 @@ public class LoopNode extends TypedNode {
   private LoopNode(
       String id, LoadingPolicy loadingPolicy, Time when, Time duration, Long loopCount) {
     super(id, PLUGIN_KIND, loadingPolicy);
+    this.node = null;
 
     this.when = when;
 
@@ -62,6 +84,11 @@ public class LoopNode extends TypedNode {
     this.loopCount = loopCount;
   }
 
+  private LoopNode(Node node) {
+    super(node.id(), PLUGIN_KIND, node.loadingPolicy());
+    this.node = node;
+  }
+
   /**
    * Factory method. Generates a random id for the created instance.
    *
@@ -119,12 +146,30 @@ public class LoopNode extends TypedNode {
         LOOP_COUNT_CONFIG.readConfig(node));
   }
 
+  /**
+   * Creates a LoopNode that reads its values from the given Score Node when they are first
+   * accessed. Invalid values are reported by the accessors instead of by this method.
+   *
+   * @param node the Score Node to read from
+   * @return a new LoopNode
+   */
+  public static LoopNode view(Node node) {
+    if (!PLUGIN_KIND.equals(node.kind())) {
+      throw new RuntimeException("expected plugin kind=" + PLUGIN_KIND);
+    }
+
+    return new LoopNode(node);
+  }
+
   /**
    * Describes when the plugin should begin looping.
    *
    * @return Time
    */
   public Time when() {
+    if (this.when == null) {
+      this.when = WHEN_CONFIG.readConfig(this.node);
+    }
     return this.when;
   }
 
@@ -134,6 +179,9 @@ public class LoopNode extends TypedNode {
    * @return Time
    */
   public Time duration() {
+    if (this.duration == null) {
+      this.duration = DURATION_CONFIG.readConfig(this.node);
+    }
     return this.duration;
   }
 
@@ -143,37 +191,49 @@ public class LoopNode extends TypedNode {
    * @return Long
    */
   public Long loopCount() {
+    if (this.loopCount == null) {
+      this.loopCount = LOOP_COUNT_CONFIG.readConfig(this.node);
+    }
     return this.loopCount;
   }
 
+  private static Map<String, ContentType> newInputs() {
+    final Map<String, ContentType> inputsResult = new HashMap<>();
+    inputsResult.put("audio", ContentType.AUDIO);
+    return Collections.unmodifiableMap(inputsResult);
+  }
+
+  private static Map<String, ContentType> newOutputs() {
+    final Map<String, ContentType> outputsResult = new HashMap<>();
+    outputsResult.put("audio", ContentType.AUDIO);
+    return Collections.unmodifiableMap(outputsResult);
+  }
+
   @Override
   public Map<String, List<Command>> params() {
-    final Map<String, List<Command>> paramsResult = new HashMap<>();
-
-    return paramsResult;
+    return Collections.emptyMap();
   }
 
   @Override
   public Map<String, Object> config() {
-    final Map<String, Object> configResult = new HashMap<>();
-    WHEN_CONFIG.addToMap(when, configResult);
-    DURATION_CONFIG.addToMap(duration, configResult);
-    LOOP_COUNT_CONFIG.addToMap(loopCount, configResult);
-    return configResult;
+    if (this.configSnapshot == null) {
+      final Map<String, Object> configResult = new HashMap<>();
+      WHEN_CONFIG.addToMap(when(), configResult);
+      DURATION_CONFIG.addToMap(duration(), configResult);
+      LOOP_COUNT_CONFIG.addToMap(loopCount(), configResult);
+      this.configSnapshot = Collections.unmodifiableMap(configResult);
+    }
+    return this.configSnapshot;
   }
 
   @Override
   public Map<String, ContentType> inputs() {
-    final Map<String, ContentType> inputsResult = new HashMap<>();
-    inputsResult.put("audio", ContentType.AUDIO);
-    return inputsResult;
+    return INPUTS;
   }
 
   @Override
   public Map<String, ContentType> outputs() {
-    final Map<String, ContentType> outputsResult = new HashMap<>();
-    outputsResult.put("audio", ContentType.AUDIO);
-    return outputsResult;
+    return OUTPUTS;
   }
 
   /**
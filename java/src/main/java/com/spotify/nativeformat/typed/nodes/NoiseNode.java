@@ -28,6 +28,8 @@ import com.spotify.nativeformat.score.ContentType;
 import com.spotify.nativeformat.score.LoadingPolicy;
 import com.spotify.nativeformat.score.Node;
 import com.spotify.nativeformat.score.Time;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -44,18 +46,42 @@ public class NoiseNode extends TypedNode {
   private static final ArgMapper<Time> DURATION_CONFIG =
       ArgMapper.newTimeArg("duration", Time.fromNanos(0));
 
+  /** Plugin kind, param, config, port and option names used by this node. */
+  static final List<String> VOCABULARY =
+      Arrays.asList(
+          PLUGIN_KIND,
+          WHEN_CONFIG.getName(),
+          DURATION_CONFIG.getName(),
+          "audio");
+
+  private static final Map<String, ContentType> INPUTS = Collections.emptyMap();
+
+  private static final Map<String, ContentType> OUTPUTS = newOutputs();
+
+  /** The Score Node a view reads its values from, or null. */
+  private final Node node;
+
+  /** An immutable snapshot of config(), created on first use. */
+  private Map<String, Object> configSnapshot;
+
   private Time when;
 
   private Time duration;
 
   private NoiseNode(String id, LoadingPolicy loadingPolicy, Time when, Time duration) {
     super(id, PLUGIN_KIND, loadingPolicy);
+    this.node = null;
 
     this.when = when;
 
     this.duration = duration;
   }
 
+  private NoiseNode(Node node) {
+    super(node.id(), PLUGIN_KIND, node.loadingPolicy());
+    this.node = node;
+  }
+
   /**
    * Factory method. Generates a random id for the created instance.
    *
@@ -111,12 +137,30 @@ public class NoiseNode extends TypedNode {
         DURATION_CONFIG.readConfig(node));
   }
 
+  /**
+   * Creates a NoiseNode that reads its values from the given Score Node when they are first
+   * accessed. Invalid values are reported by the accessors instead of by this method.
+   *
+   * @param node the Score Node to read from
+   * @return a new NoiseNode
+   */
+  public static NoiseNode view(Node node) {
+    if (!PLUGIN_KIND.equals(node.kind())) {
+      throw new RuntimeException("expected plugin kind=" + PLUGIN_KIND);
+    }
+
+    return new NoiseNode(node);
+  }
+
   /**
    * Tells the plugin when to start producing noise.
    *
    * @return Time
    */
   public Time when() {
+    if (this.when == null) {
+      this.when = WHEN_CONFIG.readConfig(this.node);
+    }
     return this.when;
   }
 
@@ -126,36 +170,42 @@ public class NoiseNode extends TypedNode {
    * @return Time
    */
   public Time duration() {
+    if (this.duration == null) {
+      this.duration = DURATION_CONFIG.readConfig(this.node);
+    }
     return this.duration;
   }
 
+  private static Map<String, ContentType> newOutputs() {
+    final Map<String, ContentType> outputsResult = new HashMap<>();
+    outputsResult.put("audio", ContentType.AUDIO);
+    return Collections.unmodifiableMap(outputsResult);
+  }
+
   @Override
   public Map<String, List<Command>> params() {
-    final Map<String, List<Command>> paramsResult = new HashMap<>();
-
-    return paramsResult;
+    return Collections.emptyMap();
   }
 
   @Override
   public Map<String, Object> config() {
-    final Map<String, Object> configResult = new HashMap<>();
-    WHEN_CONFIG.addToMap(when, configResult);
-    DURATION_CONFIG.addToMap(duration, configResult);
-    return configResult;
+    if (this.configSnapshot == null) {
+      final Map<String, Object> configResult = new HashMap<>();
+      WHEN_CONFIG.addToMap(when(), configResult);
+      DURATION_CONFIG.addToMap(duration(), configResult);
+      this.configSnapshot = Collections.unmodifiableMap(configResult);
+    }
+    return this.configSnapshot;
   }
 
   @Override
   public Map<String, ContentType> inputs() {
-    final Map<String, ContentType> inputsResult = new HashMap<>();
-
-    return inputsResult;
+    return INPUTS;
   }
 
   @Override
   public Map<String, ContentType> outputs() {
-    final Map<String, ContentType> outputsResult = new HashMap<>();
-    outputsResult.put("audio", ContentType.AUDIO);
-    return outputsResult;
+    return OUTPUTS;
   }
 
   /**
@@ -28,6 +28,8 @@ import com.spotify.nativeformat.score.ContentType;
 import com.spotify.nativeformat.score.LoadingPolicy;
 import com.spotify.nativeformat.score.Node;
 import com.spotify.nativeformat.score.Time;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -46,6 +48,25 @@ public class SineNode extends TypedNode {
   private static final ArgMapper<Time> DURATION_CONFIG =
       ArgMapper.newTimeArg("duration", Time.fromNanos(0));
 
+  /** Plugin kind, param, config, port and option names used by this node. */
+  static final List<String> VOCABULARY =
+      Arrays.asList(
+          PLUGIN_KIND,
+          FREQUENCY_CONFIG.getName(),
+          WHEN_CONFIG.getName(),
+          DURATION_CONFIG.getName(),
+          "audio");
+
+  private static final Map<String, ContentType> INPUTS = Collections.emptyMap();
+
+  private static final Map<String, ContentType> OUTPUTS = newOutputs();
+
+  /** The Score Node a view reads its values from, or null. */
+  private final Node node;
+
+  /** An immutable snapshot of config(), created on first use. */
+  private Map<String, Object> configSnapshot;
+
   private Double frequency;
 
   private Time when;
@@ -55,6 +76,7 @@ public class SineNode extends TypedNode {
   private SineNode(
       String id, LoadingPolicy loadingPolicy, Double frequency, Time when, Time duration) {
     super(id, PLUGIN_KIND, loadingPolicy);
+    this.node = null;
 
     this.frequency = frequency;
 
@@ -63,6 +85,11 @@ public class SineNode extends TypedNode {
     this.duration = duration;
   }
 
+  private SineNode(Node node) {
+    super(node.id(), PLUGIN_KIND, node.loadingPolicy());
+    this.node = node;
+  }
+
   /**
    * Factory method. Generates a random id for the created instance.
    *
@@ -120,12 +147,30 @@ public class SineNode extends TypedNode {
         DURATION_CONFIG.readConfig(node));
   }
 
+  /**
+   * Creates a SineNode that reads its values from the given Score Node when they are first
+   * accessed. Invalid values are reported by the accessors instead of by this method.
+   *
+   * @param node the Score Node to read from
+   * @return a new SineNode
+   */
+  public static SineNode view(Node node) {
+    if (!PLUGIN_KIND.equals(node.kind())) {
+      throw new RuntimeException("expected plugin kind=" + PLUGIN_KIND);
+    }
+
+    return new SineNode(node);
+  }
+
   /**
    * The frequency to generate the sine wave at.
    *
    * @return Double
    */
   public Double frequency() {
+    if (this.frequency == null) {
+      this.frequency = FREQUENCY_CONFIG.readConfig(this.node);
+    }
     return this.frequency;
   }
 
@@ -135,6 +180,9 @@ public class SineNode extends TypedNode {
    * @return Time
    */
   public Time when() {
+    if (this.when == null) {
+      this.when = WHEN_CONFIG.readConfig(this.node);
+    }
     return this.when;
   }
 
@@ -144,37 +192,43 @@ public class SineNode extends TypedNode {
    * @return Time
    */
   public Time duration() {
+    if (this.duration == null) {
+      this.duration = DURATION_CONFIG.readConfig(this.node);
+    }
     return this.duration;
   }
 
+  private static Map<String, ContentType> newOutputs() {
+    final Map<String, ContentType> outputsResult = new HashMap<>();
+    outputsResult.put("audio", ContentType.AUDIO);
+    return Collections.unmodifiableMap(outputsResult);
+  }
+
   @Override
   public Map<String, List<Command>> params() {
-    final Map<String, List<Command>> paramsResult = new HashMap<>();
-
-    return paramsResult;
+    return Collections.emptyMap();
   }
 
   @Override
   public Map<String, Object> config() {
-    final Map<String, Object> configResult = new HashMap<>();
-    FREQUENCY_CONFIG.addToMap(frequency, configResult);
-    WHEN_CONFIG.addToMap(when, configResult);
-    DURATION_CONFIG.addToMap(duration, configResult);
-    return configResult;
+    if (this.configSnapshot == null) {
+      final Map<String, Object> configResult = new HashMap<>();
+      FREQUENCY_CONFIG.addToMap(frequency(), configResult);
+      WHEN_CONFIG.addToMap(when(), configResult);
+      DURATION_CONFIG.addToMap(duration(), configResult);
+      this.configSnapshot = Collections.unmodifiableMap(configResult);
+    }
+    return this.configSnapshot;
   }
 
   @Override
   public Map<String, ContentType> inputs() {
-    final Map<String, ContentType> inputsResult = new HashMap<>();
-
-    return inputsResult;
+    return INPUTS;
   }
 
   @Override
   public Map<String, ContentType> outputs() {
-    final Map<String, ContentType> outputsResult = new HashMap<>();
-    outputsResult.put("audio", ContentType.AUDIO);
-    return outputsResult;
+    return OUTPUTS;
   }
 
   /**
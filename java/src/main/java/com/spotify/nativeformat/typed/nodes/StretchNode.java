@@ -28,6 +28,8 @@ import com.spotify.nativeformat.score.ContentType;
 import com.spotify.nativeformat.score.LoadingPolicy;
 import com.spotify.nativeformat.score.Node;
 import com.spotify.nativeformat.typed.params.AudioParam;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -47,6 +49,27 @@ public class StretchNode extends TypedNode {
   private static final ParamMapper<AudioParam> FORMANT_RATIO_PARAM =
       AudioParam.newParamMapper("formantRatio", 1D);
 
+  /** Plugin kind, param, config, port and option names used by this node. */
+  static final List<String> VOCABULARY =
+      Arrays.asList(
+          PLUGIN_KIND,
+          PITCH_RATIO_PARAM.getName(),
+          STRETCH_PARAM.getName(),
+          FORMANT_RATIO_PARAM.getName(),
+          "audio");
+
+  private static final Map<String, ContentType> INPUTS = newInputs();
+
+  private static final Map<String, ContentType> OUTPUTS = newOutputs();
+
+  /** The Score Node a view reads its values from, or null. */
+  private final Node node;
+
+  /** An immutable snapshot of params(), replaced when a param changes. */
+  private Map<String, List<Command>> paramsSnapshot;
+
+  private long paramsVersion;
+
   private AudioParam pitchRatio;
 
   private AudioParam stretch;
@@ -60,6 +83,7 @@ public class StretchNode extends TypedNode {
       AudioParam stretch,
       AudioParam formantRatio) {
     super(id, PLUGIN_KIND, loadingPolicy);
+    this.node = null;
 
     this.pitchRatio = pitchRatio;
 
@@ -68,6 +92,11 @@ public class StretchNode extends TypedNode {
     this.formantRatio = formantRatio;
   }
 
+  private StretchNode(Node node) {
+    super(node.id(), PLUGIN_KIND, node.loadingPolicy());
+    this.node = node;
+  }
+
   /**
    * Factory method. Generates a random id for the created instance.
    *
@@ -122,6 +151,21 @@ public class StretchNode extends TypedNode {
         FORMANT_RATIO_PARAM.readParam(node));
   }
 
+  /**
+   * Creates a StretchNode that reads its values from the given Score Node when they are first
+   * accessed. Invalid values are reported by the accessors instead of by this method.
+   *
+   * @param node the Score Node to read from
+   * @return a new StretchNode
+   */
+  public static StretchNode view(Node node) {
+    if (!PLUGIN_KIND.equals(node.kind())) {
+      throw new RuntimeException("expected plugin kind=" + PLUGIN_KIND);
+    }
+
+    return new StretchNode(node);
+  }
+
   /**
    * An audio parameter specifying the pitch multiplier. For example, a pitchRatio value of 2.0 will
    * double the original audio frequencies.
@@ -129,6 +173,9 @@ public class StretchNode extends TypedNode {
    * @return AudioParam
    */
   public AudioParam pitchRatio() {
+    if (this.pitchRatio == null) {
+      this.pitchRatio = PITCH_RATIO_PARAM.readParam(this.node);
+    }
     return this.pitchRatio;
   }
 
@@ -139,6 +186,9 @@ public class StretchNode extends TypedNode {
    * @return AudioParam
    */
   public AudioParam stretch() {
+    if (this.stretch == null) {
+      this.stretch = STRETCH_PARAM.readParam(this.node);
+    }
     return this.stretch;
   }
 
@@ -149,36 +199,50 @@ public class StretchNode extends TypedNode {
    * @return AudioParam
    */
   public AudioParam formantRatio() {
+    if (this.formantRatio == null) {
+      this.formantRatio = FORMANT_RATIO_PARAM.readParam(this.node);
+    }
     return this.formantRatio;
   }
 
+  private static Map<String, ContentType> newInputs() {
+    final Map<String, ContentType> inputsResult = new HashMap<>();
+    inputsResult.put("audio", ContentType.AUDIO);
+    return Collections.unmodifiableMap(inputsResult);
+  }
+
+  private static Map<String, ContentType> newOutputs() {
+    final Map<String, ContentType> outputsResult = new HashMap<>();
+    outputsResult.put("audio", ContentType.AUDIO);
+    return Collections.unmodifiableMap(outputsResult);
+  }
+
   @Override
   public Map<String, List<Command>> params() {
-    final Map<String, List<Command>> paramsResult = new HashMap<>();
-    PITCH_RATIO_PARAM.addToMap(pitchRatio, paramsResult);
-    STRETCH_PARAM.addToMap(stretch, paramsResult);
-    FORMANT_RATIO_PARAM.addToMap(formantRatio, paramsResult);
-    return paramsResult;
+    final long version = pitchRatio().getVersion() + stretch().getVersion() + formantRatio().getVersion();
+    if (this.paramsSnapshot == null || this.paramsVersion != version) {
+      final Map<String, List<Command>> paramsResult = new HashMap<>();
+      PITCH_RATIO_PARAM.addToMap(pitchRatio(), paramsResult);
+      STRETCH_PARAM.addToMap(stretch(), paramsResult);
+      FORMANT_RATIO_PARAM.addToMap(formantRatio(), paramsResult);
+      this.paramsSnapshot = snapshot(paramsResult);
+      this.paramsVersion = version;
+    }
+    return this.paramsSnapshot;
   }
 
   @Override
   public Map<String, Object> config() {
-    final Map<String, Object> configResult = new HashMap<>();
-
-    return configResult;
+    return Collections.emptyMap();
   }
 
   @Override
   public Map<String, ContentType> inputs() {
-    final Map<String, ContentType> inputsResult = new HashMap<>();
-    inputsResult.put("audio", ContentType.AUDIO);
-    return inputsResult;
+    return INPUTS;
   }
 
   @Override
   public Map<String, ContentType> outputs() {
-    final Map<String, ContentType> outputsResult = new HashMap<>();
-    outputsResult.put("audio", ContentType.AUDIO);
-    return outputsResult;
+    return OUTPUTS;
   }
 }
@@ -22,18 +22,22 @@ package com.spotify.nativeformat.typed.nodes;
 
 import static java.util.Objects.requireNonNull;
 
+import com.spotify.nativeformat.score.Command;
 import com.spotify.nativeformat.score.Edge;
+import com.spotify.nativeformat.score.IdGenerators;
 import com.spotify.nativeformat.score.Node;
 import com.spotify.nativeformat.score.LoadingPolicy;
 import com.spotify.nativeformat.score.ContentType;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.List;
 
 /**
  * Abstract class for strongly typed Nodes.
  */
-abstract class TypedNode implements Node {
+public abstract class TypedNode implements Node {
 
   private String id;
   private String kind;
@@ -48,7 +52,7 @@ abstract class TypedNode implements Node {
   }
 
   TypedNode(final String id, final String kind, final LoadingPolicy loadingPolicy) {
-    this.id = id == null ? UUID.randomUUID().toString() : id;
+    this.id = id == null ? IdGenerators.current().newId() : id;
     this.kind = requireNonNull(kind, "kind");
     this.loadingPolicy = requireNonNull(loadingPolicy, "loadingPolicy");
   }
@@ -73,6 +77,18 @@ abstract class TypedNode implements Node {
     return new HashMap<String, ContentType>();
   }
 
+  /**
+   * Returns an immutable copy of the given params, so that later changes to the params' commands
+   * do not show through it.
+   */
+  static Map<String, List<Command>> snapshot(final Map<String, List<Command>> params) {
+    final Map<String, List<Command>> snapshot = new HashMap<>();
+    for (Map.Entry<String, List<Command>> entry : params.entrySet()) {
+      snapshot.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+    }
+    return Collections.unmodifiableMap(snapshot);
+  }
+
   /**
    * Creates a new Edge with this node as the source and the given node the target.
    *
@@ -81,7 +97,7 @@ abstract class TypedNode implements Node {
    */
    @Deprecated
   public Edge connect(final Node target) {
-    return Edge.create(UUID.randomUUID().toString(), this.id(), target.id());
+    return Edge.connect(this.id(), target.id());
   }
 
   /**
@@ -102,7 +118,7 @@ abstract class TypedNode implements Node {
     if (target.inputs().isEmpty()) {
       throw new IllegalArgumentException("node=" + target.id + " cannot be a target");
     }
-    return Edge.create(UUID.randomUUID().toString(), this.id(), target.id());
+    return Edge.connect(this.id(), target.id());
   }
 
   /**
@@ -151,6 +167,6 @@ abstract class TypedNode implements Node {
                                          " target=" + targetOutputType.getFieldName());
     }
 
-    return Edge.create(UUID.randomUUID().toString(), this.id(), target.id(), sourcePort, targetPort);
+    return Edge.connect(this.id(), target.id(), sourcePort, targetPort);
   }
 }
@@ -0,0 +1,133 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+/* Generated */
+
+package com.spotify.nativeformat.typed.nodes;
+
+import com.spotify.nativeformat.score.Node;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/** The typed node factories for every plugin kind defined by the score contract. */
+public final class TypedNodes {
+
+  private static final Map<String, Function<Node, TypedNode>> FACTORIES = factories();
+
+  private static final Map<String, Function<Node, TypedNode>> VIEW_FACTORIES = viewFactories();
+
+  private TypedNodes() {}
+
+  /**
+   * Returns the <code>from</code> factory of every typed node, keyed by plugin kind.
+   *
+   * @return an unmodifiable map of plugin kinds to factories
+   */
+  public static Map<String, Function<Node, TypedNode>> getFactories() {
+    return FACTORIES;
+  }
+
+  /**
+   * Returns the <code>view</code> factory of every typed node, keyed by plugin kind.
+   *
+   * @return an unmodifiable map of plugin kinds to factories
+   */
+  public static Map<String, Function<Node, TypedNode>> getViewFactories() {
+    return VIEW_FACTORIES;
+  }
+
+  /**
+   * @param kind a plugin kind
+   * @return true if there is a typed node for the plugin kind
+   */
+  public static boolean isTyped(final String kind) {
+    return FACTORIES.containsKey(kind);
+  }
+
+  /**
+   * Creates a typed node from the given Score Node, reading all of its values.
+   *
+   * @param node the Score Node to convert from
+   * @return a new typed node
+   * @throws IllegalArgumentException if there is no typed node for the node's plugin kind
+   */
+  public static TypedNode from(final Node node) {
+    return factory(FACTORIES, node).apply(node);
+  }
+
+  /**
+   * Creates a typed node that reads its values from the given Score Node when they are first
+   * accessed.
+   *
+   * @param node the Score Node to read from
+   * @return a new typed node
+   * @throws IllegalArgumentException if there is no typed node for the node's plugin kind
+   */
+  public static TypedNode view(final Node node) {
+    return factory(VIEW_FACTORIES, node).apply(node);
+  }
+
+  private static Function<Node, TypedNode> factory(
+      final Map<String, Function<Node, TypedNode>> factories, final Node node) {
+    final Function<Node, TypedNode> factory = factories.get(node.kind());
+    if (factory == null) {
+      throw new IllegalArgumentException("unknown plugin kind=" + node.kind());
+    }
+    return factory;
+  }
+
+  private static Map<String, Function<Node, TypedNode>> factories() {
+    final Map<String, Function<Node, TypedNode>> factories = new HashMap<>();
+    factories.put(CompanderNode.PLUGIN_KIND, CompanderNode::from);
+    factories.put(CompressorNode.PLUGIN_KIND, CompressorNode::from);
+    factories.put(DelayNode.PLUGIN_KIND, DelayNode::from);
+    factories.put(Eq3bandNode.PLUGIN_KIND, Eq3bandNode::from);
+    factories.put(ExpanderNode.PLUGIN_KIND, ExpanderNode::from);
+    factories.put(FileNode.PLUGIN_KIND, FileNode::from);
+    factories.put(FilterNode.PLUGIN_KIND, FilterNode::from);
+    factories.put(GainNode.PLUGIN_KIND, GainNode::from);
+    factories.put(LoopNode.PLUGIN_KIND, LoopNode::from);
+    factories.put(NoiseNode.PLUGIN_KIND, NoiseNode::from);
+    factories.put(SilenceNode.PLUGIN_KIND, SilenceNode::from);
+    factories.put(SineNode.PLUGIN_KIND, SineNode::from);
+    factories.put(StretchNode.PLUGIN_KIND, StretchNode::from);
+    return Collections.unmodifiableMap(factories);
+  }
+
+  private static Map<String, Function<Node, TypedNode>> viewFactories() {
+    final Map<String, Function<Node, TypedNode>> factories = new HashMap<>();
+    factories.put(CompanderNode.PLUGIN_KIND, CompanderNode::view);
+    factories.put(CompressorNode.PLUGIN_KIND, CompressorNode::view);
+    factories.put(DelayNode.PLUGIN_KIND, DelayNode::view);
+    factories.put(Eq3bandNode.PLUGIN_KIND, Eq3bandNode::view);
+    factories.put(ExpanderNode.PLUGIN_KIND, ExpanderNode::view);
+    factories.put(FileNode.PLUGIN_KIND, FileNode::view);
+    factories.put(FilterNode.PLUGIN_KIND, FilterNode::view);
+    factories.put(GainNode.PLUGIN_KIND, GainNode::view);
+    factories.put(LoopNode.PLUGIN_KIND, LoopNode::view);
+    factories.put(NoiseNode.PLUGIN_KIND, NoiseNode::view);
+    factories.put(SilenceNode.PLUGIN_KIND, SilenceNode::view);
+    factories.put(SineNode.PLUGIN_KIND, SineNode::view);
+    factories.put(StretchNode.PLUGIN_KIND, StretchNode::view);
+    return Collections.unmodifiableMap(factories);
+  }
+}
@@ -0,0 +1,75 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+/* Generated */
+
+package com.spotify.nativeformat.typed.nodes;
+
+import com.spotify.nativeformat.score.Canonicalizer;
+import com.spotify.nativeformat.typed.params.AudioParam;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** The names defined by the score contract, for sharing strings between decoded Scores. */
+public final class Vocabulary {
+
+  private static final List<String> NAMES = names();
+
+  private Vocabulary() {}
+
+  /**
+   * Returns every plugin kind, param, config, port, option, command and argument name defined by
+   * the score contract.
+   *
+   * @return an unmodifiable list of names
+   */
+  public static List<String> getNames() {
+    return NAMES;
+  }
+
+  /**
+   * Returns a new Canonicalizer for the names defined by the score contract.
+   *
+   * @return a new Canonicalizer
+   */
+  public static Canonicalizer newCanonicalizer() {
+    return Canonicalizer.of(NAMES);
+  }
+
+  private static List<String> names() {
+    final List<String> names = new ArrayList<>();
+    names.addAll(CompanderNode.VOCABULARY);
+    names.addAll(CompressorNode.VOCABULARY);
+    names.addAll(DelayNode.VOCABULARY);
+    names.addAll(Eq3bandNode.VOCABULARY);
+    names.addAll(ExpanderNode.VOCABULARY);
+    names.addAll(FileNode.VOCABULARY);
+    names.addAll(FilterNode.VOCABULARY);
+    names.addAll(GainNode.VOCABULARY);
+    names.addAll(LoopNode.VOCABULARY);
+    names.addAll(NoiseNode.VOCABULARY);
+    names.addAll(SilenceNode.VOCABULARY);
+    names.addAll(SineNode.VOCABULARY);
+    names.addAll(StretchNode.VOCABULARY);
+    names.addAll(AudioParam.VOCABULARY);
+    return Collections.unmodifiableList(names);
+  }
+}
@@ -24,14 +24,33 @@ package com.spotify.nativeformat.typed.params;
 
 import com.spotify.nativeformat.schema.ParamMapper;
 import com.spotify.nativeformat.score.Command;
+import com.spotify.nativeformat.score.DoubleList;
 import com.spotify.nativeformat.score.Time;
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 /** A float value that can change over time. */
 public class AudioParam extends TypedParam<Double> {
 
+  /** Command and argument names used by this param. */
+  public static final List<String> VOCABULARY =
+      Arrays.asList(
+          "setValueAtTime",
+          "value",
+          "startTime",
+          "linearRampToValueAtTime",
+          "endTime",
+          "exponentialRampToValueAtTime",
+          "setTargetAtTime",
+          "target",
+          "timeConstant",
+          "setValueCurveAtTime",
+          "values",
+          "duration");
+
   private List<Command> commands;
 
   private AudioParam(Double initialValue, List<Command> commands) {
@@ -71,6 +90,7 @@ public class AudioParam extends TypedParam<Double> {
             .putArg("value", value)
             .putArg("startTime", startTime)
             .build());
+    modified();
     return this;
   }
   /**
@@ -87,6 +107,7 @@ public class AudioParam extends TypedParam<Double> {
             .putArg("value", value)
             .putArg("endTime", endTime)
             .build());
+    modified();
     return this;
   }
   /**
@@ -104,6 +125,7 @@ public class AudioParam extends TypedParam<Double> {
             .putArg("value", value)
             .putArg("endTime", endTime)
             .build());
+    modified();
     return this;
   }
   /**
@@ -124,6 +146,7 @@ public class AudioParam extends TypedParam<Double> {
             .putArg("startTime", startTime)
             .putArg("timeConstant", timeConstant)
             .build());
+    modified();
     return this;
   }
   /**
@@ -143,6 +166,46 @@ public class AudioParam extends TypedParam<Double> {
             .putArg("startTime", startTime)
             .putArg("duration", duration)
             .build());
+    modified();
     return this;
   }
+  /**
+   * Specifies a curve to render based on the given float values. The values are stored in a
+   * primitive array.
+   *
+   * @param values The curve values, which are copied.
+   * @param startTime The starting time.
+   * @param duration The duration of the curve.
+   * @return this AudioParam instance
+   */
+  public AudioParam setValueCurveAtTime(
+      final double[] values, final Time startTime, final Time duration) {
+    return setValueCurveAtTime(DoubleList.of(values), startTime, duration);
+  }
+  /**
+   * Specifies a curve to render based on the given float values. The values are stored in a
+   * primitive array.
+   *
+   * @param values The curve values, which are copied.
+   * @param startTime The starting time.
+   * @param duration The duration of the curve.
+   * @return this AudioParam instance
+   */
+  public AudioParam setValueCurveAtTime(
+      final float[] values, final Time startTime, final Time duration) {
+    return setValueCurveAtTime(DoubleList.of(values), startTime, duration);
+  }
+  /**
+   * Specifies a curve to render based on the given float values. The values are stored in a
+   * primitive array.
+   *
+   * @param values The curve values, which are copied from the buffer's remaining values.
+   * @param startTime The starting time.
+   * @param duration The duration of the curve.
+   * @return this AudioParam instance
+   */
+  public AudioParam setValueCurveAtTime(
+      final DoubleBuffer values, final Time startTime, final Time duration) {
+    return setValueCurveAtTime(DoubleList.of(values), startTime, duration);
+  }
 }
@@ -32,6 +32,8 @@ public abstract class TypedParam<T> {
 
   private T initialValue;
 
+  private long version;
+
   TypedParam(T initialValue) {
     this.initialValue = initialValue;
   }
@@ -41,4 +43,21 @@ public abstract class TypedParam<T> {
   }
 
   public abstract List<Command> getCommands();
+
+  /**
+   * Returns a number that changes whenever the commands of this param change, so that copies of
+   * them can be kept until then.
+   *
+   * @return the version of the commands
+   */
+  public long getVersion() {
+    return this.version;
+  }
+
+  /**
+   * Records a change to the commands of this param.
+   */
+  void modified() {
+    this.version++;
+  }
 }
@@ -0,0 +1,153 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import com.spotify.nativeformat.score.BatchConverter;
+import com.spotify.nativeformat.score.BatchStats;
+import com.spotify.nativeformat.score.Converter;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.GraphBuilder;
+import com.spotify.nativeformat.score.Score;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.UnaryOperator;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class BatchConverterTest {
+
+  private final Converter converter = Converter.getInstance();
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testConvertPreservesOrder() throws Exception {
+    final List<String> lines = scores(1000);
+    final BatchConverter batch =
+        new BatchConverter(converter, executor, 3, 7, BatchConverter.ErrorHandler.FAIL);
+
+    final List<String> output = new ArrayList<>();
+    final BatchStats stats = convert(batch, String.join("\n", lines) + "\n", output,
+        UnaryOperator.identity());
+
+    assertThat(output, is(lines));
+    assertThat(stats.read(), is(1000L));
+    assertThat(stats.written(), is(1000L));
+    assertThat(stats.failed(), is(0L));
+    assertThat(batch.stats().written(), is(1000L));
+  }
+
+  @Test
+  public void testConvertTransformsAndDrops() throws Exception {
+    final List<String> lines = scores(10);
+    final BatchConverter batch = new BatchConverter(converter);
+
+    final List<String> output = new ArrayList<>();
+    final BatchStats stats = convert(batch, "\n" + String.join("\r\n\n", lines), output,
+        score -> score.graph().id().endsWith("3") ? null : Score.create(score.graph(), "2.0"));
+
+    assertThat(output.size(), is(9));
+    assertThat(converter.fromJsonString(output.get(3)).graph().id(), is("graph-4"));
+    assertThat(converter.fromJsonString(output.get(3)).version(), is("2.0"));
+    assertThat(stats.read(), is(10L));
+    assertThat(stats.dropped(), is(1L));
+  }
+
+  @Test
+  public void testConvertSkipsFailedLines() throws Exception {
+    final List<String> lines = scores(3);
+    lines.add(1, "{\"graph\":");
+    lines.add(3, "{\"version\":\"1.0\"} {}");
+    final BatchConverter batch =
+        new BatchConverter(converter, executor, 2, 2, BatchConverter.ErrorHandler.SKIP);
+
+    final List<String> output = new ArrayList<>();
+    final BatchStats stats = convert(batch, String.join("\n", lines), output,
+        UnaryOperator.identity());
+
+    assertThat(output.size(), is(3));
+    assertThat(stats.failed(), is(2L));
+    assertThat(stats.written(), is(3L));
+  }
+
+  @Test
+  public void testConvertFailsOnFirstFailedLine() throws Exception {
+    final List<String> lines = scores(5);
+    lines.add(2, "not json");
+    final BatchConverter batch = new BatchConverter(converter);
+
+    expectedException.expect(IOException.class);
+    expectedException.expectMessage("line 3");
+    convert(batch, String.join("\n", lines), new ArrayList<>(), UnaryOperator.identity());
+  }
+
+  @Test
+  public void testBinaryConverterIsUnsupported() {
+    expectedException.expect(UnsupportedOperationException.class);
+    new BatchConverter(Converter.getBinaryInstance());
+  }
+
+  private static BatchStats convert(final BatchConverter batch,
+                                    final String input,
+                                    final List<String> output,
+                                    final UnaryOperator<Score> transform) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final BatchStats stats = batch.convert(
+        new ByteArrayInputStream(input.getBytes(Charsets.UTF_8)), out, transform);
+    for (final String line : out.toString("UTF-8").split("\n")) {
+      if (!line.isEmpty()) {
+        output.add(line);
+      }
+    }
+    return stats;
+  }
+
+  private List<String> scores(final int count) throws IOException {
+    final Score template = converter.fromJsonString(Resources.toString(
+        Resources.getResource("fixtures/kitchen-sink.json"), Charsets.UTF_8));
+    final List<String> lines = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      final Graph graph = GraphBuilder.from(template.graph()).id("graph-" + i).build();
+      lines.add(converter.toJsonString(Score.create(graph, template.version())));
+    }
+    return lines;
+  }
+}
@@ -0,0 +1,132 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import com.spotify.nativeformat.hash.ContentHasher;
+import com.spotify.nativeformat.score.Command;
+import com.spotify.nativeformat.score.Converter;
+import com.spotify.nativeformat.score.DoubleList;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.LoadingPolicy;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.NodeBuilder;
+import com.spotify.nativeformat.score.Score;
+import com.spotify.nativeformat.score.Time;
+import com.spotify.nativeformat.typed.nodes.GainNode;
+import com.spotify.nativeformat.typed.params.AudioParam;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class DoubleListTest {
+
+  private static Command curve(final GainNode node) {
+    return node.gain().getCommands().get(0);
+  }
+
+  private static Score score(final GainNode node) {
+    final Node plain = NodeBuilder.from(node).build();
+    return Score.create(Graph.builder().id("graph").nodes(Collections.singletonList(plain))
+        .build());
+  }
+
+  @Test
+  public void testEqualsBoxedLists() throws Exception {
+    final List<Double> boxed = Arrays.asList(0.0, 0.5, -1.0, Double.NaN);
+    final DoubleList list = DoubleList.of(0.0, 0.5, -1.0, Double.NaN);
+
+    assertThat(list.equals(boxed), is(true));
+    assertThat(boxed.equals(list), is(true));
+    assertThat(list.hashCode(), is(boxed.hashCode()));
+    assertThat(list.equals(DoubleList.of(new float[] {0.0f, 0.5f, -1.0f, Float.NaN})), is(true));
+    assertThat(list.equals(DoubleList.of(-0.0, 0.5, -1.0, Double.NaN)), is(false));
+  }
+
+  @Test
+  public void testSetValueCurveAtTimeOverloads() throws Exception {
+    final Time start = Time.fromSeconds(1);
+    final Time duration = Time.fromSeconds(2);
+    final List<Double> boxed = Arrays.asList(0.25, 0.5, 1.0);
+    final GainNode expected = GainNode.create("gain", LoadingPolicy.ALL_CONTENT_PLAYTHROUGH);
+    expected.gain().setValueCurveAtTime(boxed, start, duration);
+
+    final double[] doubles = {0.25, 0.5, 1.0};
+    final GainNode fromDoubles = GainNode.create("gain", LoadingPolicy.ALL_CONTENT_PLAYTHROUGH);
+    fromDoubles.gain().setValueCurveAtTime(doubles, start, duration);
+    doubles[0] = 0;
+    final GainNode fromFloats = GainNode.create("gain", LoadingPolicy.ALL_CONTENT_PLAYTHROUGH);
+    fromFloats.gain().setValueCurveAtTime(new float[] {0.25f, 0.5f, 1.0f}, start, duration);
+    final DoubleBuffer buffer = DoubleBuffer.wrap(new double[] {9, 0.25, 0.5, 1.0});
+    buffer.position(1);
+    final GainNode fromBuffer = GainNode.create("gain", LoadingPolicy.ALL_CONTENT_PLAYTHROUGH);
+    fromBuffer.gain().setValueCurveAtTime(buffer, start, duration);
+
+    assertThat(buffer.position(), is(1));
+    for (final GainNode node : Arrays.asList(fromDoubles, fromFloats, fromBuffer)) {
+      assertThat(curve(node).args().get("values"), instanceOf(DoubleList.class));
+      assertThat(curve(node), is(curve(expected)));
+      assertThat(ContentHasher.named().hash(score(node)),
+          is(ContentHasher.named().hash(score(expected))));
+      assertThat(Converter.getInstance().toJsonString(score(node)),
+          is(Converter.getInstance().toJsonString(score(expected))));
+    }
+  }
+
+  @Test
+  public void testDecodesArraysOfDoubles() throws Exception {
+    final GainNode node = GainNode.create("gain", LoadingPolicy.ALL_CONTENT_PLAYTHROUGH);
+    node.gain().setValueCurveAtTime(new double[] {0.25, 0.5, 1.0}, Time.fromSeconds(1),
+        Time.fromSeconds(2));
+    final Converter converter = Converter.getInstance();
+
+    for (final Score decoded : Arrays.asList(
+        converter.fromJsonString(converter.toJsonString(score(node))),
+        Converter.getBinaryInstance().fromBytes(
+            Converter.getBinaryInstance().toBytes(score(node))))) {
+      final Command command = decoded.graph().nodes().get(0).params().get("gain").get(0);
+      assertThat(command.args().get("values"), instanceOf(DoubleList.class));
+      assertThat(command.args().get("values"), is(curve(node).args().get("values")));
+      assertThat(AudioParam.newParamMapper("gain", 1.0).readParam(decoded.graph().nodes().get(0))
+          .getCommands().get(0), is(command));
+    }
+  }
+
+  @Test
+  public void testKeepsOtherArraysBoxed() throws Exception {
+    final Score score = Converter.getInstance().fromJsonString(
+        "{\"graph\":{\"id\":\"graph\",\"nodes\":[{\"id\":\"gain\",\"kind\":\""
+        + GainNode.PLUGIN_KIND + "\",\"params\":{\"gain\":[{\"name\":\"setValueCurveAtTime\","
+        + "\"args\":{\"values\":[0.5,1,0.25],\"startTime\":0,\"duration\":1000}}]}}]},"
+        + "\"version\":\"1.0.0\"}");
+    final Object values = score.graph().nodes().get(0).params().get("gain").get(0).args()
+        .get("values");
+
+    assertThat(values, not(instanceOf(DoubleList.class)));
+    assertThat(((List<?>) values).get(1), is((Object) 1));
+  }
+}
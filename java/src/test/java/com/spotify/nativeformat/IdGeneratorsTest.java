@@ -0,0 +1,113 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.spotify.nativeformat.score.Edge;
+import com.spotify.nativeformat.score.IdGenerator;
+import com.spotify.nativeformat.score.IdGenerators;
+import com.spotify.nativeformat.score.LoadingPolicy;
+import com.spotify.nativeformat.typed.nodes.GainNode;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.Test;
+
+public class IdGeneratorsTest {
+
+  @Test
+  @SuppressWarnings("try")
+  public void testScopedSequence() throws Exception {
+    final IdGenerator generator = IdGenerators.sequence("drums-");
+    try (IdGenerators.Scope ignored = IdGenerators.using(generator)) {
+      assertThat(IdGenerators.current(), sameInstance(generator));
+      final GainNode first = GainNode.create();
+      final GainNode second = GainNode.create(LoadingPolicy.ALL_CONTENT_PLAYTHROUGH);
+      final Edge edge = first.connectToTarget(second);
+
+      assertThat(first.id(), is("drums-0"));
+      assertThat(second.id(), is("drums-1"));
+      assertThat(edge.id(), is("drums-2"));
+    }
+    assertThat(IdGenerators.current(), sameInstance(IdGenerators.getDefault()));
+  }
+
+  @Test
+  @SuppressWarnings("try")
+  public void testNestedScopes() throws Exception {
+    final IdGenerator outer = IdGenerators.sequence("outer-");
+    try (IdGenerators.Scope ignored = IdGenerators.using(outer)) {
+      try (IdGenerators.Scope ignoredInner = IdGenerators.using(IdGenerators.sequence("inner-"))) {
+        assertThat(GainNode.create().id(), is("inner-0"));
+      }
+      assertThat(GainNode.create().id(), is("outer-0"));
+    }
+  }
+
+  @Test
+  public void testThreadLocalRandom() throws Exception {
+    final IdGenerator generator = IdGenerators.threadLocalRandom();
+    final Set<String> ids = new HashSet<>();
+    for (int i = 0; i < 1000; i++) {
+      final String id = generator.newId();
+      assertThat(UUID.fromString(id).version(), is(4));
+      assertThat(UUID.fromString(id).toString(), is(id));
+      ids.add(id);
+    }
+    assertThat(ids.size(), is(1000));
+  }
+
+  @Test
+  public void testHashedIdsAreDeterministic() throws Exception {
+    final IdGenerator first = IdGenerators.hashed("seed");
+    final IdGenerator second = IdGenerators.hashed("seed");
+    final IdGenerator other = IdGenerators.hashed("other");
+
+    final String id = first.newId();
+    assertThat(second.newId(), is(id));
+    assertThat(other.newId(), is(not(id)));
+    assertThat(first.newId(), is(not(id)));
+    assertThat(UUID.fromString(id).version(), is(4));
+
+    final String edgeId = first.newEdgeId("a", "b", null, null);
+    assertThat(second.newEdgeId("a", "b", null, null), is(edgeId));
+    final String parallelId = first.newEdgeId("a", "b", null, null);
+    assertThat(parallelId, is(not(edgeId)));
+    assertThat(second.newEdgeId("a", "b", null, null), is(parallelId));
+    assertThat(first.newEdgeId("ab", "", null, null), is(not(edgeId)));
+    assertThat(first.newEdgeId("a", "b", "audio", "audio"), is(not(edgeId)));
+    assertThat(first.newEdgeId("b", "a", null, null), is(not(edgeId)));
+  }
+
+  @Test
+  @SuppressWarnings("try")
+  public void testEdgeConnect() throws Exception {
+    try (IdGenerators.Scope ignored = IdGenerators.using(IdGenerators.hashed("seed"))) {
+      final Edge edge = Edge.connect("a", "b", "out", "in");
+      assertThat(edge, is(Edge.create(
+          IdGenerators.hashed("seed").newEdgeId("a", "b", "out", "in"), "a", "b", "out", "in")));
+    }
+  }
+}
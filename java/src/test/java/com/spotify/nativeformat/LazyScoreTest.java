@@ -0,0 +1,72 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.spotify.nativeformat.score.Canonicalizer;
+import com.spotify.nativeformat.score.Converter;
+import com.spotify.nativeformat.score.DoubleList;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.Score;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class LazyScoreTest {
+
+  private static final String SCORE = "{\"graph\":{\"id\":\"graph\",\"nodes\":[{\"id\":\"a\","
+      + "\"kind\":\"com.nativeformat.plugin.file.file\",\"loadingPolicy\":\"%s\","
+      + "\"config\":{\"file\":\"spotify:track:1\",\"curve\":[0.25,0.5,1.0]}}]},\"version\":\"1\"}";
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private static byte[] score(final String loadingPolicy) {
+    return String.format(SCORE, loadingPolicy).getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testConfigIsDecodedByScoreModule() throws Exception {
+    final Converter converter = Converter.newCanonicalizingInstance(
+        Canonicalizer.of(Collections.singleton("spotify:track:1")));
+    final byte[] json = score("allContentPlaythrough");
+    final Node lazy = converter.readLazyScore(json).graph().nodes().get(0);
+    final Node eager = converter.fromBytes(json).graph().nodes().get(0);
+
+    assertThat(lazy.config(), is(eager.config()));
+    assertThat(lazy.config().get("curve"), instanceOf(DoubleList.class));
+    assertThat(lazy.config().get("file"), sameInstance(eager.config().get("file")));
+  }
+
+  @Test
+  public void testUnknownLoadingPolicyIsMappingException() throws Exception {
+    expectedException.expect(InvalidFormatException.class);
+
+    Converter.getInstance().readLazyScore(score("sometimes"));
+  }
+}
@@ -25,12 +25,19 @@ import static org.junit.Assert.assertThat;
 import static org.junit.runners.Parameterized.Parameter;
 
 import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Charsets;
 import com.google.common.io.Files;
 import com.spotify.nativeformat.score.Converter;
 import com.spotify.nativeformat.score.Score;
+import com.spotify.nativeformat.typed.nodes.Vocabulary;
+import io.norberg.automatter.jackson.AutoMatterModule;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -82,4 +89,109 @@ public class ScoresFixtureTest {
     assertThat(SchemaValidation.isScoreSchemaCompliant(output), is(true));
   }
 
+  @Test
+  public void testFixtureMatchesAnnotationBinding() throws Exception {
+    if (this.resource.getName().startsWith("invalid")) {
+      expectedException.expect(JsonMappingException.class);
+    }
+
+    final String json = Files.toString(this.resource, Charsets.UTF_8);
+    final ObjectMapper reflective = new ObjectMapper().registerModule(new AutoMatterModule());
+    final Converter converter = Converter.getInstance();
+    final Score score = converter.fromJsonString(json);
+
+    assertThat(score, is(reflective.readValue(json, Score.class)));
+    assertThat(
+        reflective.readTree(converter.toJsonString(score)),
+        is(reflective.readTree(reflective.writeValueAsString(score))));
+  }
+
+  @Test
+  public void testFixtureStreaming() throws Exception {
+    if (this.resource.getName().startsWith("invalid")) {
+      expectedException.expect(JsonMappingException.class);
+    }
+
+    final byte[] bytes = Files.toByteArray(this.resource);
+    final Converter converter = Converter.getInstance();
+    final Score score = converter.readScore(new ByteArrayInputStream(bytes));
+
+    final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+    direct.put(bytes).flip();
+    assertThat(converter.readScore(direct), is(score));
+    assertThat(converter.readScore(ByteBuffer.wrap(bytes)), is(score));
+
+    for (final ByteBuffer concatenated : Arrays.asList(
+        ByteBuffer.allocate(2 * bytes.length + 2).put((byte) ' ').slice(),
+        ByteBuffer.allocateDirect(2 * bytes.length + 1))) {
+      concatenated.put(bytes).put((byte) '\n').put(bytes).flip();
+      assertThat(converter.readScore(concatenated), is(score));
+      assertThat(converter.readScore(concatenated), is(score));
+    }
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    converter.writeScore(score, out);
+    assertThat(out.toString("UTF-8"), is(converter.toJsonString(score)));
+
+    final ByteArrayOutputStream channelOut = new ByteArrayOutputStream();
+    converter.writeScore(score, Channels.newChannel(channelOut));
+    assertThat(channelOut.toString("UTF-8"), is(converter.toJsonString(score)));
+  }
+
+  @Test
+  public void testFixtureLazy() throws Exception {
+    if (this.resource.getName().startsWith("invalid")) {
+      expectedException.expect(JsonMappingException.class);
+    }
+
+    final byte[] bytes = Files.toByteArray(this.resource);
+    final Converter converter = Converter.getInstance();
+    final Score lazy = converter.readLazyScore(bytes);
+    final Score score = converter.fromBytes(bytes);
+
+    final ObjectMapper mapper = converter.getObjectMapper();
+    assertThat(lazy, is(score));
+    assertThat(
+        mapper.readTree(converter.toJsonString(lazy)),
+        is(mapper.readTree(converter.toJsonString(score))));
+  }
+
+  @Test
+  public void testFixtureCanonicalized() throws Exception {
+    if (this.resource.getName().startsWith("invalid")) {
+      expectedException.expect(JsonMappingException.class);
+    }
+
+    final String json = Files.toString(this.resource, Charsets.UTF_8);
+    final Converter converter = Converter.getInstance();
+    final Converter canonicalizing =
+        Converter.newCanonicalizingInstance(Vocabulary.newCanonicalizer());
+    final Score expected = converter.fromJsonString(json);
+    final Score score = canonicalizing.fromJsonString(json);
+
+    assertThat(score, is(expected));
+    assertThat(canonicalizing.fromJsonString(json), is(score));
+    assertThat(converter.toJsonString(score), is(converter.toJsonString(expected)));
+  }
+
+  @Test
+  public void testFixtureBinary() throws Exception {
+    if (this.resource.getName().startsWith("invalid")) {
+      expectedException.expect(JsonMappingException.class);
+    }
+
+    final String json = Files.toString(this.resource, Charsets.UTF_8);
+    final Converter converter = Converter.getInstance();
+    final Converter binaryConverter = Converter.getBinaryInstance();
+    final Score score = converter.fromJsonString(json);
+
+    final byte[] bytes = binaryConverter.toBytes(score);
+    final Score decoded = binaryConverter.fromBytes(bytes);
+    assertThat(decoded, is(score));
+
+    final String output = converter.toJsonString(decoded);
+    assertThat(output, is(converter.toJsonString(score)));
+    assertThat(SchemaValidation.isScoreSchemaCompliant(output), is(true));
+  }
+
 }
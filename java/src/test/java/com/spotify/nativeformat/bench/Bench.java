@@ -0,0 +1,139 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.bench;
+
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A minimal timing loop for the benchmarks in this package.
+ *
+ * <p>The benchmarks are plain <code>main</code> methods in the test scope, so they are compiled
+ * with the tests but never run by them. Run one with
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) \
+ *     com.spotify.nativeformat.bench.ScoreDiffBenchmark
+ * </pre>
+ *
+ * <p>Each measurement is preceded by a warmup of the same length, and the result of every call is
+ * kept so that the JIT cannot drop the work.
+ */
+final class Bench {
+
+  private static final long WARMUP_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private static final long MEASURE_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+  private static volatile Object sink;
+
+  private Bench() {}
+
+  /**
+   * Times an operation and prints the mean time per call.
+   *
+   * @param name the name to print
+   * @param op the operation to time
+   * @return the mean time per call, in nanoseconds
+   */
+  static double run(final String name, final Supplier<?> op) {
+    loop(op, WARMUP_NANOS);
+    final double nanos = loop(op, MEASURE_NANOS);
+    System.out.printf("%-48s %12.1f ns/op%n", name, nanos);
+    return nanos;
+  }
+
+  /**
+   * Times a fixed number of calls after a single warmup call, for operations that take too long
+   * for {@link #run(String, Supplier)}.
+   *
+   * @param name the name to print
+   * @param calls the number of calls to time
+   * @param op the operation to time
+   * @return the mean time per call, in nanoseconds
+   */
+  static double run(final String name, final int calls, final Supplier<?> op) {
+    sink = op.get();
+    final long start = System.nanoTime();
+    for (int i = 0; i < calls; i++) {
+      sink = op.get();
+    }
+    final double nanos = (double) (System.nanoTime() - start) / calls;
+    System.out.printf("%-48s %12.1f ns/op%n", name, nanos);
+    return nanos;
+  }
+
+  /**
+   * Times an operation called from several threads at once and prints the mean time per call
+   * across all threads, so that contention shows up as a time that does not shrink with more
+   * threads.
+   *
+   * @param name the name to print
+   * @param threads the number of threads calling the operation
+   * @param op the operation to time
+   * @return the mean time per call, in nanoseconds of wall-clock time
+   */
+  static double runConcurrently(final String name, final int threads, final Supplier<?> op)
+      throws InterruptedException {
+    final double[] perThread = new double[threads];
+    final CyclicBarrier barrier = new CyclicBarrier(threads);
+    final Thread[] workers = new Thread[threads];
+    for (int t = 0; t < threads; t++) {
+      final int index = t;
+      workers[t] = new Thread(() -> {
+        try {
+          barrier.await();
+          loop(op, WARMUP_NANOS);
+          barrier.await();
+          perThread[index] = loop(op, MEASURE_NANOS);
+        } catch (InterruptedException | BrokenBarrierException e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      workers[t].start();
+    }
+    double callsPerNano = 0;
+    for (int t = 0; t < threads; t++) {
+      workers[t].join();
+      callsPerNano += 1 / perThread[t];
+    }
+    final double nanos = 1 / callsPerNano;
+    System.out.printf("%-48s %12.1f ns/op%n", name + " x" + threads, nanos);
+    return nanos;
+  }
+
+  private static double loop(final Supplier<?> op, final long duration) {
+    long calls = 0;
+    final long start = System.nanoTime();
+    long elapsed;
+    do {
+      for (int i = 0; i < 16; i++) {
+        sink = op.get();
+      }
+      calls += 16;
+      elapsed = System.nanoTime() - start;
+    } while (elapsed < duration);
+    return (double) elapsed / calls;
+  }
+}
@@ -0,0 +1,220 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+package com.spotify.nativeformat.bench;
+
+import com.google.common.io.Resources;
+import com.spotify.nativeformat.score.Converter;
+import com.spotify.nativeformat.score.Edge;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.NodeBuilder;
+import com.spotify.nativeformat.score.Score;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the streaming read and write paths of Converter with the String paths, on the
+ * kitchen-sink fixture scaled up to 100k nodes.
+ *
+ * <p>The String read path decodes the file into a String for <code>fromJsonString</code>. The
+ * streaming read paths use an InputStream and a memory-mapped ByteBuffer. The String write path
+ * encodes the result of <code>toJsonString</code>. The streaming write paths use an OutputStream
+ * and a FileChannel.
+ *
+ * <p>Throughput is measured in this JVM. Peak heap is the smallest <code>-Xmx</code> with which a
+ * fresh JVM using the serial collector completes the operation once, found by bisection. It
+ * includes the Score itself, which the write paths read through an InputStream first.
+ *
+ * <p>Run with a heap large enough for the String paths, for example <code>-Xmx4g</code>.
+ */
+public final class ConverterBenchmark {
+
+  private static final int NODES = 100_000;
+
+  private static final int CALLS = 3;
+
+  private static final int HEAP_STEP_MB = 8;
+
+  private enum Operation {
+    READ_STRING("fromJsonString(String)"),
+    READ_STREAM("readScore(InputStream)"),
+    READ_BUFFER("readScore(mapped ByteBuffer)"),
+    WRITE_STRING("toJsonString"),
+    WRITE_STREAM("writeScore(OutputStream)"),
+    WRITE_CHANNEL("writeScore(FileChannel)");
+
+    private final String label;
+
+    Operation(final String label) {
+      this.label = label;
+    }
+
+    boolean writes() {
+      return name().startsWith("WRITE");
+    }
+  }
+
+  private ConverterBenchmark() {}
+
+  public static void main(final String[] args) throws Exception {
+    if (args.length == 3) {
+      final Operation operation = Operation.valueOf(args[0]);
+      final Path in = new File(args[1]).toPath();
+      final Score score = operation.writes() ? run(Operation.READ_STREAM, in, null, null) : null;
+      run(operation, in, new File(args[2]).toPath(), score);
+      return;
+    }
+
+    final Path in = Files.createTempFile("converter-benchmark", ".json");
+    final Path out = Files.createTempFile("converter-benchmark", ".out.json");
+    try {
+      final Score score = scale(Converter.getInstance().fromBytes(
+          Resources.toByteArray(Resources.getResource("fixtures/kitchen-sink.json"))), NODES);
+      try (OutputStream stream = Files.newOutputStream(in)) {
+        Converter.getInstance().writeScore(score, stream);
+      }
+      final long size = Files.size(in);
+      System.out.printf("%d nodes, %.1f MB%n", score.graph().nodes().size(), size / 1e6);
+
+      for (final Operation operation : Operation.values()) {
+        final double nanos = Bench.run(operation.label, CALLS, () -> {
+          try {
+            return run(operation, in, out, score);
+          } catch (Exception e) {
+            throw new IllegalStateException(e);
+          }
+        });
+        System.out.printf("  %.1f MB/s, peak heap %d MB%n",
+            size / 1e6 / (nanos / 1e9), minimumHeap(operation, in, out));
+      }
+    } finally {
+      Files.deleteIfExists(in);
+      Files.deleteIfExists(out);
+    }
+  }
+
+  private static Score run(final Operation operation,
+                           final Path in,
+                           final Path out,
+                           final Score score) throws Exception {
+    final Converter converter = Converter.getInstance();
+    switch (operation) {
+      case READ_STRING:
+        return converter.fromJsonString(new String(Files.readAllBytes(in), StandardCharsets.UTF_8));
+      case READ_STREAM:
+        try (InputStream stream = Files.newInputStream(in)) {
+          return converter.readScore(stream);
+        }
+      case READ_BUFFER:
+        try (FileChannel channel = FileChannel.open(in)) {
+          return converter.readScore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+      case WRITE_STRING:
+        Files.write(out, converter.toJsonString(score).getBytes(StandardCharsets.UTF_8));
+        return score;
+      case WRITE_STREAM:
+        try (OutputStream stream = Files.newOutputStream(out)) {
+          converter.writeScore(score, stream);
+        }
+        return score;
+      case WRITE_CHANNEL:
+        try (FileChannel channel = FileChannel.open(out, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+          converter.writeScore(score, channel);
+        }
+        return score;
+      default:
+        throw new IllegalArgumentException(operation.name());
+    }
+  }
+
+  /**
+   * Returns the smallest heap, in megabytes, with which a fresh JVM completes the operation.
+   */
+  private static long minimumHeap(final Operation operation, final Path in, final Path out)
+      throws Exception {
+    long low = 0;
+    long high = Runtime.getRuntime().maxMemory() >> 20;
+    if (!completes(operation, in, out, high)) {
+      return -1;
+    }
+    while (high - low > HEAP_STEP_MB) {
+      final long mid = (low + high) / 2;
+      if (completes(operation, in, out, mid)) {
+        high = mid;
+      } else {
+        low = mid;
+      }
+    }
+    return high;
+  }
+
+  private static boolean completes(final Operation operation,
+                                   final Path in,
+                                   final Path out,
+                                   final long heapMegabytes) throws Exception {
+    final Process process = new ProcessBuilder(
+        new File(System.getProperty("java.home"), "bin/java").getPath(),
+        "-Xmx" + heapMegabytes + "m",
+        "-XX:+UseSerialGC",
+        "-cp", System.getProperty("java.class.path"),
+        ConverterBenchmark.class.getName(),
+        operation.name(), in.toString(), out.toString())
+        .redirectErrorStream(true)
+        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+        .start();
+    return process.waitFor() == 0;
+  }
+
+  /**
+   * Returns a Score with copies of the graph's nodes and edges, with the copy number appended to
+   * their ids, until it has at least the given number of nodes.
+   */
+  private static Score scale(final Score score, final int nodes) {
+    final Graph graph = score.graph();
+    final List<Node> scaledNodes = new ArrayList<>(nodes + graph.nodes().size());
+    final List<Edge> scaledEdges = new ArrayList<>();
+    for (int copy = 0; scaledNodes.size() < nodes; copy++) {
+      final String suffix = "-" + copy;
+      for (final Node node : graph.nodes()) {
+        scaledNodes.add(NodeBuilder.from(node).id(node.id() + suffix).build());
+      }
+      for (final Edge edge : graph.edges()) {
+        scaledEdges.add(Edge.create(edge.id() + suffix, edge.source() + suffix,
+            edge.target() + suffix, edge.sourcePort(), edge.targetPort()));
+      }
+    }
+    return Score.create(Graph.builder()
+        .id(graph.id())
+        .loadingPolicy(graph.loadingPolicy())
+        .nodes(scaledNodes)
+        .edges(scaledEdges)
+        .scripts(graph.scripts())
+        .build(), score.version());
+  }
+}
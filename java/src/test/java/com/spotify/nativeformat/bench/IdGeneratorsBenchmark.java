@@ -0,0 +1,59 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.bench;
+
+import com.spotify.nativeformat.score.IdGenerator;
+import com.spotify.nativeformat.score.IdGenerators;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Times the built-in IdGenerators from 1, 2, 4 and 8 threads at once.
+ *
+ * <p>{@link IdGenerators#secureRandom()} shares one SecureRandom and
+ * {@link IdGenerators#sequence(String)} one counter, so their time per id stops shrinking as
+ * threads are added once those contend; {@link IdGenerators#threadLocalRandom()} shares nothing.
+ * Pass thread counts as arguments to override the defaults.
+ */
+public final class IdGeneratorsBenchmark {
+
+  private IdGeneratorsBenchmark() {}
+
+  public static void main(final String[] args) throws Exception {
+    final int[] threadCounts = args.length == 0 ? new int[] {1, 2, 4, 8} : new int[args.length];
+    for (int i = 0; i < args.length; i++) {
+      threadCounts[i] = Integer.parseInt(args[i]);
+    }
+
+    final Map<String, IdGenerator> generators = new LinkedHashMap<>();
+    generators.put("secureRandom", IdGenerators.secureRandom());
+    generators.put("threadLocalRandom", IdGenerators.threadLocalRandom());
+    generators.put("sequence", IdGenerators.sequence("id-"));
+    generators.put("hashed", IdGenerators.hashed("seed"));
+
+    System.out.println("available processors: " + Runtime.getRuntime().availableProcessors());
+    for (final Map.Entry<String, IdGenerator> generator : generators.entrySet()) {
+      for (final int threads : threadCounts) {
+        Bench.runConcurrently(generator.getKey(), threads, generator.getValue()::newId);
+      }
+    }
+  }
+}
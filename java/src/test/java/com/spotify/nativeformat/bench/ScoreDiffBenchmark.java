@@ -0,0 +1,93 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.bench;
+
+import com.spotify.nativeformat.diff.ScoreDiff;
+import com.spotify.nativeformat.diff.ScorePatch;
+import com.spotify.nativeformat.graph.PersistentGraph;
+import com.spotify.nativeformat.score.Command;
+import com.spotify.nativeformat.score.Edge;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.GraphBuilder;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.Score;
+import java.util.Arrays;
+
+/**
+ * Times diffing and applying a one-command change to Scores of growing size.
+ *
+ * <p>Diffing takes time linear in the size of the Score, so its time per node should stay roughly
+ * constant as the Score grows. The base is a PersistentGraph, as it is for any Score returned by
+ * apply, so applying the patch takes O(log n) time and its time per patch should barely grow.
+ */
+public final class ScoreDiffBenchmark {
+
+  private ScoreDiffBenchmark() {}
+
+  public static void main(final String[] args) {
+    for (final int size : new int[] {100, 1_000, 10_000, 100_000}) {
+      final Score base = Score.create(PersistentGraph.of(score(size, 0.5).graph()));
+      final Score target = nudge(base, size / 2);
+      final ScorePatch patch = ScoreDiff.diff(base, target);
+
+      final double diff =
+          Bench.run("diff " + size + " nodes", () -> ScoreDiff.diff(base, target));
+      final double apply =
+          Bench.run("apply " + size + " nodes", () -> ScoreDiff.apply(base, patch));
+      System.out.printf("  diff %.1f ns/node, apply %.0f ns/patch%n", diff / size, apply);
+    }
+  }
+
+  private static Score score(final int size, final double value) {
+    final GraphBuilder graph = Graph.builder().id("graph");
+    for (int i = 0; i < size; i++) {
+      graph.addNode(gain("gain-" + i, value));
+      if (i > 0) {
+        graph.addEdge(Edge.create("edge-" + i, "gain-" + (i - 1), "gain-" + i));
+      }
+    }
+    return Score.create(graph.build());
+  }
+
+  private static Score nudge(final Score score, final int index) {
+    final GraphBuilder graph = Graph.builder().id(score.graph().id())
+        .nodes(score.graph().nodes())
+        .edges(score.graph().edges());
+    graph.nodes().set(index, gain("gain-" + index, 0.6));
+    return Score.create(graph.build());
+  }
+
+  private static Node gain(final String id, final double value) {
+    return Node.builder()
+        .id(id)
+        .kind("com.nativeformat.plugin.waa.gain")
+        .params("gain", Arrays.asList(ramp(0.0, 0), ramp(value, 1000), ramp(1.0, 2000)))
+        .build();
+  }
+
+  private static Command ramp(final double value, final int endTime) {
+    return Command.builder()
+        .name("linearRampToValueAtTime")
+        .putArg("value", value)
+        .putArg("endTime", endTime)
+        .build();
+  }
+}
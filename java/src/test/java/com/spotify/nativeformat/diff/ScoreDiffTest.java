@@ -0,0 +1,274 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.diff;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import com.spotify.nativeformat.graph.PersistentGraph;
+import com.spotify.nativeformat.score.Command;
+import com.spotify.nativeformat.score.Converter;
+import com.spotify.nativeformat.score.Edge;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.LoadingPolicy;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.Score;
+import com.spotify.nativeformat.score.Script;
+import com.spotify.nativeformat.score.Time;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class ScoreDiffTest {
+
+  @Test
+  public void testNudgedRampProducesSingleCommandEdit() throws Exception {
+    final Score base = score(
+        gain("a", ramp(0.0, 0), ramp(0.5, 1000), ramp(1.0, 2000)),
+        gain("b", ramp(1.0, 0)));
+    final Score target = score(
+        gain("a", ramp(0.0, 0), ramp(0.6, 1000), ramp(1.0, 2000)),
+        gain("b", ramp(1.0, 0)));
+
+    final ScorePatch patch = ScoreDiff.diff(base, target);
+
+    assertThat(patch.changedNodes().size(), is(1));
+    final ParamEdit edit = patch.changedNodes().get(0).paramEdits().get(0);
+    assertThat(edit, is(ParamEdit.create("gain", 1, 1,
+        Collections.singletonList(ramp(0.6, 1000)))));
+    assertThat(ScoreDiff.apply(base, patch), is(target));
+  }
+
+  @Test
+  public void testIdenticalScoresProduceEmptyPatch() throws Exception {
+    final Score score = fixture("kitchen-sink.json");
+    final ScorePatch patch = ScoreDiff.diff(score, fixture("kitchen-sink.json"));
+
+    assertThat(patch.isEmpty(), is(true));
+    assertThat(ScoreDiff.apply(score, patch), is(score));
+  }
+
+  @Test
+  public void testAddRemoveReplaceAndReorder() throws Exception {
+    final Score base = score(
+        gain("a", ramp(0.0, 0)),
+        gain("b", ramp(1.0, 0)),
+        gain("c", ramp(1.0, 0)));
+    final Node replacement = Node.builder()
+        .id("b")
+        .kind("com.nativeformat.plugin.waa.delay")
+        .config("when", 0)
+        .build();
+    final Score target = score(
+        gain("c", ramp(1.0, 0)),
+        replacement,
+        gain("d", ramp(1.0, 0)));
+
+    final ScorePatch patch = ScoreDiff.diff(base, target);
+
+    assertThat(patch.removedNodes(), is(Collections.singletonList("a")));
+    assertThat(patch.addedNodes(), is(Arrays.asList(replacement, target.graph().nodes().get(2))));
+    assertThat(patch.nodeOrder(), is(Arrays.asList("c", "b", "d")));
+    assertThat(ScoreDiff.apply(base, patch), is(target));
+  }
+
+  @Test
+  public void testConfigAndParamChanges() throws Exception {
+    final Node before = Node.builder()
+        .id("a")
+        .kind("com.nativeformat.plugin.file.file")
+        .config("file", "spotify:track:1", "when", 0, "duration", 10)
+        .params("gain", Collections.singletonList(ramp(1.0, 0)))
+        .build();
+    final Node after = Node.builder()
+        .id("a")
+        .kind("com.nativeformat.plugin.file.file")
+        .loadingPolicy(LoadingPolicy.SOME_CONTENT_PLAYTHROUGH)
+        .config("file", "spotify:track:2", "when", 0)
+        .params("pitch", Collections.singletonList(ramp(2.0, 0)))
+        .build();
+
+    final ScorePatch patch = ScoreDiff.diff(score(before), score(after));
+    final NodePatch nodePatch = patch.changedNodes().get(0);
+
+    assertThat(nodePatch.setConfig().keySet(), is(Collections.singleton("file")));
+    assertThat(nodePatch.removedConfig(), is(Collections.singletonList("duration")));
+    assertThat(nodePatch.removedParams(), is(Collections.singletonList("gain")));
+    assertThat(ScoreDiff.apply(score(before), patch), is(score(after)));
+  }
+
+  @Test
+  public void testDuplicateIdsReplaceWholeList() throws Exception {
+    final Score base = score(gain("a"), gain("a", ramp(1.0, 0)), gain("b"));
+    final Score target = score(gain("a"), gain("a", ramp(0.5, 0)), gain("b"));
+
+    final ScorePatch patch = ScoreDiff.diff(base, target);
+
+    assertThat(patch.removedNodes(), is(Arrays.asList("a", "b")));
+    assertThat(patch.addedNodes(), is(target.graph().nodes()));
+    assertThat(ScoreDiff.apply(base, patch), is(target));
+  }
+
+  @Test
+  public void testEdgeChanges() throws Exception {
+    final Score base = Score.create(Graph.builder()
+        .id("graph")
+        .addNode(gain("a"))
+        .addNode(gain("b"))
+        .addEdge(Edge.create("e1", "a", "b"))
+        .addEdge(Edge.create("e2", "b", "a"))
+        .build());
+    final Score target = Score.create(Graph.builder()
+        .id("graph")
+        .addNode(gain("a"))
+        .addNode(gain("b"))
+        .addEdge(Edge.create("e1", "a", "b", "audio", "audio"))
+        .addEdge(Edge.create("e3", "a", "b"))
+        .build());
+
+    final ScorePatch patch = ScoreDiff.diff(base, target);
+
+    assertThat(patch.removedEdges(), is(Collections.singletonList("e2")));
+    assertThat(patch.addedEdges(), is(target.graph().edges()));
+    assertThat(patch.edgeOrder().isEmpty(), is(true));
+    assertThat(ScoreDiff.apply(base, patch), is(target));
+  }
+
+  @Test
+  public void testApplyEditsPersistentGraph() throws Exception {
+    final Score base = Score.create(Graph.builder()
+        .id("graph")
+        .addNode(gain("a"))
+        .addNode(gain("b"))
+        .addNode(gain("c"))
+        .addEdge(Edge.create("e1", "a", "b"))
+        .addEdge(Edge.create("e2", "b", "c"))
+        .build());
+    final Score rewired = Score.create(Graph.builder()
+        .id("graph")
+        .addNode(gain("b", ramp(0.5, 0)))
+        .addNode(gain("c"))
+        .addNode(gain("d"))
+        .addEdge(Edge.create("e1", "d", "b"))
+        .addEdge(Edge.create("e2", "b", "c"))
+        .build());
+    final Score extended = Score.create(Graph.builder()
+        .id("graph")
+        .addNode(gain("b", ramp(0.5, 0)))
+        .addNode(gain("c"))
+        .addNode(gain("d"))
+        .addNode(gain("e"))
+        .addEdge(Edge.create("e1", "d", "b"))
+        .addEdge(Edge.create("e2", "b", "c"))
+        .addEdge(Edge.create("e3", "c", "e"))
+        .build());
+
+    final Score first = ScoreDiff.apply(base, ScoreDiff.diff(base, rewired));
+    final Score second = ScoreDiff.apply(first, ScoreDiff.diff(rewired, extended));
+
+    assertThat(first, is(rewired));
+    assertThat(second, is(extended));
+    assertThat(second.graph() instanceof PersistentGraph, is(true));
+    assertThat(second.graph().nodes().get(1), is(sameInstance(first.graph().nodes().get(1))));
+  }
+
+  @Test
+  public void testEdgeToRemovedNodeIsKept() throws Exception {
+    final Score base = Score.create(Graph.builder()
+        .id("graph")
+        .addNode(gain("a"))
+        .addNode(gain("b"))
+        .addEdge(Edge.create("e1", "a", "b"))
+        .build());
+    final Score target = Score.create(Graph.builder()
+        .id("graph")
+        .addNode(gain("b"))
+        .addEdge(Edge.create("e1", "a", "b"))
+        .build());
+
+    assertThat(ScoreDiff.apply(base, ScoreDiff.diff(base, target)), is(target));
+  }
+
+  @Test
+  public void testScriptReorderRoundTrip() throws Exception {
+    final Script first = Script.create("first", "function() {}");
+    final Script second = Script.create("second", "function() {}");
+    final Score base = Score.create(
+        Graph.builder().id("graph").addScript(first).addScript(second).build());
+    final Score target = Score.create(
+        Graph.builder().id("graph").addScript(second).addScript(first).build());
+
+    final ScorePatch patch = ScoreDiff.diff(base, target);
+    final ObjectMapper mapper = Converter.getInstance().getObjectMapper();
+    final ScorePatch decoded =
+        mapper.readValue(mapper.writeValueAsString(patch), ScorePatch.class);
+
+    assertThat(patch.isEmpty(), is(false));
+    assertThat(patch.scriptOrder(), is(Arrays.asList("second", "first")));
+    assertThat(ScoreDiff.apply(base, decoded), is(equalTo(target)));
+  }
+
+  @Test
+  public void testPatchSerializationRoundTrip() throws Exception {
+    final Score base = score(gain("a", ramp(0.0, 0), ramp(0.5, 1000)));
+    final Score target = score(gain("a", ramp(0.0, 0), ramp(0.7, 1000)), gain("b"));
+    final ScorePatch patch = ScoreDiff.diff(base, target);
+
+    final ObjectMapper mapper = Converter.getInstance().getObjectMapper();
+    final ScorePatch decoded =
+        mapper.readValue(mapper.writeValueAsString(patch), ScorePatch.class);
+
+    assertThat(ScoreDiff.apply(base, decoded), is(equalTo(target)));
+  }
+
+  private static Score fixture(final String name) throws Exception {
+    return Converter.getInstance().fromJsonString(
+        Resources.toString(ScoreDiffTest.class.getResource("/fixtures/" + name), Charsets.UTF_8));
+  }
+
+  private static Score score(final Node... nodes) {
+    return Score.create(Graph.builder().id("graph").nodes(Arrays.asList(nodes)).build());
+  }
+
+  private static Node gain(final String id, final Command... commands) {
+    final List<Command> gain = new ArrayList<>(Arrays.asList(commands));
+    return Node.builder()
+        .id(id)
+        .kind("com.nativeformat.plugin.waa.gain")
+        .params("gain", gain)
+        .build();
+  }
+
+  private static Command ramp(final double value, final int endTime) {
+    return Command.builder()
+        .name("linearRampToValueAtTime")
+        .putArg("value", value)
+        .putArg("endTime", endTime)
+        .build();
+  }
+}
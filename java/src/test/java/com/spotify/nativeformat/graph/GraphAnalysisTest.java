@@ -0,0 +1,123 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.graph;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import com.spotify.nativeformat.score.Converter;
+import com.spotify.nativeformat.score.Edge;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.Node;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+public class GraphAnalysisTest {
+
+  @Test
+  public void testDiamond() throws Exception {
+    final GraphAnalysis analysis = GraphAnalysis.of(graph(
+        Arrays.asList("a", "b", "c", "d"),
+        Edge.create("e0", "c", "d"),
+        Edge.create("e1", "a", "b"),
+        Edge.create("e2", "b", "d"),
+        Edge.create("e3", "a", "c")));
+
+    assertThat(analysis.isAcyclic(), is(true));
+    assertThat(ids(analysis.topologicalOrder()), is(Arrays.asList("a", "b", "c", "d")));
+    assertThat(analysis.depth("a"), is(0));
+    assertThat(analysis.depth("c"), is(1));
+    assertThat(analysis.depth("d"), is(2));
+    assertThat(analysis.unreachableFromSinks().isEmpty(), is(true));
+  }
+
+  @Test
+  public void testCycles() throws Exception {
+    final GraphAnalysis analysis = GraphAnalysis.of(graph(
+        Arrays.asList("in", "x", "y", "z", "loop", "out"),
+        Edge.create("e0", "in", "x"),
+        Edge.create("e1", "x", "y"),
+        Edge.create("e2", "y", "z"),
+        Edge.create("e3", "z", "x"),
+        Edge.create("e4", "z", "out"),
+        Edge.create("e5", "loop", "loop")));
+
+    assertThat(analysis.isAcyclic(), is(false));
+    assertThat(analysis.cycles().size(), is(2));
+    assertThat(analysis.cycles().contains(Arrays.asList("e1", "e2", "e3")), is(true));
+    assertThat(analysis.cycles().contains(Collections.singletonList("e5")), is(true));
+    assertThat(ids(analysis.topologicalOrder()), is(Collections.singletonList("in")));
+    assertThat(analysis.depth("in"), is(0));
+    assertThat(analysis.depth("out"), is(GraphAnalysis.UNDEFINED));
+    assertThat(ids(analysis.unreachableFromSinks()), is(Collections.singletonList("loop")));
+  }
+
+  @Test
+  public void testExplicitSinks() throws Exception {
+    final GraphIndex index = GraphIndex.of(graph(
+        Arrays.asList("a", "b", "c", "d"),
+        Edge.create("e0", "a", "b"),
+        Edge.create("e1", "c", "d")));
+    final GraphAnalysis analysis = GraphAnalysis.of(index, Collections.singleton("b"));
+
+    assertThat(analysis.feedsSink("a"), is(true));
+    assertThat(ids(analysis.unreachableFromSinks()), is(Arrays.asList("c", "d")));
+  }
+
+  @Test
+  public void testFixture() throws Exception {
+    final Graph graph = Converter.getInstance().fromJsonString(Resources.toString(
+        GraphAnalysisTest.class.getResource("/fixtures/kitchen-sink.json"), Charsets.UTF_8)).graph();
+    final GraphAnalysis analysis = GraphAnalysis.of(graph);
+
+    assertThat(analysis.isAcyclic(), is(true));
+    assertThat(analysis.topologicalOrder().size(), is(graph.nodes().size()));
+    final int[] order = analysis.topologicalIndices();
+    final int[] position = new int[order.length];
+    for (int i = 0; i < order.length; i++) {
+      position[order[i]] = i;
+    }
+    final GraphIndex index = analysis.index();
+    for (int edge = 0; edge < index.edgeCount(); edge++) {
+      assertThat(position[index.source(edge)] < position[index.target(edge)], is(true));
+      assertThat(analysis.depth(index.source(edge)) < analysis.depth(index.target(edge)), is(true));
+    }
+  }
+
+  private static Graph graph(final List<String> ids, final Edge... edges) {
+    return Graph.builder()
+        .id("graph")
+        .nodes(ids.stream()
+            .map(id -> Node.builder().id(id).kind("com.nativeformat.plugin.waa.gain").build())
+            .collect(Collectors.toList()))
+        .edges(Arrays.asList(edges))
+        .build();
+  }
+
+  private static List<String> ids(final List<Node> nodes) {
+    return nodes.stream().map(Node::id).collect(Collectors.toList());
+  }
+}
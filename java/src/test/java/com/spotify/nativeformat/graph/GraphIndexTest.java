@@ -0,0 +1,118 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.graph;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import com.spotify.nativeformat.score.Converter;
+import com.spotify.nativeformat.score.Edge;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.Node;
+import java.util.Arrays;
+import org.junit.Test;
+
+public class GraphIndexTest {
+
+  @Test
+  public void testAdjacency() throws Exception {
+    final GraphIndex index = GraphIndex.of(Graph.builder()
+        .id("graph")
+        .nodes(Arrays.asList(node("a"), node("b"), node("c")))
+        .edges(Arrays.asList(
+            Edge.create("e0", "a", "c"),
+            Edge.create("e1", "b", "c", "out", "in"),
+            Edge.create("e2", "a", "b", null, "in")))
+        .build());
+
+    assertThat(index.nodeCount(), is(3));
+    assertThat(index.edgeCount(), is(3));
+    assertThat(index.indexOf("c"), is(2));
+    assertThat(index.indexOf("d"), is(GraphIndex.NONE));
+
+    final int a = index.indexOf("a");
+    assertThat(index.outDegree(a), is(2));
+    assertThat(index.outEdge(index.outStart(a)), is(0));
+    assertThat(index.outEdge(index.outStart(a) + 1), is(2));
+    assertThat(index.inDegree(a), is(0));
+
+    final int c = index.indexOf("c");
+    assertThat(index.inDegree(c), is(2));
+    final int e1 = index.inEdge(index.inStart(c) + 1);
+    assertThat(index.edge(e1).id(), is("e1"));
+    assertThat(index.source(e1), is(index.indexOf("b")));
+    assertThat(index.portName(index.sourcePort(e1)), is("out"));
+    assertThat(index.portName(index.targetPort(e1)), is("in"));
+    assertThat(index.targetPort(2), is(index.targetPort(e1)));
+    assertThat(index.sourcePort(0), is(GraphIndex.NONE));
+    assertThat(index.portCount(), is(2));
+  }
+
+  @Test
+  public void testFixtureDegreesMatchEdges() throws Exception {
+    final Graph graph = Converter.getInstance().fromJsonString(Resources.toString(
+        GraphIndexTest.class.getResource("/fixtures/kitchen-sink.json"), Charsets.UTF_8)).graph();
+    final GraphIndex index = GraphIndex.of(graph);
+
+    for (int node = 0; node < index.nodeCount(); node++) {
+      final String id = index.nodeId(node);
+      if (index.indexOf(id) != node) {
+        continue;
+      }
+      assertThat(index.outDegree(node),
+          is((int) graph.edges().stream().filter(e -> e.source().equals(id)).count()));
+      assertThat(index.inDegree(node),
+          is((int) graph.edges().stream().filter(e -> e.target().equals(id)).count()));
+      for (int i = index.outStart(node); i < index.outEnd(node); i++) {
+        assertThat(index.source(index.outEdge(i)), is(node));
+      }
+    }
+  }
+
+  @Test
+  public void testDuplicateNodeIdResolvesToFirst() throws Exception {
+    final GraphIndex index = GraphIndex.of(Graph.builder()
+        .id("graph")
+        .nodes(Arrays.asList(node("a"), node("b"), node("a")))
+        .edges(Arrays.asList(Edge.create("e0", "b", "a")))
+        .build());
+
+    assertThat(index.nodeCount(), is(3));
+    assertThat(index.indexOf("a"), is(0));
+    assertThat(index.target(0), is(0));
+    assertThat(index.inDegree(2), is(0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownEndpoint() throws Exception {
+    GraphIndex.of(Graph.builder()
+        .id("graph")
+        .nodes(Arrays.asList(node("a")))
+        .edges(Arrays.asList(Edge.create("e0", "a", "b")))
+        .build());
+  }
+
+  private static Node node(final String id) {
+    return Node.builder().id(id).kind("com.nativeformat.plugin.waa.gain").build();
+  }
+}
@@ -0,0 +1,153 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.graph;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import com.spotify.nativeformat.score.Converter;
+import com.spotify.nativeformat.score.Edge;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.Score;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class PersistentGraphTest {
+
+  @Test
+  public void testSerializesLikeGraph() throws Exception {
+    final Score score = Converter.getInstance().fromJsonString(Resources.toString(
+        PersistentGraphTest.class.getResource("/fixtures/kitchen-sink.json"), Charsets.UTF_8));
+    final PersistentGraph graph = PersistentGraph.of(score.graph());
+
+    assertThat(graph.equals(score.graph()), is(true));
+    assertThat(score.graph().equals(graph), is(true));
+    assertThat(graph.hashCode(), is(score.graph().hashCode()));
+    assertThat(Converter.getInstance().toJsonString(Score.create(graph, score.version())),
+        is(Converter.getInstance().toJsonString(score)));
+    assertThat(Converter.getInstance().getObjectMapper().writeValueAsString(graph),
+        is(Converter.getInstance().getObjectMapper().writeValueAsString(score.graph())));
+  }
+
+  @Test
+  public void testEdits() throws Exception {
+    final PersistentGraph base = PersistentGraph.empty("graph")
+        .withNode(node("a", "gain"))
+        .withNode(node("b", "gain"))
+        .withNode(node("c", "gain"))
+        .withEdge(Edge.create("e0", "a", "b"))
+        .withEdge(Edge.create("e1", "b", "c"))
+        .withEdge(Edge.create("e2", "a", "c"));
+
+    final PersistentGraph edited = base
+        .replaceNode(node("b", "delay"))
+        .withoutNode("a")
+        .withNode(node("d", "gain"))
+        .withEdge(Edge.create("e3", "c", "d"));
+
+    assertThat(edited.equals(Graph.builder()
+        .id("graph")
+        .nodes(Arrays.asList(node("b", "delay"), node("c", "gain"), node("d", "gain")))
+        .edges(Arrays.asList(Edge.create("e1", "b", "c"), Edge.create("e3", "c", "d")))
+        .build()), is(true));
+    assertThat(edited.incidentEdges("c").size(), is(2));
+    assertThat(edited.edge("e0"), is(nullValue()));
+    assertThat(base.nodes().size(), is(3));
+    assertThat(base.node("b"), is(node("b", "gain")));
+    assertThat(base.incidentEdges("a").size(), is(2));
+    assertThat(base.toGraph().equals(base), is(true));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDuplicateNode() throws Exception {
+    PersistentGraph.empty("graph").withNode(node("a", "gain")).withNode(node("a", "delay"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEdgeToUnknownNode() throws Exception {
+    PersistentGraph.empty("graph").withNode(node("a", "gain")).withEdge(Edge.create("e", "a", "b"));
+  }
+
+  @Test
+  public void testDuplicateIdsFromGraph() throws Exception {
+    final PersistentGraph graph = PersistentGraph.of(Graph.builder()
+        .id("graph")
+        .nodes(Arrays.asList(node("a", "gain"), node("b", "gain"), node("b", "delay")))
+        .edges(Arrays.asList(Edge.create("e", "a", "b"), Edge.create("e", "b", "a"),
+            Edge.create("f", "a", "b")))
+        .build());
+
+    assertThat(graph.node("b"), is(node("b", "gain")));
+    assertThat(graph.edge("e"), is(Edge.create("e", "a", "b")));
+    assertThat(graph.incidentEdges("a").size(), is(3));
+
+    final PersistentGraph withoutEdge = graph.withoutEdge("e");
+    assertThat(withoutEdge.edges(), is(Collections.singletonList(Edge.create("f", "a", "b"))));
+    assertThat(withoutEdge.incidentEdges("b").size(), is(1));
+
+    final PersistentGraph withoutNode = graph.withoutNode("b");
+    assertThat(withoutNode.nodes(), is(Collections.singletonList(node("a", "gain"))));
+    assertThat(withoutNode.edges(), is(Collections.emptyList()));
+    assertThat(withoutNode.incidentEdges("a"), is(Collections.emptyList()));
+    assertThat(withoutNode.edge("e"), is(nullValue()));
+    assertThat(withoutNode.withoutEdge("e"), is(withoutNode));
+  }
+
+  @Test
+  public void testRandomEditsMatchLists() throws Exception {
+    final Random random = new Random(42);
+    final List<Node> nodes = new ArrayList<>();
+    PersistentGraph graph = PersistentGraph.empty("graph");
+    for (int i = 0; i < 2000; i++) {
+      final int operation = random.nextInt(3);
+      if (operation == 0 || nodes.isEmpty()) {
+        final Node node = node("n" + i, "gain");
+        nodes.add(node);
+        graph = graph.withNode(node);
+      } else if (operation == 1) {
+        final int index = random.nextInt(nodes.size());
+        final Node node = node(nodes.get(index).id(), "delay" + i);
+        nodes.set(index, node);
+        graph = graph.replaceNode(node);
+      } else {
+        graph = graph.withoutNode(nodes.remove(random.nextInt(nodes.size())).id());
+      }
+      assertThat(graph.nodes().size(), is(nodes.size()));
+    }
+    assertThat(graph.nodes(), is(nodes));
+    for (int i = 0; i < nodes.size(); i++) {
+      assertThat(graph.nodes().get(i), is(nodes.get(i)));
+    }
+    assertThat(graph.edges(), is(Collections.emptyList()));
+  }
+
+  private static Node node(final String id, final String kind) {
+    return Node.builder().id(id).kind("com.nativeformat.plugin.waa." + kind).build();
+  }
+}
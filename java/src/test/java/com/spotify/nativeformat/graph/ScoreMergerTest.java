@@ -0,0 +1,141 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.graph;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import com.spotify.nativeformat.score.Converter;
+import com.spotify.nativeformat.score.Edge;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.LoadingPolicy;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.Score;
+import com.spotify.nativeformat.score.Script;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+public class ScoreMergerTest {
+
+  @Test
+  public void testNamespacesConflictingIds() throws Exception {
+    final Score drums = stem(node("file"), node("gain"));
+    final Score vocals = stem(node("file"), node("delay"));
+
+    final Graph merged = new ScoreMerger("mix", ScoreMerger.Namespacing.ON_CONFLICT, null)
+        .add("drums", drums)
+        .add("vocals", vocals)
+        .build()
+        .graph();
+
+    assertThat(ids(merged.nodes()), is(Arrays.asList("file", "gain", "vocals/file", "delay")));
+    assertThat(merged.edges().get(1), is(Edge.create("vocals/edge", "vocals/file", "delay")));
+    assertThat(merged.nodes().get(0), is(drums.graph().nodes().get(0)));
+  }
+
+  @Test
+  public void testAlwaysNamespacesAndLinksOutputsToMix() throws Exception {
+    final Node mix = Node.builder().id("mix").kind("com.nativeformat.plugin.waa.gain").build();
+    final Graph merged = new ScoreMerger("mix", ScoreMerger.Namespacing.ALWAYS, mix)
+        .add("drums", stem(node("file"), node("gain")))
+        .add("vocals", stem(node("file"), node("mix")))
+        .build()
+        .graph();
+
+    assertThat(ids(merged.nodes()),
+        is(Arrays.asList("drums/file", "drums/gain", "vocals/file", "vocals/mix", "mix")));
+    assertThat(merged.edges(), is(Arrays.asList(
+        Edge.create("drums/edge", "drums/file", "drums/gain"),
+        Edge.create("mix/drums/gain", "drums/gain", "mix"),
+        Edge.create("vocals/edge", "vocals/file", "vocals/mix"),
+        Edge.create("mix/vocals/mix", "vocals/mix", "mix"))));
+    assertThat(GraphAnalysis.of(merged).isAcyclic(), is(true));
+  }
+
+  @Test
+  public void testReconcilesLoadingPolicyAndScripts() throws Exception {
+    final Script script = Script.create("shared", "function() {}");
+    final Score some = Score.create(Graph.builder()
+        .id("some")
+        .loadingPolicy(LoadingPolicy.SOME_CONTENT_PLAYTHROUGH)
+        .addNode(node("a"))
+        .addScript(script)
+        .build());
+    final Score all = Score.create(Graph.builder()
+        .id("all")
+        .loadingPolicy(LoadingPolicy.ALL_CONTENT_PLAYTHROUGH)
+        .addNode(node("b"))
+        .addScript(script)
+        .build());
+
+    final Graph merged = ScoreMerger.merge("mix", Arrays.asList(some, all), null).graph();
+
+    assertThat(merged.loadingPolicy(), is(nullValue()));
+    assertThat(merged.nodes().get(0).loadingPolicy(), is(LoadingPolicy.SOME_CONTENT_PLAYTHROUGH));
+    assertThat(merged.nodes().get(1).loadingPolicy(), is(LoadingPolicy.ALL_CONTENT_PLAYTHROUGH));
+    assertThat(merged.scripts(), is(Collections.singletonList(script)));
+    assertThat(ScoreMerger.merge("mix", Arrays.asList(some, some), null).graph().loadingPolicy(),
+        is(LoadingPolicy.SOME_CONTENT_PLAYTHROUGH));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConflictingScripts() throws Exception {
+    ScoreMerger.merge("mix", Arrays.asList(
+        Score.create(Graph.builder().id("a").addScript(Script.create("s", "1")).build()),
+        Score.create(Graph.builder().id("b").addScript(Script.create("s", "2")).build())), null);
+  }
+
+  @Test
+  public void testMergedFixturesHaveUniqueIds() throws Exception {
+    final Score score = Converter.getInstance().fromJsonString(Resources.toString(
+        ScoreMergerTest.class.getResource("/fixtures/kitchen-sink.json"), Charsets.UTF_8));
+    final Graph merged = ScoreMerger.merge("mix", Collections.nCopies(3, score), null).graph();
+
+    assertThat(merged.nodes().size(), is(3 * score.graph().nodes().size()));
+    assertThat(merged.nodes().stream().map(Node::id).distinct().count(),
+        is((long) merged.nodes().size()));
+    assertThat(merged.edges().stream().map(Edge::id).distinct().count(),
+        is((long) merged.edges().size()));
+    assertThat(GraphIndex.of(merged).edgeCount(), is(3 * score.graph().edges().size()));
+  }
+
+  private static Score stem(final Node source, final Node output) {
+    return Score.create(Graph.builder()
+        .id("stem")
+        .nodes(Arrays.asList(source, output))
+        .edges(Collections.singletonList(Edge.create("edge", source.id(), output.id())))
+        .build());
+  }
+
+  private static Node node(final String id) {
+    return Node.builder().id(id).kind("com.nativeformat.plugin.waa.gain").build();
+  }
+
+  private static List<String> ids(final List<Node> nodes) {
+    return nodes.stream().map(Node::id).collect(Collectors.toList());
+  }
+}
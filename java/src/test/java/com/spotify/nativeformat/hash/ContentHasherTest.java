@@ -0,0 +1,187 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.hash;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import com.spotify.nativeformat.score.Command;
+import com.spotify.nativeformat.score.Converter;
+import com.spotify.nativeformat.score.Edge;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.GraphBuilder;
+import com.spotify.nativeformat.score.LoadingPolicy;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.NodeBuilder;
+import com.spotify.nativeformat.score.Score;
+import com.spotify.nativeformat.score.ScoreBuilder;
+import com.spotify.nativeformat.score.Time;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class ContentHasherTest {
+
+  @Test
+  public void testOrderIndependence() throws Exception {
+    final Map<String, Object> forward = new LinkedHashMap<>();
+    forward.put("a", 1);
+    forward.put("b", "two");
+    final Map<String, Object> reversed = new LinkedHashMap<>();
+    reversed.put("b", "two");
+    reversed.put("a", 1);
+
+    final Score score = score(
+        Arrays.asList(gain("x", ramp(1.0, 1000)), NodeBuilder.from(gain("y", ramp(0.5, 0)))
+            .config(forward).build()),
+        Arrays.asList(edge("e1", "x", "y"), edge("e2", "y", "x")));
+    final Score shuffled = score(
+        Arrays.asList(NodeBuilder.from(gain("y", ramp(0.5, 0))).config(reversed).build(),
+            gain("x", ramp(1.0, 1000))),
+        Arrays.asList(edge("e2", "y", "x"), edge("e1", "x", "y")));
+
+    assertThat(ContentHasher.named().hash(shuffled), is(ContentHasher.named().hash(score)));
+    assertThat(ContentHasher.anonymous().hash(shuffled),
+        is(ContentHasher.anonymous().hash(score)));
+  }
+
+  @Test
+  public void testEquivalentRepresentations() throws Exception {
+    final Node asInteger = gain("x", ramp(1.0, 1000));
+    final Node asLong = gain("x", Command.builder()
+        .name("linearRampToValueAtTime")
+        .putArg("value", 1.0)
+        .putArg("endTime", 1000L)
+        .build());
+    final Node asTime = gain("x", Command.builder()
+        .name("linearRampToValueAtTime")
+        .putArg("value", 1.0)
+        .putArg("endTime", Time.fromNanos(1000))
+        .build());
+    final Node withEmptyParam = NodeBuilder.from(asInteger)
+        .putParam("frequency", Collections.emptyList())
+        .loadingPolicy(LoadingPolicy.ALL_CONTENT_PLAYTHROUGH)
+        .build();
+
+    final ContentHash expected = ContentHasher.named().hash(asInteger);
+    assertThat(ContentHasher.named().hash(asLong), is(expected));
+    assertThat(ContentHasher.named().hash(asTime), is(expected));
+    assertThat(ContentHasher.named().hash(withEmptyParam), is(expected));
+    assertThat(ContentHasher.named().hash(gain("x", ramp(1.0, 1001))), is(not(expected)));
+  }
+
+  @Test
+  public void testAnonymousIgnoresIds() throws Exception {
+    final Score score = score(
+        Arrays.asList(gain("x", ramp(1.0, 0)), gain("y", ramp(0.5, 0)),
+            gain("z", ramp(0.5, 0))),
+        Arrays.asList(edge("e1", "x", "y"), edge("e2", "y", "z")));
+    final Score renamed = score(
+        Arrays.asList(gain("c", ramp(0.5, 0)), gain("b", ramp(0.5, 0)),
+            gain("a", ramp(1.0, 0))),
+        Arrays.asList(edge("f1", "b", "c"), edge("f2", "a", "b")));
+    final Score rewired = score(
+        Arrays.asList(gain("x", ramp(1.0, 0)), gain("y", ramp(0.5, 0)),
+            gain("z", ramp(0.5, 0))),
+        Arrays.asList(edge("e1", "x", "y"), edge("e2", "x", "z")));
+
+    assertThat(ContentHasher.anonymous().hash(renamed),
+        is(ContentHasher.anonymous().hash(score)));
+    assertThat(ContentHasher.named().hash(renamed), is(not(ContentHasher.named().hash(score))));
+    assertThat(ContentHasher.anonymous().hash(rewired),
+        is(not(ContentHasher.anonymous().hash(score))));
+  }
+
+  @Test
+  public void testIncrementalDigest() throws Exception {
+    final Score score = fixture("kitchen-sink.json");
+    final ScoreDigest digest = ContentHasher.named().digest(score);
+    final Node first = score.graph().nodes().get(0);
+    final Node changed = NodeBuilder.from(first).kind(first.kind() + ".changed").build();
+    final Score edited = ScoreBuilder.from(score)
+        .graph(GraphBuilder.from(score.graph())
+            .nodes(replaceFirst(score.graph(), changed))
+            .build())
+        .build();
+
+    final ScoreDigest incremental = ContentHasher.named().digest(edited, digest);
+
+    assertThat(incremental.hash(), is(ContentHasher.named().hash(edited)));
+    assertThat(incremental.hash(), is(not(digest.hash())));
+    assertThat(incremental.nodeHash(changed), is(not(digest.nodeHash(first))));
+    final Node second = score.graph().nodes().get(1);
+    assertThat(incremental.nodeHash(second), is(digest.nodeHash(second)));
+  }
+
+  @Test
+  public void testRoundTripPreservesHash() throws Exception {
+    final Score score = fixture("kitchen-sink.json");
+    final Converter binary = Converter.getBinaryInstance();
+    final Score roundTripped = binary.fromBytes(binary.toBytes(score));
+
+    assertThat(ContentHasher.named().hash(roundTripped), is(ContentHasher.named().hash(score)));
+    assertThat(ContentHash.fromBytes(ContentHasher.named().hash(score).toBytes()),
+        equalTo(ContentHasher.named().hash(score)));
+  }
+
+  private static Node[] replaceFirst(final Graph graph, final Node node) {
+    final Node[] nodes = graph.nodes().toArray(new Node[0]);
+    nodes[0] = node;
+    return nodes;
+  }
+
+  private static Score fixture(final String name) throws Exception {
+    return Converter.getInstance().fromJsonString(
+        Resources.toString(ContentHasherTest.class.getResource("/fixtures/" + name),
+            Charsets.UTF_8));
+  }
+
+  private static Score score(final List<Node> nodes, final List<Edge> edges) {
+    return Score.create(Graph.builder().id("graph").nodes(nodes).edges(edges).build());
+  }
+
+  private static Edge edge(final String id, final String source, final String target) {
+    return Edge.builder().id(id).source(source).target(target).build();
+  }
+
+  private static Node gain(final String id, final Command... commands) {
+    return Node.builder()
+        .id(id)
+        .kind("com.nativeformat.plugin.waa.gain")
+        .params("gain", Arrays.asList(commands))
+        .build();
+  }
+
+  private static Command ramp(final double value, final int endTime) {
+    return Command.builder()
+        .name("linearRampToValueAtTime")
+        .putArg("value", value)
+        .putArg("endTime", endTime)
+        .build();
+  }
+}
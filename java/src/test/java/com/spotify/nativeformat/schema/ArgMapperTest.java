@@ -0,0 +1,126 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.schema;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.Time;
+import com.spotify.nativeformat.typed.nodes.FilterNode;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class ArgMapperTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void testScalars() throws Exception {
+    assertThat(ArgMapper.newIntArg("x", null).readConfig(node(7)), is(7L));
+    assertThat(ArgMapper.newIntArg("x", null).readConfig(node(BigInteger.TEN)), is(10L));
+    assertThat(ArgMapper.newFloatArg("x", null).readConfig(node(0.5f)), is(0.5));
+    assertThat(ArgMapper.newBoolArg("x", null).readConfig(node(true)), is(true));
+    assertThat(ArgMapper.newStringArg("x", null).readConfig(node("a")), is("a"));
+    assertThat(ArgMapper.newTimeArg("x", null).readConfig(node(3)).getNanos(), is(3L));
+    assertThat(ArgMapper.newTimeArg("x", null).readConfig(node(Time.fromNanos(4))).getNanos(),
+        is(4L));
+    assertThat(ArgMapper.newTimeArg("x", null)
+        .readConfig(node(JsonNodeFactory.instance.numberNode(5L))).getNanos(), is(5L));
+    assertThat(ArgMapper.newIntArg("x", 1L).readConfig(node(null)), is(1L));
+  }
+
+  @Test
+  public void testEnums() throws Exception {
+    final ArgMapper<FilterNode.FilterType> mapper = ArgMapper.newEnumArg(
+        "x", FilterNode.FilterType.LOW_PASS, FilterNode.FilterType.class);
+
+    assertThat(mapper.readConfig(node("highPass")), is(FilterNode.FilterType.HIGH_PASS));
+    assertThat(mapper.readConfig(node(FilterNode.FilterType.BAND_PASS)),
+        is(FilterNode.FilterType.BAND_PASS));
+    assertThat(mapper.readConfig(node(JsonNodeFactory.instance.textNode("bandPass"))),
+        is(FilterNode.FilterType.BAND_PASS));
+  }
+
+  @Test
+  public void testLists() throws Exception {
+    assertThat(ArgMapper.newFloatListArg("x", null).readConfig(node(Arrays.asList(0.5, 1.5))),
+        is(Arrays.asList(0.5, 1.5)));
+    assertThat(ArgMapper.newIntListArg("x", null).readConfig(node(Arrays.asList(1, 2L))),
+        is(Arrays.asList(1L, 2L)));
+    assertArrayEquals(new double[] {0.5, 1.5},
+        ArgMapper.newFloatArrayArg("x", null).readConfig(node(Arrays.asList(0.5, 1.5))), 0);
+    assertArrayEquals(new long[] {1, 2, 3},
+        ArgMapper.newTimeArrayArg("x", null)
+            .readConfig(node(Arrays.asList(1, 2L, Time.fromNanos(3)))));
+    assertArrayEquals(new long[] {4, 5},
+        ArgMapper.newIntArrayArg("x", null).readConfig(node(JsonNodeFactory.instance.arrayNode()
+            .add(4).add(5))));
+    assertArrayEquals(new long[0],
+        ArgMapper.newIntArrayArg("x", null).readConfig(node(Collections.emptyList())));
+  }
+
+  @Test
+  public void testArrayDefaultsAreCopied() throws Exception {
+    final double[] defaults = {0.5, 1.5};
+    final ArgMapper<double[]> mapper = ArgMapper.newFloatArrayArg("x", defaults);
+    defaults[0] = 2.5;
+
+    mapper.readConfig(node(null))[1] = 3.5;
+    mapper.getValueOrThrow(null)[1] = 3.5;
+
+    assertArrayEquals(new double[] {0.5, 1.5}, mapper.readConfig(node(null)), 0);
+    assertArrayEquals(new double[] {0.5, 1.5}, mapper.getValueOrThrow(null), 0);
+    final ArgMapper<long[]> times = ArgMapper.newTimeArrayArg("x", new long[] {1, 2});
+    times.readConfig(node(null))[0] = 3;
+    assertArrayEquals(new long[] {1, 2}, times.readConfig(node(null)));
+  }
+
+  @Test
+  public void testIntegerIsNotAFloat() throws Exception {
+    expectedException.expect(RuntimeException.class);
+    expectedException.expectMessage("arg=x expects kind=list(float) but value is kind=ARRAY");
+    ArgMapper.newFloatArrayArg("x", null).readConfig(node(Arrays.asList(0.5, 1)));
+  }
+
+  @Test
+  public void testMissingValue() throws Exception {
+    expectedException.expect(RuntimeException.class);
+    expectedException.expectMessage("arg=x is not set and has no default value");
+    ArgMapper.newFloatArg("x", null).readConfig(node(null));
+  }
+
+  private static Node node(final Object value) {
+    return Node.builder()
+        .id("node")
+        .kind("kind")
+        .config(value == null
+            ? Collections.emptyMap() : Collections.singletonMap("x", value))
+        .build();
+  }
+}
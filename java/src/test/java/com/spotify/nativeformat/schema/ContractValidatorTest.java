@@ -0,0 +1,135 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.schema;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import com.spotify.nativeformat.score.Command;
+import com.spotify.nativeformat.score.Converter;
+import com.spotify.nativeformat.score.Edge;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.Score;
+import com.spotify.nativeformat.score.Time;
+import com.spotify.nativeformat.typed.nodes.CompressorNode;
+import com.spotify.nativeformat.typed.nodes.FileNode;
+import com.spotify.nativeformat.typed.nodes.GainNode;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class ContractValidatorTest {
+
+  private final ContractValidator validator = ContractValidator.getInstance();
+
+  @Test
+  public void testTypedScoreIsValid() {
+    final FileNode file = FileNode.create(new FileNode.Config().file("spotify:track:1"));
+    final GainNode gain = GainNode.create();
+    gain.gain().setValueAtTime(0.0, Time.ZERO).linearRampToValueAtTime(1.0, Time.fromSeconds(2));
+    final CompressorNode compressor = CompressorNode.create(new CompressorNode.Config());
+    final Graph graph = Graph.builder()
+        .id("graph")
+        .addNode(file)
+        .addNode(gain)
+        .addNode(compressor)
+        .edges(Arrays.asList(
+            file.connectToTarget(gain),
+            gain.connectToTarget(compressor, "audio", "sidechain")))
+        .build();
+
+    assertThat(validator.validate(Score.create(graph)), is(Collections.emptyList()));
+  }
+
+  @Test
+  public void testKitchenSinkNodesAreValid() throws Exception {
+    final Score score = Converter.getInstance().fromJsonString(Resources.toString(
+        Resources.getResource("fixtures/kitchen-sink.json"), Charsets.UTF_8));
+
+    // The fixture connects edges into source nodes, which have no inputs
+    for (final ValidationError error : validator.validate(score)) {
+      assertThat(error.path().startsWith("$.graph.edges["), is(true));
+      assertThat(error.message().endsWith("has no default input"), is(true));
+    }
+  }
+
+  @Test
+  public void testReportsViolations() {
+    final Map<String, Object> args = new HashMap<>();
+    args.put("value", "loud");
+    args.put("speed", 1);
+    final Map<String, Object> config = new HashMap<>();
+    config.put("filterType", "notch");
+    final Graph graph = Graph.builder()
+        .id("graph")
+        .nodes(Arrays.asList(
+            Node.builder().id("a").kind("com.nativeformat.plugin.unknown").build(),
+            Node.builder().id("b").kind(GainNode.PLUGIN_KIND)
+                .putParam("gain", Arrays.asList(
+                    Command.create("setValueAtTime", args),
+                    Command.create("jump", Collections.emptyMap())))
+                .putParam("volume", Collections.emptyList())
+                .build(),
+            Node.builder().id("c").kind("com.nativeformat.plugin.eq.filter")
+                .config(config)
+                .build(),
+            Node.builder().id("d").kind(FileNode.PLUGIN_KIND)
+                .config(Collections.singletonMap("when", 1.5))
+                .build()))
+        .edges(Arrays.asList(
+            Edge.create("e1", "d", "b"),
+            Edge.create("e2", "b", "d"),
+            Edge.create("e3", "b", "c", "audio", "sidechain"),
+            Edge.create("e4", "b", "x")))
+        .build();
+
+    final List<ValidationError> errors = validator.validate(Score.create(graph));
+    assertThat(new HashSet<>(errors), is(new HashSet<>(Arrays.asList(
+        ValidationError.create("$.graph.nodes[0].kind",
+            "unknown plugin kind 'com.nativeformat.plugin.unknown'"),
+        ValidationError.create("$.graph.nodes[1].params.gain[0].args.speed",
+            "unknown argument 'speed'"),
+        ValidationError.create("$.graph.nodes[1].params.gain[0].args.value",
+            "expected float but found string"),
+        ValidationError.create("$.graph.nodes[1].params.gain[0].args",
+            "missing argument 'startTime'"),
+        ValidationError.create("$.graph.nodes[1].params.gain[1].name",
+            "unknown command 'jump'"),
+        ValidationError.create("$.graph.nodes[1].params.volume",
+            "unknown param 'volume' for kind 'com.nativeformat.plugin.waa.gain'"),
+        ValidationError.create("$.graph.nodes[2].config.filterType",
+            "expected one of [lowPass, highPass, bandPass]"),
+        ValidationError.create("$.graph.nodes[3].config.when", "expected time but found float"),
+        ValidationError.create("$.graph.nodes[3].config", "missing config 'file'"),
+        ValidationError.create("$.graph.edges[1]", "node 'd' has no default input"),
+        ValidationError.create("$.graph.edges[2].targetPort",
+            "node 'c' has no input 'sidechain'"),
+        ValidationError.create("$.graph.edges[3].target", "unknown node 'x'")))));
+    assertThat(errors.size(), is(12));
+  }
+}
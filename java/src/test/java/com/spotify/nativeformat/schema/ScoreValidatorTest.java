@@ -0,0 +1,112 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.schema;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jackson.JsonLoader;
+import com.github.fge.jsonschema.main.JsonSchema;
+import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class ScoreValidatorTest {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private final ScoreValidator validator = ScoreValidator.getInstance();
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void testAgreesWithReferenceValidatorOnFixtures() throws Exception {
+    final JsonSchema reference = JsonSchemaFactory.byDefault().getJsonSchema(
+        JsonLoader.fromResource("/score-schema.json"), "/definitions/score/definitions/Score");
+    final File[] fixtures =
+        new File(ScoreValidatorTest.class.getResource("/fixtures").toURI()).listFiles();
+
+    for (final File fixture : fixtures) {
+      final JsonNode tree = OBJECT_MAPPER.readTree(fixture);
+      final boolean expected = reference.validate(tree).isSuccess();
+      assertThat(fixture.getName(), validator.validate(tree).isEmpty(), is(expected));
+      assertThat(fixture.getName(), validator.isValid(tree.toString()), is(expected));
+      assertThat(fixture.getName(), expected, is(!fixture.getName().startsWith("invalid")));
+    }
+  }
+
+  @Test
+  public void testReportsPaths() throws Exception {
+    final String json = "{\"version\":\"1.0.0\",\"graph\":{\"id\":\"g\",\"nodes\":["
+        + "{\"id\":\"a\",\"kind\":\"k\"},"
+        + "{\"id\":\"b\",\"kind\":1,\"loadingPolicy\":\"never\",\"badProp\":{\"x\":[]},"
+        + "\"params\":{\"gain\":[{\"args\":{}}],\"o'k\":{}}}],"
+        + "\"edges\":[{\"id\":\"e\",\"source\":\"a\",\"target\":\"b\",\"sourcePort\":\"p\"}]}}";
+
+    assertThat(validator.validate(json.getBytes("UTF-8")), is(Arrays.asList(
+        ValidationError.create("$.graph.nodes[1].kind", "expected string but found integer"),
+        ValidationError.create("$.graph.nodes[1].loadingPolicy",
+            "expected one of [someContentPlaythrough, allContentPlaythrough]"),
+        ValidationError.create("$.graph.nodes[1].badProp", "unexpected property 'badProp'"),
+        ValidationError.create("$.graph.nodes[1].params.gain[0]",
+            "missing required property 'name'"),
+        ValidationError.create("$.graph.nodes[1].params['o\\'k']",
+            "expected array but found object"),
+        ValidationError.create("$.graph.edges[0]",
+            "property 'sourcePort' requires property 'targetPort'"))));
+  }
+
+  @Test
+  public void testReportsMissingRootProperties() throws Exception {
+    assertThat(validator.validate("{\"graph\":[]}"), is(Arrays.asList(
+        ValidationError.create("$.graph", "expected object but found array"),
+        ValidationError.create("$", "missing required property 'version'"))));
+    assertThat(validator.validate("[]"), is(Collections.singletonList(
+        ValidationError.create("$", "expected object but found array"))));
+  }
+
+  @Test
+  public void testCompileRejectsUnsupportedKeywords() throws Exception {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("unsupported keyword pattern at /definitions/a/pattern");
+    ScoreValidator.compile(
+        OBJECT_MAPPER.readTree("{\"definitions\":{\"a\":{\"type\":\"string\",\"pattern\":\"x\"}}}"),
+        "/definitions/a");
+  }
+
+  @Test
+  public void testCompileResolvesRecursiveReferences() throws Exception {
+    final ScoreValidator tree = ScoreValidator.compile(OBJECT_MAPPER.readTree(
+        "{\"type\":\"object\",\"properties\":{\"children\":{\"type\":\"array\","
+            + "\"items\":{\"$ref\":\"#\"}}}}"), "");
+
+    assertThat(tree.isValid("{\"children\":[{\"children\":[]}]}"), is(true));
+    assertThat(tree.validate("{\"children\":[{\"children\":[1]}]}"), is(Collections.singletonList(
+        ValidationError.create("$.children[0].children[0]", "expected object but found integer"))));
+  }
+}
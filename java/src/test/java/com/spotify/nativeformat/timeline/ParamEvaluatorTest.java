@@ -0,0 +1,156 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.timeline;
+
+import static org.junit.Assert.assertEquals;
+
+import com.spotify.nativeformat.score.Time;
+import com.spotify.nativeformat.typed.nodes.GainNode;
+import com.spotify.nativeformat.typed.params.AudioParam;
+import java.util.Arrays;
+import org.junit.Test;
+
+public class ParamEvaluatorTest {
+
+  private static final double DELTA = 1e-9;
+
+  @Test
+  public void testInitialValue() throws Exception {
+    final AudioParam param = GainNode.create().gain();
+    assertEquals(1.0, ParamEvaluator.of(param).valueAt(Time.fromSeconds(3)), DELTA);
+
+    param.setValueAtTime(0.5, Time.fromSeconds(1));
+    final ParamEvaluator unknown = ParamEvaluator.of(param.getCommands(), Double.NaN);
+    assertEquals(Double.NaN, unknown.valueAt(Time.fromSeconds(0)), 0);
+    assertEquals(0.5, unknown.valueAt(Time.fromSeconds(1)), DELTA);
+  }
+
+  @Test
+  public void testLinearRamp() throws Exception {
+    final AudioParam param = GainNode.create().gain()
+        .setValueAtTime(0.5, Time.fromSeconds(1))
+        .linearRampToValueAtTime(1.0, Time.fromSeconds(3));
+    final ParamEvaluator evaluator = ParamEvaluator.of(param);
+
+    assertEquals(1.0, evaluator.valueAt(Time.fromSeconds(0.5)), DELTA);
+    assertEquals(0.5, evaluator.valueAt(Time.fromSeconds(1)), DELTA);
+    assertEquals(0.75, evaluator.valueAt(Time.fromSeconds(2)), DELTA);
+    assertEquals(0.875, evaluator.valueAt(Time.fromSeconds(2.5)), DELTA);
+    assertEquals(1.0, evaluator.valueAt(Time.fromSeconds(3)), DELTA);
+    assertEquals(1.0, evaluator.valueAt(Time.fromSeconds(10)), DELTA);
+  }
+
+  @Test
+  public void testExponentialRamp() throws Exception {
+    final AudioParam param = GainNode.create().gain()
+        .exponentialRampToValueAtTime(4.0, Time.fromSeconds(2));
+    final ParamEvaluator evaluator = ParamEvaluator.of(param);
+
+    // 1 * (4 / 1) ^ (t / 2)
+    assertEquals(1.0, evaluator.valueAt(Time.fromSeconds(0)), DELTA);
+    assertEquals(2.0, evaluator.valueAt(Time.fromSeconds(1)), DELTA);
+    assertEquals(Math.sqrt(8), evaluator.valueAt(Time.fromSeconds(1.5)), DELTA);
+    assertEquals(4.0, evaluator.valueAt(Time.fromSeconds(2)), DELTA);
+  }
+
+  @Test
+  public void testExponentialRampThroughZeroHoldsTheStartValue() throws Exception {
+    final AudioParam param = GainNode.create().gain()
+        .setValueAtTime(0.0, Time.fromSeconds(0))
+        .exponentialRampToValueAtTime(1.0, Time.fromSeconds(2));
+    final ParamEvaluator evaluator = ParamEvaluator.of(param);
+
+    assertEquals(0.0, evaluator.valueAt(Time.fromSeconds(1)), DELTA);
+    assertEquals(1.0, evaluator.valueAt(Time.fromSeconds(2)), DELTA);
+  }
+
+  @Test
+  public void testSetTarget() throws Exception {
+    final AudioParam param = GainNode.create().gain()
+        .setTargetAtTime(0.0, Time.fromSeconds(1), 0.5);
+    final ParamEvaluator evaluator = ParamEvaluator.of(param);
+
+    // 0 + (1 - 0) * e ^ -((t - 1) / 0.5)
+    assertEquals(1.0, evaluator.valueAt(Time.fromSeconds(1)), DELTA);
+    assertEquals(Math.exp(-1), evaluator.valueAt(Time.fromSeconds(1.5)), DELTA);
+    assertEquals(Math.exp(-2), evaluator.valueAt(Time.fromSeconds(2)), DELTA);
+  }
+
+  @Test
+  public void testSetTargetFollowedByEvents() throws Exception {
+    final AudioParam param = GainNode.create().gain()
+        .setTargetAtTime(0.0, Time.fromSeconds(1), 1.0)
+        .setValueAtTime(0.25, Time.fromSeconds(2))
+        .setTargetAtTime(1.0, Time.fromSeconds(3), 1.0)
+        .linearRampToValueAtTime(0.0, Time.fromSeconds(5));
+    final ParamEvaluator evaluator = ParamEvaluator.of(param);
+
+    assertEquals(Math.exp(-0.5), evaluator.valueAt(Time.fromSeconds(1.5)), DELTA);
+    assertEquals(0.25, evaluator.valueAt(Time.fromSeconds(2.5)), DELTA);
+    // The ramp replaces the second target, starting from the value before it.
+    assertEquals(0.125, evaluator.valueAt(Time.fromSeconds(4)), DELTA);
+    assertEquals(0.0, evaluator.valueAt(Time.fromSeconds(6)), DELTA);
+  }
+
+  @Test
+  public void testValueCurve() throws Exception {
+    final AudioParam param = GainNode.create().gain()
+        .setValueCurveAtTime(Arrays.asList(0.0, 1.0, 0.5), Time.fromSeconds(1),
+            Time.fromSeconds(2))
+        .linearRampToValueAtTime(1.5, Time.fromSeconds(5));
+    final ParamEvaluator evaluator = ParamEvaluator.of(param);
+
+    assertEquals(1.0, evaluator.valueAt(Time.fromSeconds(0.5)), DELTA);
+    assertEquals(0.0, evaluator.valueAt(Time.fromSeconds(1)), DELTA);
+    assertEquals(0.5, evaluator.valueAt(Time.fromSeconds(1.5)), DELTA);
+    assertEquals(1.0, evaluator.valueAt(Time.fromSeconds(2)), DELTA);
+    assertEquals(0.75, evaluator.valueAt(Time.fromSeconds(2.5)), DELTA);
+    // The ramp starts where the curve ends.
+    assertEquals(0.5, evaluator.valueAt(Time.fromSeconds(3)), DELTA);
+    assertEquals(1.0, evaluator.valueAt(Time.fromSeconds(4)), DELTA);
+    assertEquals(1.5, evaluator.valueAt(Time.fromSeconds(6)), DELTA);
+  }
+
+  @Test
+  public void testCommandsAreSortedByTheTimeTheyTakeEffect() throws Exception {
+    final AudioParam param = GainNode.create().gain()
+        .linearRampToValueAtTime(0.0, Time.fromSeconds(4))
+        .setValueAtTime(0.5, Time.fromSeconds(2));
+    final ParamEvaluator evaluator = ParamEvaluator.of(param);
+
+    assertEquals(1.0, evaluator.valueAt(Time.fromSeconds(1)), DELTA);
+    assertEquals(0.5, evaluator.valueAt(Time.fromSeconds(2)), DELTA);
+    assertEquals(0.25, evaluator.valueAt(Time.fromSeconds(3)), DELTA);
+  }
+
+  @Test
+  public void testManyCommands() throws Exception {
+    final AudioParam param = GainNode.create().gain();
+    for (int i = 0; i < 10000; i++) {
+      param.linearRampToValueAtTime((double) (i % 2), Time.fromMillis(i + 1));
+    }
+    final ParamEvaluator evaluator = ParamEvaluator.of(param);
+
+    assertEquals(0.5, evaluator.valueAt(Time.fromNanos(500_000)), DELTA);
+    assertEquals(0.75, evaluator.valueAt(Time.fromNanos(5_000_250_000L)), DELTA);
+    assertEquals(1.0, evaluator.valueAt(Time.fromSeconds(20)), DELTA);
+  }
+}
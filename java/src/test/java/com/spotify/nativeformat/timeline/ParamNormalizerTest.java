@@ -0,0 +1,194 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.timeline;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import com.spotify.nativeformat.schema.ValidationError;
+import com.spotify.nativeformat.score.Command;
+import com.spotify.nativeformat.score.Converter;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.LoadingPolicy;
+import com.spotify.nativeformat.score.NodeBuilder;
+import com.spotify.nativeformat.score.Score;
+import com.spotify.nativeformat.score.Time;
+import com.spotify.nativeformat.typed.nodes.GainNode;
+import com.spotify.nativeformat.typed.params.AudioParam;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class ParamNormalizerTest {
+
+  private static final String GAIN = "$.graph.nodes[0].params.gain";
+
+  private static Score score(final AudioParam param) {
+    final GainNode node = GainNode.create("gain", LoadingPolicy.ALL_CONTENT_PLAYTHROUGH);
+    return Score.create(Graph.builder().id("graph").nodes(Collections.singletonList(
+        NodeBuilder.from(node).putParam("gain", param.getCommands()).build())).build());
+  }
+
+  private static List<Command> gain(final Normalization normalization) {
+    return normalization.score().graph().nodes().get(0).params().get("gain");
+  }
+
+  private static List<String> paths(final List<ValidationError> errors) {
+    final List<String> paths = new ArrayList<>();
+    for (final ValidationError error : errors) {
+      paths.add(error.path());
+    }
+    return paths;
+  }
+
+  private static void assertSameValues(final List<Command> expected, final List<Command> actual) {
+    final ParamEvaluator before = ParamEvaluator.of(expected, 1.0);
+    final ParamEvaluator after = ParamEvaluator.of(actual, 1.0);
+    for (long nanos = -1_000_000L; nanos < 12_000_000_000L; nanos += 9_999_991L) {
+      assertEquals("at " + nanos, before.valueAt(nanos), after.valueAt(nanos), 1e-12);
+    }
+  }
+
+  @Test
+  public void testSorts() throws Exception {
+    final AudioParam param = GainNode.create().gain()
+        .linearRampToValueAtTime(0.5, Time.fromSeconds(2))
+        .setValueAtTime(0.25, Time.fromSeconds(1))
+        .setValueAtTime(1.0, Time.fromSeconds(3));
+
+    final Normalization normalization = ParamNormalizer.getInstance().normalize(score(param));
+
+    assertThat(paths(normalization.changes()), is(Arrays.asList(GAIN + "[1]")));
+    assertThat(normalization.errors().isEmpty(), is(true));
+    final List<Command> commands = param.getCommands();
+    assertThat(gain(normalization), is(Arrays.asList(commands.get(1), commands.get(0),
+        commands.get(2))));
+    assertSameValues(commands, gain(normalization));
+  }
+
+  @Test
+  public void testDropsDuplicatesAndRedundantValues() throws Exception {
+    final AudioParam param = GainNode.create().gain()
+        .setValueAtTime(0.25, Time.fromSeconds(1))
+        .setValueAtTime(0.25, Time.fromSeconds(1))
+        .setValueAtTime(0.75, Time.fromSeconds(2))
+        .setValueAtTime(0.5, Time.fromSeconds(2))
+        .setValueAtTime(0.5, Time.fromSeconds(3))
+        .setValueAtTime(0.5, Time.fromSeconds(4))
+        .linearRampToValueAtTime(1.0, Time.fromSeconds(5));
+
+    final Normalization normalization = ParamNormalizer.getInstance().normalize(score(param));
+
+    assertThat(paths(normalization.changes()),
+        is(Arrays.asList(GAIN + "[1]", GAIN + "[2]", GAIN + "[4]")));
+    assertThat(normalization.errors().isEmpty(), is(true));
+    final List<Command> commands = param.getCommands();
+    // The ramp starts from the setValueAtTime at 4 s, so that one is kept.
+    assertThat(gain(normalization), is(Arrays.asList(commands.get(0), commands.get(3),
+        commands.get(5), commands.get(6))));
+    assertSameValues(commands, gain(normalization));
+  }
+
+  @Test
+  public void testRejectsConflicts() throws Exception {
+    final AudioParam param = GainNode.create().gain()
+        .setValueCurveAtTime(Arrays.asList(0.5, 1.0), Time.fromSeconds(1), Time.fromSeconds(2))
+        .linearRampToValueAtTime(0.25, Time.fromSeconds(2))
+        .setValueAtTime(0.0, Time.fromSeconds(3))
+        .exponentialRampToValueAtTime(1.0, Time.fromSeconds(4))
+        .setValueAtTime(-1.0, Time.fromSeconds(5))
+        .exponentialRampToValueAtTime(1.0, Time.fromSeconds(6))
+        .exponentialRampToValueAtTime(0.0, Time.fromSeconds(7))
+        .setValueAtTime(Double.NaN, Time.fromSeconds(8))
+        .setTargetAtTime(1.0, Time.fromSeconds(9), -1.0)
+        .setValueCurveAtTime(Arrays.asList(0.5, 1.0), Time.fromSeconds(10), Time.fromSeconds(0))
+        .setValueAtTime(1.0, Time.fromNanos(-1));
+
+    final Normalization normalization = ParamNormalizer.getInstance().normalize(score(param));
+
+    assertThat(paths(normalization.errors()), is(Arrays.asList(
+        GAIN + "[7]", GAIN + "[8]", GAIN + "[9]", GAIN + "[10]",
+        GAIN + "[1]", GAIN + "[3]", GAIN + "[5]", GAIN + "[6]")));
+    assertThat(normalization.errors().get(4).message(),
+        is("takes effect during setValueCurveAtTime command 0"));
+    assertThat(normalization.errors().get(5).message(),
+        is("exponentialRampToValueAtTime from zero"));
+    assertThat(normalization.errors().get(6).message(),
+        is("exponentialRampToValueAtTime from -1.0 to 1.0 crosses zero"));
+    assertThat(normalization.errors().get(7).message(),
+        is("exponentialRampToValueAtTime to zero"));
+    final List<Command> commands = param.getCommands();
+    assertThat(gain(normalization), is(Arrays.asList(commands.get(0), commands.get(2),
+        commands.get(4))));
+  }
+
+  @Test
+  public void testKeepsNormalScores() throws Exception {
+    final Score score = Converter.getInstance().fromJsonString(Resources.toString(
+        ParamNormalizerTest.class.getResource("/fixtures/kitchen-sink.json"), Charsets.UTF_8));
+
+    final Normalization normalization = ParamNormalizer.getInstance().normalize(score);
+
+    assertThat(normalization.changes().isEmpty(), is(true));
+    assertThat(normalization.errors().isEmpty(), is(true));
+    assertThat(normalization.score(), sameInstance(score));
+  }
+
+  @Test
+  public void testRandomCommandsKeepTheirValues() throws Exception {
+    final Random random = new Random(5);
+    for (int round = 0; round < 200; round++) {
+      final AudioParam param = GainNode.create().gain();
+      for (int i = 0; i < 20; i++) {
+        final Time time = Time.fromMillis(random.nextInt(10) * 1000);
+        final double value = 0.25 * (1 + random.nextInt(4));
+        switch (random.nextInt(4)) {
+          case 0:
+            param.linearRampToValueAtTime(value, time);
+            break;
+          case 1:
+            param.exponentialRampToValueAtTime(value, time);
+            break;
+          case 2:
+            param.setTargetAtTime(value, time, 0.5);
+            break;
+          default:
+            param.setValueAtTime(value, time);
+            break;
+        }
+      }
+
+      final Normalization normalization = ParamNormalizer.getInstance().normalize(score(param));
+      assertThat(normalization.errors().isEmpty(), is(true));
+      assertSameValues(param.getCommands(), gain(normalization));
+      final Normalization again = ParamNormalizer.getInstance().normalize(normalization.score());
+      assertThat(again.changes().isEmpty(), is(true));
+      assertThat(again.score(), sameInstance(normalization.score()));
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.timeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.spotify.nativeformat.score.Time;
+import com.spotify.nativeformat.typed.nodes.GainNode;
+import com.spotify.nativeformat.typed.params.AudioParam;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class ParamRendererTest {
+
+  private static final double DELTA = 1e-9;
+
+  private static final double SAMPLE_RATE = 100;
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private static ParamEvaluator automated() {
+    final AudioParam param = GainNode.create().gain()
+        .setValueAtTime(0.5, Time.fromSeconds(1))
+        .linearRampToValueAtTime(1.0, Time.fromSeconds(2))
+        .exponentialRampToValueAtTime(4.0, Time.fromSeconds(3))
+        .setTargetAtTime(0.0, Time.fromSeconds(4), 0.25)
+        .setValueCurveAtTime(Arrays.asList(0.0, 1.0, 0.5), Time.fromSeconds(5),
+                             Time.fromSeconds(1))
+        .setValueAtTime(0.25, Time.fromSeconds(7));
+    return ParamEvaluator.of(param);
+  }
+
+  @Test
+  public void testRenderMatchesTheEvaluator() throws Exception {
+    final ParamEvaluator evaluator = automated();
+    final ParamRenderer renderer = new ParamRenderer(evaluator, SAMPLE_RATE);
+    final int frames = 800;
+    final double[] doubles = new double[frames + 2];
+    final float[] floats = new float[frames];
+    final FloatBuffer buffer = FloatBuffer.allocate(frames + 1);
+    buffer.position(1);
+
+    // Render in uneven blocks so that blocks straddle segment boundaries.
+    for (int frame = 0; frame < frames; frame += 37) {
+      final int block = Math.min(37, frames - frame);
+      renderer.render(frame, doubles, frame + 2, block);
+      renderer.render(frame, floats, frame, block);
+      renderer.render(frame, buffer, block);
+    }
+
+    assertEquals(frames + 1, buffer.position());
+    for (int frame = 0; frame < frames; frame++) {
+      final double expected = evaluator.valueAt(frame * 10_000_000L);
+      assertEquals("frame " + frame, expected, doubles[frame + 2], DELTA);
+      assertEquals("frame " + frame, expected, floats[frame], 1e-6);
+      assertEquals("frame " + frame, expected, buffer.get(frame + 1), 1e-6);
+    }
+  }
+
+  @Test
+  public void testLongRendersStayAccurate() throws Exception {
+    final ParamEvaluator evaluator = automated();
+    final ParamRenderer renderer = new ParamRenderer(evaluator, 48000);
+    final double[] values = new double[8 * 48000];
+
+    renderer.render(0, values, 0, values.length);
+
+    // Steps are exactly one frame apart while the evaluator is sampled at whole nanoseconds.
+    for (int frame = 0; frame < values.length; frame++) {
+      final double expected = evaluator.valueAt(renderer.nanos(frame));
+      assertEquals("frame " + frame, expected, values[frame], 1e-8);
+    }
+  }
+
+  @Test
+  public void testRenderReportsConstantBlocks() throws Exception {
+    final ParamRenderer renderer = new ParamRenderer(automated(), SAMPLE_RATE);
+    final double[] block = new double[10];
+
+    assertTrue(renderer.render(0, block, 0, 10));
+    assertEquals(1.0, block[9], DELTA);
+    // The value changes from 1 to 0.5 at frame 100.
+    assertFalse(renderer.render(95, block, 0, 10));
+    assertFalse(renderer.render(150, block, 0, 10));
+    assertTrue(renderer.render(700, block, 0, 10));
+    assertEquals(0.25, block[0], DELTA);
+  }
+
+  @Test
+  public void testConstantFrames() throws Exception {
+    final ParamRenderer renderer = new ParamRenderer(automated(), SAMPLE_RATE);
+
+    assertEquals(100, renderer.constantFrames(0));
+    assertEquals(5, renderer.constantFrames(95));
+    assertEquals(1, renderer.constantFrames(150));
+    assertEquals(Long.MAX_VALUE, renderer.constantFrames(700));
+
+    final ParamRenderer constant = new ParamRenderer(
+        ParamEvaluator.of(GainNode.create().gain().setValueAtTime(1.0, Time.fromSeconds(1))),
+        48000);
+    assertEquals(Long.MAX_VALUE, constant.constantFrames(0));
+  }
+
+  @Test
+  public void testBlockValue() throws Exception {
+    final ParamRenderer renderer = new ParamRenderer(automated(), SAMPLE_RATE);
+
+    assertEquals(0.75, renderer.blockValue(150), DELTA);
+    assertEquals(1.0, renderer.blockValue(0), DELTA);
+  }
+
+  @Test
+  public void testRenderChecksTheRange() throws Exception {
+    final ParamRenderer renderer = new ParamRenderer(automated(), SAMPLE_RATE);
+
+    thrown.expect(IndexOutOfBoundsException.class);
+    renderer.render(0, new float[10], 5, 6);
+  }
+}
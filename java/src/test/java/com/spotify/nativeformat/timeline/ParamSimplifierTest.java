@@ -0,0 +1,132 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.timeline;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import com.spotify.nativeformat.score.Command;
+import com.spotify.nativeformat.score.Converter;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.Score;
+import com.spotify.nativeformat.score.Time;
+import com.spotify.nativeformat.typed.nodes.GainNode;
+import com.spotify.nativeformat.typed.params.AudioParam;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class ParamSimplifierTest {
+
+  private static void assertWithin(final List<Command> expected,
+                                   final List<Command> actual,
+                                   final double maxError,
+                                   final boolean decibels) {
+    final ParamEvaluator before = ParamEvaluator.of(expected, 1.0);
+    final ParamEvaluator after = ParamEvaluator.of(actual, 1.0);
+    for (long nanos = -1_000_000L; nanos < 12_000_000_000L; nanos += 999_983L) {
+      final double value = before.valueAt(nanos);
+      final double simplified = after.valueAt(nanos);
+      final double error = decibels
+          ? Math.abs(20 * Math.log10(simplified / value)) : Math.abs(simplified - value);
+      assertTrue("at " + nanos + ": " + value + " became " + simplified,
+          error <= maxError + 1e-9);
+    }
+  }
+
+  @Test
+  public void testMergesCollinearRamps() throws Exception {
+    final AudioParam param = GainNode.create().gain().setValueAtTime(0.0, Time.fromSeconds(0));
+    for (int i = 1; i <= 100; i++) {
+      param.linearRampToValueAtTime(i / 100.0, Time.fromMillis(i * 10));
+    }
+    param.setValueAtTime(0.5, Time.fromSeconds(2));
+
+    final List<Command> simplified = ParamSimplifier.absolute(1e-9).simplify(param.getCommands());
+
+    assertThat(simplified.size(), is(3));
+    assertThat(simplified.get(1), is(param.getCommands().get(100)));
+    assertWithin(param.getCommands(), simplified, 1e-9, false);
+  }
+
+  @Test
+  public void testSimplifiesDenseCurves() throws Exception {
+    final List<Double> values = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      values.add(0.5 + 0.4 * Math.sin(i * 2 * Math.PI / 2500));
+    }
+    final AudioParam param = GainNode.create().gain()
+        .setValueCurveAtTime(values, Time.fromSeconds(1), Time.fromSeconds(10))
+        .linearRampToValueAtTime(0.0, Time.fromSeconds(11.5));
+
+    final List<Command> simplified = ParamSimplifier.absolute(0.001).simplify(param.getCommands());
+
+    assertTrue(simplified.size() < 250);
+    assertThat(simplified.get(0).name(), is(Automation.SET_VALUE));
+    assertWithin(param.getCommands(), simplified, 0.001, false);
+  }
+
+  @Test
+  public void testDecibels() throws Exception {
+    final AudioParam param = GainNode.create().gain().setValueAtTime(1.0, Time.fromSeconds(0));
+    for (int i = 1; i <= 1000; i++) {
+      param.linearRampToValueAtTime(Math.pow(10, -i / 200.0), Time.fromMillis(i * 10));
+    }
+
+    final List<Command> simplified = ParamSimplifier.decibels(0.1).simplify(param.getCommands());
+
+    assertTrue(simplified.size() < 100);
+    assertWithin(param.getCommands(), simplified, 0.1, true);
+  }
+
+  @Test
+  public void testKeepsCommandsItCannotSimplify() throws Exception {
+    final AudioParam param = GainNode.create().gain()
+        .setValueAtTime(0.0, Time.fromSeconds(0))
+        .linearRampToValueAtTime(1.0, Time.fromSeconds(1))
+        .linearRampToValueAtTime(0.0, Time.fromSeconds(2))
+        .setTargetAtTime(1.0, Time.fromSeconds(3), 0.1)
+        .exponentialRampToValueAtTime(0.5, Time.fromSeconds(4));
+
+    final List<Command> commands = param.getCommands();
+    assertThat(ParamSimplifier.absolute(0.1).simplify(commands), sameInstance(commands));
+  }
+
+  @Test
+  public void testFixtureKeepsItsValues() throws Exception {
+    final Score score = Converter.getInstance().fromJsonString(Resources.toString(
+        ParamSimplifierTest.class.getResource("/fixtures/kitchen-sink.json"), Charsets.UTF_8));
+    final Score simplified = ParamSimplifier.absolute(0).simplify(score);
+
+    for (int i = 0; i < score.graph().nodes().size(); i++) {
+      final Node node = score.graph().nodes().get(i);
+      for (final Map.Entry<String, List<Command>> param : node.params().entrySet()) {
+        assertWithin(param.getValue(),
+            simplified.graph().nodes().get(i).params().get(param.getKey()), 0, false);
+      }
+    }
+  }
+}
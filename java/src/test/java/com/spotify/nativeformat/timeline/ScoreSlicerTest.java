@@ -0,0 +1,182 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.timeline;
+
+import static com.spotify.nativeformat.timeline.TimelineFixtures.SECOND;
+import static com.spotify.nativeformat.timeline.TimelineFixtures.source;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import com.spotify.nativeformat.score.Command;
+import com.spotify.nativeformat.score.CommandBuilder;
+import com.spotify.nativeformat.score.Converter;
+import com.spotify.nativeformat.score.Edge;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.Score;
+import com.spotify.nativeformat.score.Time;
+import com.spotify.nativeformat.typed.nodes.FileNode;
+import com.spotify.nativeformat.typed.nodes.GainNode;
+import com.spotify.nativeformat.typed.nodes.LoopNode;
+import com.spotify.nativeformat.typed.nodes.NoiseNode;
+import com.spotify.nativeformat.typed.nodes.SineNode;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class ScoreSlicerTest {
+
+  @Test
+  public void testSourcesAreDroppedShiftedAndTrimmed() throws Exception {
+    final Node file = source("file", FileNode.PLUGIN_KIND, 0, 10 * SECOND);
+    final Node late = source("late", SineNode.PLUGIN_KIND, 8 * SECOND, SECOND);
+    final Node open = source("open", NoiseNode.PLUGIN_KIND, SECOND, 0);
+    final Node gain = Node.builder().id("gain").kind(GainNode.PLUGIN_KIND).build();
+    final Graph graph = Graph.builder()
+        .id("graph")
+        .nodes(Arrays.asList(file, late, open, gain))
+        .edges(Arrays.asList(
+            Edge.create("e0", "file", "gain"),
+            Edge.create("e1", "late", "gain"),
+            Edge.create("e2", "open", "gain")))
+        .build();
+
+    final Graph sliced = ScoreSlicer.getInstance()
+        .slice(graph, Time.fromSeconds(4), Time.fromSeconds(6));
+
+    assertThat(sliced.nodes().size(), is(3));
+    assertThat(sliced.edges().size(), is(2));
+    final Node slicedFile = sliced.nodes().get(0);
+    assertThat(slicedFile.config().get("when"), is(0L));
+    assertThat(slicedFile.config().get("duration"), is(2 * SECOND));
+    assertThat(slicedFile.config().get("offset"), is(4 * SECOND));
+    assertThat(sliced.nodes().get(1).config().get("duration"), is(2 * SECOND));
+    assertThat(sliced.nodes().get(2), is(gain));
+  }
+
+  @Test
+  public void testParamValuesArePreserved() throws Exception {
+    final List<Command> commands = Arrays.asList(
+        command(Automation.LINEAR_RAMP, "value", 0.5, "endTime", 2 * SECOND),
+        command(Automation.SET_VALUE, "value", 0.25, "startTime", 3 * SECOND),
+        command(Automation.EXPONENTIAL_RAMP, "value", 1.0, "endTime", 5 * SECOND),
+        command(Automation.SET_TARGET, "target", 0.1, "startTime", 6 * SECOND,
+            "timeConstant", 0.5),
+        Command.builder()
+            .name(Automation.SET_VALUE_CURVE)
+            .putArg("values", Arrays.asList(0.0, 1.0, 0.5))
+            .putArg("startTime", 8 * SECOND)
+            .putArg("duration", 2 * SECOND)
+            .build(),
+        command(Automation.LINEAR_RAMP, "value", 0.0, "endTime", 12 * SECOND));
+
+    final List<Automation.Event> original = Automation.events(commands);
+    for (final long from : new long[] {0, SECOND, 4 * SECOND, 7 * SECOND, 17 * SECOND / 2}) {
+      final long to = from + 3 * SECOND;
+      final List<Automation.Event> sliced =
+          Automation.events(Automation.slice(commands, 1.0, from, to));
+      for (long time = from; time < to; time += SECOND / 10) {
+        assertEquals("at " + time + " in [" + from + ", " + to + ")",
+            Automation.valueAt(original, 1.0, time),
+            Automation.valueAt(sliced, 1.0, time - from), 1e-9);
+      }
+    }
+  }
+
+  @Test
+  public void testLoopThatEndedIsDropped() throws Exception {
+    final Node ended = loop("ended", 0, SECOND, 2);
+    final Node gain = Node.builder().id("gain").kind(GainNode.PLUGIN_KIND).build();
+    final Graph graph = Graph.builder()
+        .id("graph")
+        .nodes(Arrays.asList(ended, gain))
+        .edges(Arrays.asList(Edge.create("e0", "ended", "gain")))
+        .build();
+
+    final Graph sliced = ScoreSlicer.getInstance()
+        .slice(graph, Time.fromSeconds(2), Time.fromSeconds(3));
+
+    assertThat(sliced.nodes(), is(Arrays.asList(gain)));
+    assertThat(sliced.edges().size(), is(0));
+  }
+
+  @Test
+  public void testRunningLoopIsAdvancedByWholeIterations() throws Exception {
+    final Graph graph = Graph.builder()
+        .id("graph")
+        .nodes(Arrays.asList(loop("finite", SECOND, SECOND, 5), loop("forever", 0, SECOND, -1)))
+        .build();
+
+    final Graph sliced = ScoreSlicer.getInstance()
+        .slice(graph, Time.fromSeconds(3), Time.fromSeconds(5));
+
+    final Node finite = sliced.nodes().get(0);
+    assertThat(finite.config().get("when"), is(0L));
+    assertThat(finite.config().get("duration"), is(SECOND));
+    assertThat(finite.config().get("loopCount"), is(3L));
+    final Node forever = sliced.nodes().get(1);
+    assertThat(forever.config().get("when"), is(0L));
+    assertThat(forever.config().get("loopCount"), is(-1L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWindowStartingPartwayThroughIteration() throws Exception {
+    ScoreSlicer.getInstance().slice(
+        Graph.builder().id("graph").addNode(loop("loop", 0, SECOND, -1)).build(),
+        Time.fromNanos(3 * SECOND / 2), Time.fromSeconds(2));
+  }
+
+  @Test
+  public void testFixture() throws Exception {
+    final Score score = Converter.getInstance().fromJsonString(Resources.toString(
+        ScoreSlicerTest.class.getResource("/fixtures/kitchen-sink.json"), Charsets.UTF_8));
+    assertThat(ScoreSlicer.getInstance()
+        .slice(score, Time.fromNanos(0), Time.fromNanos(1000))
+        .graph().nodes().size(), is(score.graph().nodes().size() - 4));
+
+    final Score sliced = ScoreSlicer.getInstance()
+        .slice(score, Time.fromNanos(1000), Time.fromNanos(1500));
+    assertThat(sliced.graph().nodes().size(), is(score.graph().nodes().size()));
+    final Score parsed = Converter.getInstance().fromJsonString(
+        Converter.getInstance().toJsonString(sliced));
+    assertThat(parsed.graph().nodes().size(), is(sliced.graph().nodes().size()));
+  }
+
+  private static Node loop(final String id, final long when, final long duration,
+                           final long loopCount) {
+    return Node.builder()
+        .id(id)
+        .kind(LoopNode.PLUGIN_KIND)
+        .config("when", when, "duration", duration, "loopCount", loopCount)
+        .build();
+  }
+
+  private static Command command(final String name, final Object... args) {
+    final CommandBuilder builder = Command.builder().name(name);
+    for (int i = 0; i < args.length; i += 2) {
+      builder.putArg((String) args[i], args[i + 1]);
+    }
+    return builder.build();
+  }
+}
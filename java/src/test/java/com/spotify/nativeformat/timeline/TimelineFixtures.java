@@ -0,0 +1,45 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.timeline;
+
+import com.spotify.nativeformat.score.Node;
+
+/**
+ * Nodes shared by the timeline tests.
+ */
+final class TimelineFixtures {
+
+  static final long SECOND = 1_000_000_000L;
+
+  private TimelineFixtures() {}
+
+  /**
+   * Returns a source node that starts at <code>when</code> and plays for <code>duration</code>
+   * nanoseconds, or forever if the duration is zero.
+   */
+  static Node source(final String id, final String kind, final long when, final long duration) {
+    return Node.builder()
+        .id(id)
+        .kind(kind)
+        .config("when", when, "duration", duration)
+        .build();
+  }
+}
@@ -0,0 +1,158 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.timeline;
+
+import static com.spotify.nativeformat.timeline.TimelineFixtures.SECOND;
+import static com.spotify.nativeformat.timeline.TimelineFixtures.source;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import com.spotify.nativeformat.score.Converter;
+import com.spotify.nativeformat.score.Edge;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.Score;
+import com.spotify.nativeformat.score.Time;
+import com.spotify.nativeformat.typed.nodes.FileNode;
+import com.spotify.nativeformat.typed.nodes.GainNode;
+import com.spotify.nativeformat.typed.nodes.LoopNode;
+import com.spotify.nativeformat.typed.nodes.SineNode;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+
+public class TimelineTest {
+
+  @Test
+  public void testPointAndRangeQueries() throws Exception {
+    final Timeline timeline = Timeline.of(graph(
+        Arrays.asList(
+            source("a", FileNode.PLUGIN_KIND, 0, 2 * SECOND),
+            source("b", SineNode.PLUGIN_KIND, 3 * SECOND, SECOND),
+            source("c", SineNode.PLUGIN_KIND, 5 * SECOND, 0)),
+        Collections.emptyList()));
+
+    assertThat(timeline.activeAt(Time.fromSeconds(1)), is(ids("a")));
+    assertThat(timeline.activeAt(Time.fromSeconds(2)), is(ids()));
+    assertThat(timeline.activeAt(Time.fromSeconds(3)), is(ids("b")));
+    assertThat(timeline.activeAt(Time.fromSeconds(100)), is(ids("c")));
+    assertThat(timeline.activeDuring(Time.fromSeconds(1), Time.fromSeconds(3)), is(ids("a")));
+    assertThat(timeline.activeDuring(Time.fromSeconds(1), Time.fromSeconds(6)),
+        is(ids("a", "b", "c")));
+    assertThat(timeline.isActive("b", Time.fromNanos(4 * SECOND - 1)), is(true));
+    assertThat(timeline.isActive("b", Time.fromSeconds(4)), is(false));
+  }
+
+  @Test
+  public void testActivityPropagatesDownstream() throws Exception {
+    final Node loop = Node.builder()
+        .id("loop")
+        .kind(LoopNode.PLUGIN_KIND)
+        .config("when", 10 * SECOND, "duration", SECOND, "loopCount", 2)
+        .build();
+    final Timeline timeline = Timeline.of(graph(
+        Arrays.asList(
+            source("a", FileNode.PLUGIN_KIND, 0, 2 * SECOND),
+            source("b", FileNode.PLUGIN_KIND, 4 * SECOND, 2 * SECOND),
+            loop,
+            gain("gain"),
+            gain("idle")),
+        Arrays.asList(
+            Edge.create("e0", "a", "loop"),
+            Edge.create("e1", "b", "loop"),
+            Edge.create("e2", "loop", "gain"))));
+
+    assertThat(timeline.intervals("gain").size(), is(3));
+    assertThat(timeline.activeAt(Time.fromSeconds(5)), is(ids("b", "loop", "gain")));
+    assertThat(timeline.activeAt(Time.fromSeconds(11)), is(ids("loop", "gain")));
+    assertThat(timeline.activeAt(Time.fromSeconds(12)), is(ids()));
+    assertThat(timeline.isActive("idle", Time.fromSeconds(1)), is(false));
+  }
+
+  @Test
+  public void testIncrementalUpdates() throws Exception {
+    final Timeline timeline = Timeline.of(graph(
+        Arrays.asList(source("a", FileNode.PLUGIN_KIND, 0, SECOND), gain("g1"), gain("g2")),
+        Arrays.asList(Edge.create("e0", "a", "g1"), Edge.create("e1", "g1", "g2"))));
+    assertThat(timeline.isActive("g2", Time.fromNanos(0)), is(true));
+
+    timeline.putNode(source("a", FileNode.PLUGIN_KIND, 5 * SECOND, SECOND));
+    assertThat(timeline.activeAt(Time.fromNanos(0)), is(ids()));
+    assertThat(timeline.activeAt(Time.fromSeconds(5)), is(ids("a", "g1", "g2")));
+
+    timeline.removeEdge("e1");
+    assertThat(timeline.activeAt(Time.fromSeconds(5)), is(ids("a", "g1")));
+
+    timeline.putEdge(Edge.create("e2", "a", "g2"));
+    assertThat(timeline.activeAt(Time.fromSeconds(5)), is(ids("a", "g1", "g2")));
+
+    timeline.removeNode("a");
+    assertThat(timeline.activeDuring(Time.fromNanos(0), Time.fromNanos(Long.MAX_VALUE)),
+        is(ids()));
+  }
+
+  @Test
+  public void testCyclesDoNotKeepNodesActive() throws Exception {
+    final Timeline timeline = Timeline.of(graph(
+        Arrays.asList(source("a", FileNode.PLUGIN_KIND, 0, SECOND), gain("g1"), gain("g2")),
+        Arrays.asList(
+            Edge.create("e0", "a", "g1"),
+            Edge.create("e1", "g1", "g2"),
+            Edge.create("e2", "g2", "g1"))));
+    assertThat(timeline.activeAt(Time.fromNanos(0)), is(ids("a", "g1", "g2")));
+
+    timeline.removeEdge("e0");
+    assertThat(timeline.activeAt(Time.fromNanos(0)), is(ids("a")));
+  }
+
+  @Test
+  public void testKitchenSink() throws Exception {
+    final Score score = Converter.getInstance().fromJsonString(Resources.toString(
+        TimelineTest.class.getResource("/fixtures/kitchen-sink.json"), Charsets.UTF_8));
+    final Graph graph = score.graph();
+    final Timeline timeline = Timeline.of(graph);
+
+    final Set<String> active = timeline.activeDuring(
+        Time.fromNanos(0), Time.fromNanos(Long.MAX_VALUE));
+    for (final String id : active) {
+      assertThat(graph.nodes().stream().anyMatch(node -> node.id().equals(id)), is(true));
+    }
+    assertThat(active.isEmpty(), is(false));
+  }
+
+  private static Graph graph(final List<Node> nodes,
+                             final List<Edge> edges) {
+    return Graph.builder().id("graph").nodes(nodes).edges(edges).build();
+  }
+
+  private static Node gain(final String id) {
+    return Node.builder().id(id).kind(GainNode.PLUGIN_KIND).build();
+  }
+
+  private static Set<String> ids(final String... ids) {
+    return new HashSet<>(Arrays.asList(ids));
+  }
+}
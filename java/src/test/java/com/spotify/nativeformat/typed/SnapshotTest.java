@@ -0,0 +1,78 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.typed;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.spotify.nativeformat.score.Command;
+import com.spotify.nativeformat.score.LoadingPolicy;
+import com.spotify.nativeformat.score.Time;
+import com.spotify.nativeformat.typed.nodes.FileNode;
+import com.spotify.nativeformat.typed.nodes.GainNode;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class SnapshotTest {
+
+  @Test
+  public void testParamsAreReplacedWhenAParamChanges() throws Exception {
+    final GainNode gain = GainNode.create();
+    final Map<String, List<Command>> before = gain.params();
+    assertThat(gain.params(), sameInstance(before));
+
+    gain.gain().setValueAtTime(0.5, Time.fromSeconds(1));
+
+    final Map<String, List<Command>> after = gain.params();
+    assertThat(after, not(sameInstance(before)));
+    assertThat(before.get("gain").size(), is(0));
+    assertThat(after.get("gain").size(), is(1));
+    assertThat(gain.params(), sameInstance(after));
+  }
+
+  @Test
+  public void testConfigAndPortsAreShared() throws Exception {
+    final FileNode file = FileNode.create(LoadingPolicy.ALL_CONTENT_PLAYTHROUGH,
+        new FileNode.Config().file("file.mp3"));
+    final FileNode other = FileNode.create(LoadingPolicy.ALL_CONTENT_PLAYTHROUGH,
+        new FileNode.Config().file("other.mp3"));
+
+    assertThat(file.config(), sameInstance(file.config()));
+    assertThat(file.outputs(), sameInstance(other.outputs()));
+    assertThat(file.params().isEmpty(), is(true));
+    assertThat(file.inputs().isEmpty(), is(true));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testParamsAreImmutable() throws Exception {
+    final GainNode gain = GainNode.create();
+    gain.gain().setValueAtTime(0.5, Time.fromSeconds(1));
+    gain.params().get("gain").clear();
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testConfigIsImmutable() throws Exception {
+    FileNode.create(new FileNode.Config().file("file.mp3")).config().clear();
+  }
+}
@@ -0,0 +1,131 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.typed;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import com.spotify.nativeformat.score.Converter;
+import com.spotify.nativeformat.score.Graph;
+import com.spotify.nativeformat.score.LoadingPolicy;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.Time;
+import com.spotify.nativeformat.typed.nodes.FileNode;
+import com.spotify.nativeformat.typed.nodes.GainNode;
+import com.spotify.nativeformat.typed.nodes.TypedNode;
+import com.spotify.nativeformat.typed.nodes.TypedNodes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class TypedGraphTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void testViewsMatchConvertedNodes() throws Exception {
+    final Graph graph = Converter.getInstance().fromJsonString(Resources.toString(
+        TypedGraphTest.class.getResource("/fixtures/kitchen-sink.json"), Charsets.UTF_8)).graph();
+
+    final TypedGraph converted = TypedGraph.from(graph);
+    final TypedGraph viewed = TypedGraph.view(graph);
+
+    assertThat(converted.nodes().size() + converted.untypedNodes().size(),
+        is(graph.nodes().size()));
+    assertThat(viewed.nodes().size(), is(converted.nodes().size()));
+    for (int i = 0; i < converted.nodes().size(); i++) {
+      final TypedNode expected = converted.nodes().get(i);
+      final TypedNode actual = viewed.nodes().get(i);
+      assertThat(actual.getClass(), sameInstance((Object) expected.getClass()));
+      assertThat(actual.id(), is(expected.id()));
+      assertThat(actual.params(), is(expected.params()));
+      assertThat(actual.config(), is(expected.config()));
+    }
+    for (final Node node : converted.untypedNodes()) {
+      assertThat(TypedNodes.isTyped(node.kind()), is(false));
+    }
+  }
+
+  @Test
+  public void testLargeGraphsKeepNodeOrder() throws Exception {
+    final List<Node> nodes = new ArrayList<>();
+    for (int i = 0; i < TypedGraph.PARALLEL_THRESHOLD * 2; i++) {
+      nodes.add(Node.builder().id("n" + i).kind(GainNode.PLUGIN_KIND).build());
+    }
+    final Graph graph = Graph.builder().id("graph").nodes(nodes).build();
+
+    final TypedGraph typed = TypedGraph.from(graph);
+
+    assertThat(typed.nodes(GainNode.class).size(), is(nodes.size()));
+    for (int i = 0; i < nodes.size(); i++) {
+      assertThat(typed.nodes().get(i).id(), is("n" + i));
+    }
+    assertThat(typed.node("n7"), sameInstance(typed.nodes().get(7)));
+    assertThat(typed.node("missing"), is(nullValue()));
+  }
+
+  @Test
+  public void testViewsKeepParamChanges() throws Exception {
+    final Node node = Node.builder()
+        .id("gain")
+        .kind(GainNode.PLUGIN_KIND)
+        .loadingPolicy(LoadingPolicy.ALL_CONTENT_PLAYTHROUGH)
+        .build();
+    final GainNode gain = GainNode.view(node);
+
+    gain.gain().setValueAtTime(0.5, Time.fromSeconds(1));
+
+    assertThat(gain.params().get("gain").size(), is(1));
+    assertThat(node.params().isEmpty(), is(true));
+  }
+
+  @Test
+  public void testViewsReportInvalidValuesOnAccess() throws Exception {
+    final Node node = Node.builder()
+        .id("file")
+        .kind(FileNode.PLUGIN_KIND)
+        .loadingPolicy(LoadingPolicy.ALL_CONTENT_PLAYTHROUGH)
+        .config(Collections.singletonMap("when", 0))
+        .build();
+    final TypedNode view = TypedNodes.view(node);
+    assertThat(view, instanceOf(FileNode.class));
+
+    expectedException.expect(RuntimeException.class);
+    expectedException.expectMessage("arg=file is not set");
+    ((FileNode) view).file();
+  }
+
+  @Test
+  public void testUnknownKind() throws Exception {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("unknown plugin kind=com.example.unknown");
+    TypedNodes.from(Node.builder().id("node").kind("com.example.unknown").build());
+  }
+}
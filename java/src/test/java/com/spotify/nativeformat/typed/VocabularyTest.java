@@ -0,0 +1,70 @@
+/*-
+ * -\-\-
+ * nf-grapher-java
+ * --
+ * Copyright (C) 2016 - 2018 Spotify AB
+ * --
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * -/-/-
+ */
+
+package com.spotify.nativeformat.typed;
+
+import static org.hamcrest.CoreMatchers.hasItems;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.spotify.nativeformat.score.Command;
+import com.spotify.nativeformat.score.Converter;
+import com.spotify.nativeformat.score.Node;
+import com.spotify.nativeformat.score.Score;
+import com.spotify.nativeformat.typed.nodes.GainNode;
+import com.spotify.nativeformat.typed.nodes.Vocabulary;
+import org.junit.Test;
+
+public class VocabularyTest {
+
+  @Test
+  public void testNames() {
+    assertThat(Vocabulary.getNames(), hasItems(
+        GainNode.PLUGIN_KIND, "gain", "filterType", "bandPass", "audio",
+        "linearRampToValueAtTime", "endTime"));
+  }
+
+  @Test
+  public void testCanonicalizingConverterSharesInstances() throws Exception {
+    final String json = Converter.getInstance().toJsonString(FadeInExampleTest.buildScore());
+    final Converter converter = Converter.newCanonicalizingInstance(Vocabulary.newCanonicalizer());
+
+    final Node first = gainNode(converter.fromJsonString(new String(json.toCharArray())));
+    final Node second = gainNode(converter.fromJsonString(new String(json.toCharArray())));
+
+    assertThat(first, is(second));
+    assertThat(first.kind(), sameInstance(GainNode.PLUGIN_KIND));
+    final Command command = first.params().get("gain").get(0);
+    assertThat(second.params().get("gain").get(0), sameInstance(command));
+
+    final Node plain = gainNode(Converter.getInstance().fromJsonString(json));
+    assertThat(plain, is(first));
+    assertThat(plain.kind(), not(sameInstance(GainNode.PLUGIN_KIND)));
+  }
+
+  private static Node gainNode(final Score score) {
+    return score.graph().nodes().stream()
+        .filter(node -> GainNode.PLUGIN_KIND.equals(node.kind()))
+        .findFirst()
+        .orElseThrow(AssertionError::new);
+  }
+}
@@ -21,6 +21,8 @@ import { OutputFile } from '../interfaces';
 import { default as renderParamClass } from './renderers/ParamClass';
 import { default as renderNodeClass } from './renderers/NodeClass';
 import { default as renderScore } from './renderers/Score';
+import { default as renderVocabulary } from './renderers/Vocabulary';
+import { default as renderTypedNodes } from './renderers/TypedNodes';
 import { JSONSchema4 } from 'json-schema';
 
 export async function render(
@@ -31,5 +33,7 @@ export async function render(
     ...contractDef.paramKindDefs.map(renderParamClass),
     ...contractDef.pluginDefs.map(renderNodeClass),
     renderScore(contractDef),
+    renderVocabulary(contractDef),
+    renderTypedNodes(contractDef),
   ].map(f => ({ ...f, content: `/* Generated */\n\n${f.content}` }));
 }
@@ -26,7 +26,7 @@ import {
   valueTokenForValue
 } from '../helpers';
 import { OutputFile } from '../../interfaces';
-import { isEmpty, isUndefined, map, uniqBy } from 'lodash';
+import { flatMap, isEmpty, isUndefined, map, uniq, uniqBy } from 'lodash';
 import { asList, when } from '../../utils';
 
 function nodeNameFromKind(kind: string): string {
@@ -186,6 +186,7 @@ export default function render(def: PluginDef): OutputFile {
     `)}
 
     import java.util.Arrays;
+    import java.util.Collections;
     import java.util.HashMap;
     import java.util.List;
     import java.util.Map;
@@ -212,17 +213,61 @@ export default function render(def: PluginDef): OutputFile {
           ArgMapper.${isEnum ? 'newEnumArg' : argMapper}("${name}", ${isEnum ? `${type}.fromValue(${value})` : value}${isEnum ? `, ${type}.class` : ''});
       `)}
 
+      /**
+       * Plugin kind, param, config, port and option names used by this node.
+       */
+      static final List<String> VOCABULARY = Arrays.asList(
+          ${asList([
+            'PLUGIN_KIND',
+            ...map([...params, ...configs], ({ constant }) => `${constant}.getName()`),
+            ...uniq([
+              ...map([...inputs, ...outputs], ({ name }) => name),
+              ...flatMap(configs, ({ possibleValues }) => possibleValues || []),
+            ]).map(name => `"${name}"`)
+          ])});
+
+      private static final Map<String, ContentType> INPUTS = ${isEmpty(inputs) ? 'Collections.emptyMap()' : 'newInputs()'};
+
+      private static final Map<String, ContentType> OUTPUTS = ${isEmpty(outputs) ? 'Collections.emptyMap()' : 'newOutputs()'};
+
+      /**
+       * The Score Node a view reads its values from, or null.
+       */
+      private final Node node;
+
+      ${when(!isEmpty(params), () => source`
+      /**
+       * An immutable snapshot of params(), replaced when a param changes.
+       */
+      private Map<String, List<Command>> paramsSnapshot;
+
+      private long paramsVersion;
+      `)}
+
+      ${when(!isEmpty(configs), () => source`
+      /**
+       * An immutable snapshot of config(), created on first use.
+       */
+      private Map<String, Object> configSnapshot;
+      `)}
+
       ${map([...params, ...configs], ({ type, property }) => `
       private ${type} ${property};
       `)}
 
       private ${className}(String id, LoadingPolicy loadingPolicy, ${asList([...params, ...configs], ({ type, property }) => `${type} ${property}`)}) {
         super(id, PLUGIN_KIND, loadingPolicy);
+        this.node = null;
         ${map([...params, ...configs], ({ property }) => `
         this.${property} = ${property};
         `)}
       }
 
+      private ${className}(Node node) {
+        super(node.id(), PLUGIN_KIND, node.loadingPolicy());
+        this.node = node;
+      }
+
       /**
        * Factory method. Generates a random id for the created instance.
        *
@@ -286,43 +331,99 @@ export default function render(def: PluginDef): OutputFile {
         );
       }
 
-      ${map([...params, ...configs], ({ type, property, description }) => `
+      /**
+       * Creates a ${className} that reads its values from the given Score Node when they are first
+       * accessed. Invalid values are reported by the accessors instead of by this method.
+       *
+       * @param node the Score Node to read from
+       * @return a new ${className}
+       */
+      public static ${className} view(Node node) {
+        if (!PLUGIN_KIND.equals(node.kind())) {
+          throw new RuntimeException("expected plugin kind=" + PLUGIN_KIND);
+        }
+
+        return new ${className}(node);
+      }
+
+      ${map(params, ({ type, property, description, constant }) => `
       /**
        * ${description}
        *
        * @return ${type}
        */
       public ${type} ${property}() {
+        if (this.${property} == null) {
+          this.${property} = ${constant}.readParam(this.node);
+        }
         return this.${property};
       }
       `)}
 
+      ${map(configs, ({ type, property, description, constant }) => `
+      /**
+       * ${description}
+       *
+       * @return ${type}
+       */
+      public ${type} ${property}() {
+        if (this.${property} == null) {
+          this.${property} = ${constant}.readConfig(this.node);
+        }
+        return this.${property};
+      }
+      `)}
+
+      ${when(!isEmpty(inputs), () => source`
+      private static Map<String, ContentType> newInputs() {
+        final Map<String, ContentType> inputsResult = new HashMap<>();
+        ${map(inputs, i => `inputsResult.put("${i.name}", ContentType.${i.kind});`)}
+        return Collections.unmodifiableMap(inputsResult);
+      }
+      `)}
+
+      ${when(!isEmpty(outputs), () => source`
+      private static Map<String, ContentType> newOutputs() {
+        final Map<String, ContentType> outputsResult = new HashMap<>();
+        ${map(outputs, o => `outputsResult.put("${o.name}", ContentType.${o.kind});`)}
+        return Collections.unmodifiableMap(outputsResult);
+      }
+      `)}
+
       @Override
       public Map<String, List<Command>> params() {
-        final Map<String, List<Command>> paramsResult = new HashMap<>();
-        ${map(params, p => `${p.constant}.addToMap(${p.property}, paramsResult);`)}
-        return paramsResult;
+        ${isEmpty(params) ? 'return Collections.emptyMap();' : source`
+        final long version = ${params.map(p => `${p.property}().getVersion()`).join(' + ')};
+        if (this.paramsSnapshot == null || this.paramsVersion != version) {
+          final Map<String, List<Command>> paramsResult = new HashMap<>();
+          ${map(params, p => `${p.constant}.addToMap(${p.property}(), paramsResult);`)}
+          this.paramsSnapshot = snapshot(paramsResult);
+          this.paramsVersion = version;
+        }
+        return this.paramsSnapshot;
+        `}
       }
 
       @Override
       public Map<String, Object> config() {
-        final Map<String, Object> configResult = new HashMap<>();
-        ${map(configs, c => `${c.constant}.addToMap(${c.property}, configResult);`)}
-        return configResult;
+        ${isEmpty(configs) ? 'return Collections.emptyMap();' : source`
+        if (this.configSnapshot == null) {
+          final Map<String, Object> configResult = new HashMap<>();
+          ${map(configs, c => `${c.constant}.addToMap(${c.property}(), configResult);`)}
+          this.configSnapshot = Collections.unmodifiableMap(configResult);
+        }
+        return this.configSnapshot;
+        `}
       }
 
       @Override
       public Map<String, ContentType> inputs() {
-        final Map<String, ContentType> inputsResult = new HashMap<>();
-        ${map(inputs, i => `inputsResult.put("${i.name}", ContentType.${i.kind});`)}
-        return inputsResult;
+        return INPUTS;
       }
 
       @Override
       public Map<String, ContentType> outputs() {
-        final Map<String, ContentType> outputsResult = new HashMap<>();
-        ${map(outputs, o => `outputsResult.put("${o.name}", ContentType.${o.kind});`)}
-        return outputsResult;
+        return OUTPUTS;
       }
 
       ${renderConfigEnums(def)}
@@ -22,7 +22,7 @@ import { asList } from '../../utils';
 import { ParamKindDef } from '../../defs.generated';
 import { typeTokenForValueKind, pathForClass } from '../helpers';
 import { OutputFile } from '../../interfaces';
-import { map } from 'lodash';
+import { flatMap, map, uniq } from 'lodash';
 
 function createRenderData(def: ParamKindDef) {
   return {
@@ -41,6 +41,46 @@ function createRenderData(def: ParamKindDef) {
   };
 }
 
+/**
+ * Primitive types accepted in place of a list(float) argument, and how their values are described.
+ */
+const PRIMITIVE_FLOAT_LISTS = [
+  { type: 'double[]', copied: 'which are copied' },
+  { type: 'float[]', copied: 'which are copied' },
+  { type: 'DoubleBuffer', copied: "which are copied from the buffer's remaining values" },
+];
+
+/**
+ * Renders overloads of a command method that take primitive arrays or buffers in place of a
+ * list(float) argument, stored as a DoubleList.
+ */
+function primitiveOverloads(
+  className: string,
+  description: string,
+  method: string,
+  params: { name: string; type: string }[],
+  argDefs: { name: string; kind: string; description: string }[]
+): string[] {
+  const listArg = argDefs.find(a => a.kind === 'list(float)');
+  if (!listArg) {
+    return [];
+  }
+  const isListArg = (p: { name: string }) => p.name === camel(listArg.name);
+  return map(PRIMITIVE_FLOAT_LISTS, ({ type, copied }) => source`
+    /**
+     * ${description} The values are stored in a primitive array.
+     *
+     ${map(argDefs, a => a === listArg
+       ? `@param ${a.name} ${a.description.replace(/\.$/, '')}, ${copied}.`
+       : `@param ${a.name} ${a.description}`)}
+     * @return this ${className} instance
+     */
+    public ${className} ${method}(${asList(params, p => `final ${isListArg(p) ? type : p.type} ${p.name}`)}) {
+      return ${method}(${asList(params, p => isListArg(p) ? `DoubleList.of(${p.name})` : p.name)});
+    }
+  `);
+}
+
 export default function render(def: ParamKindDef): OutputFile {
   const { description, packageName, className, valueType, commands } = createRenderData(def);
   const filepath = pathForClass(packageName, className);
@@ -49,9 +89,13 @@ export default function render(def: ParamKindDef): OutputFile {
 
     import com.spotify.nativeformat.schema.ParamMapper;
     import com.spotify.nativeformat.score.Command;
+    import com.spotify.nativeformat.score.DoubleList;
     import com.spotify.nativeformat.score.Time;
 
+    import java.nio.DoubleBuffer;
+
     import java.util.ArrayList;
+    import java.util.Arrays;
     import java.util.Collections;
     import java.util.List;
 
@@ -60,6 +104,12 @@ export default function render(def: ParamKindDef): OutputFile {
      */
     public class ${className} extends TypedParam<${valueType}> {
 
+      /**
+       * Command and argument names used by this param.
+       */
+      public static final List<String> VOCABULARY = Arrays.asList(
+          ${asList(uniq(flatMap(commands, ({ name, argDefs }) => [name, ...map(argDefs, a => a.name)])), name => `"${name}"`)});
+
       private List<Command> commands;
 
       private ${className}(${valueType} initialValue, List<Command> commands) {
@@ -99,8 +149,10 @@ export default function render(def: ParamKindDef): OutputFile {
               `)}
               .build()
         );
+        modified();
         return this;
       }
+      ${primitiveOverloads(className, description, method, params, argDefs)}
       `)}
     }
   `;
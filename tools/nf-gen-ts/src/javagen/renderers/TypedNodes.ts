@@ -0,0 +1,129 @@
+// Copyright (c) 2018 Spotify AB.
+// 
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+// 
+//   http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+import { pascal } from 'case';
+import { source } from 'common-tags';
+import { ContractDef } from '../../defs.generated';
+import { pathForClass } from '../helpers';
+import { OutputFile } from '../../interfaces';
+
+export default function render(contractDef: ContractDef): OutputFile {
+  const packageName = 'com.spotify.nativeformat.typed.nodes';
+  const className = 'TypedNodes';
+  const nodeClasses = contractDef.pluginDefs
+    .map(def => `${pascal(def.kind.split('.').pop() || '')}Node`);
+
+  const filepath = pathForClass(packageName, className);
+  const content = /* prettier-ignore */ source`
+    package ${packageName};
+
+    import com.spotify.nativeformat.score.Node;
+    import java.util.Collections;
+    import java.util.HashMap;
+    import java.util.Map;
+    import java.util.function.Function;
+
+    /**
+     * The typed node factories for every plugin kind defined by the score contract.
+     */
+    public final class ${className} {
+
+      private static final Map<String, Function<Node, TypedNode>> FACTORIES = factories();
+
+      private static final Map<String, Function<Node, TypedNode>> VIEW_FACTORIES = viewFactories();
+
+      private ${className}() {
+      }
+
+      /**
+       * Returns the <code>from</code> factory of every typed node, keyed by plugin kind.
+       *
+       * @return an unmodifiable map of plugin kinds to factories
+       */
+      public static Map<String, Function<Node, TypedNode>> getFactories() {
+        return FACTORIES;
+      }
+
+      /**
+       * Returns the <code>view</code> factory of every typed node, keyed by plugin kind.
+       *
+       * @return an unmodifiable map of plugin kinds to factories
+       */
+      public static Map<String, Function<Node, TypedNode>> getViewFactories() {
+        return VIEW_FACTORIES;
+      }
+
+      /**
+       * @param kind a plugin kind
+       * @return true if there is a typed node for the plugin kind
+       */
+      public static boolean isTyped(final String kind) {
+        return FACTORIES.containsKey(kind);
+      }
+
+      /**
+       * Creates a typed node from the given Score Node, reading all of its values.
+       *
+       * @param node the Score Node to convert from
+       * @return a new typed node
+       * @throws IllegalArgumentException if there is no typed node for the node's plugin kind
+       */
+      public static TypedNode from(final Node node) {
+        return factory(FACTORIES, node).apply(node);
+      }
+
+      /**
+       * Creates a typed node that reads its values from the given Score Node when they are first
+       * accessed.
+       *
+       * @param node the Score Node to read from
+       * @return a new typed node
+       * @throws IllegalArgumentException if there is no typed node for the node's plugin kind
+       */
+      public static TypedNode view(final Node node) {
+        return factory(VIEW_FACTORIES, node).apply(node);
+      }
+
+      private static Function<Node, TypedNode> factory(
+          final Map<String, Function<Node, TypedNode>> factories, final Node node) {
+        final Function<Node, TypedNode> factory = factories.get(node.kind());
+        if (factory == null) {
+          throw new IllegalArgumentException("unknown plugin kind=" + node.kind());
+        }
+        return factory;
+      }
+
+      private static Map<String, Function<Node, TypedNode>> factories() {
+        final Map<String, Function<Node, TypedNode>> factories = new HashMap<>();
+        ${nodeClasses.map(c => `
+        factories.put(${c}.PLUGIN_KIND, ${c}::from);
+        `)}
+        return Collections.unmodifiableMap(factories);
+      }
+
+      private static Map<String, Function<Node, TypedNode>> viewFactories() {
+        final Map<String, Function<Node, TypedNode>> factories = new HashMap<>();
+        ${nodeClasses.map(c => `
+        factories.put(${c}.PLUGIN_KIND, ${c}::view);
+        `)}
+        return Collections.unmodifiableMap(factories);
+      }
+    }
+  `;
+  return { filepath, content };
+}
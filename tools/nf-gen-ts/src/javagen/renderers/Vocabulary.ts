@@ -0,0 +1,86 @@
+// Copyright (c) 2018 Spotify AB.
+// 
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+// 
+//   http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+import { pascal } from 'case';
+import { source } from 'common-tags';
+import { ContractDef } from '../../defs.generated';
+import { pathForClass } from '../helpers';
+import { OutputFile } from '../../interfaces';
+
+export default function render(contractDef: ContractDef): OutputFile {
+  const packageName = 'com.spotify.nativeformat.typed.nodes';
+  const className = 'Vocabulary';
+  const nodeClasses = contractDef.pluginDefs
+    .map(def => `${pascal(def.kind.split('.').pop() || '')}Node`);
+  const paramClasses = contractDef.paramKindDefs
+    .map(def => `${pascal(def.kind)}Param`);
+
+  const filepath = pathForClass(packageName, className);
+  const content = /* prettier-ignore */ source`
+    package ${packageName};
+
+    import com.spotify.nativeformat.score.Canonicalizer;
+    ${paramClasses.map(p => `
+    import com.spotify.nativeformat.typed.params.${p};
+    `)}
+
+    import java.util.ArrayList;
+    import java.util.Collections;
+    import java.util.List;
+
+    /**
+     * The names defined by the score contract, for sharing strings between decoded Scores.
+     */
+    public final class ${className} {
+
+      private static final List<String> NAMES = names();
+
+      private ${className}() {
+      }
+
+      /**
+       * Returns every plugin kind, param, config, port, option, command and argument name defined
+       * by the score contract.
+       *
+       * @return an unmodifiable list of names
+       */
+      public static List<String> getNames() {
+        return NAMES;
+      }
+
+      /**
+       * Returns a new Canonicalizer for the names defined by the score contract.
+       *
+       * @return a new Canonicalizer
+       */
+      public static Canonicalizer newCanonicalizer() {
+        return Canonicalizer.of(NAMES);
+      }
+
+      private static List<String> names() {
+        final List<String> names = new ArrayList<>();
+        ${[...nodeClasses, ...paramClasses].map(c => `
+        names.addAll(${c}.VOCABULARY);
+        `)}
+        return Collections.unmodifiableList(names);
+      }
+    }
+  `;
+
+  return { filepath, content };
+}